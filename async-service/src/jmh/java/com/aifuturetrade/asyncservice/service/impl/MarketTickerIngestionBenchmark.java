@@ -0,0 +1,135 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.config.WebSocketConfig;
+import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.entity.ExistingSymbolData;
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.aifuturetrade.asyncservice.market.RawTickerParser;
+import com.aifuturetrade.asyncservice.market.TickerSlotTable;
+import com.binance.connector.client.common.JSON;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketTickersStreamsResponse;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketTickersStreamsResponseInner;
+import com.google.gson.reflect.TypeToken;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全市场ticker摄入热路径基准测试（每次操作处理一条!ticker@arr消息）
+ *
+ * - gsonDeserialize：DTO模式的SDK Gson反序列化
+ * - rawParse：raw模式的RawTickerParser解析到槽位表（对照组）
+ * - normalize：normalizeTicker + USDT筛选
+ * - merge：handleMessage中合并现有状态并计算涨跌幅的循环（mergeExistingStates）
+ *
+ * 配合-prof gc查看每条消息的分配量（gc.alloc.rate.norm）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MarketTickerIngestionBenchmark {
+
+    private static final TypeToken<AllMarketTickersStreamsResponse> TICKERS_TYPE =
+            new TypeToken<AllMarketTickersStreamsResponse>() {};
+
+    /**
+     * 合成报文的ticker数量（使用录制报文时忽略）
+     */
+    @Param({"300"})
+    public int symbols;
+
+    private List<String> payloads;
+    private List<AllMarketTickersStreamsResponse> responses;
+    private MarketTickerStreamServiceImpl streamService;
+    private final RawTickerParser rawTickerParser = new RawTickerParser();
+    private final TickerSlotTable tickerSlotTable = new TickerSlotTable();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        payloads = TickerPayloads.load(60, symbols);
+        responses = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            responses.add(JSON.getGson().fromJson(payload, TICKERS_TYPE));
+        }
+
+        // 状态表预热：一半symbol已有开盘价，另一半按新symbol处理
+        List<ExistingSymbolData> existing = new ArrayList<>();
+        AllMarketTickersStreamsResponse first = responses.get(0);
+        for (int i = 0; i < first.size(); i += 2) {
+            AllMarketTickersStreamsResponseInner inner = first.get(i);
+            ExistingSymbolData data = new ExistingSymbolData();
+            data.setSymbol(inner.getsLowerCase());
+            data.setOpenPrice(Double.parseDouble(inner.getoLowerCase()));
+            data.setLastPrice(Double.parseDouble(inner.getcLowerCase()));
+            data.setUpdatePriceDate(LocalDateTime.now());
+            existing.add(data);
+        }
+        MarketTickerMapper mapper = Mockito.mock(MarketTickerMapper.class);
+        Mockito.when(mapper.selectAllSymbolData()).thenReturn(existing);
+        MarketSymbolStateServiceImpl symbolStateService = new MarketSymbolStateServiceImpl(mapper);
+        symbolStateService.ensureWarmedUp();
+
+        streamService = new MarketTickerStreamServiceImpl(new WebSocketConfig(), mapper, symbolStateService,
+                null, new TickerHistoryServiceImpl(), new TickerIngestionMetricsServiceImpl());
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = (cursor + 1) % payloads.size();
+        return index;
+    }
+
+    @Benchmark
+    public AllMarketTickersStreamsResponse gsonDeserialize() {
+        return JSON.getGson().fromJson(payloads.get(next()), TICKERS_TYPE);
+    }
+
+    @Benchmark
+    public int rawParse() {
+        return rawTickerParser.parse(payloads.get(next()), tickerSlotTable);
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        blackhole.consume(normalizeUsdt(responses.get(next())));
+    }
+
+    @Benchmark
+    public List<MarketTickerDO> merge(MergeInput input) {
+        return streamService.mergeExistingStates(input.tickers);
+    }
+
+    private List<MarketTickerDO> normalizeUsdt(AllMarketTickersStreamsResponse response) {
+        List<MarketTickerDO> usdtTickers = new ArrayList<>(response.size());
+        for (AllMarketTickersStreamsResponseInner inner : response) {
+            MarketTickerDO ticker = streamService.normalizeTicker(inner);
+            if (ticker != null && ticker.getSymbol() != null && ticker.getSymbol().endsWith("USDT")) {
+                usdtTickers.add(ticker);
+            }
+        }
+        return usdtTickers;
+    }
+
+    /**
+     * 合并会就地修改ticker（时区转换等），每次调用前重新标准化一份输入（不计入测量）
+     */
+    @State(Scope.Thread)
+    public static class MergeInput {
+
+        List<MarketTickerDO> tickers;
+
+        @Setup(Level.Invocation)
+        public void prepare(MarketTickerIngestionBenchmark benchmark) {
+            tickers = benchmark.normalizeUsdt(benchmark.responses.get(benchmark.next()));
+        }
+    }
+}
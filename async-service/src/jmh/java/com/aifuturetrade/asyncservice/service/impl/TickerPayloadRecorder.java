@@ -0,0 +1,45 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 录制!ticker@arr原始报文，供基准测试通过-Dticker.payloads回放
+ *
+ * 运行方式（需要能访问币安WebSocket，参数为输出文件和录制条数）：
+ * mvn -Pjmh -DskipTests test-compile exec:java \
+ *   -Dexec.mainClass=com.aifuturetrade.asyncservice.service.impl.TickerPayloadRecorder \
+ *   -Dexec.args="ticker-arr.jsonl 120"
+ */
+public final class TickerPayloadRecorder {
+
+    private TickerPayloadRecorder() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path output = Paths.get(args.length > 0 ? args[0] : "ticker-arr.jsonl");
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+
+        MarketTickerStreamConnection connection = MarketTickerStreamConnection.open(1, 4L * 1024 * 1024,
+                error -> System.err.println("[TickerPayloadRecorder] WebSocket错误: " + error));
+        int recorded = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            while (recorded < messages && !connection.isFailed()) {
+                String payload = connection.poll(5, TimeUnit.SECONDS);
+                if (payload == null) {
+                    continue;
+                }
+                writer.write(payload.replace('\n', ' '));
+                writer.newLine();
+                recorded++;
+            }
+        } finally {
+            connection.close();
+        }
+        System.out.printf("[TickerPayloadRecorder] 已录制%d条报文到%s%n", recorded, output.toAbsolutePath());
+    }
+}
@@ -0,0 +1,96 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 基准测试使用的!ticker@arr报文
+ *
+ * 指定-Dticker.payloads=文件时读取录制的报文（每行一条，可用TickerPayloadRecorder录制）；
+ * 否则按固定随机种子生成与真实报文字段、数量级一致的合成报文。
+ */
+final class TickerPayloads {
+
+    static final String PAYLOADS_PROPERTY = "ticker.payloads";
+
+    private TickerPayloads() {
+    }
+
+    static List<String> load(int syntheticMessages, int syntheticSymbols) throws IOException {
+        String file = System.getProperty(PAYLOADS_PROPERTY);
+        if (file != null && !file.isBlank()) {
+            Path path = Paths.get(file);
+            List<String> payloads = new ArrayList<>();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    payloads.add(line.trim());
+                }
+            }
+            if (payloads.isEmpty()) {
+                throw new IllegalStateException("No payloads in " + path);
+            }
+            return payloads;
+        }
+        return synthetic(syntheticMessages, syntheticSymbols);
+    }
+
+    static List<String> synthetic(int messages, int symbols) {
+        Random random = new Random(42);
+        double[] basePrices = new double[symbols];
+        for (int i = 0; i < symbols; i++) {
+            basePrices[i] = Math.pow(10, random.nextInt(7) - 3) * (1 + random.nextDouble() * 9);
+        }
+        long eventTime = 1_700_000_000_000L;
+        List<String> payloads = new ArrayList<>(messages);
+        for (int m = 0; m < messages; m++) {
+            eventTime += 1000;
+            StringBuilder sb = new StringBuilder(symbols * 340);
+            sb.append('[');
+            for (int i = 0; i < symbols; i++) {
+                double last = basePrices[i] * (1 + (random.nextDouble() - 0.5) * 0.02);
+                double open = basePrices[i];
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"e\":\"24hrTicker\",\"E\":").append(eventTime)
+                        .append(",\"s\":\"").append(symbol(i)).append('"')
+                        .append(",\"p\":\"").append(price(last - open)).append('"')
+                        .append(",\"P\":\"").append(String.format(Locale.ROOT, "%.3f", (last - open) / open * 100)).append('"')
+                        .append(",\"w\":\"").append(price(open * 1.001)).append('"')
+                        .append(",\"c\":\"").append(price(last)).append('"')
+                        .append(",\"Q\":\"").append(String.format(Locale.ROOT, "%.3f", random.nextDouble() * 10)).append('"')
+                        .append(",\"o\":\"").append(price(open)).append('"')
+                        .append(",\"h\":\"").append(price(Math.max(last, open) * 1.01)).append('"')
+                        .append(",\"l\":\"").append(price(Math.min(last, open) * 0.99)).append('"')
+                        .append(",\"v\":\"").append(String.format(Locale.ROOT, "%.3f", random.nextDouble() * 1e7)).append('"')
+                        .append(",\"q\":\"").append(String.format(Locale.ROOT, "%.8f", random.nextDouble() * 1e9)).append('"')
+                        .append(",\"O\":").append(eventTime - 86_400_000L)
+                        .append(",\"C\":").append(eventTime)
+                        .append(",\"F\":").append(1_000_000L + i)
+                        .append(",\"L\":").append(2_000_000L + i + m)
+                        .append(",\"n\":").append(1_000_000L + m)
+                        .append('}');
+            }
+            sb.append(']');
+            payloads.add(sb.toString());
+        }
+        return payloads;
+    }
+
+    private static String symbol(int index) {
+        // 约10%的非USDT交易对，与真实报文中USDC/BTC计价交易对的比例接近
+        String base = "SYM" + index;
+        return index % 10 == 9 ? base + "USDC" : base + "USDT";
+    }
+
+    private static String price(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+}
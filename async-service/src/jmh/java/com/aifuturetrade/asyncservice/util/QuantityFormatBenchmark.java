@@ -0,0 +1,43 @@
+package com.aifuturetrade.asyncservice.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下单数量格式化基准测试（QuantityFormatUtil.formatQuantityForSdk，每次操作格式化一个数量）
+ *
+ * 价格覆盖全部数量级档位（0.x、个位、十/百、千、万以上），配合-prof gc查看每次调用的分配量。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class QuantityFormatBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final Double[] quantities = new Double[SIZE];
+    private final Double[] prices = new Double[SIZE];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            double price = Math.pow(10, random.nextInt(6) - 1) * (1 + random.nextDouble() * 9);
+            prices[i] = price;
+            quantities[i] = 1000.0 / price * (0.5 + random.nextDouble());
+        }
+    }
+
+    @Benchmark
+    public double formatQuantityForSdk() {
+        int index = cursor;
+        cursor = (cursor + 1) & (SIZE - 1);
+        return QuantityFormatUtil.formatQuantityForSdk(quantities[index], prices[index]);
+    }
+}
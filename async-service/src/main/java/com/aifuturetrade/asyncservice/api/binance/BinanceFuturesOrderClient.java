@@ -9,9 +9,12 @@ import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.QueryAllAlgoOrdersResponse;
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.QueryAllAlgoOrdersResponseInner;
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.CancelAllAlgoOpenOrdersResponse;
+import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.KeepaliveUserDataStreamResponse;
+import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.StartUserDataStreamResponse;
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.Side;
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.PositionSide;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -45,6 +48,19 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
         initRestApi(apiKey, apiSecret, null, null, baseUrl);
     }
 
+    /**
+     * 构造函数，使用共享的HTTP传输层（由客户端注册表创建）
+     *
+     * @param apiKey 币安API密钥
+     * @param apiSecret 币安API密钥
+     * @param quoteAsset 计价资产，默认为USDT
+     * @param sharedHttpClient 共享的OkHttpClient（连接池和调度器在所有客户端间共享）
+     */
+    public BinanceFuturesOrderClient(String apiKey, String apiSecret, String quoteAsset, OkHttpClient sharedHttpClient) {
+        this.quoteAsset = (quoteAsset != null ? quoteAsset : "USDT").toUpperCase();
+        initRestApi(apiKey, apiSecret, null, null, null, sharedHttpClient);
+    }
+
     /**
      * 构造函数，使用默认配置
      */
@@ -72,7 +88,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
 
             // 调用REST API接口 - 使用单个algoId查询
             ApiResponse<QueryAlgoOrderResponse> response =
-                    restApi.queryAlgoOrder(algoId, null, recvWindow != null ? recvWindow : 5000L);
+                    callRest(1, RequestWeightLimiter.Priority.ORDER, false,
+                            () -> restApi.queryAlgoOrder(algoId, null, recvWindow != null ? recvWindow : 5000L));
 
             // 检查HTTP状态码
             if (response == null) {
@@ -162,7 +179,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
                 }
 
                 // 调用测试订单接口
-                ApiResponse<TestOrderResponse> response = restApi.testOrder(testRequest);
+                ApiResponse<TestOrderResponse> response = callRest(1, RequestWeightLimiter.Priority.ORDER, false,
+                        () -> restApi.testOrder(testRequest));
 
                 if (response == null || response.getData() == null) {
                     throw new RuntimeException("测试接口返回为空");
@@ -197,7 +215,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
                 }
 
                 // 调用REST API接口
-                ApiResponse<NewOrderResponse> response = restApi.newOrder(orderRequest);
+                ApiResponse<NewOrderResponse> response = callRest(0, RequestWeightLimiter.Priority.ORDER, true,
+                        () -> restApi.newOrder(orderRequest));
 
                 if (response == null || response.getData() == null) {
                     throw new RuntimeException("交易接口返回为空");
@@ -267,7 +286,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
 
             // 调用REST API接口
             ApiResponse<QueryAllAlgoOrdersResponse> response =
-                    restApi.queryAllAlgoOrders(formattedSymbol, algoId, startTime, endTime, page, limit, recvWindow);
+                    callRest(5, RequestWeightLimiter.Priority.ORDER, false,
+                            () -> restApi.queryAllAlgoOrders(formattedSymbol, algoId, startTime, endTime, page, limit, recvWindow));
 
             // 处理响应
             QueryAllAlgoOrdersResponse responseData = response != null ? response.getData() : null;
@@ -320,7 +340,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
 
             // 调用REST API接口
             ApiResponse<CancelAllAlgoOpenOrdersResponse> response =
-                    restApi.cancelAllAlgoOpenOrders(formattedSymbol, recvWindow);
+                    callRest(1, RequestWeightLimiter.Priority.ORDER, false,
+                            () -> restApi.cancelAllAlgoOpenOrders(formattedSymbol, recvWindow));
 
             // 处理响应
             CancelAllAlgoOpenOrdersResponse responseData = response != null ? response.getData() : null;
@@ -343,4 +364,45 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
             return null;
         }
     }
+
+    /**
+     * 创建或延长用户数据流listenKey（同一API Key已有有效listenKey时返回该listenKey并延长60分钟）
+     *
+     * 参考 API: POST /fapi/v1/listenKey
+     *
+     * @return listenKey，失败返回null
+     */
+    public String startUserDataStream() {
+        try {
+            ApiResponse<StartUserDataStreamResponse> response =
+                    callRest(1, RequestWeightLimiter.Priority.ORDER, false, () -> restApi.startUserDataStream());
+            StartUserDataStreamResponse responseData = response != null ? response.getData() : null;
+            if (responseData == null || responseData.getListenKey() == null) {
+                log.warn("[BinanceFuturesOrderClient] 创建listenKey无返回数据");
+                return null;
+            }
+            return responseData.getListenKey();
+        } catch (Exception e) {
+            log.error("[BinanceFuturesOrderClient] 创建listenKey失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 延长用户数据流listenKey有效期（60分钟），建议每30分钟调用一次
+     *
+     * 参考 API: PUT /fapi/v1/listenKey
+     *
+     * @return 是否成功
+     */
+    public boolean keepaliveUserDataStream() {
+        try {
+            ApiResponse<KeepaliveUserDataStreamResponse> response =
+                    callRest(1, RequestWeightLimiter.Priority.ORDER, false, () -> restApi.keepaliveUserDataStream());
+            return response != null && response.getStatusCode() == 200;
+        } catch (Exception e) {
+            log.warn("[BinanceFuturesOrderClient] 延长listenKey失败: {}", e.getMessage());
+            return false;
+        }
+    }
 }
@@ -0,0 +1,256 @@
+package com.aifuturetrade.asyncservice.api.binance;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 币安REST请求权重限流器（进程内所有客户端实例共享）
+ *
+ * 按币安的统计方式使用固定窗口：IP请求权重按分钟统计，下单次数按分钟和10秒统计。
+ * 请求权重按IP统计，所有凭证共享；下单次数按账户统计，每个API Key各自一组窗口，
+ * 一个账户下单频繁不会让其他账户的订单排队。
+ * - 请求前acquire预扣权重/下单次数，超出预算时排队等待下一个窗口，而不是直接拒绝
+ * - 市场数据请求最多使用 weightPerMinute - orderReservedWeight，预留部分只给订单请求；
+ *   有订单请求因权重不足在排队时，市场数据请求让行
+ * - 响应头（X-MBX-USED-WEIGHT-1M、X-MBX-ORDER-COUNT-1M/10S）中服务端统计的数值大于本地统计时以服务端为准，
+ *   同一IP上其他进程的请求也会被计入；下单次数响应头只计入发出请求的账户
+ * - 收到429/418时按Retry-After暂停所有请求
+ */
+class RequestWeightLimiter {
+
+    /**
+     * 请求优先级
+     */
+    enum Priority {
+        /**
+         * 下单、撤单、订单查询
+         */
+        ORDER,
+        /**
+         * 行情数据
+         */
+        MARKET
+    }
+
+    static final String USED_WEIGHT_HEADER = "x-mbx-used-weight-1m";
+    static final String ORDER_COUNT_1M_HEADER = "x-mbx-order-count-1m";
+    static final String ORDER_COUNT_10S_HEADER = "x-mbx-order-count-10s";
+    private static final long DEFAULT_RETRY_AFTER_MS = 60_000L;
+
+    private final long weightWindowMs;
+    private final long orderShortWindowMs;
+    private volatile int weightPerMinute;
+    private volatile int ordersPerMinute;
+    private volatile int ordersPer10s;
+    private volatile int orderReservedWeight;
+
+    private long weightWindowStart;
+    private int usedWeight;
+    private long orderShortWindowStart;
+    /**
+     * 账户（API Key） -> 当前窗口的下单次数，窗口切换时清理，只保留本窗口内下过单的账户
+     */
+    private final Map<String, OrderCounter> orderCounters = new HashMap<>();
+    private long pausedUntilMs;
+    private int ordersWaitingForWeight;
+
+    RequestWeightLimiter(int weightPerMinute, int ordersPerMinute, int ordersPer10s, int orderReservedWeight) {
+        this(weightPerMinute, ordersPerMinute, ordersPer10s, orderReservedWeight, 60_000L, 10_000L);
+    }
+
+    RequestWeightLimiter(int weightPerMinute, int ordersPerMinute, int ordersPer10s, int orderReservedWeight,
+                         long weightWindowMs, long orderShortWindowMs) {
+        this.weightWindowMs = weightWindowMs;
+        this.orderShortWindowMs = orderShortWindowMs;
+        configure(weightPerMinute, ordersPerMinute, ordersPer10s, orderReservedWeight);
+    }
+
+    /**
+     * 更新限额（启动时由配置调用）
+     */
+    synchronized void configure(int weightPerMinute, int ordersPerMinute, int ordersPer10s, int orderReservedWeight) {
+        this.weightPerMinute = Math.max(1, weightPerMinute);
+        this.ordersPerMinute = Math.max(1, ordersPerMinute);
+        this.ordersPer10s = Math.max(1, ordersPer10s);
+        this.orderReservedWeight = Math.max(0, Math.min(orderReservedWeight, this.weightPerMinute - 1));
+        notifyAll();
+    }
+
+    /**
+     * 预扣请求权重，预算不足、处于暂停期或有更高优先级请求排队时阻塞等待
+     *
+     * @param weight 请求的IP权重
+     * @param priority 请求优先级
+     * @param orderAccount 计入下单次数的账户（API Key），为null时不计入下单次数
+     * @throws IllegalStateException 等待期间线程被中断
+     */
+    synchronized void acquire(int weight, Priority priority, String orderAccount) {
+        boolean order = priority == Priority.ORDER;
+        boolean waitingForWeight = false;
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                if (now < pausedUntilMs) {
+                    await(pausedUntilMs - now);
+                    continue;
+                }
+                rollWindows(now);
+                if (!order && ordersWaitingForWeight > 0) {
+                    await(nextWindowDelay(now));
+                    continue;
+                }
+                int capacity = order ? weightPerMinute : weightPerMinute - orderReservedWeight;
+                // 单个请求权重超过预算时，窗口为空即放行，避免永远等待
+                boolean weightFits = weight <= 0 || usedWeight + weight <= capacity || usedWeight == 0;
+                OrderCounter counter = orderAccount == null ? null : orderCounters.get(orderAccount);
+                boolean orderFits = counter == null
+                        || (counter.minuteCount < ordersPerMinute && counter.shortCount < ordersPer10s);
+                if (weightFits && orderFits) {
+                    usedWeight += Math.max(0, weight);
+                    if (orderAccount != null) {
+                        if (counter == null) {
+                            counter = new OrderCounter();
+                            orderCounters.put(orderAccount, counter);
+                        }
+                        counter.minuteCount++;
+                        counter.shortCount++;
+                    }
+                    return;
+                }
+                // 只有因权重不足排队的订单请求才需要市场数据请求让行（下单次数不足时让行没有意义）
+                if (order && waitingForWeight != !weightFits) {
+                    waitingForWeight = !weightFits;
+                    ordersWaitingForWeight += waitingForWeight ? 1 : -1;
+                }
+                await(nextWindowDelay(now));
+            }
+        } finally {
+            if (waitingForWeight) {
+                ordersWaitingForWeight--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 记录响应头中服务端统计的已用权重和下单次数
+     *
+     * @param orderAccount 发出请求的账户（API Key），下单次数响应头计入该账户，为null时忽略下单次数
+     */
+    synchronized void observeHeaders(Map<String, List<String>> headers, String orderAccount) {
+        if (headers == null || headers.isEmpty()) {
+            return;
+        }
+        rollWindows(System.currentTimeMillis());
+        Integer serverWeight = intHeader(headers, USED_WEIGHT_HEADER);
+        if (serverWeight != null) {
+            usedWeight = Math.max(usedWeight, serverWeight);
+        }
+        if (orderAccount == null) {
+            return;
+        }
+        Integer serverOrders = intHeader(headers, ORDER_COUNT_1M_HEADER);
+        Integer serverShortOrders = intHeader(headers, ORDER_COUNT_10S_HEADER);
+        if (serverOrders == null && serverShortOrders == null) {
+            return;
+        }
+        OrderCounter counter = orderCounters.computeIfAbsent(orderAccount, key -> new OrderCounter());
+        if (serverOrders != null) {
+            counter.minuteCount = Math.max(counter.minuteCount, serverOrders);
+        }
+        if (serverShortOrders != null) {
+            counter.shortCount = Math.max(counter.shortCount, serverShortOrders);
+        }
+    }
+
+    /**
+     * 被限流（429）或封禁（418）时按Retry-After暂停所有请求
+     *
+     * @return 暂停时长（毫秒）
+     */
+    synchronized long onRateLimited(Map<String, List<String>> headers) {
+        long retryAfterMs = DEFAULT_RETRY_AFTER_MS;
+        Integer retryAfter = intHeader(headers, "retry-after");
+        if (retryAfter != null) {
+            retryAfterMs = Math.max(1, retryAfter) * 1000L;
+        }
+        long until = System.currentTimeMillis() + retryAfterMs;
+        if (until > pausedUntilMs) {
+            pausedUntilMs = until;
+        }
+        return retryAfterMs;
+    }
+
+    synchronized int getUsedWeight() {
+        rollWindows(System.currentTimeMillis());
+        return usedWeight;
+    }
+
+    synchronized int getOrderCount(String orderAccount) {
+        rollWindows(System.currentTimeMillis());
+        OrderCounter counter = orderCounters.get(orderAccount);
+        return counter == null ? 0 : counter.minuteCount;
+    }
+
+    private void rollWindows(long now) {
+        long weightWindow = now - now % weightWindowMs;
+        if (weightWindow != weightWindowStart) {
+            weightWindowStart = weightWindow;
+            usedWeight = 0;
+            for (OrderCounter counter : orderCounters.values()) {
+                counter.minuteCount = 0;
+            }
+            notifyAll();
+        }
+        long shortWindow = now - now % orderShortWindowMs;
+        if (shortWindow != orderShortWindowStart) {
+            orderShortWindowStart = shortWindow;
+            for (OrderCounter counter : orderCounters.values()) {
+                counter.shortCount = 0;
+            }
+            // 本分钟内没有下单的账户不再保留计数
+            orderCounters.values().removeIf(counter -> counter.minuteCount == 0);
+            notifyAll();
+        }
+    }
+
+    private long nextWindowDelay(long now) {
+        long nextWeightWindow = weightWindowStart + weightWindowMs;
+        long nextShortWindow = orderShortWindowStart + orderShortWindowMs;
+        return Math.max(1, Math.min(nextWeightWindow, nextShortWindow) - now);
+    }
+
+    private void await(long timeoutMs) {
+        try {
+            wait(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待币安请求权重时被中断", e);
+        }
+    }
+
+    /**
+     * 单个账户当前窗口的下单次数
+     */
+    private static class OrderCounter {
+        private int minuteCount;
+        private int shortCount;
+    }
+
+    private static Integer intHeader(Map<String, List<String>> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                try {
+                    return Integer.parseInt(entry.getValue().get(0).trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
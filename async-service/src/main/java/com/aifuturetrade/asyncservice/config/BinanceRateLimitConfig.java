@@ -0,0 +1,45 @@
+package com.aifuturetrade.asyncservice.config;
+
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesBase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 币安REST请求限额配置
+ *
+ * 客户端由各服务按需创建，不是Spring Bean，限额通过BinanceFuturesBase的静态限流器在进程内共享。
+ */
+@Configuration
+public class BinanceRateLimitConfig {
+
+    /**
+     * 每分钟请求权重（币安USDⓈ-M期货限制2400）
+     */
+    @Value("${binance.rate-limit.weight-per-minute:2000}")
+    private int weightPerMinute;
+
+    /**
+     * 每分钟下单次数（币安限制1200）
+     */
+    @Value("${binance.rate-limit.orders-per-minute:1000}")
+    private int ordersPerMinute;
+
+    /**
+     * 每10秒下单次数（币安限制300）
+     */
+    @Value("${binance.rate-limit.orders-per-10s:250}")
+    private int ordersPer10s;
+
+    /**
+     * 每分钟为订单请求预留的权重
+     */
+    @Value("${binance.rate-limit.order-reserved-weight:200}")
+    private int orderReservedWeight;
+
+    @PostConstruct
+    public void init() {
+        BinanceFuturesBase.configureRateLimits(weightPerMinute, ordersPerMinute, ordersPer10s, orderReservedWeight);
+    }
+}
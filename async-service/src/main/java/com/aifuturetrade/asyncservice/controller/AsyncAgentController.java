@@ -1,6 +1,8 @@
 package com.aifuturetrade.asyncservice.controller;
 
 import com.aifuturetrade.asyncservice.service.AsyncAgentService;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import com.aifuturetrade.asyncservice.service.UserDataStreamService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +24,12 @@ public class AsyncAgentController {
     @Autowired
     private AsyncAgentService asyncAgentService;
     
+    @Autowired
+    private BinanceClientRegistry binanceClientRegistry;
+
+    @Autowired
+    private UserDataStreamService userDataStreamService;
+    
     /**
      * 启动指定的异步任务
      * 
@@ -155,5 +163,48 @@ public class AsyncAgentController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
-}
+    
+    /**
+     * 获取币安客户端注册表统计信息（缓存的凭证数量、命中/移除次数、共享连接池使用情况）
+     * 
+     * @return 响应结果
+     */
+    @GetMapping("/binance-clients/stats")
+    public ResponseEntity<Map<String, Object>> getBinanceClientStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            response.put("success", true);
+            response.put("stats", binanceClientRegistry.getStats());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("[AsyncAgentController] ❌ 获取币安客户端统计信息失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to get binance client stats: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
 
+    /**
+     * 获取用户数据流统计信息
+     * 
+     * @return 响应结果
+     */
+    @GetMapping("/user-data-stream/stats")
+    public ResponseEntity<Map<String, Object>> getUserDataStreamStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            response.put("success", true);
+            response.put("stats", userDataStreamService.getStats());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("[AsyncAgentController] ❌ 获取用户数据流统计信息失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to get user data stream stats: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
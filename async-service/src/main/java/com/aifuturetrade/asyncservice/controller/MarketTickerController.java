@@ -0,0 +1,192 @@
+package com.aifuturetrade.asyncservice.controller;
+
+import com.aifuturetrade.asyncservice.market.TickerHistoryRecord;
+import com.aifuturetrade.asyncservice.service.MarketPriceCacheService;
+import com.aifuturetrade.asyncservice.service.MarketTickerStreamService;
+import com.aifuturetrade.asyncservice.service.MarketTickerWriteBehindService;
+import com.aifuturetrade.asyncservice.service.TickerHistoryService;
+import com.aifuturetrade.asyncservice.service.TickerIngestionMetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 市场Ticker控制器
+ *
+ * 提供ticker同步链路的运行状态查询接口。
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/async/market-tickers")
+public class MarketTickerController {
+
+    @Autowired
+    private MarketTickerWriteBehindService tickerWriteBehindService;
+
+    @Autowired
+    private MarketTickerStreamService marketTickerStreamService;
+
+    @Autowired
+    private TickerHistoryService tickerHistoryService;
+
+    @Autowired
+    private TickerIngestionMetricsService tickerIngestionMetricsService;
+
+    @Autowired
+    private MarketPriceCacheService marketPriceCacheService;
+
+    /**
+     * 获取写后缓冲统计信息（刷新延迟、跳过行数等）
+     *
+     * @return 响应结果
+     */
+    @GetMapping("/write-behind/stats")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStats() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("stats", tickerWriteBehindService.getStats());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("[MarketTickerController] ❌ 获取写后缓冲统计信息失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to get write-behind stats: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 获取ticker流水线统计信息（接收/转换/持久化各阶段队列深度、排队延迟、丢弃数）
+     *
+     * @return 响应结果
+     */
+    @GetMapping("/pipeline/stats")
+    public ResponseEntity<Map<String, Object>> getPipelineStats() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("stats", marketTickerStreamService.getPipelineStats());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("[MarketTickerController] ❌ 获取流水线统计信息失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to get pipeline stats: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 获取ticker摄入链路指标（各阶段耗时直方图、消息吞吐、每条消息symbol数、重连次数）
+     *
+     * @return 响应结果
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getIngestionMetrics() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("metrics", tickerIngestionMetricsService.getMetrics());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("[MarketTickerController] ❌ 获取摄入链路指标失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to get ingestion metrics: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 查询本地ticker历史（按事件时间范围扫描内存映射列式存储，不访问MySQL）
+     *
+     * @param symbol 交易对（可选，为空时返回所有交易对）
+     * @param startTime 起始事件时间（UTC毫秒，包含）
+     * @param endTime 结束事件时间（UTC毫秒，包含，默认当前时间）
+     * @param limit 最多返回的行数
+     * @return 响应结果
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Object>> getHistory(
+            @RequestParam(required = false) String symbol,
+            @RequestParam Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(defaultValue = "1000") Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!tickerHistoryService.isEnabled()) {
+            response.put("success", false);
+            response.put("message", "Ticker history is not enabled");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            long to = endTime != null ? endTime : System.currentTimeMillis();
+            String normalizedSymbol = symbol != null && !symbol.isBlank() ? symbol.trim().toUpperCase() : null;
+            List<TickerHistoryRecord> records = tickerHistoryService.query(normalizedSymbol, startTime, to, limit);
+            response.put("success", true);
+            response.put("data", records);
+            response.put("count", records.size());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("[MarketTickerController] ❌ 查询ticker历史失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to query ticker history: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 获取ticker历史存储统计信息（行数、分区、symbol数量）
+     *
+     * @return 响应结果
+     */
+    @GetMapping("/history/stats")
+    public ResponseEntity<Map<String, Object>> getHistoryStats() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("stats", tickerHistoryService.getStats());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("[MarketTickerController] ❌ 获取ticker历史统计信息失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to get ticker history stats: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 获取价格缓存统计信息（缓存命中、REST回退次数、价格流最近消息时间）
+     *
+     * @return 响应结果
+     */
+    @GetMapping("/price-cache/stats")
+    public ResponseEntity<Map<String, Object>> getPriceCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            response.put("success", true);
+            response.put("stats", marketPriceCacheService.getStats());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("[MarketTickerController] ❌ 获取价格缓存统计信息失败", e);
+            response.put("success", false);
+            response.put("message", "Failed to get price cache stats: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
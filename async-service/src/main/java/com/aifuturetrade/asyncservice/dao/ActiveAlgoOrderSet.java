@@ -0,0 +1,159 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.dao.mapper.AlgoOrderMapper;
+import com.aifuturetrade.asyncservice.entity.AlgoOrderDO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的new状态条件订单集合
+ *
+ * 代替每个周期对algo_order全表（含历史记录）执行 WHERE algoStatus='NEW' 查询：
+ * - 首次（及每resync-minutes）执行一次全量查询作为种子，同时记录MAX(updated_at)作为游标
+ * - 之后每个周期按(updated_at, id)游标只查询变化过的记录：new状态的加入/更新，其他状态的移除
+ * - 游标回退overlap-seconds重读，覆盖updated_at早于提交时间的慢事务；重读是幂等的
+ * - async-service自身修改订单状态后直接调用remove()，下一个周期不必等增量查询
+ * 每个周期的查询量与变化的记录数成正比，与表大小无关。
+ */
+@Slf4j
+@Repository
+public class ActiveAlgoOrderSet {
+
+    private static final LocalDateTime EMPTY_TABLE_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AlgoOrderMapper algoOrderMapper;
+
+    /**
+     * 是否启用增量集合（false时每次都全量查询）
+     */
+    @Value("${async.algo-order.active-set.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 增量查询时游标回退的秒数
+     */
+    @Value("${async.algo-order.active-set.overlap-seconds:10}")
+    private long overlapSeconds;
+
+    /**
+     * 增量查询每页条数
+     */
+    @Value("${async.algo-order.active-set.page-size:500}")
+    private int pageSize;
+
+    /**
+     * 全量重建周期（分钟），兜底外部删除等增量查询看不到的变化
+     */
+    @Value("${async.algo-order.active-set.resync-minutes:10}")
+    private long resyncMinutes;
+
+    private final Map<String, AlgoOrderDO> orders = new ConcurrentHashMap<>();
+
+    // 以下字段仅在持有this锁时访问
+    private LocalDateTime watermark;
+    private long seededAtMs;
+
+    public ActiveAlgoOrderSet(AlgoOrderMapper algoOrderMapper) {
+        this.algoOrderMapper = algoOrderMapper;
+    }
+
+    /**
+     * 同步数据库变化后返回当前全部new状态的条件订单
+     *
+     * @return 按created_at升序的条件订单
+     */
+    public synchronized List<AlgoOrderDO> snapshot() {
+        if (!enabled) {
+            return algoOrderMapper.selectNewAlgoOrders();
+        }
+        if (watermark == null || System.currentTimeMillis() - seededAtMs >= resyncMinutes * 60_000L) {
+            seed();
+        } else {
+            refresh();
+        }
+        List<AlgoOrderDO> result = new ArrayList<>(orders.values());
+        result.sort(Comparator.comparing(AlgoOrderDO::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /**
+     * 当前new状态条件订单所属的模型ID，只读内存集合，不查询数据库
+     * （集合由AlgoOrderServiceImpl每个周期调用snapshot()同步；禁用时退回DISTINCT查询）
+     */
+    public Set<String> modelIds() {
+        if (!enabled) {
+            return new HashSet<>(algoOrderMapper.selectModelIdsWithNewAlgoOrders());
+        }
+        Set<String> result = new HashSet<>();
+        for (AlgoOrderDO order : orders.values()) {
+            if (order.getModelId() != null) {
+                result.add(order.getModelId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 订单状态已被本服务改为非new状态时移除
+     */
+    public void remove(String orderId) {
+        if (orderId != null) {
+            orders.remove(orderId);
+        }
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    private void seed() {
+        // 先取游标再全量查询：查询期间的变化会在下一次增量查询中重读
+        LocalDateTime maxUpdatedAt = algoOrderMapper.selectMaxUpdatedAt();
+        List<AlgoOrderDO> newOrders = algoOrderMapper.selectNewAlgoOrders();
+        orders.clear();
+        for (AlgoOrderDO order : newOrders) {
+            orders.put(order.getId(), order);
+        }
+        watermark = maxUpdatedAt != null ? maxUpdatedAt : EMPTY_TABLE_WATERMARK;
+        seededAtMs = System.currentTimeMillis();
+        log.info("[ActiveAlgoOrderSet] 全量加载new状态条件订单: {} 个, 游标={}", orders.size(), watermark);
+    }
+
+    private void refresh() {
+        LocalDateTime since = watermark.minusSeconds(overlapSeconds);
+        String afterId = "";
+        int limit = Math.max(1, pageSize);
+        int changed = 0;
+        while (true) {
+            List<AlgoOrderDO> rows = algoOrderMapper.selectAlgoOrdersUpdatedAfter(since, afterId, limit);
+            for (AlgoOrderDO row : rows) {
+                if ("NEW".equalsIgnoreCase(row.getAlgoStatus())) {
+                    orders.put(row.getId(), row);
+                } else {
+                    orders.remove(row.getId());
+                }
+                if (row.getUpdatedAt() != null && row.getUpdatedAt().isAfter(watermark)) {
+                    watermark = row.getUpdatedAt();
+                }
+            }
+            changed += rows.size();
+            if (rows.size() < limit) {
+                break;
+            }
+            AlgoOrderDO last = rows.get(rows.size() - 1);
+            since = last.getUpdatedAt();
+            afterId = last.getId();
+        }
+        log.debug("[ActiveAlgoOrderSet] 增量同步 {} 条变化记录, 当前new状态订单 {} 个, 游标={}", changed, orders.size(), watermark);
+    }
+}
@@ -0,0 +1,69 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 市场Ticker JDBC批量写入器
+ *
+ * 与MarketTickerMapper.batchUpsertTickers（XML foreach拼接多VALUES）的区别：
+ * - 使用SQL文本固定的单行upsertTicker，MyBatis只解析一次，服务端可缓存预编译语句
+ * - 通过BATCH执行器的SqlSessionTemplate执行，同形语句复用同一个PreparedStatement，按chunkSize分段flush
+ * - 整批在一个Spring事务（REQUIRES_NEW）中提交，与TradeSettlementWriter相同：
+ *   连接由事务管理器关闭自动提交，会话随事务结束关闭
+ * - JDBC URL开启rewriteBatchedStatements=true时，驱动会把每段改写为多VALUES语句一次发送
+ */
+@Slf4j
+@Repository
+public class MarketTickerBatchWriter {
+
+    private final SqlSessionTemplate batchSqlSession;
+    private final TransactionTemplate transactionTemplate;
+
+    public MarketTickerBatchWriter(SqlSessionFactory sqlSessionFactory, PlatformTransactionManager transactionManager) {
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 独立事务：避免与调用方已有事务中的SIMPLE执行器会话冲突
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 批量插入或更新ticker数据
+     *
+     * @param tickers 待写入的ticker
+     * @param chunkSize 每段语句数（每段执行一次executeBatch）
+     * @return 写入的行数
+     */
+    public int upsert(List<MarketTickerDO> tickers, int chunkSize) {
+        if (tickers == null || tickers.isEmpty()) {
+            return 0;
+        }
+        int effectiveChunkSize = Math.max(1, chunkSize);
+        transactionTemplate.executeWithoutResult(status -> {
+            MarketTickerMapper mapper = batchSqlSession.getMapper(MarketTickerMapper.class);
+            int inChunk = 0;
+            for (MarketTickerDO ticker : tickers) {
+                mapper.upsertTicker(ticker);
+                if (++inChunk >= effectiveChunkSize) {
+                    batchSqlSession.flushStatements();
+                    inChunk = 0;
+                }
+            }
+            if (inChunk > 0) {
+                batchSqlSession.flushStatements();
+            }
+        });
+        log.debug("[MarketTickerBatchWriter] JDBC批量写入{}行（每段{}行）", tickers.size(), effectiveChunkSize);
+        return tickers.size();
+    }
+}
@@ -0,0 +1,133 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.entity.AccountValueDO;
+import com.aifuturetrade.asyncservice.entity.AccountValueHistoryDO;
+import com.aifuturetrade.asyncservice.entity.TradeDO;
+import lombok.Getter;
+
+/**
+ * 一次成交的结算写入单元
+ *
+ * 先由调用方完成读取和计算（持仓、账户价值），把需要写入的记录暂存在这里，
+ * 再由TradeSettlementWriter在同一个事务中批量写入：trades、portfolios、account_values、
+ * account_value_historys、algo_order、strategy_decisions要么全部写入，要么全部不写。
+ */
+@Getter
+public class TradeSettlement {
+
+    /**
+     * 新成交记录（必填）
+     */
+    private final TradeDO trade;
+
+    private String positionModelId;
+    private String positionSymbol;
+    private String positionSide;
+
+    /**
+     * 持仓剩余数量，<= 0时删除持仓；为null且positionSymbol不为空时直接删除持仓
+     */
+    private Double remainingPositionAmt;
+
+    /**
+     * 账户价值：accountValueExists为true时按id更新，否则插入
+     */
+    private AccountValueDO accountValue;
+    private boolean accountValueExists;
+
+    private AccountValueHistoryDO accountValueHistory;
+
+    /**
+     * 条件单：更新状态并关联本次trade_id；algoExpectedStatus不为null时只在当前状态为该值时更新，
+     * 否则整体回滚（见claimAlgoOrder）
+     */
+    private String algoOrderId;
+    private String algoStatus;
+    private String algoExpectedStatus;
+
+    /**
+     * 策略决策：更新状态并关联本次trade_id
+     */
+    private String strategyDecisionId;
+    private String strategyDecisionStatus;
+
+    public TradeSettlement(TradeDO trade) {
+        this.trade = trade;
+    }
+
+    /**
+     * 平仓后更新持仓数量（剩余数量 <= 0 时删除持仓）
+     */
+    public TradeSettlement reducePosition(String modelId, String symbol, String positionSide, double remainingAmt) {
+        this.positionModelId = modelId;
+        this.positionSymbol = symbol;
+        this.positionSide = positionSide;
+        this.remainingPositionAmt = remainingAmt;
+        return this;
+    }
+
+    /**
+     * 平仓后删除持仓
+     */
+    public TradeSettlement deletePosition(String modelId, String symbol, String positionSide) {
+        this.positionModelId = modelId;
+        this.positionSymbol = symbol;
+        this.positionSide = positionSide;
+        this.remainingPositionAmt = null;
+        return this;
+    }
+
+    /**
+     * 写入账户价值
+     *
+     * @param accountValue 更新后的账户价值
+     * @param exists true表示按id更新已有记录，false表示插入新记录
+     */
+    public TradeSettlement accountValue(AccountValueDO accountValue, boolean exists) {
+        this.accountValue = accountValue;
+        this.accountValueExists = exists;
+        return this;
+    }
+
+    public TradeSettlement accountValueHistory(AccountValueHistoryDO history) {
+        this.accountValueHistory = history;
+        return this;
+    }
+
+    public TradeSettlement algoOrder(String orderId, String status) {
+        this.algoOrderId = orderId;
+        this.algoStatus = status;
+        this.algoExpectedStatus = null;
+        return this;
+    }
+
+    /**
+     * 条件单状态从expectedStatus转换为status，作为本次结算的前提：
+     * 订单状态已被其他处理改变时抛出AlgoOrderStatusChangedException，成交记录和持仓变化一并回滚
+     */
+    public TradeSettlement claimAlgoOrder(String orderId, String expectedStatus, String status) {
+        this.algoOrderId = orderId;
+        this.algoStatus = status;
+        this.algoExpectedStatus = expectedStatus;
+        return this;
+    }
+
+    /**
+     * 更新策略决策状态（decisionId为空时忽略）
+     */
+    public TradeSettlement strategyDecision(String decisionId, String status) {
+        if (decisionId != null && !decisionId.isEmpty()) {
+            this.strategyDecisionId = decisionId;
+            this.strategyDecisionStatus = status;
+        }
+        return this;
+    }
+
+    public boolean hasPositionChange() {
+        return positionSymbol != null;
+    }
+
+    public boolean deletesPosition() {
+        return hasPositionChange() && (remainingPositionAmt == null || remainingPositionAmt <= 0);
+    }
+}
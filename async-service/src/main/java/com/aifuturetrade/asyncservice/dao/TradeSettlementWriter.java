@@ -0,0 +1,170 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.dao.mapper.AccountValueHistoryMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.AccountValueMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.AlgoOrderMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.PortfolioMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.StrategyDecisionMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.TradeMapper;
+import com.aifuturetrade.asyncservice.entity.AccountValueDO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 成交结算批量写入器
+ *
+ * 在一个Spring事务（REQUIRES_NEW）中通过BATCH执行器的SqlSessionTemplate写入一批TradeSettlement：
+ * - 事务由PlatformTransactionManager在连接上关闭自动提交；SqlSessionFactory.openSession(BATCH, false)
+ *   经SpringManagedTransaction打开的连接仍是连接池默认的自动提交，不能保证原子性
+ * - 按语句类型分组依次执行（先全部trades插入，再持仓更新/删除，再账户价值……），
+ *   settleAll写入多笔成交时BATCH执行器把连续的同形语句合并为一次executeBatch
+ * - 带期望状态的条件单状态转换（claimAlgoOrder）最先执行并立即检查更新行数，
+ *   订单已被其他处理改变时抛出AlgoOrderStatusChangedException，整体回滚
+ * - 事务内先flushStatements，任何语句失败都会抛出并整体回滚，不会留下只写了一部分的成交
+ */
+@Slf4j
+@Repository
+public class TradeSettlementWriter {
+
+    private final SqlSessionTemplate batchSqlSession;
+    private final TransactionTemplate transactionTemplate;
+
+    public TradeSettlementWriter(SqlSessionFactory sqlSessionFactory, PlatformTransactionManager transactionManager) {
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 独立事务：避免与调用方已有事务中的SIMPLE执行器会话冲突
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 在一个事务中写入一次成交的全部记录
+     */
+    public void settle(TradeSettlement settlement) {
+        settleAll(List.of(settlement));
+    }
+
+    /**
+     * 在一个事务中写入多次成交的全部记录
+     *
+     * @param settlements 待写入的结算单元
+     */
+    public void settleAll(List<TradeSettlement> settlements) {
+        if (settlements == null || settlements.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> write(settlements));
+        log.debug("[TradeSettlementWriter] 已在一个事务中写入{}笔成交", settlements.size());
+    }
+
+    private void write(List<TradeSettlement> settlements) {
+        TradeMapper tradeMapper = batchSqlSession.getMapper(TradeMapper.class);
+        PortfolioMapper portfolioMapper = batchSqlSession.getMapper(PortfolioMapper.class);
+        AccountValueMapper accountValueMapper = batchSqlSession.getMapper(AccountValueMapper.class);
+        AccountValueHistoryMapper accountValueHistoryMapper = batchSqlSession.getMapper(AccountValueHistoryMapper.class);
+        AlgoOrderMapper algoOrderMapper = batchSqlSession.getMapper(AlgoOrderMapper.class);
+        StrategyDecisionMapper strategyDecisionMapper = batchSqlSession.getMapper(StrategyDecisionMapper.class);
+
+        claimAlgoOrders(settlements, algoOrderMapper);
+        for (TradeSettlement settlement : settlements) {
+            tradeMapper.insert(settlement.getTrade());
+        }
+        for (TradeSettlement settlement : settlements) {
+            if (settlement.hasPositionChange() && !settlement.deletesPosition()) {
+                portfolioMapper.updatePositionAmt(settlement.getPositionModelId(), settlement.getPositionSymbol(),
+                        settlement.getPositionSide(), settlement.getRemainingPositionAmt());
+            }
+        }
+        for (TradeSettlement settlement : settlements) {
+            if (settlement.deletesPosition()) {
+                portfolioMapper.deletePosition(settlement.getPositionModelId(), settlement.getPositionSymbol(),
+                        settlement.getPositionSide());
+            }
+        }
+        for (TradeSettlement settlement : settlements) {
+            AccountValueDO accountValue = settlement.getAccountValue();
+            if (accountValue != null && settlement.isAccountValueExists()) {
+                accountValueMapper.updateAccountValueById(accountValue.getId(), accountValue.getBalance(),
+                        accountValue.getAvailableBalance(), accountValue.getCrossWalletBalance(),
+                        accountValue.getCrossPnl(), accountValue.getCrossUnPnl(), accountValue.getTimestamp());
+            }
+        }
+        for (TradeSettlement settlement : settlements) {
+            if (settlement.getAccountValue() != null && !settlement.isAccountValueExists()) {
+                accountValueMapper.insert(settlement.getAccountValue());
+            }
+        }
+        for (TradeSettlement settlement : settlements) {
+            if (settlement.getAccountValueHistory() != null) {
+                accountValueHistoryMapper.insert(settlement.getAccountValueHistory());
+            }
+        }
+        for (TradeSettlement settlement : settlements) {
+            if (settlement.getAlgoOrderId() != null && settlement.getAlgoExpectedStatus() == null) {
+                algoOrderMapper.updateTradeIdAndStatus(settlement.getAlgoOrderId(), settlement.getTrade().getId(),
+                        settlement.getAlgoStatus());
+            }
+        }
+        for (TradeSettlement settlement : settlements) {
+            if (settlement.getStrategyDecisionId() != null) {
+                strategyDecisionMapper.updateStrategyDecisionStatus(settlement.getStrategyDecisionId(),
+                        settlement.getStrategyDecisionStatus(), settlement.getTrade().getId(), null);
+            }
+        }
+        // 在事务内执行批量语句，失败时异常抛出事务模板并回滚
+        batchSqlSession.flushStatements();
+    }
+
+    /**
+     * 执行带期望状态的条件单状态转换并检查更新行数（同形语句合并为一批，更新行数与执行顺序一致；
+     * 驱动返回SUCCESS_NO_INFO时视为成功）
+     */
+    private void claimAlgoOrders(List<TradeSettlement> settlements, AlgoOrderMapper algoOrderMapper) {
+        List<String> claimedOrderIds = new ArrayList<>();
+        for (TradeSettlement settlement : settlements) {
+            if (settlement.getAlgoOrderId() != null && settlement.getAlgoExpectedStatus() != null) {
+                algoOrderMapper.updateTradeIdAndStatusIfStatus(settlement.getAlgoOrderId(),
+                        settlement.getTrade().getId(), settlement.getAlgoStatus(), settlement.getAlgoExpectedStatus());
+                claimedOrderIds.add(settlement.getAlgoOrderId());
+            }
+        }
+        if (claimedOrderIds.isEmpty()) {
+            return;
+        }
+        int index = 0;
+        for (BatchResult result : batchSqlSession.flushStatements()) {
+            for (int updateCount : result.getUpdateCounts()) {
+                if (updateCount == 0) {
+                    throw new AlgoOrderStatusChangedException(claimedOrderIds.get(index));
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * 条件单状态已被其他处理改变（不再是期望状态），本次结算已整体回滚
+     */
+    public static class AlgoOrderStatusChangedException extends IllegalStateException {
+
+        private final String algoOrderId;
+
+        public AlgoOrderStatusChangedException(String algoOrderId) {
+            super("条件订单状态已改变，放弃结算: orderId=" + algoOrderId);
+            this.algoOrderId = algoOrderId;
+        }
+
+        public String getAlgoOrderId() {
+            return algoOrderId;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.aifuturetrade.asyncservice.dao.mapper;
 
 import com.aifuturetrade.asyncservice.entity.AlgoOrderDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
@@ -23,6 +25,35 @@ public interface AlgoOrderMapper extends BaseMapper<AlgoOrderDO> {
      */
     List<AlgoOrderDO> selectNewAlgoOrders();
 
+    /**
+     * 按(updated_at, id)游标增量查询条件订单（任意状态），用于维护内存中的new状态订单集合
+     * 依赖索引 idx_updated_at_id (updated_at, id)
+     *
+     * @param since 游标时间（包含该时间中id大于afterId的记录）
+     * @param afterId 游标id，从since开始查询时传空字符串
+     * @param limit 每页条数
+     * @return 按updated_at、id升序的条件订单
+     */
+    @Select("SELECT id, algoId, clientAlgoId, type, algoType, orderType, " +
+            "symbol, side, positionSide, quantity, algoStatus, " +
+            "triggerPrice, price, model_id, strategy_decision_id, trade_id, " +
+            "created_at, updated_at " +
+            "FROM algo_order " +
+            "WHERE updated_at > #{since} OR (updated_at = #{since} AND id > #{afterId}) " +
+            "ORDER BY updated_at ASC, id ASC " +
+            "LIMIT #{limit}")
+    List<AlgoOrderDO> selectAlgoOrdersUpdatedAfter(@Param("since") LocalDateTime since,
+                                                   @Param("afterId") String afterId,
+                                                   @Param("limit") int limit);
+
+    /**
+     * 查询条件订单的最大更新时间（作为增量查询的初始游标）
+     *
+     * @return 最大updated_at，表为空时返回null
+     */
+    @Select("SELECT MAX(updated_at) FROM algo_order")
+    LocalDateTime selectMaxUpdatedAt();
+
     /**
      * 更新条件订单状态
      * 
@@ -55,6 +86,21 @@ public interface AlgoOrderMapper extends BaseMapper<AlgoOrderDO> {
     @Update("UPDATE algo_order SET trade_id = #{tradeId}, algoStatus = #{algoStatus}, updated_at = NOW() WHERE id = #{id}")
     int updateTradeIdAndStatus(@Param("id") String id, @Param("tradeId") String tradeId, @Param("algoStatus") String algoStatus);
 
+    /**
+     * 仅在条件订单当前状态为expectedStatus时更新trade_id和状态
+     *
+     * @param id 订单ID
+     * @param tradeId 交易记录ID
+     * @param algoStatus 新状态
+     * @param expectedStatus 期望的当前状态
+     * @return 更新的记录数（状态已被改变时为0）
+     */
+    @Update("UPDATE algo_order SET trade_id = #{tradeId}, algoStatus = #{algoStatus}, updated_at = NOW() " +
+            "WHERE id = #{id} AND algoStatus = #{expectedStatus}")
+    int updateTradeIdAndStatusIfStatus(@Param("id") String id, @Param("tradeId") String tradeId,
+                                       @Param("algoStatus") String algoStatus,
+                                       @Param("expectedStatus") String expectedStatus);
+
     /**
      * 查询指定模型和交易对的状态为"new"的条件订单
      * 
@@ -62,7 +108,7 @@ public interface AlgoOrderMapper extends BaseMapper<AlgoOrderDO> {
      * @param symbol 交易对符号
      * @return 条件订单列表
      */
-    @org.apache.ibatis.annotations.Select("SELECT id, algoId, clientAlgoId, type, algoType, orderType, " +
+    @Select("SELECT id, algoId, clientAlgoId, type, algoType, orderType, " +
             "symbol, side, positionSide, quantity, algoStatus, " +
             "triggerPrice, price, model_id, strategy_decision_id, trade_id, " +
             "created_at, updated_at " +
@@ -71,6 +117,44 @@ public interface AlgoOrderMapper extends BaseMapper<AlgoOrderDO> {
             "ORDER BY created_at ASC")
     List<AlgoOrderDO> selectNewAlgoOrdersByModelAndSymbol(@Param("modelId") String modelId, @Param("symbol") String symbol);
 
+    /**
+     * 按币安algoId查询状态为"new"的条件订单（用户数据流事件按algoId定位记录）
+     *
+     * @param algoId 币安条件单ID
+     * @return 条件订单，不存在或已不是new状态时返回null
+     */
+    @Select("SELECT id, algoId, clientAlgoId, type, algoType, orderType, " +
+            "symbol, side, positionSide, quantity, algoStatus, " +
+            "triggerPrice, price, model_id, strategy_decision_id, trade_id, " +
+            "created_at, updated_at " +
+            "FROM algo_order " +
+            "WHERE algoId = #{algoId} AND algoStatus = 'NEW' " +
+            "LIMIT 1")
+    AlgoOrderDO selectNewAlgoOrderByAlgoId(@Param("algoId") Long algoId);
+
+    /**
+     * 查询有状态为"new"的条件订单的模型ID
+     *
+     * @return 模型ID列表
+     */
+    @Select("SELECT DISTINCT model_id FROM algo_order WHERE algoStatus = 'NEW'")
+    List<String> selectModelIdsWithNewAlgoOrders();
+
+    /**
+     * 查询指定模型的状态为"new"的条件订单
+     *
+     * @param modelId 模型ID
+     * @return 条件订单列表
+     */
+    @Select("SELECT id, algoId, clientAlgoId, type, algoType, orderType, " +
+            "symbol, side, positionSide, quantity, algoStatus, " +
+            "triggerPrice, price, model_id, strategy_decision_id, trade_id, " +
+            "created_at, updated_at " +
+            "FROM algo_order " +
+            "WHERE model_id = #{modelId} AND algoStatus = 'NEW' " +
+            "ORDER BY created_at ASC")
+    List<AlgoOrderDO> selectNewAlgoOrdersByModel(@Param("modelId") String modelId);
+
     /**
      * 更新条件订单状态为cancelled
      *
@@ -86,6 +170,6 @@ public interface AlgoOrderMapper extends BaseMapper<AlgoOrderDO> {
      * @param beforeTime 时间阈值（删除此时间之前创建的记录）
      * @return 删除的记录数
      */
-    @org.apache.ibatis.annotations.Delete("DELETE FROM algo_order WHERE algoStatus = 'CANCELLED' AND created_at < #{beforeTime}")
+    @Delete("DELETE FROM algo_order WHERE algoStatus = 'CANCELLED' AND created_at < #{beforeTime}")
     int deleteCancelledOrdersBeforeTime(@Param("beforeTime") LocalDateTime beforeTime);
 }
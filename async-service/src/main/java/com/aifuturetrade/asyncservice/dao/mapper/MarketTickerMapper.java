@@ -31,6 +31,12 @@ public interface MarketTickerMapper extends BaseMapper<MarketTickerDO> {
      */
     void batchUpsertTickers(@Param("tickers") List<MarketTickerDO> tickers);
     
+    /**
+     * 单行插入或更新ticker数据（SQL文本固定，与batchUpsertTickers语义一致）
+     * 注意：此方法在XML中实现，供MarketTickerBatchWriter在ExecutorType.BATCH会话中批量执行
+     */
+    void upsertTicker(MarketTickerDO ticker);
+    
     /**
      * 查询数据库中已存在交易对的最新数据
      * 参考Python版本的get_existing_symbol_data实现
@@ -54,6 +60,22 @@ public interface MarketTickerMapper extends BaseMapper<MarketTickerDO> {
             "</script>")
     List<ExistingSymbolData> getExistingSymbolData(@Param("symbols") List<String> symbols);
 
+    /**
+     * 查询数据库中所有交易对的open_price、last_price、update_price_date
+     * 用于启动时预热MarketSymbolStateService的内存状态表
+     *
+     * @return 包含open_price、last_price、update_price_date的数据列表
+     */
+    @org.apache.ibatis.annotations.Results({
+        @org.apache.ibatis.annotations.Result(property = "symbol", column = "symbol"),
+        @org.apache.ibatis.annotations.Result(property = "openPrice", column = "open_price"),
+        @org.apache.ibatis.annotations.Result(property = "lastPrice", column = "last_price"),
+        @org.apache.ibatis.annotations.Result(property = "updatePriceDate", column = "update_price_date")
+    })
+    @Select("SELECT `symbol`, `open_price`, `last_price`, `update_price_date` " +
+            "FROM `24_market_tickers`")
+    List<ExistingSymbolData> selectAllSymbolData();
+
     /**
      * 查询需要刷新价格的symbol列表
      * 条件：update_price_date为空或超过10分钟未更新
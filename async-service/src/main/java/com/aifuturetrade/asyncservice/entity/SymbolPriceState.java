@@ -0,0 +1,66 @@
+package com.aifuturetrade.asyncservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 内存中的Symbol价格状态（不可变）
+ *
+ * 对应24_market_tickers表中由本服务写入的open_price、last_price、update_price_date，
+ * 由MarketSymbolStateService常驻内存维护，替代每条ticker消息前的getExistingSymbolData查询。
+ *
+ * 不可变对象：每次更新都会替换为新实例，读线程无需加锁即可获得一致的快照。
+ */
+@Getter
+@AllArgsConstructor
+public final class SymbolPriceState {
+
+    /**
+     * 交易对符号
+     */
+    private final String symbol;
+
+    /**
+     * 开盘价（数据库原始值，0.0且updatePriceDate为null时表示尚未刷新过开盘价）
+     */
+    private final Double openPrice;
+
+    /**
+     * 最新价格
+     */
+    private final Double lastPrice;
+
+    /**
+     * 价格更新日期（UTC+8）
+     */
+    private final LocalDateTime updatePriceDate;
+
+    /**
+     * 最后一次被ticker流写入的时间（毫秒时间戳），用于淘汰已下线的symbol
+     */
+    private final long lastSeenAtMs;
+
+    /**
+     * 有效开盘价（参考Python版本的逻辑）：
+     * open_price为0.0且update_price_date为null时视为不存在，返回null
+     */
+    public Double getEffectiveOpenPrice() {
+        if (openPrice == null) {
+            return null;
+        }
+        if (openPrice == 0.0 && updatePriceDate == null) {
+            return null;
+        }
+        return openPrice;
+    }
+
+    public SymbolPriceState withLastPrice(Double newLastPrice, long seenAtMs) {
+        return new SymbolPriceState(symbol, openPrice, newLastPrice, updatePriceDate, seenAtMs);
+    }
+
+    public SymbolPriceState withOpenPrice(Double newOpenPrice, LocalDateTime newUpdatePriceDate) {
+        return new SymbolPriceState(symbol, newOpenPrice, lastPrice, newUpdatePriceDate, lastSeenAtMs);
+    }
+}
@@ -0,0 +1,187 @@
+package com.aifuturetrade.asyncservice.market;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * virtual模型条件单的触发价索引
+ *
+ * 每个symbol两本按触发价排序的订单簿：
+ * - 下穿簿（LONG，价格 <= 触发价时触发）按触发价降序，价格p到达时触发的是headMap(p)，即触发价最高的一段
+ * - 上穿簿（SHORT，价格 >= 触发价时触发）按触发价升序，价格p到达时触发的是headMap(p)，即触发价最低的一段
+ * 每个价格只访问已被穿越的订单，未触发的订单没有任何开销。collectCrossed取出的订单从索引中移除。
+ *
+ * 线程安全：所有方法由this加锁（价格流线程和条件单调度线程都会访问）。
+ */
+public class AlgoTriggerIndex {
+
+    /**
+     * 触发方向
+     */
+    public enum Direction {
+        /**
+         * 价格 <= 触发价时触发
+         */
+        FALLING,
+        /**
+         * 价格 >= 触发价时触发
+         */
+        RISING
+    }
+
+    /**
+     * 索引中的一个条件单
+     */
+    public record Trigger(String orderId, String symbol, Direction direction, double triggerPrice) {
+    }
+
+    private final Map<String, SymbolBooks> booksBySymbol = new HashMap<>();
+    private final Map<String, Trigger> triggersById = new HashMap<>();
+
+    /**
+     * 按持仓方向确定触发方向：LONG为下穿，SHORT为上穿，其他返回null
+     */
+    public static Direction directionOf(String positionSide) {
+        if ("LONG".equalsIgnoreCase(positionSide)) {
+            return Direction.FALLING;
+        }
+        if ("SHORT".equalsIgnoreCase(positionSide)) {
+            return Direction.RISING;
+        }
+        return null;
+    }
+
+    /**
+     * 加入或更新条件单（同一订单的symbol、方向、触发价不变时不做任何修改）
+     *
+     * @return true如果订单在索引中（新加入或已存在）
+     */
+    public synchronized boolean put(String orderId, String symbol, Direction direction, double triggerPrice) {
+        if (orderId == null || symbol == null || direction == null || !(triggerPrice > 0)) {
+            return false;
+        }
+        Trigger trigger = new Trigger(orderId, symbol, direction, triggerPrice);
+        Trigger previous = triggersById.get(orderId);
+        if (trigger.equals(previous)) {
+            return true;
+        }
+        if (previous != null) {
+            removeFromBook(previous);
+        }
+        triggersById.put(orderId, trigger);
+        booksBySymbol.computeIfAbsent(symbol, k -> new SymbolBooks())
+                .book(direction)
+                .computeIfAbsent(triggerPrice, k -> new LinkedHashMap<>())
+                .put(orderId, trigger);
+        return true;
+    }
+
+    public synchronized boolean contains(String orderId) {
+        return triggersById.containsKey(orderId);
+    }
+
+    /**
+     * 移除不在给定集合中的订单（已成交、已撤销或已不是new状态）
+     *
+     * @return 移除的数量
+     */
+    public synchronized int retainAll(Collection<String> orderIds) {
+        Set<String> keep = orderIds instanceof Set ? (Set<String>) orderIds : new HashSet<>(orderIds);
+        int removed = 0;
+        Iterator<Map.Entry<String, Trigger>> iterator = triggersById.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Trigger trigger = iterator.next().getValue();
+            if (!keep.contains(trigger.orderId())) {
+                iterator.remove();
+                removeFromBook(trigger);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 取出在该价格下已触发的订单并从索引中移除
+     *
+     * @param symbol 合约symbol
+     * @param price 最新价格
+     * @return 已触发的订单，没有时返回空列表
+     */
+    public synchronized List<Trigger> collectCrossed(String symbol, double price) {
+        SymbolBooks books = booksBySymbol.get(symbol);
+        if (books == null || !(price > 0)) {
+            return Collections.emptyList();
+        }
+        List<Trigger> crossed = new ArrayList<>();
+        drain(books.falling.headMap(price, true), crossed);
+        drain(books.rising.headMap(price, true), crossed);
+        if (books.isEmpty()) {
+            booksBySymbol.remove(symbol);
+        }
+        return crossed;
+    }
+
+    /**
+     * 当前有条件单的symbol
+     */
+    public synchronized Set<String> symbols() {
+        return new HashSet<>(booksBySymbol.keySet());
+    }
+
+    public synchronized int size() {
+        return triggersById.size();
+    }
+
+    private void drain(NavigableMap<Double, Map<String, Trigger>> crossedLevels, List<Trigger> crossed) {
+        for (Map<String, Trigger> level : crossedLevels.values()) {
+            for (Trigger trigger : level.values()) {
+                crossed.add(trigger);
+                triggersById.remove(trigger.orderId());
+            }
+        }
+        crossedLevels.clear();
+    }
+
+    private void removeFromBook(Trigger trigger) {
+        SymbolBooks books = booksBySymbol.get(trigger.symbol());
+        if (books == null) {
+            return;
+        }
+        NavigableMap<Double, Map<String, Trigger>> book = books.book(trigger.direction());
+        Map<String, Trigger> level = book.get(trigger.triggerPrice());
+        if (level != null) {
+            level.remove(trigger.orderId());
+            if (level.isEmpty()) {
+                book.remove(trigger.triggerPrice());
+            }
+        }
+        if (books.isEmpty()) {
+            booksBySymbol.remove(trigger.symbol());
+        }
+    }
+
+    private static final class SymbolBooks {
+
+        private final NavigableMap<Double, Map<String, Trigger>> falling = new TreeMap<>(Comparator.reverseOrder());
+        private final NavigableMap<Double, Map<String, Trigger>> rising = new TreeMap<>();
+
+        private NavigableMap<Double, Map<String, Trigger>> book(Direction direction) {
+            return direction == Direction.FALLING ? falling : rising;
+        }
+
+        private boolean isEmpty() {
+            return falling.isEmpty() && rising.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.aifuturetrade.asyncservice.market;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 有界单生产者/单消费者环形缓冲区
+ *
+ * 用于ticker流水线各阶段之间传递消息，满时按显式的背压策略处理：
+ * - DROP_OLDEST：丢弃最旧的一条（适用于行情快照，新快照总是比旧快照更有价值）
+ * - DROP_NEWEST：丢弃本次提交的数据
+ * - BLOCK：生产者等待直到有空位（仅用于不能丢数据且下游足够快的场景）
+ *
+ * 实现说明：
+ * - head/tail为单调递增的序号，容量为2的幂
+ * - DROP_OLDEST需要生产者推进head，因此消费者同样通过CAS推进head；
+ *   消费者读到的元素若已被生产者覆盖，CAS会失败并重试，不会返回过期数据
+ * - 消费者出队后清空槽位，不让已消费的元素（如整条行情报文）在下一轮覆盖前一直被引用；
+ *   清空使用CAS，出队后生产者可能已在同一槽位写入新元素，此时不清空
+ * - 消费者空闲时park，生产者发布后unpark，避免忙等
+ * - 每个槽位记录入队时间，用于统计阶段延迟
+ *
+ * @param <T> 元素类型
+ */
+public class BoundedRingBuffer<T> {
+
+    /**
+     * 满时的背压策略
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST,
+        BLOCK
+    }
+
+    private final String name;
+    private final int capacity;
+    private final int mask;
+    private final OverflowPolicy policy;
+    private final AtomicReferenceArray<T> buffer;
+    private final long[] enqueuedAtNanos;
+
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong tail = new AtomicLong(0);
+    private volatile Thread waitingConsumer;
+
+    private final AtomicLong offered = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong consumed = new AtomicLong(0);
+    private volatile long lastLagNanos = 0;
+    private final AtomicLong maxLagNanos = new AtomicLong(0);
+
+    public BoundedRingBuffer(String name, int requestedCapacity, OverflowPolicy policy) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + requestedCapacity);
+        }
+        int size = 1;
+        while (size < requestedCapacity) {
+            size <<= 1;
+        }
+        this.name = name;
+        this.capacity = size;
+        this.mask = capacity - 1;
+        this.policy = policy;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.enqueuedAtNanos = new long[capacity];
+    }
+
+    /**
+     * 生产者提交元素
+     *
+     * @param element 元素
+     * @return true如果元素已入队，false如果按DROP_NEWEST策略被丢弃
+     * @throws InterruptedException BLOCK策略等待时被中断
+     */
+    public boolean offer(T element) throws InterruptedException {
+        offered.incrementAndGet();
+        while (true) {
+            long t = tail.get();
+            long h = head.get();
+            if (t - h < capacity) {
+                int index = (int) (t & mask);
+                enqueuedAtNanos[index] = System.nanoTime();
+                buffer.lazySet(index, element);
+                tail.set(t + 1);
+                Thread consumer = waitingConsumer;
+                if (consumer != null) {
+                    LockSupport.unpark(consumer);
+                }
+                return true;
+            }
+            switch (policy) {
+                case DROP_NEWEST:
+                    dropped.incrementAndGet();
+                    return false;
+                case DROP_OLDEST:
+                    if (head.compareAndSet(h, h + 1)) {
+                        dropped.incrementAndGet();
+                    }
+                    break;
+                case BLOCK:
+                default:
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 消费者取出元素（非阻塞）
+     *
+     * @return 元素，缓冲区为空时返回null
+     */
+    public T poll() {
+        while (true) {
+            long h = head.get();
+            if (h >= tail.get()) {
+                return null;
+            }
+            int index = (int) (h & mask);
+            T element = buffer.get(index);
+            long enqueuedAt = enqueuedAtNanos[index];
+            if (head.compareAndSet(h, h + 1)) {
+                buffer.compareAndSet(index, element, null);
+                consumed.incrementAndGet();
+                long lag = System.nanoTime() - enqueuedAt;
+                lastLagNanos = lag;
+                maxLagNanos.accumulateAndGet(lag, Math::max);
+                return element;
+            }
+        }
+    }
+
+    /**
+     * 消费者取出元素，缓冲区为空时最多等待指定时长
+     *
+     * @return 元素，超时返回null
+     * @throws InterruptedException 等待时被中断
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            T element = poll();
+            if (element != null) {
+                return element;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waitingConsumer = Thread.currentThread();
+            try {
+                // 设置等待标记后再检查一次，避免错过生产者的unpark
+                element = poll();
+                if (element != null) {
+                    return element;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } finally {
+                waitingConsumer = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取统计信息快照
+     */
+    public RingBufferStats getStats() {
+        RingBufferStats stats = new RingBufferStats();
+        stats.setName(name);
+        stats.setPolicy(policy.name());
+        stats.setCapacity(capacity);
+        stats.setDepth(size());
+        stats.setOffered(offered.get());
+        stats.setDropped(dropped.get());
+        stats.setConsumed(consumed.get());
+        stats.setLastLagMs(TimeUnit.NANOSECONDS.toMillis(lastLagNanos));
+        stats.setMaxLagMs(TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()));
+        return stats;
+    }
+}
@@ -0,0 +1,109 @@
+package com.aifuturetrade.asyncservice.market;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按symbol合并的ticker缓冲区（转换 -> 持久化阶段）
+ *
+ * !ticker@arr是增量流：每条报文只包含这段时间内变化过的symbol，丢弃整条报文会让其中的symbol
+ * 一直停留在旧值，直到它们下次变化。本缓冲区按symbol只保留最新的一条，消费者一次取走全部待写symbol：
+ * 下游变慢时积压的报文被合并而不是丢弃，深度上限为symbol数量。
+ *
+ * 同一symbol被后提交的ticker覆盖（转换阶段单线程按接收顺序提交，后提交的总是更新）。
+ */
+public class ConflatingTickerBuffer {
+
+    private final String name;
+    private final Object lock = new Object();
+
+    // 以下字段仅在持有lock时访问
+    private LinkedHashMap<String, MarketTickerDO> pending = new LinkedHashMap<>();
+    private long oldestPendingAtNanos;
+    private long offered;
+    private long conflated;
+    private long consumed;
+    private long lastLagNanos;
+    private long maxLagNanos;
+
+    public ConflatingTickerBuffer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 生产者提交一批ticker，已在缓冲区中的symbol被覆盖
+     */
+    public void offer(List<MarketTickerDO> tickers) {
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                oldestPendingAtNanos = System.nanoTime();
+            }
+            for (MarketTickerDO ticker : tickers) {
+                if (ticker == null || ticker.getSymbol() == null) {
+                    continue;
+                }
+                offered++;
+                if (pending.put(ticker.getSymbol(), ticker) != null) {
+                    conflated++;
+                }
+            }
+            if (!pending.isEmpty()) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 消费者取走全部待写ticker，缓冲区为空时最多等待指定时长
+     *
+     * @return 按symbol首次进入缓冲区顺序排列的ticker，超时返回null
+     * @throws InterruptedException 等待时被中断
+     */
+    public List<MarketTickerDO> drain(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (pending.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            List<MarketTickerDO> result = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            consumed += result.size();
+            lastLagNanos = System.nanoTime() - oldestPendingAtNanos;
+            maxLagNanos = Math.max(maxLagNanos, lastLagNanos);
+            return result;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * 获取统计信息快照（dropped为被合并覆盖的ticker数，容量为0表示只受symbol数量限制）
+     */
+    public RingBufferStats getStats() {
+        synchronized (lock) {
+            RingBufferStats stats = new RingBufferStats();
+            stats.setName(name);
+            stats.setPolicy("CONFLATE");
+            stats.setCapacity(0);
+            stats.setDepth(pending.size());
+            stats.setOffered(offered);
+            stats.setDropped(conflated);
+            stats.setConsumed(consumed);
+            stats.setLastLagMs(TimeUnit.NANOSECONDS.toMillis(lastLagNanos));
+            stats.setMaxLagMs(TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+            return stats;
+        }
+    }
+}
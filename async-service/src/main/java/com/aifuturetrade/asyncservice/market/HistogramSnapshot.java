@@ -0,0 +1,32 @@
+package com.aifuturetrade.asyncservice.market;
+
+import lombok.Data;
+
+/**
+ * 直方图快照
+ */
+@Data
+public class HistogramSnapshot {
+
+    /**
+     * 数值单位（ms、us、symbols）
+     */
+    private String unit;
+
+    /**
+     * 样本数
+     */
+    private long count;
+
+    private double mean;
+
+    private long p50;
+
+    private long p90;
+
+    private long p99;
+
+    private long p999;
+
+    private long max;
+}
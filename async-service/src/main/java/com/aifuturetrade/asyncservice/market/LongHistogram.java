@@ -0,0 +1,115 @@
+package com.aifuturetrade.asyncservice.market;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数分桶的非负整数直方图（用于延迟、每条消息symbol数等指标）
+ *
+ * 分桶方式：小于16的值每个值一个桶；之后每个2的幂区间再细分为16个子桶，
+ * 相对误差不超过1/16（约6%），覆盖到2^41（微秒计约25天），超出的值计入最后一个桶。
+ *
+ * 记录只有几次原子自增，可被多个线程并发调用；reset()与并发记录之间不保证原子性，
+ * 窗口切换时可能丢失或串入极少量样本，对监控统计可以接受。
+ */
+public class LongHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个样本（负值按0计）
+     */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        buckets.incrementAndGet(bucketIndex(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * 清空所有样本
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0L);
+        }
+        count.set(0L);
+        sum.set(0L);
+        max.set(0L);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * 生成快照（百分位取所在桶的上界，且不超过最大值）
+     *
+     * @param unit 数值单位（仅用于展示，如ms、us、symbols）
+     */
+    public HistogramSnapshot snapshot(String unit) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long maxValue = max.get();
+
+        HistogramSnapshot snapshot = new HistogramSnapshot();
+        snapshot.setUnit(unit);
+        snapshot.setCount(total);
+        snapshot.setMax(maxValue);
+        if (total > 0) {
+            snapshot.setMean((double) sum.get() / count.get());
+            snapshot.setP50(percentile(counts, total, 0.50, maxValue));
+            snapshot.setP90(percentile(counts, total, 0.90, maxValue));
+            snapshot.setP99(percentile(counts, total, 0.99, maxValue));
+            snapshot.setP999(percentile(counts, total, 0.999, maxValue));
+        }
+        return snapshot;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+        long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+}
@@ -0,0 +1,392 @@
+package com.aifuturetrade.asyncservice.market;
+
+/**
+ * 全市场ticker原始报文的流式解析器（零DTO）
+ *
+ * 直接扫描allMarketTickersStreamsRaw返回的JSON字符串，把每个ticker的字段解码为基本类型后写入TickerSlotTable：
+ * - 不创建Gson树、AllMarketTickersStreamsResponseInner或中间String
+ * - 数值字段（币安以字符串形式返回）直接在字符区间上解析为double，不经过Double对象
+ * - 仅在极少数无法精确快速解析的数值（科学计数法、超过15位有效数字）时回退到Double.parseDouble
+ *
+ * 支持的报文形式：ticker数组、单个ticker对象、以及包含"data"字段的组合流包装对象。
+ * 同时支持完整ticker（!ticker@arr）和精简ticker（!miniTicker@arr）：对象中没有任何统计字段
+ * （w、Q、O、C、F、L、n）时按精简ticker写入，只更新价格与成交量。
+ *
+ * 非线程安全：每个流处理线程持有一个实例。
+ */
+public class RawTickerParser {
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * 2^53：小于该值的long可以无损转换为double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private String src;
+    private int pos;
+
+    // 当前ticker对象的字段（解析对象时复用）
+    private int symbolStart;
+    private int symbolEnd;
+    private long e;
+    private double w;
+    private double c;
+    private double lastQty;
+    private double h;
+    private double l;
+    private double v;
+    private double quote;
+    private long openTime;
+    private long closeTime;
+    private long firstId;
+    private long lastId;
+    private long count;
+    private boolean hasStats;
+
+    /**
+     * 解析一条原始报文并写入槽位表
+     *
+     * @param payload 原始JSON报文
+     * @param table 槽位表（调用前会清空其本条消息的更新列表）
+     * @return 解析出的ticker数量
+     * @throws IllegalArgumentException 报文格式错误
+     */
+    public int parse(String payload, TickerSlotTable table) {
+        table.beginMessage();
+        return append(payload, table);
+    }
+
+    /**
+     * 解析一条原始报文并追加到槽位表当前的更新列表（不清空），用于合并积压的多条报文：
+     * 同一symbol在更新列表中只出现一次，槽位中为最新值
+     *
+     * @return 解析出的ticker数量
+     * @throws IllegalArgumentException 报文格式错误
+     */
+    public int append(String payload, TickerSlotTable table) {
+        this.src = payload;
+        this.pos = 0;
+        try {
+            skipWhitespace();
+            return parseValue(table);
+        } finally {
+            this.src = null;
+        }
+    }
+
+    private int parseValue(TickerSlotTable table) {
+        char ch = peek();
+        if (ch == '[') {
+            return parseArray(table);
+        }
+        if (ch == '{') {
+            return parseObject(table);
+        }
+        throw error("expected '[' or '{'");
+    }
+
+    private int parseArray(TickerSlotTable table) {
+        expect('[');
+        int parsed = 0;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return 0;
+        }
+        while (true) {
+            skipWhitespace();
+            parsed += parseObject(table);
+            skipWhitespace();
+            char ch = next();
+            if (ch == ']') {
+                return parsed;
+            }
+            if (ch != ',') {
+                throw error("expected ',' or ']'");
+            }
+        }
+    }
+
+    /**
+     * 解析一个ticker对象；若对象包含"data"字段（组合流包装），则递归解析其内容
+     */
+    private int parseObject(TickerSlotTable table) {
+        expect('{');
+        resetFields();
+        int nested = 0;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return 0;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = pos;
+            int keyEnd = scanStringEnd();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (keyEnd - keyStart == 1) {
+                parseField(src.charAt(keyStart));
+            } else if (keyEnd - keyStart == 4 && src.startsWith("data", keyStart)) {
+                nested += parseValue(table);
+                // 嵌套解析会覆盖字段，外层包装对象本身不是ticker
+                resetFields();
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            char ch = next();
+            if (ch == '}') {
+                break;
+            }
+            if (ch != ',') {
+                throw error("expected ',' or '}'");
+            }
+        }
+
+        if (symbolStart < 0) {
+            return nested;
+        }
+        int slot = table.slotOf(src, symbolStart, symbolEnd);
+        if (hasStats) {
+            table.write(slot, e, w, c, lastQty, h, l, v, quote, openTime, closeTime, firstId, lastId, count);
+        } else {
+            table.writeMini(slot, e, c, h, l, v, quote);
+        }
+        return nested + 1;
+    }
+
+    private void parseField(char key) {
+        switch (key) {
+            case 's':
+                expect('"');
+                symbolStart = pos;
+                symbolEnd = scanStringEnd();
+                break;
+            case 'E': e = parseLong(); break;
+            case 'w': w = parseDecimal(); hasStats = true; break;
+            case 'c': c = parseDecimal(); break;
+            case 'Q': lastQty = parseDecimal(); hasStats = true; break;
+            case 'h': h = parseDecimal(); break;
+            case 'l': l = parseDecimal(); break;
+            case 'v': v = parseDecimal(); break;
+            case 'q': quote = parseDecimal(); break;
+            case 'O': openTime = parseLong(); hasStats = true; break;
+            case 'C': closeTime = parseLong(); hasStats = true; break;
+            case 'F': firstId = parseLong(); hasStats = true; break;
+            case 'L': lastId = parseLong(); hasStats = true; break;
+            case 'n': count = parseLong(); hasStats = true; break;
+            default: skipValue(); break;
+        }
+    }
+
+    private void resetFields() {
+        symbolStart = -1;
+        symbolEnd = -1;
+        e = 0L;
+        w = 0.0;
+        c = 0.0;
+        lastQty = 0.0;
+        h = 0.0;
+        l = 0.0;
+        v = 0.0;
+        quote = 0.0;
+        openTime = 0L;
+        closeTime = 0L;
+        firstId = 0L;
+        lastId = 0L;
+        count = 0L;
+        hasStats = false;
+    }
+
+    /**
+     * 解析数值（允许带引号），返回double
+     */
+    private double parseDecimal() {
+        boolean quoted = peek() == '"';
+        if (quoted) {
+            pos++;
+        } else if (peekLiteral("null")) {
+            pos += 4;
+            return 0.0;
+        }
+        int start = pos;
+        boolean negative = false;
+        if (pos < src.length() && src.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        boolean exact = true;
+        while (pos < src.length()) {
+            char ch = src.charAt(pos);
+            if (ch >= '0' && ch <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (inFraction) {
+                        fractionDigits++;
+                    }
+                } else {
+                    exact = false;
+                }
+                pos++;
+            } else if (ch == '.' && !inFraction) {
+                inFraction = true;
+                pos++;
+            } else if (ch == 'e' || ch == 'E' || ch == '+' || (ch == '-' && pos > start)) {
+                exact = false;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        int end = pos;
+        if (quoted) {
+            expect('"');
+        }
+        if (end == start) {
+            return 0.0;
+        }
+        if (!exact || mantissa >= MAX_EXACT_MANTISSA || fractionDigits >= POW10.length) {
+            return Double.parseDouble(src.substring(start, end));
+        }
+        // mantissa与10^k都能精确表示为double时，一次除法即为正确舍入结果，与Double.parseDouble一致
+        double value = fractionDigits == 0 ? mantissa : mantissa / POW10[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * 解析整数（允许带引号）
+     */
+    private long parseLong() {
+        boolean quoted = peek() == '"';
+        if (quoted) {
+            pos++;
+        } else if (peekLiteral("null")) {
+            pos += 4;
+            return 0L;
+        }
+        boolean negative = false;
+        if (pos < src.length() && src.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long value = 0;
+        while (pos < src.length()) {
+            char ch = src.charAt(pos);
+            if (ch < '0' || ch > '9') {
+                break;
+            }
+            value = value * 10 + (ch - '0');
+            pos++;
+        }
+        if (quoted) {
+            expect('"');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 跳过任意JSON值
+     */
+    private void skipValue() {
+        char ch = peek();
+        if (ch == '"') {
+            pos++;
+            scanStringEnd();
+            return;
+        }
+        if (ch == '{' || ch == '[') {
+            int depth = 0;
+            while (pos < src.length()) {
+                char cur = src.charAt(pos++);
+                if (cur == '"') {
+                    scanStringEnd();
+                } else if (cur == '{' || cur == '[') {
+                    depth++;
+                } else if (cur == '}' || cur == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw error("unterminated container");
+        }
+        while (pos < src.length()) {
+            char cur = src.charAt(pos);
+            if (cur == ',' || cur == '}' || cur == ']' || cur <= ' ') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * 扫描到字符串结束引号之后，返回字符串内容的结束位置（不含引号）
+     */
+    private int scanStringEnd() {
+        while (pos < src.length()) {
+            char ch = src.charAt(pos);
+            if (ch == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (ch == '"') {
+                int end = pos;
+                pos++;
+                return end;
+            }
+            pos++;
+        }
+        throw error("unterminated string");
+    }
+
+    private boolean peekLiteral(String literal) {
+        return src.startsWith(literal, pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < src.length() && src.charAt(pos) <= ' ') {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= src.length()) {
+            throw error("unexpected end of payload");
+        }
+        return src.charAt(pos);
+    }
+
+    private char next() {
+        char ch = peek();
+        pos++;
+        return ch;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            pos--;
+            throw error("expected '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Malformed ticker payload at " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,55 @@
+package com.aifuturetrade.asyncservice.market;
+
+import lombok.Data;
+
+/**
+ * 环形缓冲区（流水线阶段队列）统计信息
+ */
+@Data
+public class RingBufferStats {
+
+    /**
+     * 阶段名称
+     */
+    private String name;
+
+    /**
+     * 背压策略
+     */
+    private String policy;
+
+    /**
+     * 容量
+     */
+    private int capacity;
+
+    /**
+     * 当前队列深度
+     */
+    private int depth;
+
+    /**
+     * 累计提交数
+     */
+    private long offered;
+
+    /**
+     * 累计因背压丢弃数
+     */
+    private long dropped;
+
+    /**
+     * 累计消费数
+     */
+    private long consumed;
+
+    /**
+     * 最近一次出队的排队延迟（毫秒）
+     */
+    private long lastLagMs;
+
+    /**
+     * 最大排队延迟（毫秒）
+     */
+    private long maxLagMs;
+}
@@ -0,0 +1,32 @@
+package com.aifuturetrade.asyncservice.market;
+
+/**
+ * ticker历史存储的列定义（每列一个文件，定长基本类型，小端序）
+ */
+public enum TickerHistoryColumn {
+
+    SYMBOL_ID("symbol_id.i32", 4),
+    EVENT_TIME("event_time.i64", 8),
+    LAST_PRICE("last_price.f64", 8),
+    HIGH_PRICE("high_price.f64", 8),
+    LOW_PRICE("low_price.f64", 8),
+    BASE_VOLUME("base_volume.f64", 8),
+    QUOTE_VOLUME("quote_volume.f64", 8),
+    TRADE_COUNT("trade_count.i64", 8);
+
+    private final String fileName;
+    private final int width;
+
+    TickerHistoryColumn(String fileName, int width) {
+        this.fileName = fileName;
+        this.width = width;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+}
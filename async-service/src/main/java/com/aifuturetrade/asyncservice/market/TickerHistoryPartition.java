@@ -0,0 +1,206 @@
+package com.aifuturetrade.asyncservice.market;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ticker历史存储的一个日分区（一个目录）
+ *
+ * 目录结构：
+ * - meta.bin：magic(int) + version(int) + 行数(long)，行数在每行所有列写完后更新
+ * - 每列一个文件（见TickerHistoryColumn），第i行位于 i * 列宽 处
+ *
+ * 列文件按段（SEGMENT_ROWS行）内存映射，写满一段再映射下一段，文件随映射自动增长。
+ * 写模式只能由单个线程使用；读模式映射到打开时的行数，之后追加的数据需重新打开分区才能看到。
+ */
+class TickerHistoryPartition implements Closeable {
+
+    static final int SEGMENT_ROWS = 1 << 20;
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SEGMENT_MASK = SEGMENT_ROWS - 1;
+
+    static final String META_FILE = "meta.bin";
+    private static final int MAGIC = 0x54484953; // "THIS"
+    private static final int VERSION = 1;
+    private static final int META_SIZE = 16;
+    private static final int ROW_COUNT_OFFSET = 8;
+
+    private static final TickerHistoryColumn[] COLUMNS = TickerHistoryColumn.values();
+
+    private final Path dir;
+    private final boolean writable;
+    private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+    @SuppressWarnings("unchecked")
+    private final List<MappedByteBuffer>[] segments = new List[COLUMNS.length];
+    private final FileChannel metaChannel;
+    private final MappedByteBuffer meta;
+    private long rowCount;
+
+    private TickerHistoryPartition(Path dir, boolean writable) throws IOException {
+        this.dir = dir;
+        this.writable = writable;
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+
+        this.metaChannel = FileChannel.open(dir.resolve(META_FILE), options);
+        this.meta = metaChannel.map(mode, 0, META_SIZE);
+        meta.order(ByteOrder.LITTLE_ENDIAN);
+        if (meta.getInt(0) == 0 && writable) {
+            meta.putInt(0, MAGIC);
+            meta.putInt(4, VERSION);
+            meta.putLong(ROW_COUNT_OFFSET, 0L);
+        } else if (meta.getInt(0) != MAGIC) {
+            metaChannel.close();
+            throw new IOException("Invalid ticker history partition: " + dir);
+        }
+        this.rowCount = meta.getLong(ROW_COUNT_OFFSET);
+
+        for (TickerHistoryColumn column : COLUMNS) {
+            channels[column.ordinal()] = FileChannel.open(dir.resolve(column.getFileName()), options);
+            segments[column.ordinal()] = new ArrayList<>();
+        }
+        if (writable) {
+            // 写模式：重新打开已有分区时先映射已写入的全部段，之后追加到段尾再映射下一段
+            long existingSegments = (rowCount + SEGMENT_ROWS - 1) >>> SEGMENT_SHIFT;
+            for (long i = 0; i < existingSegments; i++) {
+                mapNextSegment();
+            }
+        } else {
+            // 读模式：按当前行数映射已有数据（最后一段只映射到实际行数）
+            for (TickerHistoryColumn column : COLUMNS) {
+                long remaining = rowCount;
+                long position = 0;
+                while (remaining > 0) {
+                    int rows = (int) Math.min(remaining, SEGMENT_ROWS);
+                    MappedByteBuffer buffer = channels[column.ordinal()]
+                            .map(FileChannel.MapMode.READ_ONLY, position, (long) rows * column.getWidth());
+                    buffer.order(ByteOrder.LITTLE_ENDIAN);
+                    segments[column.ordinal()].add(buffer);
+                    position += (long) SEGMENT_ROWS * column.getWidth();
+                    remaining -= rows;
+                }
+            }
+        }
+    }
+
+    /**
+     * 以写模式打开（不存在时创建）分区
+     */
+    static TickerHistoryPartition openForWrite(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        return new TickerHistoryPartition(dir, true);
+    }
+
+    /**
+     * 以只读模式打开分区
+     */
+    static TickerHistoryPartition openForRead(Path dir) throws IOException {
+        return new TickerHistoryPartition(dir, false);
+    }
+
+    /**
+     * 追加一行（仅写模式，单线程）
+     */
+    void append(int symbolId, long eventTimeMs, double lastPrice, double highPrice, double lowPrice,
+                double baseVolume, double quoteVolume, long tradeCount) throws IOException {
+        long row = rowCount;
+        int segment = (int) (row >>> SEGMENT_SHIFT);
+        int index = (int) (row & SEGMENT_MASK);
+        while (segment >= segments[0].size()) {
+            mapNextSegment();
+        }
+        segment(TickerHistoryColumn.SYMBOL_ID, segment).putInt(index * 4, symbolId);
+        segment(TickerHistoryColumn.EVENT_TIME, segment).putLong(index * 8, eventTimeMs);
+        segment(TickerHistoryColumn.LAST_PRICE, segment).putDouble(index * 8, lastPrice);
+        segment(TickerHistoryColumn.HIGH_PRICE, segment).putDouble(index * 8, highPrice);
+        segment(TickerHistoryColumn.LOW_PRICE, segment).putDouble(index * 8, lowPrice);
+        segment(TickerHistoryColumn.BASE_VOLUME, segment).putDouble(index * 8, baseVolume);
+        segment(TickerHistoryColumn.QUOTE_VOLUME, segment).putDouble(index * 8, quoteVolume);
+        segment(TickerHistoryColumn.TRADE_COUNT, segment).putLong(index * 8, tradeCount);
+        rowCount = row + 1;
+        meta.putLong(ROW_COUNT_OFFSET, rowCount);
+    }
+
+    private void mapNextSegment() throws IOException {
+        for (TickerHistoryColumn column : COLUMNS) {
+            List<MappedByteBuffer> list = segments[column.ordinal()];
+            long segmentBytes = (long) SEGMENT_ROWS * column.getWidth();
+            MappedByteBuffer buffer = channels[column.ordinal()]
+                    .map(FileChannel.MapMode.READ_WRITE, list.size() * segmentBytes, segmentBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            list.add(buffer);
+        }
+    }
+
+    private MappedByteBuffer segment(TickerHistoryColumn column, int segment) {
+        return segments[column.ordinal()].get(segment);
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    int symbolId(long row) {
+        return segment(TickerHistoryColumn.SYMBOL_ID, (int) (row >>> SEGMENT_SHIFT)).getInt((int) (row & SEGMENT_MASK) * 4);
+    }
+
+    long eventTime(long row) {
+        return getLong(TickerHistoryColumn.EVENT_TIME, row);
+    }
+
+    long tradeCount(long row) {
+        return getLong(TickerHistoryColumn.TRADE_COUNT, row);
+    }
+
+    double getDouble(TickerHistoryColumn column, long row) {
+        return segment(column, (int) (row >>> SEGMENT_SHIFT)).getDouble((int) (row & SEGMENT_MASK) * 8);
+    }
+
+    private long getLong(TickerHistoryColumn column, long row) {
+        return segment(column, (int) (row >>> SEGMENT_SHIFT)).getLong((int) (row & SEGMENT_MASK) * 8);
+    }
+
+    /**
+     * 将已写入的数据刷到磁盘（写模式）
+     */
+    void force() {
+        if (!writable) {
+            return;
+        }
+        for (List<MappedByteBuffer> list : segments) {
+            for (MappedByteBuffer buffer : list) {
+                buffer.force();
+            }
+        }
+        meta.force();
+    }
+
+    Path getDir() {
+        return dir;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        for (FileChannel channel : channels) {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        metaChannel.close();
+        // MappedByteBuffer无法显式解除映射，释放引用后由GC回收
+        for (List<MappedByteBuffer> list : segments) {
+            list.clear();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.aifuturetrade.asyncservice.market;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * ticker历史列式存储（读端）
+ *
+ * 按时间范围扫描日分区：先只读symbol id和事件时间两列做过滤，命中的行再读取其余列。
+ * 每次扫描重新映射分区并读取symbol字典，因此能看到写端到扫描开始时为止追加的数据。
+ * 可与写端并发使用（写端先写各列、再更新行数）。
+ */
+public class TickerHistoryReader {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    private final Path root;
+
+    public TickerHistoryReader(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * 范围扫描
+     *
+     * @param symbol 交易对，null表示所有交易对
+     * @param fromMs 起始事件时间（UTC毫秒，包含）
+     * @param toMs 结束事件时间（UTC毫秒，包含）
+     * @param visitor 回调，返回false时停止
+     * @return 回调的行数
+     */
+    public long scan(String symbol, long fromMs, long toMs, TickerHistoryVisitor visitor) throws IOException {
+        if (toMs < fromMs) {
+            return 0L;
+        }
+        List<String> symbols = TickerHistoryStore.readDictionary(root);
+        int symbolId = -1;
+        if (symbol != null) {
+            symbolId = symbols.indexOf(symbol);
+            if (symbolId < 0) {
+                return 0L;
+            }
+        }
+
+        long visited = 0L;
+        long firstDay = Math.floorDiv(fromMs, DAY_MS);
+        // 多扫描一个分区：跨日后写入当前分区的前一日迟到数据
+        long lastDay = Math.floorDiv(toMs, DAY_MS) + 1;
+        for (long day = firstDay; day <= lastDay; day++) {
+            Path dir = TickerHistoryStore.partitionDir(root, day);
+            if (!Files.exists(dir.resolve(TickerHistoryPartition.META_FILE))) {
+                continue;
+            }
+            try (TickerHistoryPartition partition = TickerHistoryPartition.openForRead(dir)) {
+                long rows = partition.getRowCount();
+                for (long row = 0; row < rows; row++) {
+                    int id = partition.symbolId(row);
+                    if (symbolId >= 0 && id != symbolId) {
+                        continue;
+                    }
+                    long eventTime = partition.eventTime(row);
+                    if (eventTime < fromMs || eventTime > toMs || id >= symbols.size()) {
+                        continue;
+                    }
+                    visited++;
+                    boolean more = visitor.visit(symbols.get(id), eventTime,
+                            partition.getDouble(TickerHistoryColumn.LAST_PRICE, row),
+                            partition.getDouble(TickerHistoryColumn.HIGH_PRICE, row),
+                            partition.getDouble(TickerHistoryColumn.LOW_PRICE, row),
+                            partition.getDouble(TickerHistoryColumn.BASE_VOLUME, row),
+                            partition.getDouble(TickerHistoryColumn.QUOTE_VOLUME, row),
+                            partition.tradeCount(row));
+                    if (!more) {
+                        return visited;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * 列出已有的日分区（yyyy-MM-dd，升序）
+     */
+    public List<String> listPartitions() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (var stream = Files.list(root)) {
+            return stream.filter(path -> Files.exists(path.resolve(TickerHistoryPartition.META_FILE)))
+                    .map(path -> path.getFileName().toString())
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.aifuturetrade.asyncservice.market;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ticker历史查询结果（供接口返回，批量扫描请直接使用TickerHistoryVisitor）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TickerHistoryRecord {
+
+    private String symbol;
+
+    /** 事件时间（UTC毫秒） */
+    private long eventTime;
+
+    private double lastPrice;
+
+    private double highPrice;
+
+    private double lowPrice;
+
+    private double baseVolume;
+
+    private double quoteVolume;
+
+    private long tradeCount;
+}
@@ -0,0 +1,142 @@
+package com.aifuturetrade.asyncservice.market;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ticker历史列式存储（写端）
+ *
+ * 只追加、按UTC日期分区、内存映射的列式存储，每条规范化后的ticker快照占一行：
+ * symbol id、事件时间、最新价、最高价、最低价、成交量、成交额、成交笔数，全部为定长基本类型。
+ *
+ * 目录结构：
+ * - {root}/symbols.dict：symbol字典，每行一个symbol，行号即symbol id（全局共享，只追加）
+ * - {root}/yyyy-MM-dd/：日分区，见TickerHistoryPartition
+ *
+ * 分区按行的事件时间切换；切换后到达的前一日迟到数据写入当前分区，读端扫描时会多读一个分区兜底。
+ * 写入只是对映射内存的赋值，不涉及系统调用，数据由操作系统页缓存异步落盘。
+ *
+ * 非线程安全：只能由单个线程调用append。
+ */
+public class TickerHistoryStore implements Closeable {
+
+    static final String DICTIONARY_FILE = "symbols.dict";
+    private static final long DAY_MS = 86_400_000L;
+
+    private final Path root;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final BufferedWriter dictionaryWriter;
+    private TickerHistoryPartition partition;
+    private long partitionDay = Long.MIN_VALUE;
+    private long rowsAppended;
+
+    public TickerHistoryStore(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+        List<String> symbols = readDictionary(root);
+        for (int i = 0; i < symbols.size(); i++) {
+            symbolIds.put(symbols.get(i), i);
+        }
+        this.dictionaryWriter = Files.newBufferedWriter(root.resolve(DICTIONARY_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * 追加一条ticker快照
+     *
+     * @param eventTimeMs 事件时间（UTC毫秒），决定所在日分区
+     */
+    public void append(String symbol, long eventTimeMs, double lastPrice, double highPrice, double lowPrice,
+                       double baseVolume, double quoteVolume, long tradeCount) throws IOException {
+        long day = Math.floorDiv(eventTimeMs, DAY_MS);
+        if (day > partitionDay) {
+            rollPartition(day);
+        }
+        partition.append(symbolId(symbol), eventTimeMs, lastPrice, highPrice, lowPrice,
+                baseVolume, quoteVolume, tradeCount);
+        rowsAppended++;
+    }
+
+    private int symbolId(String symbol) throws IOException {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        // 新symbol很少出现，立即落盘字典，保证读端能解析新id
+        int newId = symbolIds.size();
+        dictionaryWriter.write(symbol);
+        dictionaryWriter.newLine();
+        dictionaryWriter.flush();
+        symbolIds.put(symbol, newId);
+        return newId;
+    }
+
+    private void rollPartition(long day) throws IOException {
+        if (partition != null) {
+            partition.close();
+        }
+        partition = TickerHistoryPartition.openForWrite(partitionDir(root, day));
+        partitionDay = day;
+    }
+
+    /**
+     * 将当前分区的映射内存刷到磁盘
+     */
+    public void force() {
+        if (partition != null) {
+            partition.force();
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 本进程启动以来追加的行数
+     */
+    public long getRowsAppended() {
+        return rowsAppended;
+    }
+
+    /**
+     * 当前分区的总行数（包含重启前写入的行）
+     */
+    public long getCurrentPartitionRows() {
+        return partition != null ? partition.getRowCount() : 0L;
+    }
+
+    public int getSymbolCount() {
+        return symbolIds.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (partition != null) {
+            partition.close();
+            partition = null;
+        }
+        dictionaryWriter.close();
+    }
+
+    static Path partitionDir(Path root, long epochDay) {
+        return root.resolve(LocalDate.ofEpochDay(epochDay).toString());
+    }
+
+    static List<String> readDictionary(Path root) throws IOException {
+        Path file = root.resolve(DICTIONARY_FILE);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,14 @@
+package com.aifuturetrade.asyncservice.market;
+
+/**
+ * ticker历史范围扫描回调（参数均为基本类型，扫描过程不创建对象）
+ */
+@FunctionalInterface
+public interface TickerHistoryVisitor {
+
+    /**
+     * @return false表示停止扫描
+     */
+    boolean visit(String symbol, long eventTimeMs, double lastPrice, double highPrice, double lowPrice,
+                  double baseVolume, double quoteVolume, long tradeCount);
+}
@@ -0,0 +1,42 @@
+package com.aifuturetrade.asyncservice.market;
+
+/**
+ * ticker摄入链路的计时阶段
+ */
+public enum TickerIngestionStage {
+
+    /**
+     * 交易所事件时间E到本地收到报文（接收时刻 - 消息中最新的E，受本机时钟偏差影响）
+     */
+    EXCHANGE_TO_RECEIVE("ms"),
+
+    /**
+     * 报文解析（DTO模式为Gson反序列化，raw模式为RawTickerParser）
+     */
+    PARSE("us"),
+
+    /**
+     * 标准化并筛选USDT交易对
+     */
+    NORMALIZE("us"),
+
+    /**
+     * 合并内存状态表中的现有数据并计算涨跌幅
+     */
+    MERGE("us"),
+
+    /**
+     * 批量upsert到24_market_tickers
+     */
+    UPSERT("us");
+
+    private final String unit;
+
+    TickerIngestionStage(String unit) {
+        this.unit = unit;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+}
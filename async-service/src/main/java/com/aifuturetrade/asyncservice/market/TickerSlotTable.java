@@ -0,0 +1,328 @@
+package com.aifuturetrade.asyncservice.market;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * 按symbol分配槽位的ticker原始值表（列式，全部为基本类型数组）
+ *
+ * 由RawTickerParser直接写入，每个symbol首次出现时分配一个槽位id，之后不再为该symbol分配任何对象。
+ * symbol查找使用开放寻址哈希表，直接与报文中的字符区间比较，不为每条消息创建symbol字符串。
+ *
+ * 字段分两组维护：价格/成交量（完整ticker与精简ticker都有）和统计字段（加权均价、最新成交量、
+ * 统计区间、成交id、成交笔数，只有完整ticker有），两组各自按事件时间判断新旧，
+ * 使精简ticker摄入模式下定期从REST全市场24小时统计补充的统计字段（见writeStats）不会覆盖价格。
+ *
+ * 非线程安全：只能由ticker流处理线程读写。
+ */
+public class TickerSlotTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size = 0;
+    private String[] symbols;
+    private boolean[] usdt;
+
+    private long[] eventTime;
+    private double[] averagePrice;
+    private double[] lastPrice;
+    private double[] lastTradeVolume;
+    private double[] highPrice;
+    private double[] lowPrice;
+    private double[] baseVolume;
+    private double[] quoteVolume;
+    private long[] statsOpenTime;
+    private long[] statsCloseTime;
+    private long[] firstTradeId;
+    private long[] lastTradeId;
+    private long[] tradeCount;
+    private long[] statsEventTime;
+
+    /**
+     * 开放寻址哈希表：存放槽位id+1，0表示空
+     */
+    private int[] index;
+
+    /**
+     * 本条消息中更新过的槽位id（复用数组）
+     */
+    private int[] updated;
+    private int updatedCount = 0;
+
+    /**
+     * 槽位最近一次加入更新列表时的消息序号，同一批消息中同一symbol只加入一次
+     */
+    private long[] updatedGeneration;
+    private long generation = 1;
+
+    /**
+     * 自beginMessage以来成功写入价格的ticker数（含同一symbol的多次写入）
+     */
+    private int writtenCount = 0;
+
+    public TickerSlotTable() {
+        allocate(INITIAL_CAPACITY);
+        index = new int[INITIAL_CAPACITY * 2];
+        updated = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 查找或分配symbol的槽位id
+     *
+     * @param src 报文
+     * @param start symbol起始位置（含）
+     * @param end symbol结束位置（不含）
+     * @return 槽位id
+     */
+    public int slotOf(String src, int start, int end) {
+        int len = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + src.charAt(i);
+        }
+        int mask = index.length - 1;
+        int pos = mix(hash) & mask;
+        while (true) {
+            int entry = index[pos];
+            if (entry == 0) {
+                break;
+            }
+            String candidate = symbols[entry - 1];
+            if (candidate.length() == len && src.regionMatches(start, candidate, 0, len)) {
+                return entry - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return addSymbol(src.substring(start, end));
+    }
+
+    /**
+     * 查找symbol的槽位id，不存在时返回-1
+     */
+    public int find(String symbol) {
+        int mask = index.length - 1;
+        int pos = mix(symbol.hashCode()) & mask;
+        while (true) {
+            int entry = index[pos];
+            if (entry == 0) {
+                return -1;
+            }
+            if (symbols[entry - 1].equals(symbol)) {
+                return entry - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    /**
+     * 开始处理一条新消息：清空本条消息的更新列表
+     *
+     * 积压的多条消息可以只调用一次beginMessage后依次解析（见RawTickerParser.append），
+     * 更新列表中每个symbol只出现一次，槽位中保留的是最新一条
+     */
+    public void beginMessage() {
+        updatedCount = 0;
+        writtenCount = 0;
+        generation++;
+    }
+
+    /**
+     * 写入一个完整ticker的全部字段（由解析器在对象结束时调用）
+     *
+     * 统计字段在事件时间晚于已有统计时更新；价格字段的事件时间不晚于槽位中已有数据时视为重复
+     * （如新旧连接并行期间收到的同一条消息），不写入也不计入更新列表
+     *
+     * @return true如果价格字段已写入，false如果为重复/过期数据
+     */
+    public boolean write(int slot, long e, double w, double c, double q, double h, double l, double v,
+                      double quote, long o, long closeTime, long f, long lastId, long n) {
+        if (e <= 0 || e > statsEventTime[slot]) {
+            statsEventTime[slot] = e;
+            averagePrice[slot] = w;
+            lastTradeVolume[slot] = q;
+            statsOpenTime[slot] = o;
+            statsCloseTime[slot] = closeTime;
+            firstTradeId[slot] = f;
+            lastTradeId[slot] = lastId;
+            tradeCount[slot] = n;
+        }
+        return writePrices(slot, e, c, h, l, v, quote);
+    }
+
+    /**
+     * 写入一个精简ticker（!miniTicker@arr）的价格与成交量字段，统计字段保留最近一次完整快照的值
+     *
+     * @return true如果已写入，false如果为重复/过期数据
+     */
+    public boolean writeMini(int slot, long e, double c, double h, double l, double v, double quote) {
+        return writePrices(slot, e, c, h, l, v, quote);
+    }
+
+    /**
+     * 只写入统计字段（精简ticker摄入模式下来自REST全市场24小时统计），不计入本条消息的更新列表，
+     * 随该symbol下一次价格更新一起落库
+     *
+     * @param symbol 交易对符号（首次出现时分配槽位）
+     * @param e 统计数据的时间（REST统计使用closeTime），不晚于已有统计时忽略
+     * @return true如果已写入
+     */
+    public boolean writeStats(String symbol, long e, double w, double q, long o, long closeTime,
+                              long f, long lastId, long n) {
+        int slot = slotOf(symbol, 0, symbol.length());
+        if (e > 0 && e <= statsEventTime[slot]) {
+            return false;
+        }
+        statsEventTime[slot] = e;
+        averagePrice[slot] = w;
+        lastTradeVolume[slot] = q;
+        statsOpenTime[slot] = o;
+        statsCloseTime[slot] = closeTime;
+        firstTradeId[slot] = f;
+        lastTradeId[slot] = lastId;
+        tradeCount[slot] = n;
+        return true;
+    }
+
+    private boolean writePrices(int slot, long e, double c, double h, double l, double v, double quote) {
+        if (e > 0 && e <= eventTime[slot]) {
+            return false;
+        }
+        eventTime[slot] = e;
+        lastPrice[slot] = c;
+        highPrice[slot] = h;
+        lowPrice[slot] = l;
+        baseVolume[slot] = v;
+        quoteVolume[slot] = quote;
+        writtenCount++;
+        if (updatedGeneration[slot] == generation) {
+            return true;
+        }
+        updatedGeneration[slot] = generation;
+        if (updatedCount == updated.length) {
+            updated = Arrays.copyOf(updated, updated.length * 2);
+        }
+        updated[updatedCount++] = slot;
+        return true;
+    }
+
+    public int getUpdatedCount() { return updatedCount; }
+    public int getWrittenCount() { return writtenCount; }
+    public int getUpdatedSlot(int i) { return updated[i]; }
+    public int size() { return size; }
+
+    public String symbol(int slot) { return symbols[slot]; }
+    public boolean isUsdt(int slot) { return usdt[slot]; }
+    public long eventTime(int slot) { return eventTime[slot]; }
+    public double averagePrice(int slot) { return averagePrice[slot]; }
+    public double lastPrice(int slot) { return lastPrice[slot]; }
+    public double lastTradeVolume(int slot) { return lastTradeVolume[slot]; }
+    public double highPrice(int slot) { return highPrice[slot]; }
+    public double lowPrice(int slot) { return lowPrice[slot]; }
+    public double baseVolume(int slot) { return baseVolume[slot]; }
+    public double quoteVolume(int slot) { return quoteVolume[slot]; }
+    public long statsOpenTime(int slot) { return statsOpenTime[slot]; }
+    public long statsCloseTime(int slot) { return statsCloseTime[slot]; }
+    public long firstTradeId(int slot) { return firstTradeId[slot]; }
+    public long lastTradeId(int slot) { return lastTradeId[slot]; }
+    public long tradeCount(int slot) { return tradeCount[slot]; }
+
+    /**
+     * 将槽位转换为MarketTickerDO（与normalizeTicker的输出一致：时间为UTC，未计算price_change）
+     * 仅在持久化边界调用
+     */
+    public MarketTickerDO toTickerDO(int slot) {
+        MarketTickerDO tickerDO = new MarketTickerDO();
+        tickerDO.setSymbol(symbols[slot]);
+        if (eventTime[slot] > 0) {
+            tickerDO.setEventTime(toUtc(eventTime[slot]));
+        }
+        tickerDO.setAveragePrice(averagePrice[slot]);
+        tickerDO.setLastPrice(lastPrice[slot]);
+        tickerDO.setLastTradeVolume(lastTradeVolume[slot]);
+        tickerDO.setHighPrice(highPrice[slot]);
+        tickerDO.setLowPrice(lowPrice[slot]);
+        tickerDO.setBaseVolume(baseVolume[slot]);
+        tickerDO.setQuoteVolume(quoteVolume[slot]);
+        if (statsOpenTime[slot] > 0) {
+            tickerDO.setStatsOpenTime(toUtc(statsOpenTime[slot]));
+        }
+        if (statsCloseTime[slot] > 0) {
+            tickerDO.setStatsCloseTime(toUtc(statsCloseTime[slot]));
+        }
+        tickerDO.setFirstTradeId(firstTradeId[slot]);
+        tickerDO.setLastTradeId(lastTradeId[slot]);
+        tickerDO.setTradeCount(tradeCount[slot]);
+        return tickerDO;
+    }
+
+    private static LocalDateTime toUtc(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneOffset.UTC);
+    }
+
+    private int addSymbol(String symbol) {
+        if (size == symbols.length) {
+            allocate(symbols.length * 2);
+        }
+        int slot = size++;
+        symbols[slot] = symbol;
+        usdt[slot] = symbol.endsWith("USDT");
+        if (size * 2 > index.length) {
+            rehash(index.length * 2);
+        } else {
+            insertIndex(slot);
+        }
+        return slot;
+    }
+
+    private void rehash(int newLength) {
+        index = new int[newLength];
+        for (int slot = 0; slot < size; slot++) {
+            insertIndex(slot);
+        }
+    }
+
+    private void insertIndex(int slot) {
+        int mask = index.length - 1;
+        int pos = mix(symbols[slot].hashCode()) & mask;
+        while (index[pos] != 0) {
+            pos = (pos + 1) & mask;
+        }
+        index[pos] = slot + 1;
+    }
+
+    private void allocate(int capacity) {
+        symbols = symbols == null ? new String[capacity] : Arrays.copyOf(symbols, capacity);
+        usdt = usdt == null ? new boolean[capacity] : Arrays.copyOf(usdt, capacity);
+        eventTime = grow(eventTime, capacity);
+        averagePrice = grow(averagePrice, capacity);
+        lastPrice = grow(lastPrice, capacity);
+        lastTradeVolume = grow(lastTradeVolume, capacity);
+        highPrice = grow(highPrice, capacity);
+        lowPrice = grow(lowPrice, capacity);
+        baseVolume = grow(baseVolume, capacity);
+        quoteVolume = grow(quoteVolume, capacity);
+        statsOpenTime = grow(statsOpenTime, capacity);
+        statsCloseTime = grow(statsCloseTime, capacity);
+        firstTradeId = grow(firstTradeId, capacity);
+        lastTradeId = grow(lastTradeId, capacity);
+        tradeCount = grow(tradeCount, capacity);
+        statsEventTime = grow(statsEventTime, capacity);
+        updatedGeneration = grow(updatedGeneration, capacity);
+    }
+
+    private static long[] grow(long[] array, int capacity) {
+        return array == null ? new long[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
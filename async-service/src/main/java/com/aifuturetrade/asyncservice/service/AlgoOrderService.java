@@ -1,5 +1,7 @@
 package com.aifuturetrade.asyncservice.service;
 
+import java.util.Collection;
+
 /**
  * 条件订单服务接口
  * 
@@ -8,6 +10,7 @@ package com.aifuturetrade.asyncservice.service;
  * 2. 查询对应symbol的市场价格
  * 3. 根据positionSide判断是否触发成交条件
  * 4. 如果触发，执行交易并更新相关表（trades、account_value_historys、account_values等）
+ * 5. real模型的账户有用户数据流时，由推送事件更新状态，仅在连接/重连后通过REST对账
  */
 public interface AlgoOrderService {
     
@@ -34,4 +37,25 @@ public interface AlgoOrderService {
      * @return true如果正在运行，false否则
      */
     boolean isSchedulerRunning();
+
+    /**
+     * 应用用户数据流推送的real模型条件单状态变化（ALGO_UPDATE，或触发后普通订单的ORDER_TRADE_UPDATE）
+     *
+     * @param algoId 币安条件单ID
+     * @param sdkStatus 币安条件单状态（NEW时忽略）
+     * @param actualPrice 实际成交均价，可为空
+     * @param executedQuantity 实际成交数量，可为空
+     * @param actualOrderId 触发后生成的普通订单ID，可为空
+     * @return 找到new状态的条件订单并已处理时返回true
+     */
+    boolean applyRealAlgoOrderUpdate(Long algoId, String sdkStatus, String actualPrice,
+                                     String executedQuantity, Long actualOrderId);
+
+    /**
+     * 通过REST查询指定real模型所有new状态条件单的最新状态（用户数据流连接或重连后对账）
+     *
+     * @param modelIds 模型ID
+     * @return 处理结果
+     */
+    AlgoOrderProcessResult reconcileRealModelAlgoOrders(Collection<String> modelIds);
 }
@@ -0,0 +1,49 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesOrderClient;
+import com.aifuturetrade.asyncservice.entity.ModelDO;
+
+/**
+ * 币安客户端注册表
+ *
+ * 按API凭证指纹缓存客户端，使用同一凭证的模型共享同一个客户端实例；所有客户端共享一个HTTP连接池。
+ * 模型的凭证变化时自动切换到新凭证的客户端，不再被任何模型使用的旧客户端被移除；
+ * 客户端数量按LRU限制，长时间未使用的客户端定期清理。
+ */
+public interface BinanceClientRegistry {
+
+    /**
+     * 获取模型使用的行情客户端（模型未配置API密钥时使用默认密钥）
+     *
+     * @param model 模型（需要id、apiKey、apiSecret）
+     * @return 客户端，创建失败时返回null
+     */
+    BinanceFuturesClient getFuturesClient(ModelDO model);
+
+    /**
+     * 获取模型使用的订单客户端（模型未配置API密钥时使用默认密钥）
+     *
+     * @param model 模型（需要id、apiKey、apiSecret）
+     * @return 客户端，创建失败时返回null
+     */
+    BinanceFuturesOrderClient getOrderClient(ModelDO model);
+
+    /**
+     * 获取模型当前使用的凭证指纹（未配置API密钥时为默认密钥的指纹），同一指纹的模型属于同一个币安账户
+     *
+     * @param model 模型（需要apiKey、apiSecret）
+     * @return 凭证指纹
+     */
+    String getCredentialFingerprint(ModelDO model);
+
+    /**
+     * 获取使用默认密钥的行情客户端
+     */
+    BinanceFuturesClient getDefaultFuturesClient();
+
+    /**
+     * 获取注册表和共享连接池的统计信息
+     */
+    BinanceClientRegistryStats getStats();
+}
@@ -0,0 +1,65 @@
+package com.aifuturetrade.asyncservice.service;
+
+import lombok.Data;
+
+/**
+ * 币安客户端注册表统计信息
+ */
+@Data
+public class BinanceClientRegistryStats {
+
+    /**
+     * 缓存的凭证（客户端组）数量
+     */
+    private int credentialCount;
+
+    /**
+     * 已绑定凭证的模型数量
+     */
+    private int modelCount;
+
+    /**
+     * 最多缓存的凭证数量
+     */
+    private int maxCredentials;
+
+    /**
+     * 累计命中已有客户端的次数
+     */
+    private long hits;
+
+    /**
+     * 累计新建客户端组的次数
+     */
+    private long misses;
+
+    /**
+     * 累计因LRU或空闲超时移除的客户端组数量
+     */
+    private long evictions;
+
+    /**
+     * 累计检测到模型凭证变化的次数
+     */
+    private long credentialChanges;
+
+    /**
+     * 共享连接池中的连接数
+     */
+    private int connectionCount;
+
+    /**
+     * 共享连接池中的空闲连接数
+     */
+    private int idleConnectionCount;
+
+    /**
+     * 共享连接池最多保留的空闲连接数
+     */
+    private int maxIdleConnections;
+
+    /**
+     * 正在执行的HTTP请求数
+     */
+    private int runningCalls;
+}
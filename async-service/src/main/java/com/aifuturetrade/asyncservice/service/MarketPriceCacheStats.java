@@ -0,0 +1,45 @@
+package com.aifuturetrade.asyncservice.service;
+
+import lombok.Data;
+
+/**
+ * 价格缓存统计信息
+ */
+@Data
+public class MarketPriceCacheStats {
+
+    /**
+     * 是否启用标记价格流
+     */
+    private boolean enabled;
+
+    /**
+     * 价格过期时长（毫秒），超过该时长的缓存价格回退REST查询
+     */
+    private long maxAgeMs;
+
+    /**
+     * 缓存中的symbol数量
+     */
+    private int symbolCount;
+
+    /**
+     * 最近一次从价格流收到消息的时间（毫秒时间戳）
+     */
+    private long lastMessageAtMs;
+
+    /**
+     * 累计命中缓存（未过期）的symbol次数
+     */
+    private long hits;
+
+    /**
+     * 累计回退REST查询的symbol次数
+     */
+    private long restFallbacks;
+
+    /**
+     * 累计重建价格流连接次数
+     */
+    private long reconnects;
+}
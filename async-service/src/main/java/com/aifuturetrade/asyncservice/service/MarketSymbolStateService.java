@@ -0,0 +1,86 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.entity.SymbolPriceState;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 市场Symbol状态服务接口
+ *
+ * 常驻内存的symbol状态表（open_price、last_price、update_price_date），
+ * 启动时从24_market_tickers表预热，之后由ticker流和价格刷新服务维护。
+ *
+ * 主要功能：
+ * - 为ticker流提供无需查库的price_change计算依据
+ * - 并发读：读线程直接获取不可变快照
+ * - 价格刷新服务更新开盘价后同步更新内存
+ * - Symbol下线服务删除过期数据后同步淘汰内存
+ */
+public interface MarketSymbolStateService {
+
+    /**
+     * 从数据库预热状态表（幂等，已预热时直接返回true）
+     *
+     * @return true如果状态表可用，false如果预热失败（调用方应回退为查库）
+     */
+    boolean ensureWarmedUp();
+
+    /**
+     * 状态表是否已完成预热
+     */
+    boolean isWarmedUp();
+
+    /**
+     * 获取symbol的状态
+     *
+     * @param symbol 交易对符号
+     * @return 状态快照，不存在时返回null（表示数据库中尚无该symbol）
+     */
+    SymbolPriceState get(String symbol);
+
+    /**
+     * 将数据库中查询到的状态载入内存（用于预热失败时的回退路径）
+     *
+     * @param states 状态列表
+     */
+    void loadAll(Collection<SymbolPriceState> states);
+
+    /**
+     * 从数据库重新载入其中被淘汰过的symbol（与内存状态合并），避免重新出现时以open_price=0.0重新开始
+     *
+     * @param symbols 本次消息中的symbol
+     */
+    void reloadEvicted(Collection<String> symbols);
+
+    /**
+     * ticker流写库成功后记录最新价格；symbol不存在时按新插入处理（open_price=0.0，update_price_date=null）
+     *
+     * @param symbol 交易对符号
+     * @param lastPrice 最新价格
+     */
+    void recordLastPrice(String symbol, Double lastPrice);
+
+    /**
+     * 价格刷新服务更新开盘价后同步更新内存（预热完成前尚未载入的symbol暂存到载入时合并）
+     *
+     * @param symbol 交易对符号
+     * @param openPrice 开盘价
+     * @param updatePriceDate 价格更新日期（UTC+8）
+     */
+    void updateOpenPrice(String symbol, Double openPrice, LocalDateTime updatePriceDate);
+
+    /**
+     * 淘汰指定时间之前未再被ticker流写入的symbol
+     *
+     * @param cutoffMs 截止时间（毫秒时间戳）
+     * @return 淘汰的symbol列表
+     */
+    List<String> evictNotSeenSince(long cutoffMs);
+
+    /**
+     * 当前状态表中的symbol数量
+     */
+    int size();
+}
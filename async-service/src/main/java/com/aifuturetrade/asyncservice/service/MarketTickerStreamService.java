@@ -39,5 +39,12 @@ public interface MarketTickerStreamService {
      * @return DerivativesTradingUsdsFuturesWebSocketStreams API实例
      */
     Object getApi();
+    
+    /**
+     * 获取接收/转换/持久化流水线统计信息（各阶段队列深度、排队延迟、丢弃数）
+     * 
+     * @return 流水线统计信息
+     */
+    TickerPipelineStats getPipelineStats();
 }
 
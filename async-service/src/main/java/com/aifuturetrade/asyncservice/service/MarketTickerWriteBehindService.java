@@ -0,0 +1,37 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+
+import java.util.List;
+
+/**
+ * 市场Ticker写后缓冲服务接口
+ *
+ * 位于ticker流线程与MySQL之间的合并（conflation）阶段：
+ * - 每个symbol只保留最新快照，未落库前被新快照覆盖
+ * - 按配置的周期或待写数量阈值批量刷新到24_market_tickers
+ * - 与上次落库相比没有变化的行直接跳过，降低共享MySQL的写放大
+ */
+public interface MarketTickerWriteBehindService {
+
+    /**
+     * 提交一批已标准化的ticker（由ticker流线程调用，不阻塞在数据库上）
+     *
+     * @param tickers 已完成price_change计算的ticker列表
+     */
+    void submit(List<MarketTickerDO> tickers);
+
+    /**
+     * 立即刷新所有待写数据（同步执行）
+     *
+     * @return 本次实际写入的行数
+     */
+    int flush();
+
+    /**
+     * 获取写后缓冲统计信息
+     *
+     * @return 统计信息快照
+     */
+    TickerWriteBehindStats getStats();
+}
@@ -0,0 +1,57 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.aifuturetrade.asyncservice.market.TickerHistoryRecord;
+import com.aifuturetrade.asyncservice.market.TickerHistoryVisitor;
+
+import java.util.List;
+
+/**
+ * ticker历史存储服务接口
+ *
+ * 把每条规范化后的ticker快照追加到本地内存映射列式存储（按UTC日期分区），
+ * 不经过MySQL，用于回放和离线分析。
+ */
+public interface TickerHistoryService {
+
+    /**
+     * 是否启用历史存储
+     */
+    boolean isEnabled();
+
+    /**
+     * 追加一批ticker快照（仅由ticker转换线程调用，时间字段为UTC）
+     *
+     * @param tickers 已标准化的ticker列表
+     */
+    void record(List<MarketTickerDO> tickers);
+
+    /**
+     * 范围扫描（回调方式，不创建中间对象）
+     *
+     * @param symbol 交易对，null表示所有交易对
+     * @param fromMs 起始事件时间（UTC毫秒，包含）
+     * @param toMs 结束事件时间（UTC毫秒，包含）
+     * @param visitor 回调，返回false时停止
+     * @return 回调的行数
+     */
+    long scan(String symbol, long fromMs, long toMs, TickerHistoryVisitor visitor);
+
+    /**
+     * 范围查询
+     *
+     * @param symbol 交易对，null表示所有交易对
+     * @param fromMs 起始事件时间（UTC毫秒，包含）
+     * @param toMs 结束事件时间（UTC毫秒，包含）
+     * @param limit 最多返回的行数
+     * @return 按写入顺序排列的快照
+     */
+    List<TickerHistoryRecord> query(String symbol, long fromMs, long toMs, int limit);
+
+    /**
+     * 获取历史存储统计信息
+     *
+     * @return 统计信息快照
+     */
+    TickerHistoryStats getStats();
+}
@@ -0,0 +1,47 @@
+package com.aifuturetrade.asyncservice.service;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * ticker历史存储统计信息
+ */
+@Data
+public class TickerHistoryStats {
+
+    /**
+     * 是否启用历史存储
+     */
+    private boolean enabled;
+
+    /**
+     * 存储根目录
+     */
+    private String dir;
+
+    /**
+     * 本进程启动以来追加的行数
+     */
+    private long rowsAppended;
+
+    /**
+     * 当前日分区的总行数
+     */
+    private long currentPartitionRows;
+
+    /**
+     * symbol字典大小
+     */
+    private int symbolCount;
+
+    /**
+     * 累计追加失败次数
+     */
+    private long appendFailures;
+
+    /**
+     * 已有的日分区（yyyy-MM-dd）
+     */
+    private List<String> partitions;
+}
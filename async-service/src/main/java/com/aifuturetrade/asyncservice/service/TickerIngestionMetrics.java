@@ -0,0 +1,78 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.market.HistogramSnapshot;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * ticker摄入链路指标快照
+ */
+@Data
+public class TickerIngestionMetrics {
+
+    /**
+     * 窗口长度（秒）
+     */
+    private int windowSeconds;
+
+    /**
+     * 最近一个完整窗口的开始时间（毫秒时间戳，0表示尚无完整窗口）
+     */
+    private long windowStartAtMs;
+
+    /**
+     * 最近一个完整窗口的结束时间（毫秒时间戳）
+     */
+    private long windowEndAtMs;
+
+    /**
+     * 窗口内每秒消息数
+     */
+    private double messagesPerSecond;
+
+    /**
+     * 窗口内每秒ticker数
+     */
+    private double symbolsPerSecond;
+
+    /**
+     * 窗口内重连次数
+     */
+    private long windowReconnects;
+
+    /**
+     * 窗口内每条消息的ticker数分布
+     */
+    private HistogramSnapshot symbolsPerMessage;
+
+    /**
+     * 窗口内各阶段耗时分布（key为TickerIngestionStage名称）
+     */
+    private Map<String, HistogramSnapshot> stages;
+
+    /**
+     * 启动以来各阶段耗时分布
+     */
+    private Map<String, HistogramSnapshot> cumulativeStages;
+
+    /**
+     * 累计消息数
+     */
+    private long totalMessages;
+
+    /**
+     * 累计ticker数
+     */
+    private long totalSymbols;
+
+    /**
+     * 累计重连次数
+     */
+    private long totalReconnects;
+
+    /**
+     * 最近一条消息的时间（毫秒时间戳）
+     */
+    private long lastMessageAtMs;
+}
@@ -0,0 +1,44 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.market.TickerIngestionStage;
+
+/**
+ * ticker摄入链路指标服务接口
+ *
+ * 记录各阶段耗时直方图（交易所到接收、解析、标准化、合并、upsert）、消息吞吐、
+ * 每条消息的symbol数和重连次数；按固定窗口滚动，供指标接口和同步监控使用。
+ */
+public interface TickerIngestionMetricsService {
+
+    /**
+     * 记录一个阶段样本
+     *
+     * @param stage 阶段
+     * @param value 样本值（单位见TickerIngestionStage.getUnit()）
+     */
+    void recordStage(TickerIngestionStage stage, long value);
+
+    /**
+     * 记录收到一条ticker消息
+     *
+     * @param symbolCount 消息中的ticker数量
+     */
+    void recordMessage(int symbolCount);
+
+    /**
+     * 记录一次连接切换（重连）
+     */
+    void recordReconnect();
+
+    /**
+     * 结束当前窗口并开始新窗口（由内部定时任务调用）
+     */
+    void rotateWindow();
+
+    /**
+     * 获取指标快照（窗口指标为最近一个完整窗口）
+     *
+     * @return 指标快照
+     */
+    TickerIngestionMetrics getMetrics();
+}
@@ -0,0 +1,84 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.market.RingBufferStats;
+import lombok.Data;
+
+/**
+ * Ticker流水线统计信息
+ *
+ * 流水线分为接收（socket读取）、转换（解析/标准化/合并）、持久化（提交写库）三个阶段，
+ * 接收与转换之间通过有界环形缓冲区连接，转换与持久化之间通过按symbol合并的缓冲区连接。
+ */
+@Data
+public class TickerPipelineStats {
+
+    /**
+     * 流服务是否在运行
+     */
+    private boolean running;
+
+    /**
+     * 摄入模式（dto/raw/mini）
+     */
+    private String ingestionMode;
+
+    /**
+     * 接收 -> 转换 阶段队列
+     */
+    private RingBufferStats transformQueue;
+
+    /**
+     * 转换 -> 持久化 阶段队列（policy为CONFLATE，dropped为被合并覆盖的ticker数）
+     */
+    private RingBufferStats persistQueue;
+
+    /**
+     * 转换阶段累计处理失败次数
+     */
+    private long transformFailures;
+
+    /**
+     * 转换阶段按事件时间E丢弃的重复/过期ticker数（新旧连接并行期间的重复消息）
+     */
+    private long duplicatesDropped;
+
+    /**
+     * 持久化阶段累计提交失败次数
+     */
+    private long persistFailures;
+
+    /**
+     * 当前主连接编号（未连接时为null）
+     */
+    private Integer activeConnectionId;
+
+    /**
+     * 累计完成的先建后断重连次数
+     */
+    private long reconnectCount;
+
+    /**
+     * 最近一次从socket收到消息的时间（毫秒时间戳）
+     */
+    private long lastReceivedAtMs;
+
+    /**
+     * 最近一次持久化阶段提交完成的时间（毫秒时间戳）
+     */
+    private long lastPersistedAtMs;
+
+    /**
+     * 累计从socket收到的报文字符数（报文为ASCII JSON，约等于字节数），用于比较各摄入模式的带宽
+     */
+    private long receivedChars;
+
+    /**
+     * mini模式累计完成的统计快照次数
+     */
+    private long statsSnapshotCount;
+
+    /**
+     * mini模式最近一次收到统计快照的时间（毫秒时间戳）
+     */
+    private long lastStatsSnapshotAtMs;
+}
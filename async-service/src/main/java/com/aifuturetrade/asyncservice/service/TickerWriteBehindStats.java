@@ -0,0 +1,75 @@
+package com.aifuturetrade.asyncservice.service;
+
+import lombok.Data;
+
+/**
+ * 市场Ticker写后缓冲统计信息
+ */
+@Data
+public class TickerWriteBehindStats {
+
+    /**
+     * 是否启用写后缓冲（false表示每条消息同步写库）
+     */
+    private boolean enabled;
+
+    /**
+     * 当前待写symbol数量
+     */
+    private int pendingSymbols;
+
+    /**
+     * 累计提交的行数
+     */
+    private long rowsSubmitted;
+
+    /**
+     * 累计被同symbol新快照覆盖（合并）的行数
+     */
+    private long rowsConflated;
+
+    /**
+     * 累计因与上次落库相同而跳过的行数
+     */
+    private long rowsSkipped;
+
+    /**
+     * 累计写入数据库的行数
+     */
+    private long rowsWritten;
+
+    /**
+     * 累计刷新次数
+     */
+    private long flushCount;
+
+    /**
+     * 累计刷新失败次数
+     */
+    private long flushFailures;
+
+    /**
+     * 最近一次刷新的延迟（毫秒）：最早一条待写快照提交到落库完成的时间
+     */
+    private long lastFlushLagMs;
+
+    /**
+     * 最大刷新延迟（毫秒）
+     */
+    private long maxFlushLagMs;
+
+    /**
+     * 最近一次刷新的数据库耗时（毫秒）
+     */
+    private long lastFlushDurationMs;
+
+    /**
+     * 最近一次成功刷新的时间（毫秒时间戳）
+     */
+    private long lastFlushAtMs;
+
+    /**
+     * 写库方式（foreach/jdbc-batch）
+     */
+    private String upsertMode;
+}
@@ -0,0 +1,26 @@
+package com.aifuturetrade.asyncservice.service;
+
+import com.aifuturetrade.asyncservice.entity.ModelDO;
+
+/**
+ * 用户数据流服务
+ *
+ * 为有new状态条件单的real模型所属账户（按API凭证区分）维持币安用户数据流连接，
+ * ALGO_UPDATE / ORDER_TRADE_UPDATE 事件到达时更新algo_order、trades和strategy_decisions；
+ * 连接建立或重连后通过REST对账一次，之后该账户的条件单不再被定时轮询。
+ */
+public interface UserDataStreamService {
+
+    /**
+     * 模型所属账户的用户数据流是否已连接并完成对账（此时条件单状态由推送事件更新）
+     *
+     * @param model real模型
+     * @return true表示不需要REST轮询
+     */
+    boolean isTracking(ModelDO model);
+
+    /**
+     * 获取用户数据流统计信息
+     */
+    UserDataStreamStats getStats();
+}
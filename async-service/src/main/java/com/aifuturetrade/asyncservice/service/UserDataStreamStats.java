@@ -0,0 +1,75 @@
+package com.aifuturetrade.asyncservice.service;
+
+import lombok.Data;
+
+/**
+ * 用户数据流统计信息
+ */
+@Data
+public class UserDataStreamStats {
+
+    /**
+     * 是否启用用户数据流
+     */
+    private boolean enabled;
+
+    /**
+     * 账户会话数量（每个API凭证一个）
+     */
+    private int sessionCount;
+
+    /**
+     * 已连接的会话数量
+     */
+    private int connectedCount;
+
+    /**
+     * 由推送事件跟踪（不再轮询）的模型数量
+     */
+    private int trackedModelCount;
+
+    /**
+     * 累计收到的事件数
+     */
+    private long eventsReceived;
+
+    /**
+     * 累计ALGO_UPDATE事件数
+     */
+    private long algoUpdates;
+
+    /**
+     * 累计ORDER_TRADE_UPDATE事件数
+     */
+    private long orderTradeUpdates;
+
+    /**
+     * 累计TRADE_LITE事件数
+     */
+    private long tradeLites;
+
+    /**
+     * 累计应用到数据库的条件单状态变化数
+     */
+    private long appliedUpdates;
+
+    /**
+     * 累计无法解析的报文数
+     */
+    private long parseFailures;
+
+    /**
+     * 累计建立连接次数（含首次连接）
+     */
+    private long connects;
+
+    /**
+     * 累计REST对账次数
+     */
+    private long reconciliations;
+
+    /**
+     * 累计listenKey延期失败次数
+     */
+    private long keepaliveFailures;
+}
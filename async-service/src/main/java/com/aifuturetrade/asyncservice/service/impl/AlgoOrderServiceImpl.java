@@ -1,12 +1,19 @@
 package com.aifuturetrade.asyncservice.service.impl;
 
-import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesBase;
-import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesClient;
 import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesOrderClient;
+import com.aifuturetrade.asyncservice.dao.ActiveAlgoOrderSet;
+import com.aifuturetrade.asyncservice.dao.TradeSettlement;
+import com.aifuturetrade.asyncservice.dao.TradeSettlementWriter;
 import com.aifuturetrade.asyncservice.dao.mapper.*;
 import com.aifuturetrade.asyncservice.entity.*;
+import com.aifuturetrade.asyncservice.market.AlgoTriggerIndex;
+import com.aifuturetrade.asyncservice.market.HistogramSnapshot;
 import com.aifuturetrade.asyncservice.service.AlgoOrderProcessResult;
 import com.aifuturetrade.asyncservice.service.AlgoOrderService;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import com.aifuturetrade.asyncservice.service.MarketPriceCacheService;
+import com.aifuturetrade.asyncservice.service.UserDataStreamService;
+import com.aifuturetrade.asyncservice.util.StripedExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,11 +24,20 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 条件订单服务实现
@@ -34,13 +50,19 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *    c. 如果状态为"new"：
  *       - LONG类型：当挂单价格高于市场价格时（triggerPrice > currentPrice），执行SDK市场价格卖出（如果返回200），回写trade记录（价格为市场价格），更新挂单信息
  *       - SHORT类型：当挂单价格低于市场价时（triggerPrice < currentPrice），执行SDK市场价格卖出（如果返回200），回写trade记录（价格为市场价格），更新挂单信息
- * 3. 对于virtual类型的模型：使用原有逻辑（基于市场价格判断）
+ * 3. 对于virtual类型的模型：new状态的条件单按symbol放入内存触发价索引（AlgoTriggerIndex），
+ *    标记价格流每次推送时只取出触发价被穿越的订单，交给AlgoTrigger-Thread重新读库确认后执行；
+ *    定时周期只负责同步索引（加入新订单、移除已不是new的订单），并用缓存价格（过期时REST）补评估一次，
+ *    保证价格流中断时仍能触发
  * 4. 如果触发，执行交易并更新相关表（trades、account_value_historys、account_values等）
  */
 @Slf4j
 @Service
 public class AlgoOrderServiceImpl implements AlgoOrderService {
     
+    @Autowired
+    private MarketPriceCacheService marketPriceCacheService;
+    
     @Autowired
     private AlgoOrderMapper algoOrderMapper;
     
@@ -50,26 +72,27 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
     @Autowired
     private PortfolioMapper portfolioMapper;
     
-    @Autowired
-    private TradeMapper tradeMapper;
-    
     @Autowired
     private AccountValueMapper accountValueMapper;
     
-    @Autowired
-    private AccountValueHistoryMapper accountValueHistoryMapper;
-    
     @Autowired
     private StrategyDecisionMapper strategyDecisionMapper;
+
+    @Autowired
+    private TradeSettlementWriter tradeSettlementWriter;
+
+    // new状态条件订单的内存集合，本服务修改订单状态后直接移除
+    @Autowired
+    private ActiveAlgoOrderSet activeAlgoOrderSet;
     
     @Value("${async.algo-order.interval-seconds:2}")
     private int intervalSeconds;
-    
-    @Value("${binance.api-key}")
-    private String defaultApiKey;
-    
-    @Value("${binance.secret-key}")
-    private String defaultSecretKey;
+
+    /**
+     * real模型条件单并行处理的条带数（同一模型的订单串行）
+     */
+    @Value("${async.algo-order.parallelism:8}")
+    private int parallelism;
     
     @Value("${binance.quote-asset:USDT}")
     private String quoteAsset;
@@ -79,25 +102,54 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
     
     private final AtomicBoolean schedulerRunning = new AtomicBoolean(false);
     
-    // 缓存每个模型的 Binance 客户端（使用模型自己的 API Key）
-    private final Map<String, BinanceFuturesBase> modelClients = new ConcurrentHashMap<>();
+    // 按凭证共享的 Binance 客户端（使用模型自己的 API Key）
+    @Autowired
+    private BinanceClientRegistry binanceClientRegistry;
 
-    // 缓存每个模型的 Binance 订单客户端（用于订单和交易操作）
-    private final Map<String, BinanceFuturesOrderClient> modelOrderClients = new ConcurrentHashMap<>();
+    // 账户的用户数据流已连接并完成对账时，real模型条件单由推送事件更新，不再轮询REST
+    @Autowired
+    private UserDataStreamService userDataStreamService;
+
+    // real模型条件单的状态变更（定时轮询、用户数据流事件、重连对账）互斥执行，避免重复构建trades记录
+    private final ReentrantLock realOrderLock = new ReentrantLock();
+
+    // virtual模型new状态条件单的触发价索引，由定时周期同步，由标记价格流评估
+    private final AlgoTriggerIndex triggerIndex = new AlgoTriggerIndex();
+
+    // virtual模型条件单的执行线程：所有触发都在该线程串行执行，执行前重新读库确认订单仍为new
+    private ExecutorService triggerExecutor;
+
+    // real模型条件单按modelId分条带并行查询SDK，一个账户的慢请求不拖慢其他账户
+    private StripedExecutor realOrderExecutor;
     
     @PostConstruct
     public void init() {
+        triggerExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "AlgoTrigger-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        marketPriceCacheService.addPriceListener(this::onMarkPrices);
+        realOrderExecutor = new StripedExecutor("AlgoOrder-Worker", parallelism);
         log.info("[AlgoOrderService] 🛠️ 条件订单服务初始化完成");
-        log.info("[AlgoOrderService] ⏱️ 执行周期: {} 秒", intervalSeconds);
+        log.info("[AlgoOrderService] ⏱️ 执行周期: {} 秒, real模型并发: {}", intervalSeconds, realOrderExecutor.getStripeCount());
     }
     
     @PreDestroy
     public void destroy() {
         log.info("[AlgoOrderService] 🛑 收到服务销毁信号，停止调度器...");
         stopScheduler();
-        // 清理客户端缓存
-        modelClients.clear();
-        modelOrderClients.clear();
+        if (triggerExecutor != null) {
+            triggerExecutor.shutdown();
+            try {
+                triggerExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (realOrderExecutor != null) {
+            realOrderExecutor.shutdown(5000);
+        }
         log.info("[AlgoOrderService] 👋 条件订单服务已销毁");
     }
     
@@ -134,20 +186,34 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         AlgoOrderProcessResult result = new AlgoOrderProcessResult();
         
         try {
-            // 查询所有状态为"new"的条件订单
-            List<AlgoOrderDO> newOrders = algoOrderMapper.selectNewAlgoOrders();
+            // 查询所有状态为"new"的条件订单（内存集合，只增量查询变化的记录）
+            List<AlgoOrderDO> newOrders = activeAlgoOrderSet.snapshot();
             result.setTotalChecked(newOrders.size());
             
             if (newOrders.isEmpty()) {
+                triggerIndex.retainAll(Set.of());
                 log.debug("[AlgoOrderService] 没有待处理的条件订单");
                 return result;
             }
             
             log.info("[AlgoOrderService] 找到 {} 个待处理的条件订单", newOrders.size());
             
+            // 同一周期内每个模型只查询一次
+            Map<String, ModelDO> models = new HashMap<>();
+            Set<String> virtualOrderIds = new HashSet<>();
+            List<AlgoOrderDO> realOrders = new ArrayList<>();
             for (AlgoOrderDO order : newOrders) {
                 try {
-                    processAlgoOrder(order, result);
+                    String modelId = order.getModelId();
+                    if (!models.containsKey(modelId)) {
+                        models.put(modelId, modelMapper.selectById(modelId));
+                    }
+                    ModelDO model = models.get(modelId);
+                    if (model != null && !Boolean.TRUE.equals(model.getIsVirtual())) {
+                        realOrders.add(order);
+                        continue;
+                    }
+                    processAlgoOrder(order, model, result, virtualOrderIds);
                 } catch (Exception e) {
                     log.error("[AlgoOrderService] 处理条件订单失败: orderId={}, error={}", 
                             order.getId(), e.getMessage(), e);
@@ -155,6 +221,15 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
                 }
             }
             
+            processRealModelAlgoOrders(realOrders, models, result, virtualOrderIds);
+            
+            // 移除已不是new状态的订单，再用缓存价格评估一次索引（价格流中断时的兜底）
+            int removed = triggerIndex.retainAll(virtualOrderIds);
+            if (removed > 0) {
+                log.debug("[AlgoOrderService] [virtual模式] 从触发价索引移除 {} 个已非new状态的订单", removed);
+            }
+            evaluateTriggerIndex(result);
+            
             log.info("[AlgoOrderService] ========== 条件订单检查完成 ==========");
             log.info("[AlgoOrderService] 总计: {}, 已触发: {}, 已执行: {}, 失败: {}, 跳过: {}", 
                     result.getTotalChecked(), result.getTriggeredCount(), 
@@ -167,10 +242,101 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         return result;
     }
     
+    @Override
+    public boolean applyRealAlgoOrderUpdate(Long algoId, String sdkStatus, String actualPrice,
+                                            String executedQuantity, Long actualOrderId) {
+        if (algoId == null || sdkStatus == null || "NEW".equalsIgnoreCase(sdkStatus)) {
+            return false;
+        }
+        realOrderLock.lock();
+        try {
+            AlgoOrderDO order = algoOrderMapper.selectNewAlgoOrderByAlgoId(algoId);
+            if (order == null) {
+                return false;
+            }
+            ModelDO model = modelMapper.selectById(order.getModelId());
+            if (model == null || Boolean.TRUE.equals(model.getIsVirtual())) {
+                return false;
+            }
+            log.info("[AlgoOrderService] [real模式] 用户数据流推送条件单状态: orderId={}, algoId={}, sdkStatus={}, actualPrice={}",
+                    order.getId(), algoId, sdkStatus, actualPrice);
+            applySdkStatus(order, model, sdkStatus, actualPrice, executedQuantity, actualOrderId,
+                    new AlgoOrderProcessResult());
+            return true;
+        } finally {
+            realOrderLock.unlock();
+        }
+    }
+
+    @Override
+    public AlgoOrderProcessResult reconcileRealModelAlgoOrders(Collection<String> modelIds) {
+        AlgoOrderProcessResult result = new AlgoOrderProcessResult();
+        for (String modelId : modelIds) {
+            ModelDO model = modelMapper.selectById(modelId);
+            if (model == null || Boolean.TRUE.equals(model.getIsVirtual())) {
+                continue;
+            }
+            List<AlgoOrderDO> orders = algoOrderMapper.selectNewAlgoOrdersByModel(modelId);
+            result.setTotalChecked(result.getTotalChecked() + orders.size());
+            for (AlgoOrderDO order : orders) {
+                try {
+                    processRealModelAlgoOrder(order, model, result);
+                } catch (Exception e) {
+                    log.error("[AlgoOrderService] [real模式] 对账条件订单失败: orderId={}, error={}",
+                            order.getId(), e.getMessage(), e);
+                    result.setFailedCount(result.getFailedCount() + 1);
+                }
+            }
+        }
+        log.info("[AlgoOrderService] [real模式] 条件订单对账完成: 模型数={}, 总计={}, 已执行={}, 失败={}",
+                modelIds.size(), result.getTotalChecked(), result.getExecutedCount(), result.getFailedCount());
+        return result;
+    }
+
+    /**
+     * real模型的条件订单按modelId分条带并行处理：同一模型的订单在同一条带上按顺序执行，
+     * 每个订单使用独立的结果对象，全部完成后在调用线程合并
+     */
+    private void processRealModelAlgoOrders(List<AlgoOrderDO> realOrders, Map<String, ModelDO> models,
+                                            AlgoOrderProcessResult result, Set<String> virtualOrderIds) {
+        if (realOrders.isEmpty()) {
+            return;
+        }
+        long startMs = System.currentTimeMillis();
+        List<AlgoOrderProcessResult> orderResults = realOrderExecutor.invokeAll(realOrders, AlgoOrderDO::getModelId, order -> {
+            AlgoOrderProcessResult orderResult = new AlgoOrderProcessResult();
+            try {
+                processAlgoOrder(order, models.get(order.getModelId()), orderResult, virtualOrderIds);
+            } catch (Exception e) {
+                log.error("[AlgoOrderService] 处理条件订单失败: orderId={}, error={}",
+                        order.getId(), e.getMessage(), e);
+                orderResult.setFailedCount(orderResult.getFailedCount() + 1);
+            }
+            return orderResult;
+        });
+        for (AlgoOrderProcessResult orderResult : orderResults) {
+            if (orderResult == null) {
+                result.setFailedCount(result.getFailedCount() + 1);
+                continue;
+            }
+            result.setTriggeredCount(result.getTriggeredCount() + orderResult.getTriggeredCount());
+            result.setExecutedCount(result.getExecutedCount() + orderResult.getExecutedCount());
+            result.setFailedCount(result.getFailedCount() + orderResult.getFailedCount());
+            result.setSkippedCount(result.getSkippedCount() + orderResult.getSkippedCount());
+        }
+        HistogramSnapshot latency = realOrderExecutor.drainLatencySnapshot();
+        log.info("[AlgoOrderService] [real模式] {} 个条件订单处理完成: 耗时={}ms, 单个订单耗时 p50={}ms, p99={}ms, max={}ms",
+                realOrders.size(), System.currentTimeMillis() - startMs, latency.getP50(), latency.getP99(), latency.getMax());
+    }
+
     /**
      * 处理单个条件订单
+     *
+     * @param model 订单所属模型（本周期已查询），不存在时为null
+     * @param virtualOrderIds 收集本周期virtual模型的订单ID，用于同步触发价索引（只在调度线程中修改）
      */
-    private void processAlgoOrder(AlgoOrderDO order, AlgoOrderProcessResult result) {
+    private void processAlgoOrder(AlgoOrderDO order, ModelDO model, AlgoOrderProcessResult result,
+                                  Set<String> virtualOrderIds) {
         String orderId = order.getId();
         String symbol = order.getSymbol();
         String positionSide = order.getPositionSide();
@@ -179,8 +345,6 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         log.debug("[AlgoOrderService] 处理条件订单: orderId={}, symbol={}, positionSide={}, triggerPrice={}", 
                 orderId, symbol, positionSide, triggerPrice);
         
-        // 获取模型信息
-        ModelDO model = modelMapper.selectById(order.getModelId());
         if (model == null) {
             log.warn("[AlgoOrderService] 模型不存在，跳过: modelId={}", order.getModelId());
             result.setSkippedCount(result.getSkippedCount() + 1);
@@ -191,11 +355,22 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         boolean isVirtual = model.getIsVirtual() != null && model.getIsVirtual();
         
         if (!isVirtual) {
+            if (userDataStreamService.isTracking(model)) {
+                log.debug("[AlgoOrderService] [real模式] 用户数据流已跟踪该账户，跳过轮询: orderId={}", orderId);
+                result.setSkippedCount(result.getSkippedCount() + 1);
+                return;
+            }
             // real类型模型：查询SDK接口的条件单信息
             processRealModelAlgoOrder(order, model, result);
         } else {
-            // virtual类型模型：使用原有逻辑（基于市场价格判断）
-            processVirtualModelAlgoOrder(order, model, result);
+            // virtual类型模型：加入触发价索引，由标记价格流评估
+            if (indexVirtualModelAlgoOrder(order)) {
+                virtualOrderIds.add(orderId);
+            } else {
+                log.warn("[AlgoOrderService] [virtual模式] 条件订单缺少触发价或持仓方向无效，跳过: orderId={}, positionSide={}, triggerPrice={}",
+                        orderId, positionSide, triggerPrice);
+                result.setSkippedCount(result.getSkippedCount() + 1);
+            }
         }
     }
     
@@ -210,7 +385,6 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         String symbol = order.getSymbol();
         String positionSide = order.getPositionSide();
         Double triggerPrice = order.getTriggerPrice();
-        Double quantity = order.getQuantity();
 
         log.debug("[AlgoOrderService] [real模式] 处理条件订单: orderId={}, symbol={}, positionSide={}, triggerPrice={}",
                 orderId, symbol, positionSide, triggerPrice);
@@ -252,137 +426,21 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
             
             // 如果状态不为"new"，说明条件单已在币安侧执行，需要构建trades记录
             if (!"NEW".equalsIgnoreCase(sdkStatus)) {
+                realOrderLock.lock();
                 try {
-                    String dbStatus = mapSdkStatusToDbStatus(sdkStatus);
-
-                    // 检查是否为已成交状态且尚未创建trades记录
-                    boolean isExecutedStatus = "EXECUTED".equalsIgnoreCase(dbStatus) ||
-                                              "TRIGGERED".equalsIgnoreCase(dbStatus);
-
-                    if (isExecutedStatus && order.getTradeId() == null) {
-                        log.info("[AlgoOrderService] [real模式] 检测到已成交订单，开始构建trades记录: orderId={}, sdkStatus={}",
-                                orderId, sdkStatus);
-
-                        // 从SDK返回的数据中获取成交信息
-                        String actualPriceStr = (String) sdkOrderMap.get("actualPrice");
-                        String quantityStr = (String) sdkOrderMap.get("quantity");
-                        Object actualOrderIdObj = sdkOrderMap.get("actualOrderId");
-                        
-                        // 解析实际成交数量
-                        Double executedQuantity = quantity;
-                        if (quantityStr != null && !quantityStr.isEmpty()) {
-                            try {
-                                executedQuantity = Double.parseDouble(quantityStr);
-                            } catch (NumberFormatException ignored) { }
-                        }
-                        
-                        // 在构建trades记录前，校验本地持仓数量是否足够
-                        PortfolioDO position = portfolioMapper.selectPosition(order.getModelId(), symbol.toUpperCase(), positionSide);
-                        if (position == null) {
-                            String errorReason = "持仓不存在，无法同步成交记录: modelId=" + order.getModelId() + ", symbol=" + symbol + ", positionSide=" + positionSide;
-                            log.warn("[AlgoOrderService] [real模式] ❌ {}", errorReason);
-                            algoOrderMapper.updateAlgoStatusWithError(orderId, "FAILED", errorReason);
-                            String strategyDecisionId = order.getStrategyDecisionId();
-                            if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
-                                strategyDecisionMapper.updateStrategyDecisionStatus(strategyDecisionId, "REJECTED", null, errorReason);
-                            }
-                            result.setFailedCount(result.getFailedCount() + 1);
-                            return;
-                        }
-                        Double positionAmt = Math.abs(position.getPositionAmt());
-                        if (positionAmt < executedQuantity) {
-                            String errorReason = String.format("持仓数量不足，无法同步成交记录: 成交数量=%.8f，当前持仓=%.8f", executedQuantity, positionAmt);
-                            log.warn("[AlgoOrderService] [real模式] ❌ {}", errorReason);
-                            algoOrderMapper.updateAlgoStatusWithError(orderId, "FAILED", errorReason);
-                            String strategyDecisionId = order.getStrategyDecisionId();
-                            if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
-                                strategyDecisionMapper.updateStrategyDecisionStatus(strategyDecisionId, "REJECTED", null, errorReason);
-                            }
-                            result.setFailedCount(result.getFailedCount() + 1);
-                            return;
-                        }
-
-                        if (actualPriceStr != null && !actualPriceStr.isEmpty()) {
-                            try {
-                                Double actualPrice = Double.parseDouble(actualPriceStr);
-                                Long actualOrderId = null;
-                                if (actualOrderIdObj != null) {
-                                    if (actualOrderIdObj instanceof Long) {
-                                        actualOrderId = (Long) actualOrderIdObj;
-                                    } else if (actualOrderIdObj instanceof String) {
-                                        actualOrderId = Long.parseLong((String) actualOrderIdObj);
-                                    }
-                                }
-
-                                // 构建trades记录（不调用平仓接口）
-                                String tradeId = buildTradeRecordFromSdkData(order, model, actualPrice, executedQuantity, actualOrderId);
-
-                                // 更新algo_order表状态和trade_id
-                                algoOrderMapper.updateTradeIdAndStatus(orderId, tradeId, dbStatus);
-                                log.info("[AlgoOrderService] [real模式] ✅ 已构建trades记录并更新状态: orderId={}, tradeId={}, dbStatus={}",
-                                        orderId, tradeId, dbStatus);
-
-                                // 更新strategy_decisions表状态为EXECUTED
-                                String strategyDecisionId = order.getStrategyDecisionId();
-                                if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
-                                    strategyDecisionMapper.updateStrategyDecisionStatus(
-                                            strategyDecisionId,
-                                            "EXECUTED",
-                                            tradeId,
-                                            null
-                                    );
-                                    log.info("[AlgoOrderService] [real模式] ✅ 已更新strategy_decisions表状态为EXECUTED: decisionId={}, tradeId={}",
-                                            strategyDecisionId, tradeId);
-                                }
-
-                                result.setExecutedCount(result.getExecutedCount() + 1);
-                            } catch (NumberFormatException e) {
-                                log.error("[AlgoOrderService] [real模式] 解析SDK返回的价格或数量失败: orderId={}, actualPrice={}, quantity={}, error={}",
-                                        orderId, actualPriceStr, quantityStr, e.getMessage());
-                                // 只更新状态，不构建trades记录
-                                algoOrderMapper.updateAlgoStatus(orderId, dbStatus);
-                                result.setSkippedCount(result.getSkippedCount() + 1);
-                            } catch (Exception e) {
-                                log.error("[AlgoOrderService] [real模式] 构建trades记录失败: orderId={}, error={}",
-                                        orderId, e.getMessage(), e);
-
-                                // 提取详细错误信息
-                                String errorReason = extractErrorReason(e);
-
-                                // 更新订单状态为"failed"并记录错误原因
-                                algoOrderMapper.updateAlgoStatusWithError(orderId, "FAILED", errorReason);
-
-                                // 更新strategy_decisions表状态为REJECTED
-                                String strategyDecisionId = order.getStrategyDecisionId();
-                                if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
-                                    strategyDecisionMapper.updateStrategyDecisionStatus(
-                                            strategyDecisionId,
-                                            "REJECTED",
-                                            null,
-                                            errorReason
-                                    );
-                                }
-
-                                result.setFailedCount(result.getFailedCount() + 1);
-                            }
-                        } else {
-                            // 没有实际成交价格，只更新状态
-                            log.warn("[AlgoOrderService] [real模式] SDK未返回实际成交价格，只更新状态: orderId={}, sdkStatus={}",
-                                    orderId, sdkStatus);
-                            algoOrderMapper.updateAlgoStatus(orderId, dbStatus);
-                            result.setSkippedCount(result.getSkippedCount() + 1);
-                        }
-                    } else {
-                        // 非成交状态或已有trades记录，只更新状态
-                        algoOrderMapper.updateAlgoStatus(orderId, dbStatus);
-                        log.info("[AlgoOrderService] [real模式] 已更新数据库状态: orderId={}, sdkStatus={}, dbStatus={}",
-                                orderId, sdkStatus, dbStatus);
+                    // 用户数据流可能已经处理过该订单，以数据库当前状态为准
+                    AlgoOrderDO current = algoOrderMapper.selectById(orderId);
+                    if (current == null || !"NEW".equalsIgnoreCase(current.getAlgoStatus())) {
                         result.setSkippedCount(result.getSkippedCount() + 1);
+                        return;
                     }
-                } catch (Exception e) {
-                    log.error("[AlgoOrderService] [real模式] 处理已成交订单失败: orderId={}, sdkStatus={}, error={}",
-                            orderId, sdkStatus, e.getMessage(), e);
-                    result.setFailedCount(result.getFailedCount() + 1);
+                    // REST返回的quantity是下单数量而非成交数量，是否成交只看actualPrice
+                    String restActualPrice = (String) sdkOrderMap.get("actualPrice");
+                    String restQuantity = isPositive(restActualPrice) ? (String) sdkOrderMap.get("quantity") : null;
+                    applySdkStatus(current, model, sdkStatus, restActualPrice, restQuantity,
+                            parseOrderId(sdkOrderMap.get("actualOrderId")), result);
+                } finally {
+                    realOrderLock.unlock();
                 }
                 return;
             }
@@ -400,42 +458,241 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
     }
     
     /**
-     * 处理virtual类型模型的条件订单（使用原有逻辑）
+     * 应用币安侧的条件单状态（REST查询结果或用户数据流推送），调用方持有realOrderLock
+     * 已成交状态构建trades记录并更新strategy_decisions，其他状态只更新algo_order状态
+     *
+     * @param order new状态的条件订单
+     * @param model 所属real模型
+     * @param sdkStatus 币安条件单状态（非NEW）
+     * @param actualPriceStr 实际成交均价，可为空
+     * @param quantityStr 实际成交数量，为空时使用订单数量
+     * @param actualOrderId 触发后生成的普通订单ID，可为空
      */
-    private void processVirtualModelAlgoOrder(AlgoOrderDO order, ModelDO model, AlgoOrderProcessResult result) {
+    private void applySdkStatus(AlgoOrderDO order, ModelDO model, String sdkStatus, String actualPriceStr,
+                                String quantityStr, Long actualOrderId, AlgoOrderProcessResult result) {
         String orderId = order.getId();
         String symbol = order.getSymbol();
         String positionSide = order.getPositionSide();
+        Double quantity = order.getQuantity();
+        try {
+            String dbStatus = mapSdkStatusToDbStatus(sdkStatus, actualPriceStr, quantityStr);
+
+            if ("FINISHED".equalsIgnoreCase(sdkStatus) && "CANCELLED".equals(dbStatus)) {
+                // 已触发的普通订单在撮合引擎中被撤销或过期（aq=0/ap=0），没有成交
+                String errorReason = "条件单已触发但普通订单未成交（撤销或过期）: actualOrderId=" + actualOrderId;
+                log.warn("[AlgoOrderService] [real模式] {}: orderId={}", errorReason, orderId);
+                updateAlgoStatusWithError(orderId, dbStatus, errorReason);
+                String strategyDecisionId = order.getStrategyDecisionId();
+                if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
+                    strategyDecisionMapper.updateStrategyDecisionStatus(strategyDecisionId, "REJECTED", null, errorReason);
+                }
+                result.setSkippedCount(result.getSkippedCount() + 1);
+                return;
+            }
+
+            // 检查是否为已成交状态且尚未创建trades记录
+            boolean isExecutedStatus = "EXECUTED".equalsIgnoreCase(dbStatus) ||
+                                      "TRIGGERED".equalsIgnoreCase(dbStatus);
+
+            if (isExecutedStatus && order.getTradeId() == null) {
+                log.info("[AlgoOrderService] [real模式] 检测到已成交订单，开始构建trades记录: orderId={}, sdkStatus={}",
+                        orderId, sdkStatus);
+
+                // 解析实际成交数量
+                Double executedQuantity = quantity;
+                if (quantityStr != null && !quantityStr.isEmpty()) {
+                    try {
+                        executedQuantity = Double.parseDouble(quantityStr);
+                    } catch (NumberFormatException ignored) { }
+                }
+                
+                // 在构建trades记录前，校验本地持仓数量是否足够
+                PortfolioDO position = portfolioMapper.selectPosition(order.getModelId(), symbol.toUpperCase(), positionSide);
+                if (position == null) {
+                    String errorReason = "持仓不存在，无法同步成交记录: modelId=" + order.getModelId() + ", symbol=" + symbol + ", positionSide=" + positionSide;
+                    log.warn("[AlgoOrderService] [real模式] ❌ {}", errorReason);
+                    updateAlgoStatusWithError(orderId, "FAILED", errorReason);
+                    String strategyDecisionId = order.getStrategyDecisionId();
+                    if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
+                        strategyDecisionMapper.updateStrategyDecisionStatus(strategyDecisionId, "REJECTED", null, errorReason);
+                    }
+                    result.setFailedCount(result.getFailedCount() + 1);
+                    return;
+                }
+                Double positionAmt = Math.abs(position.getPositionAmt());
+                if (positionAmt < executedQuantity) {
+                    String errorReason = String.format("持仓数量不足，无法同步成交记录: 成交数量=%.8f，当前持仓=%.8f", executedQuantity, positionAmt);
+                    log.warn("[AlgoOrderService] [real模式] ❌ {}", errorReason);
+                    updateAlgoStatusWithError(orderId, "FAILED", errorReason);
+                    String strategyDecisionId = order.getStrategyDecisionId();
+                    if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
+                        strategyDecisionMapper.updateStrategyDecisionStatus(strategyDecisionId, "REJECTED", null, errorReason);
+                    }
+                    result.setFailedCount(result.getFailedCount() + 1);
+                    return;
+                }
+
+                if (actualPriceStr != null && !actualPriceStr.isEmpty()) {
+                    try {
+                        Double actualPrice = Double.parseDouble(actualPriceStr);
+
+                        // 构建trades记录（不调用平仓接口），与algo_order状态、strategy_decisions状态在同一事务中写入
+                        String tradeId = buildTradeRecordFromSdkData(order, model, actualPrice, executedQuantity, actualOrderId, dbStatus);
+                        log.info("[AlgoOrderService] [real模式] ✅ 已构建trades记录并更新状态: orderId={}, tradeId={}, dbStatus={}, decisionId={}",
+                                orderId, tradeId, dbStatus, order.getStrategyDecisionId());
+
+                        result.setExecutedCount(result.getExecutedCount() + 1);
+                    } catch (NumberFormatException e) {
+                        log.error("[AlgoOrderService] [real模式] 解析SDK返回的价格或数量失败: orderId={}, actualPrice={}, quantity={}, error={}",
+                                orderId, actualPriceStr, quantityStr, e.getMessage());
+                        // 只更新状态，不构建trades记录
+                        updateAlgoStatus(orderId, dbStatus);
+                        result.setSkippedCount(result.getSkippedCount() + 1);
+                    } catch (Exception e) {
+                        log.error("[AlgoOrderService] [real模式] 构建trades记录失败: orderId={}, error={}",
+                                orderId, e.getMessage(), e);
+
+                        // 提取详细错误信息
+                        String errorReason = extractErrorReason(e);
+
+                        // 更新订单状态为"failed"并记录错误原因
+                        updateAlgoStatusWithError(orderId, "FAILED", errorReason);
+
+                        // 更新strategy_decisions表状态为REJECTED
+                        String strategyDecisionId = order.getStrategyDecisionId();
+                        if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
+                            strategyDecisionMapper.updateStrategyDecisionStatus(
+                                    strategyDecisionId,
+                                    "REJECTED",
+                                    null,
+                                    errorReason
+                            );
+                        }
+
+                        result.setFailedCount(result.getFailedCount() + 1);
+                    }
+                } else {
+                    // 没有实际成交价格，只更新状态
+                    log.warn("[AlgoOrderService] [real模式] SDK未返回实际成交价格，只更新状态: orderId={}, sdkStatus={}",
+                            orderId, sdkStatus);
+                    updateAlgoStatus(orderId, dbStatus);
+                    result.setSkippedCount(result.getSkippedCount() + 1);
+                }
+            } else {
+                // 非成交状态或已有trades记录，只更新状态
+                updateAlgoStatus(orderId, dbStatus);
+                log.info("[AlgoOrderService] [real模式] 已更新数据库状态: orderId={}, sdkStatus={}, dbStatus={}",
+                        orderId, sdkStatus, dbStatus);
+                result.setSkippedCount(result.getSkippedCount() + 1);
+            }
+        } catch (Exception e) {
+            log.error("[AlgoOrderService] [real模式] 处理已成交订单失败: orderId={}, sdkStatus={}, error={}",
+                    orderId, sdkStatus, e.getMessage(), e);
+            result.setFailedCount(result.getFailedCount() + 1);
+        }
+    }
+
+    /**
+     * 把virtual模型的new状态条件单加入触发价索引（已在索引中且触发价未变时不做修改）
+     *
+     * @return false表示缺少触发价或持仓方向无效
+     */
+    private boolean indexVirtualModelAlgoOrder(AlgoOrderDO order) {
+        AlgoTriggerIndex.Direction direction = AlgoTriggerIndex.directionOf(order.getPositionSide());
         Double triggerPrice = order.getTriggerPrice();
-        
-        log.debug("[AlgoOrderService] [virtual模式] 处理条件订单: orderId={}, symbol={}, positionSide={}, triggerPrice={}", 
-                orderId, symbol, positionSide, triggerPrice);
-        
-        // 获取当前市场价格
-        Double currentPrice = getCurrentPrice(symbol, model);
-        if (currentPrice == null || currentPrice <= 0) {
-            log.warn("[AlgoOrderService] [virtual模式] 无法获取市场价格，跳过: symbol={}", symbol);
-            result.setSkippedCount(result.getSkippedCount() + 1);
+        if (direction == null || triggerPrice == null) {
+            return false;
+        }
+        return triggerIndex.put(order.getId(), formatSymbol(order.getSymbol()), direction, triggerPrice);
+    }
+
+    /**
+     * 标记价格流回调（价格流线程）：只取出触发价被穿越的订单，交给执行线程
+     */
+    private void onMarkPrices(Map<String, Double> prices) {
+        if (triggerIndex.size() == 0) {
             return;
         }
-        
-        // 判断是否触发成交条件
-        // LONG型：市场价格 <= 触发价格时触发（currentPrice <= triggerPrice），成交价为市场价
-        // SHORT型：市场价格 >= 触发价格时触发（currentPrice >= triggerPrice），成交价为市场价
-        boolean shouldTrigger = false;
-        if ("LONG".equalsIgnoreCase(positionSide)) {
-            // LONG持仓：市场价格 <= 触发价格 就触发，成交价为市场价
-            shouldTrigger = currentPrice <= triggerPrice;
-        } else if ("SHORT".equalsIgnoreCase(positionSide)) {
-            // SHORT持仓：市场价格 >= 触发价格 就触发，成交价为市场价
-            shouldTrigger = currentPrice >= triggerPrice;
+        for (String symbol : triggerIndex.symbols()) {
+            Double price = prices.get(symbol);
+            if (price != null) {
+                submitTriggers(triggerIndex.collectCrossed(symbol, price), price);
+            }
         }
-        
-        if (!shouldTrigger) {
-            log.debug("[AlgoOrderService] [virtual模式] 条件未触发: symbol={}, currentPrice={}, triggerPrice={}, positionSide={}", 
-                    symbol, currentPrice, triggerPrice, positionSide);
+    }
+
+    /**
+     * 用缓存价格评估整个索引（缓存过期的symbol合并为一次REST查询），触发的订单计入triggeredCount
+     */
+    private void evaluateTriggerIndex(AlgoOrderProcessResult result) {
+        Set<String> symbols = triggerIndex.symbols();
+        if (symbols.isEmpty()) {
             return;
         }
+        Map<String, Double> prices = marketPriceCacheService.getPrices(symbols,
+                marketPriceCacheService.restMarkPriceLoader(binanceClientRegistry::getDefaultFuturesClient));
+        for (Map.Entry<String, Double> entry : prices.entrySet()) {
+            List<AlgoTriggerIndex.Trigger> crossed = triggerIndex.collectCrossed(entry.getKey(), entry.getValue());
+            result.setTriggeredCount(result.getTriggeredCount() + crossed.size());
+            submitTriggers(crossed, entry.getValue());
+        }
+    }
+
+    private void submitTriggers(List<AlgoTriggerIndex.Trigger> crossed, double price) {
+        for (AlgoTriggerIndex.Trigger trigger : crossed) {
+            try {
+                triggerExecutor.execute(() -> executeIndexedTrigger(trigger, price));
+            } catch (RejectedExecutionException e) {
+                log.warn("[AlgoOrderService] [virtual模式] 执行线程已停止，放弃触发: orderId={}", trigger.orderId());
+            }
+        }
+    }
+
+    /**
+     * 执行线程：重新读库确认订单仍为new、模型仍为virtual、触发价仍被穿越后执行
+     */
+    private void executeIndexedTrigger(AlgoTriggerIndex.Trigger trigger, double currentPrice) {
+        String orderId = trigger.orderId();
+        try {
+            AlgoOrderDO order = algoOrderMapper.selectById(orderId);
+            if (order == null || !"NEW".equalsIgnoreCase(order.getAlgoStatus())) {
+                log.debug("[AlgoOrderService] [virtual模式] 订单已不是new状态，跳过触发: orderId={}", orderId);
+                return;
+            }
+            ModelDO model = modelMapper.selectById(order.getModelId());
+            if (model == null || !Boolean.TRUE.equals(model.getIsVirtual())) {
+                return;
+            }
+            // 触发价在加入索引后可能被修改：未穿越新触发价时重新加入索引
+            // LONG型：市场价格 <= 触发价格时触发；SHORT型：市场价格 >= 触发价格时触发；成交价为市场价
+            AlgoTriggerIndex.Direction direction = AlgoTriggerIndex.directionOf(order.getPositionSide());
+            Double triggerPrice = order.getTriggerPrice();
+            if (direction == null || triggerPrice == null) {
+                return;
+            }
+            boolean shouldTrigger = direction == AlgoTriggerIndex.Direction.FALLING
+                    ? currentPrice <= triggerPrice
+                    : currentPrice >= triggerPrice;
+            if (!shouldTrigger) {
+                indexVirtualModelAlgoOrder(order);
+                return;
+            }
+            executeTriggeredVirtualOrder(order, model, currentPrice, new AlgoOrderProcessResult());
+        } catch (Exception e) {
+            log.error("[AlgoOrderService] [virtual模式] 执行触发的条件订单失败: orderId={}, error={}",
+                    orderId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 执行已触发的virtual模型条件订单：校验持仓、更新状态、执行交易并构建相关记录
+     */
+    private void executeTriggeredVirtualOrder(AlgoOrderDO order, ModelDO model, Double currentPrice,
+                                              AlgoOrderProcessResult result) {
+        String orderId = order.getId();
+        String symbol = order.getSymbol();
+        String positionSide = order.getPositionSide();
+        Double triggerPrice = order.getTriggerPrice();
         
         log.info("[AlgoOrderService] [virtual模式] ✅ 条件订单触发: orderId={}, symbol={}, currentPrice={}, triggerPrice={}, positionSide={}", 
                 orderId, symbol, currentPrice, triggerPrice, positionSide);
@@ -459,51 +716,19 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
             }
         }
         
-        result.setTriggeredCount(result.getTriggeredCount() + 1);
-        
-        // 更新订单状态为"triggered"
-        try {
-            algoOrderMapper.updateAlgoStatus(orderId, "TRIGGERED");
-            log.info("[AlgoOrderService] [virtual模式] 订单状态已更新为triggered: orderId={}", orderId);
-        } catch (Exception e) {
-            log.error("[AlgoOrderService] [virtual模式] 更新订单状态失败: orderId={}, error={}", orderId, e.getMessage());
-            result.setFailedCount(result.getFailedCount() + 1);
-            return;
-        }
-        
         // 执行交易并构建相关记录
         String tradeId = null;
         try {
+            // 订单状态new -> executed、trade_id及strategy_decisions状态与成交记录在同一事务中写入，
+            // 订单已不是new状态时整体回滚
             tradeId = executeTradeAndBuildRecords(order, model, currentPrice);
             result.setExecutedCount(result.getExecutedCount() + 1);
-            
-            // 更新订单状态为"executed"并关联trade_id
-            int updateCount = algoOrderMapper.updateTradeIdAndStatus(orderId, tradeId, "EXECUTED");
-            if (updateCount > 0) {
-                log.info("[AlgoOrderService] [virtual模式] ✅ 交易执行完成，订单状态已更新为executed: orderId={}, tradeId={}, symbol={}", 
-                        orderId, tradeId, symbol);
-            } else {
-                log.warn("[AlgoOrderService] [virtual模式] ⚠️ 交易执行完成，但更新订单状态失败: orderId={}, tradeId={}", 
-                        orderId, tradeId);
-            }
-            
-            // 更新strategy_decisions表状态为EXECUTED（如果有strategy_decision_id）
-            String strategyDecisionId = order.getStrategyDecisionId();
-            if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
-                try {
-                    strategyDecisionMapper.updateStrategyDecisionStatus(
-                            strategyDecisionId,
-                            "EXECUTED",
-                            tradeId,
-                            null  // error_reason = null，表示成功
-                    );
-                    log.info("[AlgoOrderService] [virtual模式] ✅ 已更新strategy_decisions表状态为EXECUTED: decisionId={}, tradeId={}", 
-                            strategyDecisionId, tradeId);
-                } catch (Exception updateErr) {
-                    log.error("[AlgoOrderService] [virtual模式] ⚠️ 更新strategy_decisions表状态失败: decisionId={}, tradeId={}, error={}", 
-                            strategyDecisionId, tradeId, updateErr.getMessage(), updateErr);
-                }
-            }
+            log.info("[AlgoOrderService] [virtual模式] ✅ 交易执行完成，订单状态已更新为executed: orderId={}, tradeId={}, symbol={}, decisionId={}", 
+                    orderId, tradeId, symbol, order.getStrategyDecisionId());
+        } catch (TradeSettlementWriter.AlgoOrderStatusChangedException e) {
+            // 订单已被撤销或由其他处理执行，本次结算未写入任何记录
+            log.info("[AlgoOrderService] [virtual模式] 订单已不是new状态，放弃执行: orderId={}", orderId);
+            activeAlgoOrderSet.remove(orderId);
         } catch (Exception e) {
             log.error("[AlgoOrderService] [virtual模式] ❌ 交易执行失败: orderId={}, error={}", orderId, e.getMessage(), e);
             result.setFailedCount(result.getFailedCount() + 1);
@@ -513,7 +738,7 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
 
             // 更新订单状态为"failed"并记录错误原因
             try {
-                algoOrderMapper.updateAlgoStatusWithError(orderId, "FAILED", errorReason);
+                updateAlgoStatusWithError(orderId, "FAILED", errorReason);
                 log.info("[AlgoOrderService] [virtual模式] 订单状态已更新为FAILED: orderId={}, errorReason={}", orderId, errorReason);
             } catch (Exception updateEx) {
                 log.error("[AlgoOrderService] [virtual模式] 更新订单状态为failed失败: orderId={}, error={}",
@@ -545,7 +770,7 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
      */
     private void handleInsufficientPositionError(AlgoOrderDO order, AlgoOrderProcessResult result, String errorReason) {
         try {
-            algoOrderMapper.updateAlgoStatusWithError(order.getId(), "FAILED", errorReason);
+            updateAlgoStatusWithError(order.getId(), "FAILED", errorReason);
             String strategyDecisionId = order.getStrategyDecisionId();
             if (strategyDecisionId != null && !strategyDecisionId.isEmpty()) {
                 strategyDecisionMapper.updateStrategyDecisionStatus(
@@ -562,18 +787,40 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         }
     }
     
+    /**
+     * 更新条件订单状态，状态不为new时从内存集合移除
+     */
+    private void updateAlgoStatus(String orderId, String algoStatus) {
+        algoOrderMapper.updateAlgoStatus(orderId, algoStatus);
+        if (!"NEW".equalsIgnoreCase(algoStatus)) {
+            activeAlgoOrderSet.remove(orderId);
+        }
+    }
+
+    /**
+     * 更新条件订单状态和错误原因，并从内存集合移除
+     */
+    private void updateAlgoStatusWithError(String orderId, String algoStatus, String errorReason) {
+        algoOrderMapper.updateAlgoStatusWithError(orderId, algoStatus, errorReason);
+        activeAlgoOrderSet.remove(orderId);
+    }
+
     /**
      * 将SDK返回的状态映射到数据库状态
      */
-    private String mapSdkStatusToDbStatus(String sdkStatus) {
+    static String mapSdkStatusToDbStatus(String sdkStatus, String actualPrice, String executedQuantity) {
         if (sdkStatus == null) {
             return "NEW";
         }
         String statusLower = sdkStatus.toLowerCase();
-        // SDK状态映射：triggered -> TRIGGERED, executed -> EXECUTED, cancelled -> CANCELLED, rejected -> FAILED
+        // FINISHED既包括已成交，也包括触发后普通订单被撤销/过期（成交数量、均价为0）
+        if (statusLower.equals("finished")) {
+            return isPositive(actualPrice) || isPositive(executedQuantity) ? "EXECUTED" : "CANCELLED";
+        }
+        // SDK状态映射：triggered -> TRIGGERED, executed -> EXECUTED, cancelled/expired -> CANCELLED, rejected -> FAILED
         if (statusLower.contains("triggered") || statusLower.contains("executed")) {
-            return statusLower.contains("executed") ? "EXECUTED" : "TRIGGERED";
-        } else if (statusLower.contains("cancelled") || statusLower.contains("canceled")) {
+            return statusLower.contains("triggered") && !statusLower.contains("executed") ? "TRIGGERED" : "EXECUTED";
+        } else if (statusLower.contains("cancelled") || statusLower.contains("canceled") || statusLower.equals("expired")) {
             return "CANCELLED";
         } else if (statusLower.contains("rejected") || statusLower.contains("failed")) {
             return "FAILED";
@@ -581,6 +828,35 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         return "NEW";  // 默认返回NEW
     }
     
+    /**
+     * 币安对未成交的价格/数量返回"0"，按未成交处理
+     */
+    private static boolean isPositive(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(value) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析SDK返回的订单ID（Long或数字字符串），无法解析时返回null
+     */
+    private static Long parseOrderId(Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        if (value instanceof String && !((String) value).isEmpty()) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException ignored) { }
+        }
+        return null;
+    }
+
     /**
      * 格式化交易对符号
      */
@@ -596,49 +872,8 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
     }
     
     /**
-     * 获取当前价格
-     */
-    private Double getCurrentPrice(String symbol, ModelDO model) {
-        try {
-            BinanceFuturesBase client = getOrCreateClient(model);
-            if (client == null) {
-                return null;
-            }
-            
-            // 使用 BinanceFuturesClient 获取价格
-            if (client instanceof BinanceFuturesClient) {
-                BinanceFuturesClient futuresClient = (BinanceFuturesClient) client;
-                
-                // 调用 getSymbolPrices 方法
-                List<String> symbols = java.util.Collections.singletonList(symbol);
-                Map<String, Map<String, Object>> prices = futuresClient.getSymbolPrices(symbols);
-                
-                if (prices != null && prices.containsKey(symbol.toUpperCase())) {
-                    Map<String, Object> priceData = prices.get(symbol.toUpperCase());
-                    if (priceData != null && priceData.containsKey("price")) {
-                        Object priceObj = priceData.get("price");
-                        if (priceObj instanceof Number) {
-                            return ((Number) priceObj).doubleValue();
-                        } else if (priceObj instanceof String) {
-                            try {
-                                return Double.parseDouble((String) priceObj);
-                            } catch (NumberFormatException e) {
-                                log.warn("[AlgoOrderService] 价格格式错误: {}", priceObj);
-                            }
-                        }
-                    }
-                }
-            }
-            
-            return null;
-        } catch (Exception e) {
-            log.error("[AlgoOrderService] 获取 {} 当前价格失败: {}", symbol, e.getMessage());
-            return null;
-        }
-    }
-    
-    /**
-     * 执行交易并构建相关记录
+     * 执行交易并构建相关记录（trades、portfolios、account_values、account_value_historys、
+     * algo_order状态为EXECUTED、strategy_decisions状态为EXECUTED在同一事务中写入）
      */
     private String executeTradeAndBuildRecords(AlgoOrderDO order, ModelDO model, Double currentPrice) {
         String orderId = order.getId();
@@ -775,22 +1010,11 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         trade.setOrderId(binanceOrderId);
         trade.setType(orderType);
         trade.setTimestamp(now);
-        tradeMapper.insert(trade);
-        log.info("[AlgoOrderService] ✅ 已插入trades表记录: tradeId={}", tradeId);
+        TradeSettlement settlement = new TradeSettlement(trade);
         
-        // 2. 更新portfolios表（减少持仓数量）
+        // 2. 更新portfolios表（减少持仓数量，为0时删除持仓记录）
         Double newPositionAmt = positionAmt - executedQuantity;
-        if (newPositionAmt <= 0) {
-            // 持仓数量为0，删除持仓记录
-            portfolioMapper.deletePosition(modelId, symbol, positionSide);
-            log.info("[AlgoOrderService] ✅ 已删除持仓记录: modelId={}, symbol={}, positionSide={}", 
-                    modelId, symbol, positionSide);
-        } else {
-            // 更新持仓数量
-            portfolioMapper.updatePositionAmt(modelId, symbol, positionSide, newPositionAmt);
-            log.info("[AlgoOrderService] ✅ 已更新持仓数量: modelId={}, symbol={}, positionSide={}, newPositionAmt={}", 
-                    modelId, symbol, positionSide, newPositionAmt);
-        }
+        settlement.reducePosition(modelId, symbol, positionSide, newPositionAmt);
         
         // 3. 查询或创建account_values记录
         String accountAlias = model.getAccountAlias() != null ? model.getAccountAlias() : "";
@@ -825,26 +1049,8 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         crossWalletBalance = balance;   // 全仓余额等于总余额
         
         // 更新或插入account_values表
-        if (accountValue != null) {
-            // 更新现有记录
-            accountValueMapper.updateAccountValueById(accountValue.getId(), balance, availableBalance, 
-                    crossWalletBalance, crossPnl, crossUnPnl, now);
-        } else {
-            // 插入新记录
-            AccountValueDO newAccountValue = new AccountValueDO();
-            newAccountValue.setId(UUID.randomUUID().toString());
-            newAccountValue.setModelId(modelId);
-            newAccountValue.setAccountAlias(accountAlias);
-            newAccountValue.setBalance(balance);
-            newAccountValue.setAvailableBalance(availableBalance);
-            newAccountValue.setCrossWalletBalance(crossWalletBalance);
-            newAccountValue.setCrossPnl(crossPnl);
-            newAccountValue.setCrossUnPnl(crossUnPnl);
-            newAccountValue.setTimestamp(now);
-            accountValueMapper.insert(newAccountValue);
-        }
-        log.info("[AlgoOrderService] ✅ 已更新account_values表: modelId={}, balance={}, crossPnl={}", 
-                modelId, balance, crossPnl);
+        settlement.accountValue(buildAccountValue(accountValue, modelId, accountAlias, balance, availableBalance,
+                crossWalletBalance, crossPnl, crossUnPnl, now), accountValue != null);
         
         // 4. 插入account_value_historys表记录
         AccountValueHistoryDO history = new AccountValueHistoryDO();
@@ -858,11 +1064,15 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         history.setCrossUnPnl(crossUnPnl);
         history.setTradeId(tradeId);
         history.setTimestamp(now);
-        accountValueHistoryMapper.insert(history);
-        log.info("[AlgoOrderService] ✅ 已插入account_value_historys表记录: historyId={}, tradeId={}", 
-                history.getId(), tradeId);
+        settlement.accountValueHistory(history)
+                .claimAlgoOrder(orderId, "NEW", "EXECUTED")
+                .strategyDecision(order.getStrategyDecisionId(), "EXECUTED");
         
-        // 返回tradeId用于更新algo_order表和strategy_decisions表
+        // 5. 同一事务中写入以上全部记录
+        tradeSettlementWriter.settle(settlement);
+        activeAlgoOrderSet.remove(orderId);
+        log.info("[AlgoOrderService] ✅ 已写入trades、portfolios、account_values、account_value_historys记录: tradeId={}, newPositionAmt={}, balance={}, crossPnl={}", 
+                tradeId, newPositionAmt, balance, crossPnl);
         return tradeId;
     }
 
@@ -874,10 +1084,11 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
      * @param actualPrice SDK返回的实际成交价格
      * @param executedQuantity SDK返回的实际成交数量
      * @param actualOrderId SDK返回的实际订单ID
+     * @param dbStatus 写回algo_order表的状态
      * @return tradeId
      */
     private String buildTradeRecordFromSdkData(AlgoOrderDO order, ModelDO model, Double actualPrice,
-                                                Double executedQuantity, Long actualOrderId) {
+                                                Double executedQuantity, Long actualOrderId, String dbStatus) {
         String orderId = order.getId();
         String modelId = order.getModelId();
         String symbol = order.getSymbol().toUpperCase();
@@ -936,25 +1147,12 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         trade.setOrderId(actualOrderId);
         trade.setType(orderType);
         trade.setTimestamp(now);
-        tradeMapper.insert(trade);
-        log.info("[AlgoOrderService] [real模式] ✅ 已插入trades表记录: tradeId={}, price={}, quantity={}",
-                tradeId, actualPrice, executedQuantity);
+        TradeSettlement settlement = new TradeSettlement(trade);
 
-        // 2. 更新portfolios表（减少持仓数量）
+        // 2. 更新portfolios表（减少持仓数量，为0时删除持仓记录）
         if (position != null) {
             Double positionAmt = Math.abs(position.getPositionAmt());
-            Double newPositionAmt = positionAmt - executedQuantity;
-            if (newPositionAmt <= 0) {
-                // 持仓数量为0，删除持仓记录
-                portfolioMapper.deletePosition(modelId, symbol, positionSide);
-                log.info("[AlgoOrderService] [real模式] ✅ 已删除持仓记录: modelId={}, symbol={}, positionSide={}",
-                        modelId, symbol, positionSide);
-            } else {
-                // 更新持仓数量
-                portfolioMapper.updatePositionAmt(modelId, symbol, positionSide, newPositionAmt);
-                log.info("[AlgoOrderService] [real模式] ✅ 已更新持仓数量: modelId={}, symbol={}, positionSide={}, newPositionAmt={}",
-                        modelId, symbol, positionSide, newPositionAmt);
-            }
+            settlement.reducePosition(modelId, symbol, positionSide, positionAmt - executedQuantity);
         }
 
         // 3. 查询或创建account_values记录
@@ -982,26 +1180,8 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         crossWalletBalance = balance;   // 全仓余额等于总余额
 
         // 更新或插入account_values表
-        if (accountValue != null) {
-            // 更新现有记录
-            accountValueMapper.updateAccountValueById(accountValue.getId(), balance, availableBalance,
-                    crossWalletBalance, crossPnl, crossUnPnl, now);
-        } else {
-            // 插入新记录
-            AccountValueDO newAccountValue = new AccountValueDO();
-            newAccountValue.setId(UUID.randomUUID().toString());
-            newAccountValue.setModelId(modelId);
-            newAccountValue.setAccountAlias(accountAlias);
-            newAccountValue.setBalance(balance);
-            newAccountValue.setAvailableBalance(availableBalance);
-            newAccountValue.setCrossWalletBalance(crossWalletBalance);
-            newAccountValue.setCrossPnl(crossPnl);
-            newAccountValue.setCrossUnPnl(crossUnPnl);
-            newAccountValue.setTimestamp(now);
-            accountValueMapper.insert(newAccountValue);
-        }
-        log.info("[AlgoOrderService] [real模式] ✅ 已更新account_values表: modelId={}, balance={}, crossPnl={}",
-                modelId, balance, crossPnl);
+        settlement.accountValue(buildAccountValue(accountValue, modelId, accountAlias, balance, availableBalance,
+                crossWalletBalance, crossPnl, crossUnPnl, now), accountValue != null);
 
         // 4. 插入account_value_historys表记录
         AccountValueHistoryDO history = new AccountValueHistoryDO();
@@ -1015,82 +1195,42 @@ public class AlgoOrderServiceImpl implements AlgoOrderService {
         history.setCrossUnPnl(crossUnPnl);
         history.setTradeId(tradeId);
         history.setTimestamp(now);
-        accountValueHistoryMapper.insert(history);
-        log.info("[AlgoOrderService] [real模式] ✅ 已插入account_value_historys表记录: historyId={}, tradeId={}",
-                history.getId(), tradeId);
-
-        // 返回tradeId用于更新algo_order表和strategy_decisions表
+        settlement.accountValueHistory(history)
+                .algoOrder(orderId, dbStatus)
+                .strategyDecision(order.getStrategyDecisionId(), "EXECUTED");
+
+        // 5. 同一事务中写入以上全部记录
+        tradeSettlementWriter.settle(settlement);
+        activeAlgoOrderSet.remove(orderId);
+        log.info("[AlgoOrderService] [real模式] ✅ 已写入trades、portfolios、account_values、account_value_historys记录: tradeId={}, price={}, quantity={}, balance={}, crossPnl={}",
+                tradeId, actualPrice, executedQuantity, balance, crossPnl);
         return tradeId;
     }
 
     /**
-     * 获取或创建 Binance 客户端（使用模型自己的 API Key）
+     * 构建写回account_values表的记录：已有记录沿用其id，否则生成新记录
      */
-    private BinanceFuturesBase getOrCreateClient(ModelDO model) {
-        String modelId = model.getId();
-
-        // 从缓存中获取
-        BinanceFuturesBase client = modelClients.get(modelId);
-        if (client != null) {
-            return client;
-        }
-
-        // 创建新的客户端
-        try {
-            String apiKey = model.getApiKey();
-            String apiSecret = model.getApiSecret();
-
-            if (apiKey == null || apiKey.isEmpty() || apiSecret == null || apiSecret.isEmpty()) {
-                log.warn("[AlgoOrderService] 模型未配置API密钥，使用默认密钥: modelId={}", modelId);
-                apiKey = defaultApiKey;
-                apiSecret = defaultSecretKey;
-            }
-
-            client = new BinanceFuturesClient(apiKey, apiSecret, quoteAsset, null, false);
-            modelClients.put(modelId, client);
-
-            log.debug("[AlgoOrderService] 创建 Binance 客户端: modelId={}", modelId);
-            return client;
-        } catch (Exception e) {
-            log.error("[AlgoOrderService] 创建 Binance 客户端失败: modelId={}, error={}",
-                    modelId, e.getMessage());
-            return null;
-        }
+    private static AccountValueDO buildAccountValue(AccountValueDO existing, String modelId, String accountAlias,
+                                                    Double balance, Double availableBalance, Double crossWalletBalance,
+                                                    Double crossPnl, Double crossUnPnl, LocalDateTime now) {
+        AccountValueDO accountValue = new AccountValueDO();
+        accountValue.setId(existing != null ? existing.getId() : UUID.randomUUID().toString());
+        accountValue.setModelId(modelId);
+        accountValue.setAccountAlias(accountAlias);
+        accountValue.setBalance(balance);
+        accountValue.setAvailableBalance(availableBalance);
+        accountValue.setCrossWalletBalance(crossWalletBalance);
+        accountValue.setCrossPnl(crossPnl);
+        accountValue.setCrossUnPnl(crossUnPnl);
+        accountValue.setTimestamp(now);
+        return accountValue;
     }
 
     /**
-     * 获取或创建 Binance 订单客户端（使用模型自己的 API Key）
+     * 获取 Binance 订单客户端（使用模型自己的 API Key，未配置时使用默认密钥）
      */
     private BinanceFuturesOrderClient getOrCreateOrderClient(ModelDO model) {
-        String modelId = model.getId();
-
-        // 从缓存中获取
-        BinanceFuturesOrderClient orderClient = modelOrderClients.get(modelId);
-        if (orderClient != null) {
-            return orderClient;
-        }
-
-        // 创建新的订单客户端
-        try {
-            String apiKey = model.getApiKey();
-            String apiSecret = model.getApiSecret();
-
-            if (apiKey == null || apiKey.isEmpty() || apiSecret == null || apiSecret.isEmpty()) {
-                log.warn("[AlgoOrderService] 模型未配置API密钥，使用默认密钥: modelId={}", modelId);
-                apiKey = defaultApiKey;
-                apiSecret = defaultSecretKey;
-            }
-
-            orderClient = new BinanceFuturesOrderClient(apiKey, apiSecret, quoteAsset, null, false);
-            modelOrderClients.put(modelId, orderClient);
-
-            log.debug("[AlgoOrderService] 创建 Binance 订单客户端: modelId={}", modelId);
-            return orderClient;
-        } catch (Exception e) {
-            log.error("[AlgoOrderService] 创建 Binance 订单客户端失败: modelId={}, error={}",
-                    modelId, e.getMessage());
-            return null;
-        }
+        return binanceClientRegistry.getOrderClient(model);
     }
 
     /**
@@ -1,8 +1,10 @@
 package com.aifuturetrade.asyncservice.service.impl;
 
 import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesBase;
-import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesClient;
 import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesOrderClient;
+import com.aifuturetrade.asyncservice.dao.ActiveAlgoOrderSet;
+import com.aifuturetrade.asyncservice.dao.TradeSettlement;
+import com.aifuturetrade.asyncservice.dao.TradeSettlementWriter;
 import com.aifuturetrade.asyncservice.dao.mapper.ModelMapper;
 import com.aifuturetrade.asyncservice.dao.mapper.PortfolioMapper;
 import com.aifuturetrade.asyncservice.dao.mapper.TradeMapper;
@@ -12,9 +14,13 @@ import com.aifuturetrade.asyncservice.entity.AlgoOrderDO;
 import com.aifuturetrade.asyncservice.entity.PortfolioDO;
 import com.aifuturetrade.asyncservice.entity.PortfolioWithModelInfo;
 import com.aifuturetrade.asyncservice.entity.TradeDO;
+import com.aifuturetrade.asyncservice.market.HistogramSnapshot;
 import com.aifuturetrade.asyncservice.service.AutoCloseResult;
 import com.aifuturetrade.asyncservice.service.AutoCloseService;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import com.aifuturetrade.asyncservice.service.MarketPriceCacheService;
 import com.aifuturetrade.asyncservice.util.QuantityFormatUtil;
+import com.aifuturetrade.asyncservice.util.StripedExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,10 +32,11 @@ import jakarta.annotation.PreDestroy;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -38,12 +45,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * 功能：
  * 1. 定时检查所有持仓的损失百分比
  * 2. 当损失达到配置的阈值时，自动执行市场价卖出操作
- * 3. 使用 position_amt、当前价格（SDK获取）、avg_price 计算损失百分比
+ * 3. 使用 position_amt、当前价格（标记价格流缓存，过期时SDK获取）、avg_price 计算损失百分比
  */
 @Slf4j
 @Service
 public class AutoCloseServiceImpl implements AutoCloseService {
     
+    @Autowired
+    private MarketPriceCacheService marketPriceCacheService;
+    
     @Autowired
     private PortfolioMapper portfolioMapper;
     
@@ -55,36 +65,53 @@ public class AutoCloseServiceImpl implements AutoCloseService {
 
     @Autowired
     private TradeMapper tradeMapper;
+
+    @Autowired
+    private TradeSettlementWriter tradeSettlementWriter;
+
+    @Autowired
+    private ActiveAlgoOrderSet activeAlgoOrderSet;
     
     @Value("${async.auto-close.interval-seconds:3}")
     private int intervalSeconds;
     
-    @Value("${binance.api-key}")
-    private String defaultApiKey;
-    
-    @Value("${binance.secret-key}")
-    private String defaultSecretKey;
-    
     @Value("${binance.quote-asset:USDT}")
     private String quoteAsset;
     
     @Value("${async.auto-close.trade-mode:test}")
     private String tradeMode;
 
+    /**
+     * 持仓并行检查的条带数（同一模型的持仓串行）
+     */
+    @Value("${async.auto-close.parallelism:8}")
+    private int parallelism;
+
     private static final double TRADE_FEE_RATE = 0.001;
+
+    /**
+     * 单条持仓的检查结果
+     */
+    private enum CheckOutcome {
+        CLOSED,
+        FAILED,
+        SKIPPED
+    }
     
     private final AtomicBoolean schedulerRunning = new AtomicBoolean(false);
     
-    // 缓存每个模型的 Binance 客户端（使用模型自己的 API Key）
-    private final Map<String, BinanceFuturesBase> modelClients = new ConcurrentHashMap<>();
+    // 按凭证共享的 Binance 客户端（使用模型自己的 API Key）
+    @Autowired
+    private BinanceClientRegistry binanceClientRegistry;
 
-    // 缓存每个模型的 Binance 订单客户端（用于订单和交易操作）
-    private final Map<String, BinanceFuturesOrderClient> modelOrderClients = new ConcurrentHashMap<>();
+    // 按modelId分条带并行检查持仓，一个账户的慢请求不拖慢其他账户的平仓
+    private StripedExecutor positionExecutor;
     
     @PostConstruct
     public void init() {
+        positionExecutor = new StripedExecutor("AutoClose-Worker", parallelism);
         log.info("[AutoCloseService] 🛠️ 自动平仓服务初始化完成");
-        log.info("[AutoCloseService] ⏱️ 执行周期: {} 秒", intervalSeconds);
+        log.info("[AutoCloseService] ⏱️ 执行周期: {} 秒, 并发: {}", intervalSeconds, positionExecutor.getStripeCount());
         log.info("[AutoCloseService] 💰 交易模式: {} ({})", 
                 tradeMode, "test".equalsIgnoreCase(tradeMode) ? "测试接口，不会真实成交" : "真实交易接口");
     }
@@ -93,9 +120,9 @@ public class AutoCloseServiceImpl implements AutoCloseService {
     public void destroy() {
         log.info("[AutoCloseService] 🛑 收到服务销毁信号，停止调度器...");
         stopScheduler();
-        // 清理客户端缓存
-        modelClients.clear();
-        modelOrderClients.clear();
+        if (positionExecutor != null) {
+            positionExecutor.shutdown(5000);
+        }
         log.info("[AutoCloseService] 👋 自动平仓服务已销毁");
     }
     
@@ -148,94 +175,46 @@ public class AutoCloseServiceImpl implements AutoCloseService {
             totalChecked = positions.size();
             
             // 按模型分组处理（避免重复查询模型信息）
-            Map<String, ModelDO> modelCache = new ConcurrentHashMap<>();
-            
+            Map<String, ModelDO> modelCache = new HashMap<>();
+            List<PortfolioWithModelInfo> checkable = new ArrayList<>();
             for (PortfolioWithModelInfo position : positions) {
-                try {
-                    String modelId = position.getModelId();
-                    String symbol = position.getSymbol();
-                    String positionSide = position.getPositionSide();
-                    Double positionAmt = position.getPositionAmt();
-                    Double avgPrice = position.getAvgPrice();
-                    Double initialMargin = position.getInitialMargin();
-                    Double autoClosePercent = position.getAutoClosePercent();
-                    
-                    // 获取模型信息（使用缓存）
-                    ModelDO model = modelCache.computeIfAbsent(modelId, id -> {
-                        ModelDO m = modelMapper.selectModelById(id);
-                        if (m == null) {
-                            log.warn("[AutoClose] ⚠️  模型不存在: {}", id);
-                        }
-                        return m;
-                    });
-                    
-                    if (model == null) {
-                        skippedCount++;
-                        continue;
-                    }
-                    
-                    // 根据is_virtual判断使用real还是test模式
-                    // 如果is_virtual不为true（即非虚拟），使用real模式
-                    // is_virtual在数据库中：0表示非虚拟，1表示虚拟
-                    // 在Java中映射为Boolean：false表示非虚拟，true表示虚拟
-                    Boolean isVirtual = model.getIsVirtual();
-                    boolean useRealMode = (isVirtual == null || !isVirtual);
-                    String modelTradeMode = useRealMode ? "real" : "test";
-                    
-                    // 检查配置
-                    if (autoClosePercent == null || autoClosePercent <= 0) {
-                        log.debug("[AutoClose] 跳过 {} (模型: {}): auto_close_percent 未配置或为0", 
-                                symbol, modelId);
-                        skippedCount++;
-                        continue;
+                String modelId = position.getModelId();
+                if (!modelCache.containsKey(modelId)) {
+                    ModelDO m = modelMapper.selectModelById(modelId);
+                    if (m == null) {
+                        log.warn("[AutoClose] ⚠️  模型不存在: {}", modelId);
                     }
-                    
-                    // 获取当前价格
-                    Double currentPrice = getCurrentPrice(symbol, model);
-                    if (currentPrice == null || currentPrice <= 0) {
-                        log.warn("[AutoClose] ⚠️  无法获取 {} 的当前价格", symbol);
-                        skippedCount++;
-                        continue;
-                    }
-                    
-                    // 计算损失百分比
-                    double lossPercent = calculateLossPercent(
-                            avgPrice, currentPrice, positionAmt, positionSide, initialMargin);
-                    
-                    log.debug("[AutoClose] {} (模型: {}): 持仓价格={}, 当前价格={}, 损失百分比={}%, 阈值={}%",
-                            symbol, modelId, avgPrice, currentPrice, String.format("%.2f", lossPercent), String.format("%.2f", autoClosePercent));
-                    
-                    // 检查是否达到阈值
-                    if (lossPercent >= autoClosePercent) {
-                        log.warn("[AutoClose] 🚨 {} (模型: {}) 触发自动平仓: 损失 {}% >= 阈值 {}%",
-                                symbol, modelId, String.format("%.2f", lossPercent), String.format("%.2f", autoClosePercent));
-
-                        log.info("[AutoClose] 📤 准备执行平仓 | symbol={}, positionSide={}, positionAmt={}, modelTradeMode={}",
-                                symbol, positionSide, positionAmt, modelTradeMode);
-
-                        // 根据当前价格格式化数量小数位后执行平仓
-                        double formattedAmt = QuantityFormatUtil.formatQuantityForSdk(positionAmt, currentPrice);
-                        if (formattedAmt <= 0 && positionAmt > 0) {
-                            formattedAmt = positionAmt;
-                        }
-                        boolean success = executeClosePosition(model, symbol, positionSide, formattedAmt, modelTradeMode,
-                                avgPrice, currentPrice, initialMargin);
-                        if (success) {
-                            closedCount++;
-                            log.info("[AutoClose] ✅ {} (模型: {}) 自动平仓成功", symbol, modelId);
-                        } else {
-                            failedCount++;
-                            log.error("[AutoClose] ❌ {} (模型: {}) 自动平仓失败", symbol, modelId);
-                        }
-                    } else {
-                        skippedCount++;
-                    }
-                    
+                    modelCache.put(modelId, m);
+                }
+                if (modelCache.get(modelId) == null) {
+                    skippedCount++;
+                } else {
+                    checkable.add(position);
+                }
+            }
+            
+            // 按modelId分条带并行检查：同一模型的持仓串行平仓，不同模型互不阻塞
+            long startMs = System.currentTimeMillis();
+            List<CheckOutcome> outcomes = positionExecutor.invokeAll(checkable, PortfolioWithModelInfo::getModelId, position -> {
+                try {
+                    return checkPosition(position, modelCache.get(position.getModelId()));
                 } catch (Exception e) {
                     log.error("[AutoClose] ❌ 处理持仓记录失败", e);
+                    return CheckOutcome.FAILED;
+                }
+            });
+            for (CheckOutcome outcome : outcomes) {
+                if (outcome == CheckOutcome.CLOSED) {
+                    closedCount++;
+                } else if (outcome == CheckOutcome.SKIPPED) {
+                    skippedCount++;
+                } else {
                     failedCount++;
                 }
             }
+            HistogramSnapshot latency = positionExecutor.drainLatencySnapshot();
+            log.info("[AutoClose] ⏱️ {} 条持仓检查耗时={}ms, 单条耗时 p50={}ms, p99={}ms, max={}ms",
+                    checkable.size(), System.currentTimeMillis() - startMs, latency.getP50(), latency.getP99(), latency.getMax());
             
             log.info("[AutoClose] ========== 自动平仓检查完成 ==========");
             log.info("[AutoClose] 📊 统计: 总计={}, 平仓={}, 失败={}, 跳过={}", 
@@ -251,6 +230,72 @@ public class AutoCloseServiceImpl implements AutoCloseService {
         }
     }
     
+    /**
+     * 检查单条持仓，损失达到阈值时执行平仓（在持仓所属模型的条带线程中执行）
+     */
+    private CheckOutcome checkPosition(PortfolioWithModelInfo position, ModelDO model) {
+        String modelId = position.getModelId();
+        String symbol = position.getSymbol();
+        String positionSide = position.getPositionSide();
+        Double positionAmt = position.getPositionAmt();
+        Double avgPrice = position.getAvgPrice();
+        Double initialMargin = position.getInitialMargin();
+        Double autoClosePercent = position.getAutoClosePercent();
+        
+        // 根据is_virtual判断使用real还是test模式
+        // 如果is_virtual不为true（即非虚拟），使用real模式
+        // is_virtual在数据库中：0表示非虚拟，1表示虚拟
+        // 在Java中映射为Boolean：false表示非虚拟，true表示虚拟
+        Boolean isVirtual = model.getIsVirtual();
+        boolean useRealMode = (isVirtual == null || !isVirtual);
+        String modelTradeMode = useRealMode ? "real" : "test";
+        
+        // 检查配置
+        if (autoClosePercent == null || autoClosePercent <= 0) {
+            log.debug("[AutoClose] 跳过 {} (模型: {}): auto_close_percent 未配置或为0", 
+                    symbol, modelId);
+            return CheckOutcome.SKIPPED;
+        }
+        
+        // 获取当前价格
+        Double currentPrice = getCurrentPrice(symbol, model);
+        if (currentPrice == null || currentPrice <= 0) {
+            log.warn("[AutoClose] ⚠️  无法获取 {} 的当前价格", symbol);
+            return CheckOutcome.SKIPPED;
+        }
+        
+        // 计算损失百分比
+        double lossPercent = calculateLossPercent(
+                avgPrice, currentPrice, positionAmt, positionSide, initialMargin);
+        
+        log.debug("[AutoClose] {} (模型: {}): 持仓价格={}, 当前价格={}, 损失百分比={}%, 阈值={}%",
+                symbol, modelId, avgPrice, currentPrice, String.format("%.2f", lossPercent), String.format("%.2f", autoClosePercent));
+        
+        // 检查是否达到阈值
+        if (lossPercent >= autoClosePercent) {
+            log.warn("[AutoClose] 🚨 {} (模型: {}) 触发自动平仓: 损失 {}% >= 阈值 {}%",
+                    symbol, modelId, String.format("%.2f", lossPercent), String.format("%.2f", autoClosePercent));
+
+            log.info("[AutoClose] 📤 准备执行平仓 | symbol={}, positionSide={}, positionAmt={}, modelTradeMode={}",
+                    symbol, positionSide, positionAmt, modelTradeMode);
+
+            // 根据当前价格格式化数量小数位后执行平仓
+            double formattedAmt = QuantityFormatUtil.formatQuantityForSdk(positionAmt, currentPrice);
+            if (formattedAmt <= 0 && positionAmt > 0) {
+                formattedAmt = positionAmt;
+            }
+            boolean success = executeClosePosition(model, symbol, positionSide, formattedAmt, modelTradeMode,
+                    avgPrice, currentPrice, initialMargin);
+            if (success) {
+                log.info("[AutoClose] ✅ {} (模型: {}) 自动平仓成功", symbol, modelId);
+                return CheckOutcome.CLOSED;
+            }
+            log.error("[AutoClose] ❌ {} (模型: {}) 自动平仓失败", symbol, modelId);
+            return CheckOutcome.FAILED;
+        }
+        return CheckOutcome.SKIPPED;
+    }
+
     /**
      * 计算损失百分比
      * 
@@ -298,46 +343,11 @@ public class AutoCloseServiceImpl implements AutoCloseService {
     }
     
     /**
-     * 获取当前价格
+     * 获取当前价格：优先读取标记价格流缓存，缓存过期或缺失时回退REST标记价格查询
      */
     private Double getCurrentPrice(String symbol, ModelDO model) {
-        try {
-            BinanceFuturesBase client = getOrCreateClient(model);
-            if (client == null) {
-                return null;
-            }
-            
-            // 使用 BinanceFuturesClient 获取价格
-            if (client instanceof BinanceFuturesClient) {
-                BinanceFuturesClient futuresClient = 
-                        (BinanceFuturesClient) client;
-                
-                // 调用 getSymbolPrices 方法
-                java.util.List<String> symbols = java.util.Collections.singletonList(symbol);
-                Map<String, Map<String, Object>> prices = futuresClient.getSymbolPrices(symbols);
-                
-                if (prices != null && prices.containsKey(symbol.toUpperCase())) {
-                    Map<String, Object> priceData = prices.get(symbol.toUpperCase());
-                    if (priceData != null && priceData.containsKey("price")) {
-                        Object priceObj = priceData.get("price");
-                        if (priceObj instanceof Number) {
-                            return ((Number) priceObj).doubleValue();
-                        } else if (priceObj instanceof String) {
-                            try {
-                                return Double.parseDouble((String) priceObj);
-                            } catch (NumberFormatException e) {
-                                log.warn("[AutoClose] 价格格式错误: {}", priceObj);
-                            }
-                        }
-                    }
-                }
-            }
-            
-            return null;
-        } catch (Exception e) {
-            log.error("[AutoClose] 获取 {} 当前价格失败: {}", symbol, e.getMessage());
-            return null;
-        }
+        return marketPriceCacheService.getPrice(symbol,
+                marketPriceCacheService.restMarkPriceLoader(() -> getOrCreateClient(model)));
     }
     
     /**
@@ -469,35 +479,22 @@ public class AutoCloseServiceImpl implements AutoCloseService {
                 trade.setPortfoliosId(portfoliosId);
                 trade.setOrderId(orderId);
                 trade.setTimestamp(LocalDateTime.now(ZoneId.of("Asia/Shanghai")));
+
+                // 只有在real模式且SDK返回成功时才更新 portfolios 表：删除持仓记录（与trades记录在同一事务中写入）
+                // 测试模式下不更新持仓，因为不是真实交易
+                TradeSettlement settlement = new TradeSettlement(trade);
+                if (!useTestMode) {
+                    settlement.deletePosition(model.getId(), symbol.toUpperCase(), positionSide);
+                }
                 try {
-                    tradeMapper.insert(trade);
-                    log.info("[AutoClose] ✅ 已插入trades表记录: tradeId={}, modelId={}, symbol={}, quantity={}, price={}",
-                            trade.getId(), model.getId(), symbol, executedQuantity, executedPrice);
+                    tradeSettlementWriter.settle(settlement);
+                    log.info("[AutoClose] ✅ 已插入trades表记录: tradeId={}, modelId={}, symbol={}, quantity={}, price={}, 删除持仓={}",
+                            trade.getId(), model.getId(), symbol, executedQuantity, executedPrice, !useTestMode);
                 } catch (Exception dbErr) {
-                    log.error("[AutoClose] ❌ 插入trades表失败: {}", dbErr.getMessage(), dbErr);
+                    log.error("[AutoClose] ❌ 写入trades表及portfolios表失败: {}", dbErr.getMessage(), dbErr);
                     // 不返回 false，订单已成功
                 }
 
-                // 只有在real模式且SDK返回成功时才更新 portfolios 表：删除持仓记录
-                if (!useTestMode) {
-                    try {
-                        int deleted = portfolioMapper.deletePosition(model.getId(), symbol.toUpperCase(), positionSide);
-                        if (deleted > 0) {
-                            log.info("[AutoClose] ✅ 已更新 portfolios 表，删除持仓记录（real模式，SDK成功）: modelId={}, symbol={}, positionSide={}",
-                                    model.getId(), symbol, positionSide);
-                        } else {
-                            log.warn("[AutoClose] ⚠️  未找到要删除的持仓记录: modelId={}, symbol={}, positionSide={}",
-                                    model.getId(), symbol, positionSide);
-                        }
-                    } catch (Exception dbErr) {
-                        log.error("[AutoClose] ❌ 更新 portfolios 表失败: {}", dbErr.getMessage(), dbErr);
-                        // 不返回 false，因为订单已经提交成功
-                    }
-                } else {
-                    // 测试模式下不更新数据库，因为不是真实交易
-                    log.info("[AutoClose] ℹ️  测试模式：跳过数据库更新（非真实交易）");
-                }
-
                 return true;
             } else {
                 if (!useTestMode) {
@@ -590,6 +587,7 @@ public class AutoCloseServiceImpl implements AutoCloseService {
                         // SDK取消成功后，更新数据库状态
                         for (AlgoOrderDO order : existingOrders) {
                             algoOrderMapper.updateAlgoStatusToCancelled(order.getId());
+                            activeAlgoOrderSet.remove(order.getId());
                         }
                         log.info("[AutoClose] 已更新数据库条件单状态为cancelled | model={} symbol={} count={}",
                                 model.getId(), symbol, existingOrders.size());
@@ -608,6 +606,7 @@ public class AutoCloseServiceImpl implements AutoCloseService {
                 // virtual模式：只有在数据库中查询到条件单时才更新状态
                 for (AlgoOrderDO order : existingOrders) {
                     algoOrderMapper.updateAlgoStatusToCancelled(order.getId());
+                    activeAlgoOrderSet.remove(order.getId());
                 }
                 log.info("[AutoClose] virtual模式已更新条件单状态为cancelled | model={} symbol={} count={}", 
                         model.getId(), symbol, existingOrders.size());
@@ -620,69 +619,17 @@ public class AutoCloseServiceImpl implements AutoCloseService {
     }
     
     /**
-     * 获取或创建 Binance 客户端（使用模型自己的 API Key）
+     * 获取 Binance 客户端（使用模型自己的 API Key，未配置时使用默认密钥）
      */
     private BinanceFuturesBase getOrCreateClient(ModelDO model) {
-        if (model == null || model.getId() == null) {
-            return null;
-        }
-
-        return modelClients.computeIfAbsent(model.getId(), modelId -> {
-            try {
-                String apiKey = model.getApiKey();
-                String apiSecret = model.getApiSecret();
-
-                if (apiKey == null || apiKey.isEmpty() || apiSecret == null || apiSecret.isEmpty()) {
-                    log.warn("[AutoClose] ⚠️  模型 {} 未配置 API Key，使用默认配置", modelId);
-                    apiKey = defaultApiKey;
-                    apiSecret = defaultSecretKey;
-                }
-
-                // 创建客户端（使用 BinanceFuturesClient）
-                BinanceFuturesClient client =
-                        new BinanceFuturesClient(apiKey, apiSecret, quoteAsset, null, false);
-
-                log.info("[AutoClose] ✅ 为模型 {} 创建 Binance 客户端", modelId);
-                return client;
-
-            } catch (Exception e) {
-                log.error("[AutoClose] ❌ 为模型 {} 创建 Binance 客户端失败: {}", modelId, e.getMessage());
-                return null;
-            }
-        });
+        return binanceClientRegistry.getFuturesClient(model);
     }
 
     /**
-     * 获取或创建 Binance 订单客户端（使用模型自己的 API Key）
+     * 获取 Binance 订单客户端（使用模型自己的 API Key，未配置时使用默认密钥）
      */
     private BinanceFuturesOrderClient getOrCreateOrderClient(ModelDO model) {
-        if (model == null || model.getId() == null) {
-            return null;
-        }
-
-        return modelOrderClients.computeIfAbsent(model.getId(), modelId -> {
-            try {
-                String apiKey = model.getApiKey();
-                String apiSecret = model.getApiSecret();
-
-                if (apiKey == null || apiKey.isEmpty() || apiSecret == null || apiSecret.isEmpty()) {
-                    log.warn("[AutoClose] ⚠️  模型 {} 未配置 API Key，使用默认配置", modelId);
-                    apiKey = defaultApiKey;
-                    apiSecret = defaultSecretKey;
-                }
-
-                // 创建订单客户端
-                BinanceFuturesOrderClient orderClient =
-                        new BinanceFuturesOrderClient(apiKey, apiSecret, quoteAsset, null, false);
-
-                log.info("[AutoClose] ✅ 为模型 {} 创建 Binance 订单客户端", modelId);
-                return orderClient;
-
-            } catch (Exception e) {
-                log.error("[AutoClose] ❌ 为模型 {} 创建 Binance 订单客户端失败: {}", modelId, e.getMessage());
-                return null;
-            }
-        });
+        return binanceClientRegistry.getOrderClient(model);
     }
 }
 
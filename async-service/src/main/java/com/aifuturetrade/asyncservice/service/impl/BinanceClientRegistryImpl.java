@@ -0,0 +1,299 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesOrderClient;
+import com.aifuturetrade.asyncservice.entity.ModelDO;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistryStats;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 币安客户端注册表实现
+ *
+ * - 键为API Key + Secret的SHA-256指纹（日志和统计中不出现明文密钥），同一凭证的行情/订单客户端各创建一次
+ * - 所有客户端基于同一个OkHttpClient创建，共享连接池和调度器
+ * - 每次获取时比较模型当前凭证的指纹与上次绑定的指纹，不同则重新绑定，旧凭证没有其他模型使用时移除
+ * - 凭证数量超过max-credentials时按LRU移除；BinanceClientRegistry-Evictor线程定期移除空闲超时的凭证
+ */
+@Slf4j
+@Service
+public class BinanceClientRegistryImpl implements BinanceClientRegistry {
+
+    private static final long EVICT_INTERVAL_SECONDS = 60;
+
+    @Value("${binance.api-key}")
+    private String defaultApiKey;
+
+    @Value("${binance.secret-key}")
+    private String defaultSecretKey;
+
+    @Value("${binance.quote-asset:USDT}")
+    private String quoteAsset;
+
+    /**
+     * 最多缓存的凭证数量，超出按LRU移除
+     */
+    @Value("${binance.client-registry.max-credentials:200}")
+    private int maxCredentials;
+
+    /**
+     * 凭证超过该时长未被使用则移除其客户端（秒）
+     */
+    @Value("${binance.client-registry.idle-timeout-seconds:1800}")
+    private long idleTimeoutSeconds;
+
+    /**
+     * 共享连接池最多保留的空闲连接数
+     */
+    @Value("${binance.client-registry.max-idle-connections:20}")
+    private int maxIdleConnections;
+
+    /**
+     * 空闲连接保活时长（秒）
+     */
+    @Value("${binance.client-registry.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    private OkHttpClient sharedHttpClient;
+    private ConnectionPool connectionPool;
+    private ScheduledExecutorService evictor;
+
+    // 访问顺序的LinkedHashMap实现LRU；entries和modelFingerprints由this加锁
+    private final LinkedHashMap<String, ClientEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, String> modelFingerprints = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong credentialChanges = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        connectionPool = new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+        sharedHttpClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .build();
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BinanceClientRegistry-Evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, EVICT_INTERVAL_SECONDS, EVICT_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        log.info("[BinanceClientRegistry] 初始化完成: maxCredentials={}, idleTimeoutSeconds={}, maxIdleConnections={}",
+                maxCredentials, idleTimeoutSeconds, maxIdleConnections);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        synchronized (this) {
+            entries.clear();
+            modelFingerprints.clear();
+        }
+        if (sharedHttpClient != null) {
+            sharedHttpClient.dispatcher().executorService().shutdown();
+            connectionPool.evictAll();
+        }
+    }
+
+    @Override
+    public BinanceFuturesClient getFuturesClient(ModelDO model) {
+        if (model == null || model.getId() == null) {
+            return null;
+        }
+        try {
+            return resolve(model).futuresClient();
+        } catch (Exception e) {
+            log.error("[BinanceClientRegistry] 创建行情客户端失败: modelId={}, error={}", model.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public BinanceFuturesOrderClient getOrderClient(ModelDO model) {
+        if (model == null || model.getId() == null) {
+            return null;
+        }
+        try {
+            return resolve(model).orderClient();
+        } catch (Exception e) {
+            log.error("[BinanceClientRegistry] 创建订单客户端失败: modelId={}, error={}", model.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public BinanceFuturesClient getDefaultFuturesClient() {
+        return resolve(null, defaultApiKey, defaultSecretKey).futuresClient();
+    }
+
+    @Override
+    public String getCredentialFingerprint(ModelDO model) {
+        if (model == null || !hasCredential(model)) {
+            return fingerprint(defaultApiKey, defaultSecretKey);
+        }
+        return fingerprint(model.getApiKey(), model.getApiSecret());
+    }
+
+    @Override
+    public BinanceClientRegistryStats getStats() {
+        BinanceClientRegistryStats stats = new BinanceClientRegistryStats();
+        synchronized (this) {
+            stats.setCredentialCount(entries.size());
+            stats.setModelCount(modelFingerprints.size());
+        }
+        stats.setMaxCredentials(maxCredentials);
+        stats.setHits(hits.get());
+        stats.setMisses(misses.get());
+        stats.setEvictions(evictions.get());
+        stats.setCredentialChanges(credentialChanges.get());
+        stats.setConnectionCount(connectionPool.connectionCount());
+        stats.setIdleConnectionCount(connectionPool.idleConnectionCount());
+        stats.setMaxIdleConnections(maxIdleConnections);
+        stats.setRunningCalls(sharedHttpClient.dispatcher().runningCallsCount());
+        return stats;
+    }
+
+    private ClientEntry resolve(ModelDO model) {
+        if (!hasCredential(model)) {
+            return resolve(model.getId(), defaultApiKey, defaultSecretKey);
+        }
+        return resolve(model.getId(), model.getApiKey(), model.getApiSecret());
+    }
+
+    private static boolean hasCredential(ModelDO model) {
+        return model.getApiKey() != null && !model.getApiKey().isEmpty()
+                && model.getApiSecret() != null && !model.getApiSecret().isEmpty();
+    }
+
+    /**
+     * 查找或创建凭证对应的客户端组，并把模型绑定到该凭证
+     */
+    private synchronized ClientEntry resolve(String modelId, String apiKey, String apiSecret) {
+        String fingerprint = fingerprint(apiKey, apiSecret);
+        if (modelId != null) {
+            String previous = modelFingerprints.put(modelId, fingerprint);
+            if (previous != null && !previous.equals(fingerprint)) {
+                credentialChanges.incrementAndGet();
+                log.info("[BinanceClientRegistry] 模型凭证已变更，切换客户端: modelId={}, {} -> {}",
+                        modelId, previous, fingerprint);
+                if (!modelFingerprints.containsValue(previous) && entries.remove(previous) != null) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+
+        ClientEntry entry = entries.get(fingerprint);
+        if (entry != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            entry = new ClientEntry(apiKey, apiSecret);
+            entries.put(fingerprint, entry);
+            evictOverflow();
+            log.debug("[BinanceClientRegistry] 新建凭证客户端组: fingerprint={}", fingerprint);
+        }
+        entry.lastUsedAtMs = System.currentTimeMillis();
+        return entry;
+    }
+
+    /**
+     * 超出max-credentials时移除最久未使用的凭证（调用方持有锁）
+     */
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, ClientEntry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxCredentials && iterator.hasNext()) {
+            String fingerprint = iterator.next().getKey();
+            iterator.remove();
+            modelFingerprints.values().removeIf(fingerprint::equals);
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 移除空闲超时的凭证（BinanceClientRegistry-Evictor）
+     */
+    private void evictIdle() {
+        long expireBefore = System.currentTimeMillis() - idleTimeoutSeconds * 1000L;
+        int removed = 0;
+        synchronized (this) {
+            Iterator<Map.Entry<String, ClientEntry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, ClientEntry> entry = iterator.next();
+                if (entry.getValue().lastUsedAtMs < expireBefore) {
+                    iterator.remove();
+                    modelFingerprints.values().removeIf(entry.getKey()::equals);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            evictions.addAndGet(removed);
+            log.debug("[BinanceClientRegistry] 移除空闲凭证客户端组: {}", removed);
+        }
+    }
+
+    private static String fingerprint(String apiKey, String apiSecret) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(apiKey).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(apiSecret).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 同一凭证的行情和订单客户端（按需创建）
+     */
+    private final class ClientEntry {
+
+        private final String apiKey;
+        private final String apiSecret;
+        private volatile long lastUsedAtMs;
+        private BinanceFuturesClient futuresClient;
+        private BinanceFuturesOrderClient orderClient;
+
+        private ClientEntry(String apiKey, String apiSecret) {
+            this.apiKey = apiKey;
+            this.apiSecret = apiSecret;
+        }
+
+        private synchronized BinanceFuturesClient futuresClient() {
+            if (futuresClient == null) {
+                futuresClient = new BinanceFuturesClient(apiKey, apiSecret, quoteAsset, sharedHttpClient);
+            }
+            return futuresClient;
+        }
+
+        private synchronized BinanceFuturesOrderClient orderClient() {
+            if (orderClient == null) {
+                orderClient = new BinanceFuturesOrderClient(apiKey, apiSecret, quoteAsset, sharedHttpClient);
+            }
+            return orderClient;
+        }
+    }
+}
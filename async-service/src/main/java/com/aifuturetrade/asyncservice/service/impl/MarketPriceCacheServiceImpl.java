@@ -0,0 +1,366 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesBase;
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.asyncservice.config.WebSocketConfig;
+import com.aifuturetrade.asyncservice.service.MarketPriceCacheService;
+import com.aifuturetrade.asyncservice.service.MarketPriceCacheStats;
+import com.binance.connector.client.common.websocket.adapter.stream.StreamConnectionWrapper;
+import com.binance.connector.client.common.websocket.configuration.WebSocketClientConfiguration;
+import com.binance.connector.client.common.websocket.service.StreamBlockingQueue;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.DerivativesTradingUsdsFuturesWebSocketStreamsUtil;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.api.WebsocketMarketStreamsApi;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.MarkPriceStreamForAllMarketRequest;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 进程内价格缓存服务实现
+ *
+ * 后台线程（MarketPriceCache-Thread）持有一条独立的标记价格流连接（!markPrice@arr@1s），
+ * 每秒更新全市场symbol的标记价格及本地接收时间；连接在超过silence-timeout-ms未收到数据时
+ * 按指数退避（带随机抖动）重建。查询时未过期（max-age-ms内）的价格直接返回，
+ * 其余symbol合并为一次REST回退查询并写回缓存；回退统一查询标记价格接口（restMarkPriceLoader），
+ * 缓存中的价格始终是标记价格，不会与最新成交价混用。
+ */
+@Slf4j
+@Service
+public class MarketPriceCacheServiceImpl implements MarketPriceCacheService {
+
+    private static final long POLL_MS = 1000;
+
+    private final long maxMessageSize;
+
+    /**
+     * 是否启用标记价格流（false时每次都回退REST查询，只缓存REST结果）
+     */
+    @Value("${async.price-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 价格过期时长（毫秒）
+     */
+    @Value("${async.price-cache.max-age-ms:5000}")
+    private long maxAgeMs;
+
+    /**
+     * 价格流超过该时长未收到数据则重建连接（毫秒）
+     */
+    @Value("${async.price-cache.silence-timeout-ms:10000}")
+    private long silenceTimeoutMs;
+
+    @Value("${async.price-cache.reconnect.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    private final Map<String, CachedPrice> prices = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastMessageAtMs = new AtomicLong(0);
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong restFallbacks = new AtomicLong(0);
+    private final AtomicLong reconnects = new AtomicLong(0);
+    private final List<Consumer<Map<String, Double>>> priceListeners = new CopyOnWriteArrayList<>();
+    private ExecutorService streamExecutor;
+
+    // 以下字段仅由价格流线程访问
+    private WebSocketClient webSocketClient;
+    private StreamBlockingQueue<String> queue;
+    private long connectedAtMs = 0;
+    private int reconnectAttempts = 0;
+
+    public MarketPriceCacheServiceImpl(WebSocketConfig webSocketConfig) {
+        this.maxMessageSize = webSocketConfig.getMaxTextMessageSize();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("[MarketPriceCacheService] 标记价格流未启用，价格查询将直接回退REST");
+            return;
+        }
+        running.set(true);
+        streamExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "MarketPriceCache-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        streamExecutor.submit(this::runStream);
+        log.info("[MarketPriceCacheService] 标记价格流已启动，价格过期时长: {}ms", maxAgeMs);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running.set(false);
+        if (streamExecutor != null) {
+            streamExecutor.shutdownNow();
+            try {
+                streamExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("[MarketPriceCacheService] 标记价格流已停止");
+    }
+
+    @Override
+    public Double getPrice(String symbol, Function<List<String>, Map<String, Double>> restLoader) {
+        if (symbol == null) {
+            return null;
+        }
+        String key = symbol.toUpperCase();
+        return getPrices(List.of(key), restLoader).get(key);
+    }
+
+    @Override
+    public Map<String, Double> getPrices(Collection<String> symbols,
+                                         Function<List<String>, Map<String, Double>> restLoader) {
+        Map<String, Double> result = new HashMap<>();
+        if (symbols == null || symbols.isEmpty()) {
+            return result;
+        }
+        long now = System.currentTimeMillis();
+        List<String> stale = new ArrayList<>();
+        for (String symbol : symbols) {
+            String key = symbol.toUpperCase();
+            CachedPrice cached = prices.get(key);
+            if (cached != null && now - cached.updatedAtMs <= maxAgeMs) {
+                result.put(key, cached.price);
+            } else if (!stale.contains(key)) {
+                stale.add(key);
+            }
+        }
+        hits.addAndGet(result.size());
+        if (stale.isEmpty() || restLoader == null) {
+            return result;
+        }
+
+        restFallbacks.addAndGet(stale.size());
+        log.debug("[MarketPriceCacheService] {}个symbol价格过期或缺失，回退REST查询: {}", stale.size(), stale);
+        Map<String, Double> loaded = restLoader.apply(stale);
+        if (loaded != null) {
+            long loadedAt = System.currentTimeMillis();
+            for (Map.Entry<String, Double> entry : loaded.entrySet()) {
+                Double price = entry.getValue();
+                if (entry.getKey() == null || price == null || price <= 0) {
+                    continue;
+                }
+                String key = entry.getKey().toUpperCase();
+                result.put(key, price);
+                prices.merge(key, new CachedPrice(price, loadedAt),
+                        (old, fresh) -> fresh.updatedAtMs >= old.updatedAtMs ? fresh : old);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void addPriceListener(Consumer<Map<String, Double>> listener) {
+        if (listener != null) {
+            priceListeners.add(listener);
+        }
+    }
+
+    @Override
+    public MarketPriceCacheStats getStats() {
+        MarketPriceCacheStats stats = new MarketPriceCacheStats();
+        stats.setEnabled(enabled);
+        stats.setMaxAgeMs(maxAgeMs);
+        stats.setSymbolCount(prices.size());
+        stats.setLastMessageAtMs(lastMessageAtMs.get());
+        stats.setHits(hits.get());
+        stats.setRestFallbacks(restFallbacks.get());
+        stats.setReconnects(reconnects.get());
+        return stats;
+    }
+
+    @Override
+    public Function<List<String>, Map<String, Double>> restMarkPriceLoader(
+            Supplier<? extends BinanceFuturesBase> clientSupplier) {
+        return symbols -> {
+            try {
+                BinanceFuturesBase client = clientSupplier.get();
+                if (!(client instanceof BinanceFuturesClient)) {
+                    return Map.of();
+                }
+                return ((BinanceFuturesClient) client).getMarkPrices(symbols);
+            } catch (Exception e) {
+                log.error("[MarketPriceCacheService] REST查询 {} 标记价格失败: {}", symbols, e.getMessage());
+                return Map.of();
+            }
+        };
+    }
+
+    /**
+     * 价格流线程：维护连接并把每条报文写入缓存
+     */
+    private void runStream() {
+        long nextConnectAtMs = 0;
+        while (running.get()) {
+            try {
+                long now = System.currentTimeMillis();
+                if (queue == null || now - Math.max(connectedAtMs, lastMessageAtMs.get()) >= silenceTimeoutMs) {
+                    if (now < nextConnectAtMs) {
+                        TimeUnit.MILLISECONDS.sleep(Math.min(POLL_MS, nextConnectAtMs - now));
+                        continue;
+                    }
+                    if (!reconnect()) {
+                        nextConnectAtMs = System.currentTimeMillis() + nextBackoffMs();
+                        continue;
+                    }
+                }
+                String payload = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (payload != null) {
+                    long receivedAt = System.currentTimeMillis();
+                    onMessage(payload, receivedAt);
+                    lastMessageAtMs.set(receivedAt);
+                    if (reconnectAttempts > 0 && receivedAt - connectedAtMs >= silenceTimeoutMs) {
+                        reconnectAttempts = 0;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("[MarketPriceCacheService] 处理标记价格报文失败: {}", e.getMessage());
+            }
+        }
+        closeConnection();
+    }
+
+    /**
+     * 关闭旧连接并建立新连接
+     *
+     * @return true如果连接已建立
+     */
+    private boolean reconnect() {
+        if (queue != null) {
+            log.warn("[MarketPriceCacheService] 标记价格流{}ms未收到数据，重建连接", silenceTimeoutMs);
+            reconnects.incrementAndGet();
+        }
+        closeConnection();
+        reconnectAttempts++;
+        WebSocketClient client = new WebSocketClient();
+        try {
+            WebSocketClientConfiguration clientConfiguration =
+                    DerivativesTradingUsdsFuturesWebSocketStreamsUtil.getClientConfiguration();
+            clientConfiguration.setMessageMaxSize(maxMessageSize);
+            StreamConnectionWrapper connectionWrapper = new StreamConnectionWrapper(clientConfiguration, client);
+            WebsocketMarketStreamsApi marketStreamsApi = new WebsocketMarketStreamsApi(connectionWrapper);
+            queue = marketStreamsApi.markPriceStreamForAllMarketRaw(
+                    new MarkPriceStreamForAllMarketRequest().updateSpeed("1s"));
+            webSocketClient = client;
+            connectedAtMs = System.currentTimeMillis();
+            log.info("[MarketPriceCacheService] 标记价格流连接已建立");
+            return true;
+        } catch (Exception e) {
+            log.error("[MarketPriceCacheService] 建立标记价格流连接失败: {}", e.getMessage());
+            stopClientNoThrow(client);
+            return false;
+        }
+    }
+
+    private long nextBackoffMs() {
+        long base = 1000L << Math.min(Math.max(reconnectAttempts - 1, 0), 20);
+        base = Math.max(1, Math.min(base, maxBackoffMs));
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private void closeConnection() {
+        queue = null;
+        WebSocketClient client = webSocketClient;
+        webSocketClient = null;
+        if (client != null) {
+            stopClientNoThrow(client);
+        }
+    }
+
+    private static void stopClientNoThrow(WebSocketClient client) {
+        try {
+            client.stop();
+        } catch (Exception e) {
+            log.warn("[MarketPriceCacheService] 关闭标记价格流连接失败（忽略）", e);
+        }
+    }
+
+    /**
+     * 解析一条标记价格报文（数组、单个对象或组合流包装对象）并写入缓存，然后通知价格监听器
+     *
+     * 包级可见：供单元测试直接喂入报文
+     */
+    void onMessage(String payload, long receivedAtMs) {
+        JsonElement root = JsonParser.parseString(payload);
+        if (root.isJsonObject() && root.getAsJsonObject().has("data")) {
+            root = root.getAsJsonObject().get("data");
+        }
+        Map<String, Double> updated = new HashMap<>();
+        if (root.isJsonArray()) {
+            JsonArray array = root.getAsJsonArray();
+            for (JsonElement element : array) {
+                if (element.isJsonObject()) {
+                    putMarkPrice(element.getAsJsonObject(), receivedAtMs, updated);
+                }
+            }
+        } else if (root.isJsonObject()) {
+            putMarkPrice(root.getAsJsonObject(), receivedAtMs, updated);
+        }
+        if (updated.isEmpty()) {
+            return;
+        }
+        for (Consumer<Map<String, Double>> listener : priceListeners) {
+            try {
+                listener.accept(updated);
+            } catch (Exception e) {
+                log.warn("[MarketPriceCacheService] 价格监听器处理异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void putMarkPrice(JsonObject update, long receivedAtMs, Map<String, Double> updated) {
+        JsonElement symbol = update.get("s");
+        JsonElement markPrice = update.get("p");
+        if (symbol == null || markPrice == null) {
+            return;
+        }
+        double price = markPrice.getAsDouble();
+        if (price > 0) {
+            String key = symbol.getAsString().toUpperCase();
+            prices.put(key, new CachedPrice(price, receivedAtMs));
+            updated.put(key, price);
+        }
+    }
+
+    private static final class CachedPrice {
+
+        private final double price;
+        private final long updatedAtMs;
+
+        private CachedPrice(double price, long updatedAtMs) {
+            this.price = price;
+            this.updatedAtMs = updatedAtMs;
+        }
+    }
+}
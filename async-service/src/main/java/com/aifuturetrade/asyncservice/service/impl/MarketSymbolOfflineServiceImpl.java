@@ -1,6 +1,7 @@
 package com.aifuturetrade.asyncservice.service.impl;
 
 import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.service.MarketSymbolStateService;
 import com.aifuturetrade.asyncservice.service.MarketSymbolOfflineService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,6 +25,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class MarketSymbolOfflineServiceImpl implements MarketSymbolOfflineService {
     
     private final MarketTickerMapper marketTickerMapper;
+    private final MarketSymbolStateService symbolStateService;
     
     @Value("${async.market-symbol-offline.cron:*/30 * * * *}")
     private String cronExpression;
@@ -40,8 +42,10 @@ public class MarketSymbolOfflineServiceImpl implements MarketSymbolOfflineServic
         return LocalDateTime.now(ZoneOffset.ofHours(8));
     }
     
-    public MarketSymbolOfflineServiceImpl(MarketTickerMapper marketTickerMapper) {
+    public MarketSymbolOfflineServiceImpl(MarketTickerMapper marketTickerMapper,
+                                          MarketSymbolStateService symbolStateService) {
         this.marketTickerMapper = marketTickerMapper;
+        this.symbolStateService = symbolStateService;
     }
     
     @PostConstruct
@@ -90,6 +94,10 @@ public class MarketSymbolOfflineServiceImpl implements MarketSymbolOfflineServic
             log.info("[MarketSymbolOffline] [步骤3] 执行删除操作...");
             int deletedCount = marketTickerMapper.deleteOldTickers(cutoffDate);
             
+            // 同步淘汰内存状态表中同样超过保留时长未被ticker流写入的symbol
+            symbolStateService.evictNotSeenSince(
+                    System.currentTimeMillis() - retentionMinutes * 60_000L);
+            
             // 计算总耗时
             LocalDateTime endTime = getBeijingTime();
             long totalDuration = java.time.Duration.between(deleteStartTime, endTime).getSeconds();
@@ -0,0 +1,232 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.entity.ExistingSymbolData;
+import com.aifuturetrade.asyncservice.entity.SymbolPriceState;
+import com.aifuturetrade.asyncservice.service.MarketSymbolStateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 市场Symbol状态服务实现
+ *
+ * 使用ConcurrentHashMap保存不可变的SymbolPriceState快照：
+ * - ticker流线程每秒更新一次last_price
+ * - 价格刷新线程池更新open_price和update_price_date
+ * - 读线程直接get，无需加锁
+ *
+ * 数据库载入的行与内存中已有的状态合并：last_price取内存值，open_price取update_price_date较新的一方。
+ * 预热完成前对尚不存在的symbol的开盘价更新暂存，载入该symbol时合并，不会丢失；
+ * 被淘汰的symbol重新出现时从数据库重新载入，而不是按open_price=0.0的新symbol处理。
+ *
+ * 预热失败时（例如启动时数据库暂不可用）不抛出异常，由调用方回退为查库，下一条消息时再尝试预热。
+ */
+@Slf4j
+@Service
+public class MarketSymbolStateServiceImpl implements MarketSymbolStateService {
+
+    private final MarketTickerMapper marketTickerMapper;
+
+    private final Map<String, SymbolPriceState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 预热完成前到达、但内存中尚无对应symbol的开盘价更新（symbol -> 仅含开盘价的状态）
+     */
+    private final Map<String, SymbolPriceState> pendingOpenPrices = new ConcurrentHashMap<>();
+
+    /**
+     * 已被淘汰、重新出现时需要从数据库重新载入的symbol
+     */
+    private final Set<String> evictedSymbols = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean warmedUp = false;
+
+    public MarketSymbolStateServiceImpl(MarketTickerMapper marketTickerMapper) {
+        this.marketTickerMapper = marketTickerMapper;
+    }
+
+    @Override
+    public boolean ensureWarmedUp() {
+        if (warmedUp) {
+            return true;
+        }
+        synchronized (this) {
+            if (warmedUp) {
+                return true;
+            }
+            try {
+                long startTime = System.currentTimeMillis();
+                List<ExistingSymbolData> rows = marketTickerMapper.selectAllSymbolData();
+                long now = System.currentTimeMillis();
+                if (rows != null) {
+                    for (ExistingSymbolData row : rows) {
+                        if (row.getSymbol() == null) {
+                            continue;
+                        }
+                        // 与预热期间已写入的状态合并，避免覆盖较新的last_price和开盘价
+                        merge(toState(row, now));
+                    }
+                }
+                warmedUp = true;
+                // 剩余的暂存更新对应数据库中不存在的symbol，数据库UPDATE同样不会生效
+                pendingOpenPrices.clear();
+                log.info("[MarketSymbolState] ✅ 状态表预热完成: {} 个symbol（耗时{}ms）",
+                        states.size(), System.currentTimeMillis() - startTime);
+                return true;
+            } catch (Exception e) {
+                log.warn("[MarketSymbolState] ⚠️ 状态表预热失败，本次回退为查库: {}", e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    @Override
+    public SymbolPriceState get(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        return states.get(symbol);
+    }
+
+    @Override
+    public void loadAll(Collection<SymbolPriceState> loaded) {
+        if (loaded == null) {
+            return;
+        }
+        for (SymbolPriceState state : loaded) {
+            if (state != null && state.getSymbol() != null) {
+                merge(state);
+            }
+        }
+    }
+
+    @Override
+    public void reloadEvicted(Collection<String> symbols) {
+        if (symbols == null || evictedSymbols.isEmpty()) {
+            return;
+        }
+        List<String> reload = new ArrayList<>();
+        for (String symbol : symbols) {
+            if (symbol != null && evictedSymbols.remove(symbol)) {
+                reload.add(symbol);
+            }
+        }
+        if (reload.isEmpty()) {
+            return;
+        }
+        try {
+            List<ExistingSymbolData> rows = marketTickerMapper.getExistingSymbolData(reload);
+            long now = System.currentTimeMillis();
+            if (rows != null) {
+                for (ExistingSymbolData row : rows) {
+                    if (row.getSymbol() != null) {
+                        merge(toState(row, now));
+                    }
+                }
+            }
+            log.info("[MarketSymbolState] 重新载入 {} 个被淘汰后重新出现的symbol: {}", reload.size(), reload);
+        } catch (Exception e) {
+            // 下一条消息时重试
+            evictedSymbols.addAll(reload);
+            log.warn("[MarketSymbolState] ⚠️ 重新载入被淘汰的symbol失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordLastPrice(String symbol, Double lastPrice) {
+        if (symbol == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        states.compute(symbol, (key, current) -> current == null
+                // 新插入：open_price=0.0，update_price_date=null（与batchUpsertTickers插入值一致）
+                ? new SymbolPriceState(key, 0.0, lastPrice, null, now)
+                : current.withLastPrice(lastPrice, now));
+    }
+
+    @Override
+    public void updateOpenPrice(String symbol, Double openPrice, LocalDateTime updatePriceDate) {
+        if (symbol == null) {
+            return;
+        }
+        // 只更新已存在的symbol：数据库UPDATE同样只对已有行生效。
+        // 预热完成前symbol可能尚未载入，先暂存，载入时合并（与merge在同一个key上串行执行）
+        states.compute(symbol, (key, current) -> {
+            if (current != null) {
+                return current.withOpenPrice(openPrice, updatePriceDate);
+            }
+            if (!warmedUp) {
+                pendingOpenPrices.put(key, new SymbolPriceState(key, openPrice, null, updatePriceDate, 0L));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<String> evictNotSeenSince(long cutoffMs) {
+        List<String> evicted = new ArrayList<>();
+        states.entrySet().removeIf(entry -> {
+            if (entry.getValue().getLastSeenAtMs() < cutoffMs) {
+                evicted.add(entry.getKey());
+                evictedSymbols.add(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+        if (!evicted.isEmpty()) {
+            log.info("[MarketSymbolState] 淘汰 {} 个已下线symbol: {}", evicted.size(), evicted);
+        }
+        return evicted;
+    }
+
+    @Override
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * 将数据库载入的状态与内存中已有的状态及暂存的开盘价更新合并
+     */
+    private void merge(SymbolPriceState loaded) {
+        states.compute(loaded.getSymbol(), (key, current) -> {
+            SymbolPriceState merged = current == null ? loaded : withNewerOpenPrice(current, loaded);
+            SymbolPriceState pending = pendingOpenPrices.remove(key);
+            return pending == null ? merged : withNewerOpenPrice(merged, pending);
+        });
+    }
+
+    /**
+     * update_price_date较新（或state尚未刷新过开盘价）时采用other的开盘价，其余字段保持state的值
+     */
+    static SymbolPriceState withNewerOpenPrice(SymbolPriceState state, SymbolPriceState other) {
+        LocalDateTime otherDate = other.getUpdatePriceDate();
+        if (otherDate == null) {
+            return state;
+        }
+        if (state.getUpdatePriceDate() != null && !otherDate.isAfter(state.getUpdatePriceDate())) {
+            return state;
+        }
+        return state.withOpenPrice(other.getOpenPrice(), otherDate);
+    }
+
+    /**
+     * 将数据库查询结果转换为状态快照
+     */
+    static SymbolPriceState toState(ExistingSymbolData row, long seenAtMs) {
+        return new SymbolPriceState(row.getSymbol(), row.getOpenPrice(), row.getLastPrice(),
+                row.getUpdatePriceDate(), seenAtMs);
+    }
+}
@@ -0,0 +1,144 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.binance.connector.client.common.websocket.configuration.WebSocketClientConfiguration;
+import com.binance.connector.client.common.websocket.service.StreamBlockingQueue;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.DerivativesTradingUsdsFuturesWebSocketStreamsUtil;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.api.DerivativesTradingUsdsFuturesWebSocketStreams;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.api.WebsocketMarketStreamsApi;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketMiniTickersStreamRequest;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketTickersStreamsRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 一条全市场ticker WebSocket连接
+ *
+ * 每条连接持有独立的 Jetty WebSocketClient、SDK连接和原始报文队列，
+ * 使重连时可以先建立新连接、与旧连接并行接收一段时间后再关闭旧连接（先建后断）。
+ *
+ * 精简模式下订阅!miniTicker@arr（只有价格与成交量），统计字段由ticker流服务定期通过REST全市场
+ * 24小时统计补充，连接上不再订阅完整ticker流。
+ */
+@Slf4j
+public class MarketTickerStreamConnection {
+
+    private final int id;
+    private final WebSocketClient webSocketClient;
+    private final DerivativesTradingUsdsFuturesWebSocketStreams api;
+    private final StreamBlockingQueue<String> queue;
+    private final boolean mini;
+    private final long openedAtMs;
+    private volatile long lastMessageAtMs = 0;
+    private volatile boolean failed = false;
+    private volatile boolean closed = false;
+
+    private MarketTickerStreamConnection(int id, WebSocketClient webSocketClient,
+                                         MarketTickerStreamConnectionWrapper connectionWrapper,
+                                         StreamBlockingQueue<String> queue, boolean mini) {
+        this.id = id;
+        this.webSocketClient = webSocketClient;
+        this.api = new DerivativesTradingUsdsFuturesWebSocketStreams(connectionWrapper);
+        this.queue = queue;
+        this.mini = mini;
+        this.openedAtMs = System.currentTimeMillis();
+    }
+
+    /**
+     * 建立连接并订阅全市场ticker原始报文（阻塞直到订阅完成）
+     *
+     * @param id 连接编号（用于日志和区分错误回调来源）
+     * @param maxMessageSize 最大消息大小（字节）
+     * @param onError SDK onWebSocketError 回调
+     * @return 已订阅的连接
+     */
+    public static MarketTickerStreamConnection open(int id, long maxMessageSize, Consumer<Throwable> onError) {
+        return open(id, maxMessageSize, onError, false);
+    }
+
+    /**
+     * 建立连接并订阅全市场ticker原始报文（阻塞直到订阅完成）
+     *
+     * @param id 连接编号（用于日志和区分错误回调来源）
+     * @param maxMessageSize 最大消息大小（字节）
+     * @param onError SDK onWebSocketError 回调
+     * @param mini true订阅精简ticker（!miniTicker@arr），false订阅完整ticker（!ticker@arr）
+     * @return 已订阅的连接
+     */
+    public static MarketTickerStreamConnection open(int id, long maxMessageSize, Consumer<Throwable> onError,
+                                                    boolean mini) {
+        WebSocketClientConfiguration clientConfiguration =
+                DerivativesTradingUsdsFuturesWebSocketStreamsUtil.getClientConfiguration();
+        clientConfiguration.setMessageMaxSize(maxMessageSize);
+        clientConfiguration.setReconnectBatchSize(365);
+        WebSocketClient webSocketClient = new WebSocketClient();
+        MarketTickerStreamConnectionWrapper connectionWrapper =
+                new MarketTickerStreamConnectionWrapper(clientConfiguration, webSocketClient, onError);
+        try {
+            // SDK门面类未暴露*Raw方法，使用同一连接上的WebsocketMarketStreamsApi订阅原始报文
+            WebsocketMarketStreamsApi marketStreamsApi = new WebsocketMarketStreamsApi(connectionWrapper);
+            StreamBlockingQueue<String> queue = mini
+                    ? marketStreamsApi.allMarketMiniTickersStreamRaw(new AllMarketMiniTickersStreamRequest())
+                    : marketStreamsApi.allMarketTickersStreamsRaw(new AllMarketTickersStreamsRequest());
+            return new MarketTickerStreamConnection(id, webSocketClient, connectionWrapper, queue, mini);
+        } catch (RuntimeException e) {
+            stopClientNoThrow(id, webSocketClient);
+            throw e;
+        }
+    }
+
+    /**
+     * 非阻塞读取一条报文
+     */
+    public String poll() {
+        return onMessage(queue.poll());
+    }
+
+    /**
+     * 读取一条报文，最多等待指定时长
+     */
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return onMessage(queue.poll(timeout, unit));
+    }
+
+    private String onMessage(String payload) {
+        if (payload != null) {
+            lastMessageAtMs = System.currentTimeMillis();
+        }
+        return payload;
+    }
+
+    /**
+     * 关闭连接（停止本连接的 WebSocketClient），不抛出异常
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stopClientNoThrow(id, webSocketClient);
+    }
+
+    private static void stopClientNoThrow(int id, WebSocketClient webSocketClient) {
+        try {
+            webSocketClient.stop();
+            log.info("[MarketTickerStreamConnection] 已关闭连接#{}", id);
+        } catch (Exception e) {
+            log.warn("[MarketTickerStreamConnection] 关闭连接#{}失败（忽略）", id, e);
+        }
+    }
+
+    public void markFailed() {
+        this.failed = true;
+    }
+
+    public int getId() { return id; }
+    public DerivativesTradingUsdsFuturesWebSocketStreams getApi() { return api; }
+    public long getOpenedAtMs() { return openedAtMs; }
+    public long getLastMessageAtMs() { return lastMessageAtMs; }
+    public boolean isFailed() { return failed; }
+    public boolean isMini() { return mini; }
+    public boolean isClosed() { return closed; }
+}
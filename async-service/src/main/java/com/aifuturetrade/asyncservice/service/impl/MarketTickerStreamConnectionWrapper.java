@@ -10,6 +10,7 @@ import org.eclipse.jetty.websocket.client.WebSocketClient;
  * 针对 MarketTicker 场景的 StreamConnectionWrapper 扩展：
  * 仅覆写 {@link #onWebSocketError(Throwable)}，在 SDK 收到断链/异常时触发外部重连逻辑，
  * 防止服务端异常断链导致流处理线程长期阻塞而中断同步。
+ * 用户数据流连接（UserDataStreamConnection）复用同样的断链通知。
  */
 @Slf4j
 public class MarketTickerStreamConnectionWrapper extends StreamConnectionWrapper {
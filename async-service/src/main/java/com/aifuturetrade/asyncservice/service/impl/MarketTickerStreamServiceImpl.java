@@ -4,17 +4,27 @@ import com.aifuturetrade.asyncservice.config.WebSocketConfig;
 import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
 import com.aifuturetrade.asyncservice.entity.ExistingSymbolData;
 import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.aifuturetrade.asyncservice.entity.SymbolPriceState;
+import com.aifuturetrade.asyncservice.market.BoundedRingBuffer;
+import com.aifuturetrade.asyncservice.market.ConflatingTickerBuffer;
+import com.aifuturetrade.asyncservice.market.RawTickerParser;
+import com.aifuturetrade.asyncservice.market.TickerIngestionStage;
+import com.aifuturetrade.asyncservice.market.TickerSlotTable;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import com.aifuturetrade.asyncservice.service.MarketSymbolStateService;
 import com.aifuturetrade.asyncservice.service.MarketTickerStreamService;
-import com.aifuturetrade.asyncservice.service.TickerSyncMonitorService;
-import com.binance.connector.client.common.websocket.configuration.WebSocketClientConfiguration;
-import com.binance.connector.client.common.websocket.service.StreamBlockingQueueWrapper;
-import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.DerivativesTradingUsdsFuturesWebSocketStreamsUtil;
+import com.aifuturetrade.asyncservice.service.MarketTickerWriteBehindService;
+import com.aifuturetrade.asyncservice.service.TickerHistoryService;
+import com.aifuturetrade.asyncservice.service.TickerIngestionMetricsService;
+import com.aifuturetrade.asyncservice.service.TickerPipelineStats;
+import com.binance.connector.client.common.JSON;
 import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.api.DerivativesTradingUsdsFuturesWebSocketStreams;
-import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketTickersStreamsRequest;
 import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketTickersStreamsResponse;
 import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketTickersStreamsResponseInner;
+import com.google.gson.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
@@ -23,18 +33,24 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.jetty.websocket.api.exceptions.MessageTooLargeException;
-import org.eclipse.jetty.websocket.client.WebSocketClient;
 
 /**
  * 市场Ticker流服务实现
@@ -43,37 +59,146 @@ import org.eclipse.jetty.websocket.client.WebSocketClient;
  * 解析数据并同步到MySQL数据库。
  * 
  * 主要特性：
- * - 使用SDK泛型类解析数据（不使用反射）
+ * - 使用SDK泛型类解析数据（不使用反射），或在raw摄入模式下零DTO解析原始报文
+ * - mini摄入模式：订阅精简ticker流（只有价格与成交量，报文约为完整ticker的一半），
+ *   统计字段（加权均价、成交id、成交笔数等）每隔N秒通过REST全市场24小时统计（共享快照、计入请求权重）补充，
+ *   不再订阅完整ticker流，避免大报文及其MessageTooLarge重连
  * - 简化的异常处理：仅对MessageTooLargeException进行特殊处理
- * - 批量同步：使用batchUpsertTickers批量插入/更新数据
+ * - 批量同步：通过MarketTickerWriteBehindService合并后使用batchUpsertTickers批量插入/更新数据
  * - 异常处理：完善的错误处理和日志记录
+ * 
+ * 流水线结构（每个阶段独立线程，阶段之间为有界环形缓冲区）：
+ * - 接收（MarketTickerStream-Thread）：只从socket队列取消息并放入转换队列，同时负责重连
+ * - 转换（MarketTickerTransform-Thread）：解析/标准化/合并price_change，结果放入持久化队列
+ * - 持久化（MarketTickerPersist-Thread）：提交到写后缓冲（或同步写库）
+ * 队列满时默认丢弃最旧的快照，数据库变慢只会造成持久化阶段积压和丢弃，不会阻塞socket读取或触发重连。
+ * 
+ * 重连采用先建后断：断链或异常时在后台建立新连接，新连接收到数据并与旧连接并行接收一段时间后
+ * 再关闭旧连接；并行期间的重复消息由转换阶段按事件时间E去重。建连失败按指数退避（带随机抖动）重试。
  */
 @Slf4j
 @Service("marketTickerStreamService")
 public class MarketTickerStreamServiceImpl implements MarketTickerStreamService {
     
+    private static final TypeToken<AllMarketTickersStreamsResponse> TICKERS_TYPE =
+            new TypeToken<AllMarketTickersStreamsResponse>() {};
+    
+    /**
+     * 接收阶段单次等待报文的最长时间（毫秒），保证连接维护逻辑及时执行
+     */
+    private static final long RECEIVE_POLL_MS = 200;
+    
+    /**
+     * 新连接在该时长内未收到任何数据则放弃并退避重试（毫秒）
+     */
+    private static final long STANDBY_FIRST_MESSAGE_TIMEOUT_MS = 30_000;
+    
+    /**
+     * 连接稳定运行超过该时长后重置退避次数（毫秒）
+     */
+    private static final long STABLE_CONNECTION_MS = 60_000;
+    
     private final MarketTickerMapper marketTickerMapper;
-    private final TickerSyncMonitorService tickerSyncMonitorService;
-    private DerivativesTradingUsdsFuturesWebSocketStreams api;
-    private StreamBlockingQueueWrapper<AllMarketTickersStreamsResponse> response;
+    private final MarketSymbolStateService symbolStateService;
+    private final MarketTickerWriteBehindService tickerWriteBehindService;
+    private final TickerHistoryService tickerHistoryService;
+    private final TickerIngestionMetricsService ingestionMetrics;
+    private final BinanceClientRegistry binanceClientRegistry;
+    
+    /**
+     * 摄入模式：dto（SDK反序列化为AllMarketTickersStreamsResponse）、raw（原始报文零DTO解析）
+     * 或mini（订阅精简ticker流零DTO解析，统计字段定期从完整ticker快照补充）
+     */
+    @Value("${async.market-ticker.ingestion-mode:dto}")
+    private String ingestionMode;
+    
+    /**
+     * mini模式下刷新统计字段的间隔（秒），每次通过REST查询一次全市场24小时统计（权重40）；
+     * 小于等于0时不刷新（统计字段保持为0）
+     */
+    @Value("${async.market-ticker.mini.stats-refresh-seconds:60}")
+    private long statsRefreshSeconds;
+    
+    /**
+     * 接收 -> 转换 阶段队列容量与背压策略（DROP_OLDEST/DROP_NEWEST/BLOCK）
+     * 转换阶段每次取出全部积压报文按symbol合并处理，只有解析本身落后一整个队列时才会触发该策略
+     */
+    @Value("${async.market-ticker.pipeline.transform-queue-capacity:16}")
+    private int transformQueueCapacity;
+    
+    @Value("${async.market-ticker.pipeline.transform-queue-policy:DROP_OLDEST}")
+    private String transformQueuePolicy;
+    
+    /**
+     * 重连退避：首次重试等待的基准时长与上限（毫秒），实际等待为[基准/2, 基准]内的随机值
+     */
+    @Value("${async.market-ticker.reconnect.initial-backoff-ms:1000}")
+    private long reconnectInitialBackoffMs;
+    
+    @Value("${async.market-ticker.reconnect.max-backoff-ms:60000}")
+    private long reconnectMaxBackoffMs;
+    
+    /**
+     * 新旧连接并行接收的时长（毫秒），之后关闭旧连接
+     */
+    @Value("${async.market-ticker.reconnect.overlap-ms:2000}")
+    private long reconnectOverlapMs;
+    
+    // 仅由转换线程访问：原始报文模式的解析器/槽位表，DTO模式的按symbol事件时间（去重用）
+    private final RawTickerParser rawTickerParser = new RawTickerParser();
+    private final TickerSlotTable tickerSlotTable = new TickerSlotTable();
+    private final Map<String, Long> lastEventTimeBySymbol = new HashMap<>();
     private ExecutorService streamExecutor;
+    private ExecutorService transformExecutor;
+    private ExecutorService persistExecutor;
+    private ExecutorService connectionExecutor;
+    
+    // 阶段队列：元素为原始报文，DTO模式在转换阶段反序列化
+    private volatile BoundedRingBuffer<ReceivedPayload> transformQueue;
+    private volatile ConflatingTickerBuffer persistQueue;
+    private final AtomicLong transformFailures = new AtomicLong(0);
+    private final AtomicLong persistFailures = new AtomicLong(0);
+    private final AtomicLong duplicatesDropped = new AtomicLong(0);
+    private final AtomicLong lastReceivedAtMs = new AtomicLong(0);
+    private final AtomicLong receivedChars = new AtomicLong(0);
+    private final AtomicLong statsSnapshotCount = new AtomicLong(0);
+    private final AtomicLong lastStatsSnapshotAtMs = new AtomicLong(0);
+    private final AtomicLong lastPersistedAtMs = new AtomicLong(0);
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean reconnectRequested = new AtomicBoolean(false);
     private final AtomicLong lastReconnectAtMs = new AtomicLong(0);
     private final AtomicReference<Thread> streamThread = new AtomicReference<>();
-    private final AtomicBoolean isActiveReconnecting = new AtomicBoolean(false);
-
-    // 由本服务创建并持有，用于在重连前显式关闭旧连接，避免连接/线程泄漏
-    private volatile WebSocketClient currentWebSocketClient;
+    
+    // 连接状态：activeConnection为当前主连接，standbyConnection为先建后断过程中的新连接
+    private volatile MarketTickerStreamConnection activeConnection;
+    private volatile MarketTickerStreamConnection standbyConnection;
+    private final AtomicInteger connectionSequence = new AtomicInteger(0);
+    private final AtomicLong reconnectCount = new AtomicLong(0);
+    // 以下字段仅由接收线程访问
+    private CompletableFuture<MarketTickerStreamConnection> pendingConnect;
+    private long standbySinceMs = 0;
+    private int reconnectAttempts = 0;
+    private long nextReconnectAtMs = 0;
+    // mini模式统计快照：由统计线程查询，转换线程取走后写入槽位表
+    private ScheduledExecutorService statsExecutor;
+    private final AtomicReference<Map<String, Map<String, Object>>> pendingStatsSnapshot = new AtomicReference<>();
     
     // 动态调整的最大消息大小（初始值为配置值，遇到MessageTooLargeException时自动增加）
     private final AtomicLong currentMaxMessageSize;
     
     @Autowired
     public MarketTickerStreamServiceImpl(WebSocketConfig webSocketConfig, MarketTickerMapper marketTickerMapper,
-                                         @Autowired(required = false) TickerSyncMonitorService tickerSyncMonitorService) {
+                                         MarketSymbolStateService symbolStateService,
+                                         MarketTickerWriteBehindService tickerWriteBehindService,
+                                         TickerHistoryService tickerHistoryService,
+                                         TickerIngestionMetricsService ingestionMetrics,
+                                         BinanceClientRegistry binanceClientRegistry) {
         this.marketTickerMapper = marketTickerMapper;
-        this.tickerSyncMonitorService = tickerSyncMonitorService;
+        this.symbolStateService = symbolStateService;
+        this.tickerWriteBehindService = tickerWriteBehindService;
+        this.tickerHistoryService = tickerHistoryService;
+        this.ingestionMetrics = ingestionMetrics;
+        this.binanceClientRegistry = binanceClientRegistry;
         // 初始化当前最大消息大小为配置值
         this.currentMaxMessageSize = new AtomicLong(webSocketConfig.getMaxTextMessageSize());
         log.info("[MarketTickerStreamService] 初始化最大消息大小: {} bytes", currentMaxMessageSize.get());
@@ -85,19 +210,9 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
     @PostConstruct
     public void init() {
         log.info("[MarketTickerStreamService] 开始初始化市场Ticker流服务");
-        
-        try {
-            // 获取API实例
-            log.info("[MarketTickerStreamService] 获取WebSocket API实例...");
-            getApi();
-            log.info("[MarketTickerStreamService] API实例获取成功");
-            
-            log.info("[MarketTickerStreamService] 市场Ticker流服务初始化完成");
-            
-        } catch (Exception e) {
-            log.error("[MarketTickerStreamService] 服务初始化失败", e);
-            throw new RuntimeException("MarketTickerStreamService服务初始化失败", e);
-        }
+        log.info("[MarketTickerStreamService] 重连配置: 初始退避={}ms, 最大退避={}ms, 新旧连接并行={}ms",
+                reconnectInitialBackoffMs, reconnectMaxBackoffMs, reconnectOverlapMs);
+        log.info("[MarketTickerStreamService] 市场Ticker流服务初始化完成");
     }
     
     /**
@@ -111,40 +226,43 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
     }
     
     /**
-     * 获取API实例
-     * 使用动态调整的最大消息大小
+     * 获取当前主连接的API实例（未连接时返回null）
      */
     @Override
-    public synchronized DerivativesTradingUsdsFuturesWebSocketStreams getApi() {
-        if (api == null) {
-            WebSocketClientConfiguration clientConfiguration =
-                    DerivativesTradingUsdsFuturesWebSocketStreamsUtil.getClientConfiguration();
-            // 使用动态调整的最大消息大小
-            long maxSize = currentMaxMessageSize.get();
-            clientConfiguration.setMessageMaxSize(maxSize);
-            clientConfiguration.setReconnectBatchSize(365);
-            WebSocketClient webSocketClient = new WebSocketClient();
-            MarketTickerStreamConnectionWrapper connectionWrapper =
-                    new MarketTickerStreamConnectionWrapper(
-                            clientConfiguration, webSocketClient, this::onWrapperWebSocketError);
-            api = new DerivativesTradingUsdsFuturesWebSocketStreams(connectionWrapper);
-            currentWebSocketClient = webSocketClient;
-            log.info("[MarketTickerStreamService] 创建API实例，最大消息大小: {} bytes", maxSize);
-        }
-        return api;
+    public DerivativesTradingUsdsFuturesWebSocketStreams getApi() {
+        MarketTickerStreamConnection connection = activeConnection;
+        return connection != null ? connection.getApi() : null;
+    }
+
+    /**
+     * 建立一条新连接（在连接线程上执行，不阻塞接收阶段）
+     */
+    private MarketTickerStreamConnection openConnection() {
+        int id = connectionSequence.incrementAndGet();
+        long maxSize = currentMaxMessageSize.get();
+        log.info("[MarketTickerStreamService] 建立WebSocket连接#{}，最大消息大小: {} bytes", id, maxSize);
+        MarketTickerStreamConnection connection = MarketTickerStreamConnection.open(
+                id, maxSize, cause -> onWrapperWebSocketError(id, cause), isMiniMode());
+        log.info("[MarketTickerStreamService] WebSocket连接#{}已建立（摄入模式: {}）", id, ingestionMode);
+        return connection;
     }
 
     /**
      * SDK ConnectionWrapper.onWebSocketError 回调：触发业务侧重连。
-     * 说明：此回调可能发生在 Jetty/WebSocket 线程；这里不做重连耗时操作，只做”去抖 + 唤醒流线程”。
+     * 说明：此回调可能发生在 Jetty/WebSocket 线程；这里不做重连耗时操作，只做”去抖 + 标记”，
+     * 由接收线程在后台建立新连接。已退役连接（主动关闭）的回调直接忽略。
      */
-    private void onWrapperWebSocketError(Throwable cause) {
+    private void onWrapperWebSocketError(int connectionId, Throwable cause) {
         if (!running.get()) {
             return;
         }
 
-        // 如果正在主动重连，忽略由stop()触发的close事件，避免重连死循环
-        if (isActiveReconnecting.get()) {
+        MarketTickerStreamConnection active = activeConnection;
+        MarketTickerStreamConnection standby = standbyConnection;
+        boolean isActive = active != null && active.getId() == connectionId;
+        boolean isStandby = standby != null && standby.getId() == connectionId;
+        if (!isActive && !isStandby) {
+            // 已退役或正在建立中的连接，忽略由stop()触发的close事件，避免重连死循环
             return;
         }
 
@@ -157,6 +275,22 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
                 log.info("[MarketTickerStreamService] 检测到正常关闭事件，不触发重连: {}", msg);
                 return;
             }
+            // MessageTooLargeException：调大消息大小，新连接使用新的大小
+            Throwable current = cause;
+            while (current != null) {
+                if (current instanceof MessageTooLargeException) {
+                    handleMessageTooLargeException(current);
+                    break;
+                }
+                current = current.getCause();
+            }
+        }
+
+        if (isStandby) {
+            log.warn("[MarketTickerStreamService] 新连接#{}出错，放弃并退避重试: {}",
+                    connectionId, cause != null ? cause.getMessage() : "null");
+            standby.markFailed();
+            return;
         }
 
         long now = System.currentTimeMillis();
@@ -167,61 +301,216 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
         }
         lastReconnectAtMs.set(now);
 
-        log.warn("[MarketTickerStreamService] WebSocketError(断链/异常)触发重连: {}",
-                cause != null ? cause.getMessage() : "null", cause);
+        log.warn("[MarketTickerStreamService] 连接#{} WebSocketError(断链/异常)触发重连: {}",
+                connectionId, cause != null ? cause.getMessage() : "null", cause);
 
+        active.markFailed();
+        requestReconnect();
+    }
+    
+    /**
+     * 请求重连：由接收线程在退避到期后于后台建立新连接，旧连接保持接收直到新连接接管
+     */
+    private void requestReconnect() {
         reconnectRequested.set(true);
-
-        // 唤醒正在 response.take() 阻塞的流线程，让其切换到新连接
-        Thread t = streamThread.get();
-        if (t != null) {
-            t.interrupt();
+    }
+    
+    /**
+     * 连接维护（仅由接收线程调用）：
+     * 1. 收取后台建连结果
+     * 2. 新连接收到数据且并行时长已满足时切换为主连接并关闭旧连接；新连接失败或长时间无数据时放弃
+     * 3. 有重连请求且退避到期时发起后台建连
+     */
+    private void maintainConnections() {
+        long now = System.currentTimeMillis();
+        
+        CompletableFuture<MarketTickerStreamConnection> pending = pendingConnect;
+        if (pending != null && pending.isDone()) {
+            pendingConnect = null;
+            try {
+                MarketTickerStreamConnection connection = pending.join();
+                if (activeConnection == null) {
+                    activeConnection = connection;
+                    log.info("[MarketTickerStreamService] 连接#{}成为主连接", connection.getId());
+                } else {
+                    standbyConnection = connection;
+                    standbySinceMs = now;
+                    log.info("[MarketTickerStreamService] 新连接#{}已建立，与连接#{}并行接收", 
+                            connection.getId(), activeConnection.getId());
+                }
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("[MarketTickerStreamService] 建立WebSocket连接失败", cause);
+                handleException(cause instanceof Exception ? (Exception) cause : new Exception(cause));
+                scheduleReconnect(now);
+            }
+        }
+        
+        MarketTickerStreamConnection standby = standbyConnection;
+        if (standby != null) {
+            boolean received = standby.getLastMessageAtMs() > 0;
+            if (standby.isFailed() || (!received && now - standbySinceMs >= STANDBY_FIRST_MESSAGE_TIMEOUT_MS)) {
+                log.warn("[MarketTickerStreamService] 新连接#{}不可用，关闭并退避重试", standby.getId());
+                standbyConnection = null;
+                retireConnection(standby);
+                scheduleReconnect(now);
+            } else if (received && now - standbySinceMs >= reconnectOverlapMs) {
+                MarketTickerStreamConnection old = activeConnection;
+                activeConnection = standby;
+                standbyConnection = null;
+                reconnectCount.incrementAndGet();
+                ingestionMetrics.recordReconnect();
+                log.info("[MarketTickerStreamService] 连接#{}接管为主连接，关闭旧连接#{}", 
+                        standby.getId(), old != null ? old.getId() : -1);
+                retireConnection(old);
+            }
+        }
+        
+        MarketTickerStreamConnection active = activeConnection;
+        if (reconnectAttempts > 0 && active != null && !active.isFailed()
+                && now - active.getOpenedAtMs() >= STABLE_CONNECTION_MS) {
+            reconnectAttempts = 0;
+        }
+        
+        if (reconnectRequested.get() && pendingConnect == null && standbyConnection == null
+                && now >= nextReconnectAtMs) {
+            reconnectRequested.set(false);
+            log.info("[MarketTickerStreamService] 开始后台建立新WebSocket连接（第{}次尝试）...", reconnectAttempts + 1);
+            reconnectAttempts++;
+            pendingConnect = CompletableFuture.supplyAsync(this::openConnection, connectionExecutor);
         }
     }
     
     /**
-     * 重新创建API实例（用于处理MessageTooLargeException后调整消息大小）
+     * mini模式统计快照（统计线程定期调用）：通过REST查询全市场24小时统计，交给转换线程写入槽位表；
+     * 转换线程尚未取走上一次快照时直接替换
      */
-    private void recreateApi() {
-        log.info("[MarketTickerStreamService] 重新创建API实例...");
-        closeCurrentConnectionNoThrow();
-        api = null; // 强制重新创建
-        getApi(); // 触发重新创建
+    private void refreshStatsSnapshot() {
+        try {
+            Map<String, Map<String, Object>> snapshot = binanceClientRegistry.getDefaultFuturesClient().getAll24hTickers();
+            pendingStatsSnapshot.set(snapshot);
+            statsSnapshotCount.incrementAndGet();
+            lastStatsSnapshotAtMs.set(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.warn("[MarketTickerStreamService] 查询全市场24小时统计失败，统计字段保持上次的值: {}", e.getMessage());
+        }
     }
-
+    
     /**
-     * 重连/停止前显式关闭当前连接，避免旧 WebSocketClient/Session 残留。
-     * 说明：binance-connector 的 Streams API 本身未暴露 close 方法，这里通过停止我们创建的 Jetty WebSocketClient 来释放资源。
+     * 将统计快照写入槽位表（仅由转换线程调用）
      */
-    private void closeCurrentConnectionNoThrow() {
-        // 先断开引用，避免并发重复 stop
-        WebSocketClient ws = currentWebSocketClient;
-        currentWebSocketClient = null;
-
-        if (ws == null) {
+    private void applyStatsSnapshot(Map<String, Map<String, Object>> snapshot) {
+        int written = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : snapshot.entrySet()) {
+            Map<String, Object> ticker = entry.getValue();
+            long closeTime = toLong(ticker.get("closeTime"));
+            if (tickerSlotTable.writeStats(entry.getKey(), closeTime,
+                    toDouble(ticker.get("weightedAvgPrice")), toDouble(ticker.get("lastQty")),
+                    toLong(ticker.get("openTime")), closeTime, toLong(ticker.get("firstId")),
+                    toLong(ticker.get("lastId")), toLong(ticker.get("count")))) {
+                written++;
+            }
+        }
+        log.debug("[MarketTickerStreamService] 统计快照已写入{}个symbol", written);
+    }
+    
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return value != null ? Double.parseDouble(value.toString()) : 0.0;
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+    
+    private static long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+    
+    /**
+     * 计算下一次建连时间：指数退避 + 随机抖动，并保持重连请求
+     */
+    private void scheduleReconnect(long now) {
+        long base = reconnectInitialBackoffMs << Math.min(Math.max(reconnectAttempts - 1, 0), 20);
+        base = Math.max(1, Math.min(base, reconnectMaxBackoffMs));
+        long delay = base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        nextReconnectAtMs = now + delay;
+        reconnectRequested.set(true);
+        log.info("[MarketTickerStreamService] {}ms后重试建立WebSocket连接", delay);
+    }
+    
+    /**
+     * 在连接线程上关闭连接，不阻塞接收阶段
+     */
+    private void retireConnection(MarketTickerStreamConnection connection) {
+        if (connection == null) {
             return;
         }
         try {
-            // 设置主动重连标志，避免stop()触发的close事件被当作异常断链
-            isActiveReconnecting.set(true);
-            ws.stop();
-            log.info("[MarketTickerStreamService] 已停止旧 WebSocketClient，释放旧连接资源");
+            connectionExecutor.execute(connection::close);
         } catch (Exception e) {
-            log.warn("[MarketTickerStreamService] 停止旧 WebSocketClient 失败（忽略）", e);
-        } finally {
-            // 延迟重置标志，确保所有close事件都被忽略
-            try {
-                TimeUnit.MILLISECONDS.sleep(500);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
+            connection.close();
+        }
+    }
+    
+    /**
+     * 读取下一条报文。并行期间同时读取新旧两条连接，重复数据由转换阶段按事件时间去重
+     * 
+     * @return 报文，超时返回null
+     */
+    private String receiveNext() throws InterruptedException {
+        MarketTickerStreamConnection active = activeConnection;
+        MarketTickerStreamConnection standby = standbyConnection;
+        if (standby == null) {
+            if (active == null) {
+                TimeUnit.MILLISECONDS.sleep(RECEIVE_POLL_MS);
+                return null;
             }
-            isActiveReconnecting.set(false);
+            return active.poll(RECEIVE_POLL_MS, TimeUnit.MILLISECONDS);
+        }
+        String payload = standby.poll();
+        if (payload == null && active != null) {
+            payload = active.poll();
+        }
+        if (payload == null) {
+            payload = standby.poll(20, TimeUnit.MILLISECONDS);
+        }
+        return payload;
+    }
+    
+    /**
+     * 关闭全部连接（停止时调用）
+     */
+    private void closeAllConnections() {
+        MarketTickerStreamConnection active = activeConnection;
+        MarketTickerStreamConnection standby = standbyConnection;
+        activeConnection = null;
+        standbyConnection = null;
+        if (active != null) {
+            active.close();
+        }
+        if (standby != null) {
+            standby.close();
+        }
+        CompletableFuture<MarketTickerStreamConnection> pending = pendingConnect;
+        pendingConnect = null;
+        if (pending != null) {
+            pending.thenAccept(MarketTickerStreamConnection::close);
         }
     }
     
     /**
      * 检测并处理MessageTooLargeException
-     * 如果检测到此异常，自动增加最大消息大小并重新创建API实例
+     * 如果检测到此异常，自动增加最大消息大小（之后建立的连接使用新的大小）
      * 
      * @param e 异常对象（可以是Exception或Throwable）
      * @return true如果检测到MessageTooLargeException并已处理，false otherwise
@@ -290,12 +579,9 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
         log.info("[MarketTickerStreamService] 将最大消息大小从 {} bytes 增加到 {} bytes", 
                 configuredSize, newMaxSize);
         
-        // 更新最大消息大小
+        // 更新最大消息大小，由重连建立的新连接生效
         currentMaxMessageSize.set(newMaxSize);
         
-        // 重新创建API实例
-        recreateApi();
-        
         return true;
     }
     
@@ -331,81 +617,44 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
     }
     
     /**
-     * 处理WebSocket异常并重新建立连接
+     * 处理WebSocket异常：MessageTooLargeException先调整消息大小，然后请求先建后断重连
      * 
      * @param e 异常对象
-     * @return true如果处理了WebSocket异常并重新建立了连接，false otherwise
+     * @return true（已请求重连）
      */
-    private boolean handleWebSocketException(Exception e) {
-        // 检查是否是MessageTooLargeException，需要特殊处理（调整消息大小）
-        if (e instanceof MessageTooLargeException) {
-            log.error("[MarketTickerStreamService] 捕获到MessageTooLargeException异常，将调整消息大小并重新建立连接", e);
-            return handleMessageTooLargeException(e);
-        }
-        
-        // 检查异常链中是否包含MessageTooLargeException
-        Throwable cause = e.getCause();
+    private boolean handleWebSocketException(Throwable e) {
+        Throwable cause = e;
         while (cause != null) {
             if (cause instanceof MessageTooLargeException) {
-                log.error("[MarketTickerStreamService] 在异常链中检测到MessageTooLargeException，将调整消息大小并重新建立连接", cause);
-                // 直接处理MessageTooLargeException，不需要再封装
-                return handleMessageTooLargeException(cause);
+                log.error("[MarketTickerStreamService] 检测到MessageTooLargeException，将调整消息大小并重新建立连接", cause);
+                handleMessageTooLargeException(cause);
+                break;
             }
             cause = cause.getCause();
         }
         
-        // 其他WebSocket异常，直接重新建立连接
         log.error("[MarketTickerStreamService] 捕获到WebSocket异常，将重新建立连接", e);
-        return reconnectStream();
+        requestReconnect();
+        return true;
     }
     
     /**
-     * 重新建立WebSocket连接
-     *
-     * @return true如果成功重新建立连接，false otherwise
+     * raw与mini模式都使用原始报文解析器
      */
-    private boolean reconnectStream() {
-        try {
-            // 断链后不要立即重连：休息2分钟再重建，避免频繁重连风暴
-            if (running.get()) {
-                log.warn("[MarketTickerStreamService] 2分钟后重建WebSocket连接（可被停止/中断提前结束等待）");
-                try {
-                    // 分段睡眠，便于 stopStream() interrupt 及时生效（2分钟 = 120秒）
-                    for (int i = 0; i < 120 && running.get(); i++) {
-                        TimeUnit.SECONDS.sleep(1);
-                    }
-                } catch (InterruptedException ie) {
-                    // stopStream() 或其他重连信号会中断等待；若仍在运行则继续执行重连
-                    if (!running.get()) {
-                        Thread.currentThread().interrupt();
-                        return false;
-                    }
-                }
-            }
-
-            log.info("[MarketTickerStreamService] 开始重新建立WebSocket连接...");
-            
-            // 重新创建API实例（使用当前的最大消息大小）
-            recreateApi();
-            
-            // 重新创建请求并获取流
-            AllMarketTickersStreamsRequest request = new AllMarketTickersStreamsRequest();
-            response = getApi().allMarketTickersStreams(request);
-            
-            log.info("[MarketTickerStreamService] WebSocket连接已重新建立");
-            return true;
-        } catch (Exception e) {
-            log.error("[MarketTickerStreamService] 重新建立WebSocket连接失败", e);
-            return false;
-        }
+    private boolean isRawMode() {
+        return "raw".equalsIgnoreCase(ingestionMode) || isMiniMode();
+    }
+    
+    private boolean isMiniMode() {
+        return "mini".equalsIgnoreCase(ingestionMode);
     }
     
     /**
      * 异常处理
-     * 处理所有 org.eclipse.jetty.websocket.api.exceptions 包下的异常，并重新建立连接
+     * 处理所有 org.eclipse.jetty.websocket.api.exceptions 包下的异常，并请求重新建立连接
      * 
      * @param e 异常对象
-     * @return true如果处理了WebSocket异常并重新建立了连接，false otherwise
+     * @return true如果处理了WebSocket异常并请求了重连，false otherwise
      */
     private boolean handleException(Exception e) {
         // 检查是否是WebSocket异常
@@ -423,7 +672,7 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
                 log.warn("[MarketTickerStreamService] 在异常链中检测到WebSocket异常: {} - {}", 
                         cause.getClass().getSimpleName(), 
                         cause.getMessage() != null ? cause.getMessage() : "");
-                return handleWebSocketException(new Exception(cause));
+                return handleWebSocketException(cause);
             }
             cause = cause.getCause();
         }
@@ -451,12 +700,28 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
         
         running.set(true);
         
-        // 创建流处理线程池
-        streamExecutor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r, "MarketTickerStream-Thread");
-            t.setDaemon(true);
-            return t;
-        });
+        // 创建阶段队列
+        transformQueue = new BoundedRingBuffer<>("transform", transformQueueCapacity,
+                parsePolicy(transformQueuePolicy));
+        persistQueue = new ConflatingTickerBuffer("persist");
+        
+        // 创建流处理线程池（接收/转换/持久化各一个线程，另有一个线程负责建立/关闭连接）
+        streamExecutor = newStageExecutor("MarketTickerStream-Thread");
+        transformExecutor = newStageExecutor("MarketTickerTransform-Thread");
+        persistExecutor = newStageExecutor("MarketTickerPersist-Thread");
+        connectionExecutor = newStageExecutor("MarketTickerConnection-Thread");
+        
+        transformExecutor.submit(this::runTransformStage);
+        persistExecutor.submit(this::runPersistStage);
+        if (isMiniMode() && statsRefreshSeconds > 0) {
+            pendingStatsSnapshot.set(null);
+            statsExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "MarketTickerStats-Thread");
+                t.setDaemon(true);
+                return t;
+            });
+            statsExecutor.scheduleWithFixedDelay(this::refreshStatsSnapshot, 0, statsRefreshSeconds, TimeUnit.SECONDS);
+        }
         
         // 提交流处理任务
         streamExecutor.submit(() -> {
@@ -473,7 +738,7 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
     }
     
     /**
-     * 运行流处理
+     * 运行流处理（接收阶段）
      */
     private void streamOnce(Integer runSeconds) throws Exception {
         log.info("[MarketTickerStreamService] 开始流处理（运行{}秒）", 
@@ -481,12 +746,16 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
         
         try {
             streamThread.set(Thread.currentThread());
+            
+            // 预热内存状态表（失败时不影响启动，handleMessage中会回退为查库并再次尝试）
+            symbolStateService.ensureWarmedUp();
+            
             log.debug("[MarketTickerStreamService] Creating WebSocket connection");
             
-            // 创建请求并获取流
-            AllMarketTickersStreamsRequest request = new AllMarketTickersStreamsRequest();
-            response = getApi().allMarketTickersStreams(request);
-            log.info("[MarketTickerStreamService] WebSocket连接已建立");
+            // 首次连接同样在后台建立，失败时按退避重试
+            reconnectAttempts = 0;
+            nextReconnectAtMs = 0;
+            requestReconnect();
             
             // 计算结束时间（如果指定了运行时间）
             Long endTime = null;
@@ -503,32 +772,30 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
                 }
                 
                 try {
-                    // 若 SDK 回调触发了重连请求，则优先重连再取数据，避免继续阻塞旧连接
-                    if (reconnectRequested.getAndSet(false)) {
-                        log.info("[MarketTickerStreamService] 收到断链重连请求，开始重建连接...");
-                        reconnectStream();
+                    maintainConnections();
+                    
+                    // 接收阶段只负责取消息并放入转换队列，不做解析和数据库操作
+                    String payload = receiveNext();
+                    if (payload == null) {
                         continue;
                     }
-
-                    AllMarketTickersStreamsResponse tickerResponse = response.take();
-                    handleMessage(tickerResponse);
+                    long receivedAtMs = System.currentTimeMillis();
+                    lastReceivedAtMs.set(receivedAtMs);
+                    receivedChars.addAndGet(payload.length());
+                    transformQueue.offer(new ReceivedPayload(payload, receivedAtMs));
                 } catch (InterruptedException e) {
                     if (!running.get()) {
                         log.warn("[MarketTickerStreamService] 流处理被中断（服务停止）");
                         Thread.currentThread().interrupt();
                         break;
                     }
-                    // 通常是 onWebSocketError 触发的 interrupt，用于打断 take()，以便重连后继续运行
-                    log.warn("[MarketTickerStreamService] 流处理被中断（触发重连）");
-                    reconnectRequested.set(false); // 避免重复
-                    reconnectStream();
-                    continue;
+                    // 接收阶段按超时轮询，中断不再用于打断读取，忽略后继续
+                    log.debug("[MarketTickerStreamService] 流处理被中断（忽略）");
                 } catch (Exception e) {
                     log.info("[MarketTickerStreamService] 流处理出现异常: {}", e.getMessage());
-                    // 处理所有WebSocket异常（包括MessageTooLargeException），并重新建立连接
+                    // 处理所有WebSocket异常（包括MessageTooLargeException），并请求重新建立连接
                     if (handleException(e)) {
-                        // handleException已经处理了重连逻辑，这里只需要记录日志
-                        log.info("[MarketTickerStreamService] 已处理WebSocket异常并重新建立连接，继续处理消息");
+                        log.info("[MarketTickerStreamService] 已处理WebSocket异常并请求重连，继续处理消息");
                     } else {
                         log.error("[MarketTickerStreamService] 处理消息时出错（非WebSocket异常）", e);
                         // 非WebSocket异常，继续处理下一条消息，不进行重连
@@ -542,13 +809,110 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
             log.error("[MarketTickerStreamService] 流处理失败", e);
             throw e;
         } finally {
+            closeAllConnections();
             streamThread.set(null);
         }
     }
     
-
+    /**
+     * 转换阶段：从转换队列取消息，解析/标准化/合并后放入持久化队列
+     */
+    private void runTransformStage() {
+        log.info("[MarketTickerStreamService] 转换阶段已启动");
+        while (running.get()) {
+            try {
+                Map<String, Map<String, Object>> statsSnapshot = pendingStatsSnapshot.getAndSet(null);
+                if (statsSnapshot != null) {
+                    applyStatsSnapshot(statsSnapshot);
+                }
+                ReceivedPayload message = transformQueue.poll(1, TimeUnit.SECONDS);
+                if (message == null) {
+                    continue;
+                }
+                List<ReceivedPayload> batch = drainBacklog(message);
+                List<MarketTickerDO> finalTickers = isRawMode() ? handleRawMessages(batch) : handleMessages(batch);
+                if (!finalTickers.isEmpty()) {
+                    persistQueue.offer(finalTickers);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                transformFailures.incrementAndGet();
+                log.error("[MarketTickerStreamService] 转换阶段处理消息失败", e);
+            }
+        }
+        log.info("[MarketTickerStreamService] 转换阶段已停止");
+    }
     
-
+    /**
+     * 取出首条报文之后已在转换队列中积压的报文，与首条一起处理
+     * 
+     * !ticker@arr每条报文只包含变化过的symbol，不能整条丢弃：积压的报文逐条解析后按symbol保留最新值，
+     * 合并现有状态、追加历史和持久化只对合并后的结果做一次，积压越多单条成本越低。
+     */
+    private List<ReceivedPayload> drainBacklog(ReceivedPayload first) {
+        List<ReceivedPayload> batch = new ArrayList<>();
+        batch.add(first);
+        int limit = transformQueue.getCapacity();
+        while (batch.size() <= limit) {
+            ReceivedPayload next = transformQueue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        if (batch.size() > 1) {
+            log.debug("[MarketTickerStreamService] 合并处理{}条积压报文", batch.size());
+        }
+        return batch;
+    }
+    
+    /**
+     * DTO模式：逐条反序列化并标准化，按symbol保留最新的ticker后一起合并
+     */
+    private List<MarketTickerDO> handleMessages(List<ReceivedPayload> batch) {
+        Map<String, MarketTickerDO> latestBySymbol = new LinkedHashMap<>();
+        for (ReceivedPayload message : batch) {
+            long parseStart = System.nanoTime();
+            AllMarketTickersStreamsResponse response = JSON.getGson().fromJson(message.payload, TICKERS_TYPE);
+            recordStageNanos(TickerIngestionStage.PARSE, parseStart);
+            for (MarketTickerDO ticker : handleMessage(response, message.receivedAtMs)) {
+                latestBySymbol.put(ticker.getSymbol(), ticker);
+            }
+        }
+        if (latestBySymbol.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return recordAndMerge(new ArrayList<>(latestBySymbol.values()));
+    }
+    
+    /**
+     * 持久化阶段：从持久化队列取出按symbol合并后的ticker并提交写库
+     * 停止时继续处理完队列中剩余的数据
+     */
+    private void runPersistStage() {
+        log.info("[MarketTickerStreamService] 持久化阶段已启动");
+        while (running.get() || persistQueue.size() > 0) {
+            try {
+                List<MarketTickerDO> finalTickers = persistQueue.drain(1, TimeUnit.SECONDS);
+                if (finalTickers == null) {
+                    continue;
+                }
+                log.debug("[MarketTickerStreamService] Submitting {} symbols to write-behind buffer", finalTickers.size());
+                tickerWriteBehindService.submit(finalTickers);
+                lastPersistedAtMs.set(System.currentTimeMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                persistFailures.incrementAndGet();
+                log.error("[MarketTickerStreamService] Error during batchUpsertTickers: {}", e.getMessage(), e);
+                log.error("[MarketTickerStreamService] 批量同步ticker数据到数据库失败", e);
+            }
+        }
+        log.info("[MarketTickerStreamService] 持久化阶段已停止");
+    }
     
     /**
      * 处理WebSocket接收到的ticker消息
@@ -557,12 +921,14 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
      * 1. 从AllMarketTickersStreamsResponse中提取ticker数据列表
      * 2. 标准化每个ticker数据（参考_normalize_ticker）
      * 3. 筛选USDT交易对
-     * 4. 查询现有数据并计算price_change等字段
-     * 5. 批量插入/更新到数据库（使用batchUpsertTickers）
+     * 之后由handleMessages按symbol合并同一批报文，再从内存状态表获取现有数据并计算price_change等字段，
+     * 由持久化阶段提交到写后缓冲（使用batchUpsertTickers批量插入/更新）
      * 
      * @param tickerResponse SDK返回的AllMarketTickersStreamsResponse对象
+     * @param receivedAtMs 接收线程收到该消息的时间
+     * @return 标准化后的USDT交易对ticker（无数据或出错时为空列表）
      */
-    private void handleMessage(AllMarketTickersStreamsResponse tickerResponse) {
+    private List<MarketTickerDO> handleMessage(AllMarketTickersStreamsResponse tickerResponse, long receivedAtMs) {
         try {
             log.debug("[MarketTickerStreamService] Starting to handle message");
             
@@ -571,16 +937,26 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
             if (tickerResponse == null || tickerResponse.isEmpty()) {
                 log.debug("[MarketTickerStreamService] 消息为空，跳过处理");
                 log.info("[MarketTickerStreamService] No tickers to process");
-                return;
+                return Collections.emptyList();
             }
             
             int tickerCount = tickerResponse.size();
             log.debug("[MarketTickerStreamService] Extracted {} tickers from message", tickerCount);
             log.debug("[MarketTickerStreamService] 提取到{}个ticker数据", tickerCount);
+            ingestionMetrics.recordMessage(tickerCount);
             
-            // 步骤1: 标准化ticker数据
+            // 步骤1: 标准化ticker数据（跳过事件时间不晚于已处理数据的重复/过期ticker，如新旧连接并行期间的重复消息）
+            long normalizeStart = System.nanoTime();
+            long latestEventTime = 0L;
             List<MarketTickerDO> allNormalizedTickers = new ArrayList<>();
             for (AllMarketTickersStreamsResponseInner inner : tickerResponse) {
+                if (inner != null && inner.getE() != null && inner.getE() > latestEventTime) {
+                    latestEventTime = inner.getE();
+                }
+                if (isDuplicate(inner)) {
+                    duplicatesDropped.incrementAndGet();
+                    continue;
+                }
                 MarketTickerDO tickerDO = normalizeTicker(inner);
                 if (tickerDO != null) {
                     allNormalizedTickers.add(tickerDO);
@@ -590,202 +966,338 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
             if (allNormalizedTickers.isEmpty()) {
                 log.debug("[MarketTickerStreamService] 没有有效的ticker数据，跳过数据库操作");
                 log.info("[MarketTickerStreamService] No tickers to process");
-                return;
+                return Collections.emptyList();
             }
             
             // 步骤2: 筛选USDT交易对（参考Python版本的逻辑）
             List<MarketTickerDO> usdtTickers = allNormalizedTickers.stream()
                     .filter(t -> t.getSymbol() != null && t.getSymbol().endsWith("USDT"))
                     .collect(Collectors.toList());
+            recordStageNanos(TickerIngestionStage.NORMALIZE, normalizeStart);
+            recordExchangeLatency(receivedAtMs, latestEventTime);
             
             log.info("[MarketTickerStreamService] 从{}条总数据中筛选出{}条USDT交易对数据", 
                     allNormalizedTickers.size(), usdtTickers.size());
             
             if (usdtTickers.isEmpty()) {
                 log.debug("[MarketTickerStreamService] No USDT symbols to upsert");
-                return;
+                return Collections.emptyList();
             }
             
-            // 步骤3: 查询现有数据（参考Python版本的get_existing_symbol_data）
-            List<String> symbols = usdtTickers.stream()
-                    .map(MarketTickerDO::getSymbol)
-                    .collect(Collectors.toList());
-            
-            log.debug("[MarketTickerStreamService] Querying existing data for {} symbols", symbols.size());
-            List<ExistingSymbolData> existingDataList = marketTickerMapper.getExistingSymbolData(symbols);
+            log.debug("[MarketTickerStreamService] Finished handling message");
+            return usdtTickers;
             
-            // 转换为Map便于查找
-            Map<String, ExistingSymbolData> existingDataMap = new HashMap<>();
-            for (ExistingSymbolData data : existingDataList) {
-                existingDataMap.put(data.getSymbol(), data);
+        } catch (Exception e) {
+            transformFailures.incrementAndGet();
+            log.error("[MarketTickerStreamService] Unexpected error in message handling: {}", e.getMessage(), e);
+            log.error("[MarketTickerStreamService] 处理ticker消息时出错", e);
+            return Collections.emptyList();
+        }
+    }
+    
+    /**
+     * 按symbol的事件时间E判断ticker是否已处理过（仅由转换线程调用）
+     * 
+     * @return true如果事件时间不晚于该symbol已处理的事件时间
+     */
+    private boolean isDuplicate(AllMarketTickersStreamsResponseInner inner) {
+        if (inner == null || inner.getsLowerCase() == null || inner.getE() == null || inner.getE() <= 0) {
+            return false;
+        }
+        Long eventTime = inner.getE();
+        Long previous = lastEventTimeBySymbol.put(inner.getsLowerCase(), eventTime);
+        if (previous != null && eventTime <= previous) {
+            lastEventTimeBySymbol.put(inner.getsLowerCase(), previous);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 处理原始报文模式下接收到的一批ticker消息
+     * 
+     * 与handleMessage的区别：不经过Gson和AllMarketTickersStreamsResponseInner，
+     * 由RawTickerParser直接把报文解码到TickerSlotTable的基本类型槽位中，
+     * 只有在持久化边界才为本批消息更新过的USDT交易对创建MarketTickerDO。
+     * 同一批的报文依次追加到槽位表，同一symbol只保留最新值。
+     * 
+     * @param batch 原始报文及接收时间
+     * @return 待持久化的ticker列表（无数据或出错时为空列表）
+     */
+    private List<MarketTickerDO> handleRawMessages(List<ReceivedPayload> batch) {
+        try {
+            // 步骤1: 解析报文到槽位表
+            int tickerCount = 0;
+            long receivedAtMs = 0L;
+            tickerSlotTable.beginMessage();
+            for (ReceivedPayload message : batch) {
+                receivedAtMs = message.receivedAtMs;
+                if (message.payload == null || message.payload.isEmpty()) {
+                    log.debug("[MarketTickerStreamService] 消息为空，跳过处理");
+                    continue;
+                }
+                long parseStart = System.nanoTime();
+                try {
+                    int count = rawTickerParser.append(message.payload, tickerSlotTable);
+                    tickerCount += count;
+                    ingestionMetrics.recordMessage(count);
+                } catch (IllegalArgumentException e) {
+                    transformFailures.incrementAndGet();
+                    log.warn("[MarketTickerStreamService] 原始报文解析失败，跳过本条消息: {}", e.getMessage());
+                }
+                recordStageNanos(TickerIngestionStage.PARSE, parseStart);
             }
-            log.debug("[MarketTickerStreamService] Retrieved existing data for {} symbols", existingDataMap.size());
             
-            // 步骤4: 计算price_change等字段并准备最终数据（参考Python版本的逻辑）
-            List<MarketTickerDO> finalTickers = new ArrayList<>();
-            for (MarketTickerDO ticker : usdtTickers) {
-                String symbol = ticker.getSymbol();
-                ExistingSymbolData existingData = existingDataMap.get(symbol);
-                
-                // 获取当前last_price
-                Double currentLastPrice = ticker.getLastPrice();
-                if (currentLastPrice == null) {
-                    currentLastPrice = 0.0;
+            // 步骤2: 筛选USDT交易对（槽位表已跳过事件时间不晚于现有数据的重复ticker）
+            int updatedCount = tickerSlotTable.getUpdatedCount();
+            duplicatesDropped.addAndGet(tickerCount - tickerSlotTable.getWrittenCount());
+            long normalizeStart = System.nanoTime();
+            long latestEventTime = 0L;
+            List<MarketTickerDO> usdtTickers = new ArrayList<>(updatedCount);
+            for (int i = 0; i < updatedCount; i++) {
+                int slot = tickerSlotTable.getUpdatedSlot(i);
+                latestEventTime = Math.max(latestEventTime, tickerSlotTable.eventTime(slot));
+                if (tickerSlotTable.isUsdt(slot)) {
+                    usdtTickers.add(tickerSlotTable.toTickerDO(slot));
                 }
+            }
+            recordStageNanos(TickerIngestionStage.NORMALIZE, normalizeStart);
+            recordExchangeLatency(receivedAtMs, latestEventTime);
+            
+            log.info("[MarketTickerStreamService] 从{}条总数据中筛选出{}条USDT交易对数据", 
+                    tickerCount, usdtTickers.size());
+            
+            if (usdtTickers.isEmpty()) {
+                log.debug("[MarketTickerStreamService] No USDT symbols to upsert");
+                return Collections.emptyList();
+            }
+            
+            return recordAndMerge(usdtTickers);
+            
+        } catch (Exception e) {
+            transformFailures.incrementAndGet();
+            log.error("[MarketTickerStreamService] 处理原始ticker消息时出错", e);
+            return Collections.emptyList();
+        }
+    }
+    
+    /**
+     * 追加本地历史并合并现有状态（合并耗时计入MERGE阶段）
+     * 
+     * @param usdtTickers 已标准化的USDT交易对ticker（时间字段为UTC）
+     * @return 待持久化的ticker列表
+     */
+    private List<MarketTickerDO> recordAndMerge(List<MarketTickerDO> usdtTickers) {
+        // 追加到本地历史存储（时间字段仍为UTC，不经过MySQL）
+        if (tickerHistoryService.isEnabled()) {
+            tickerHistoryService.record(usdtTickers);
+        }
+        long mergeStart = System.nanoTime();
+        List<MarketTickerDO> finalTickers = mergeExistingStates(usdtTickers);
+        recordStageNanos(TickerIngestionStage.MERGE, mergeStart);
+        return finalTickers;
+    }
+    
+    /**
+     * 记录阶段耗时（微秒）
+     */
+    private void recordStageNanos(TickerIngestionStage stage, long startNanos) {
+        ingestionMetrics.recordStage(stage, (System.nanoTime() - startNanos) / 1_000);
+    }
+    
+    /**
+     * 记录交易所事件时间到本地接收的延迟（毫秒）；本机时钟快于交易所时按0计
+     */
+    private void recordExchangeLatency(long receivedAtMs, long latestEventTime) {
+        if (latestEventTime > 0) {
+            ingestionMetrics.recordStage(TickerIngestionStage.EXCHANGE_TO_RECEIVE, receivedAtMs - latestEventTime);
+        }
+    }
+    
+    /**
+     * 合并现有状态并准备最终数据（步骤3-4，DTO模式与原始报文模式共用）
+     * 
+     * @param usdtTickers 已标准化的USDT交易对ticker（时间字段为UTC）
+     * @return 待持久化的ticker列表（时间字段已转换为北京时区）
+     * 包级可见：供JMH基准测试（src/jmh）直接调用
+     */
+    List<MarketTickerDO> mergeExistingStates(List<MarketTickerDO> usdtTickers) {
+        // 步骤3: 获取现有数据（内存状态表，替代每条消息的get_existing_symbol_data查询）
+        Map<String, SymbolPriceState> existingDataMap = resolveExistingStates(usdtTickers);
+        log.debug("[MarketTickerStreamService] Resolved existing data for {} symbols", existingDataMap.size());
+        
+        // 步骤4: 计算price_change等字段并准备最终数据（参考Python版本的逻辑）
+        List<MarketTickerDO> finalTickers = new ArrayList<>();
+        for (MarketTickerDO ticker : usdtTickers) {
+            String symbol = ticker.getSymbol();
+            SymbolPriceState existingData = existingDataMap.get(symbol);
+            
+            // 获取当前last_price
+            Double currentLastPrice = ticker.getLastPrice();
+            if (currentLastPrice == null) {
+                currentLastPrice = 0.0;
+            }
+            
+            // 获取existing_open_price（参考Python版本的逻辑）
+            // Python版本逻辑：
+            // if open_price_raw == 0.0 and update_price_date is None:
+            //     open_price = None
+            // else:
+            //     open_price = open_price_raw if open_price_raw is not None else None
+            Double existingOpenPrice = null;
+            LocalDateTime existingUpdatePriceDate = null;
+            if (existingData != null) {
+                // 如果open_price为0.0且update_price_date为null，则表示不存在（open_price应该为None/null）
+                existingOpenPrice = existingData.getEffectiveOpenPrice();
+                existingUpdatePriceDate = existingData.getUpdatePriceDate();
                 
-                // 获取existing_open_price（参考Python版本的逻辑）
-                // Python版本逻辑：
-                // if open_price_raw == 0.0 and update_price_date is None:
-                //     open_price = None
-                // else:
-                //     open_price = open_price_raw if open_price_raw is not None else None
-                Double existingOpenPrice = null;
-                LocalDateTime existingUpdatePriceDate = null;
-                if (existingData != null) {
-                    Double openPriceRaw = existingData.getOpenPrice();
-                    LocalDateTime updatePriceDate = existingData.getUpdatePriceDate();
+                log.debug("[MarketTickerStreamService] Existing data for {}: open_price={}, update_price_date={}", 
+                        symbol, existingOpenPrice, existingUpdatePriceDate);
+            }
+            
+            // 计算price_change等字段（参考Python版本的逻辑）
+            if (existingOpenPrice != null && existingOpenPrice != 0.0 && currentLastPrice != 0.0) {
+                try {
+                    double priceChange = currentLastPrice - existingOpenPrice;
+                    double priceChangePercent = (priceChange / existingOpenPrice) * 100.0;
+                    String side = priceChangePercent >= 0 ? "gainer" : "loser";
+                    String changePercentText = String.format("%.2f%%", priceChangePercent);
                     
-                    // 如果open_price为0.0且update_price_date为null，则表示不存在（open_price应该为None/null）
-                    if (openPriceRaw != null && openPriceRaw == 0.0 && updatePriceDate == null) {
-                        existingOpenPrice = null; // 表示不存在
-                    } else if (openPriceRaw != null) {
-                        existingOpenPrice = openPriceRaw;
-                    }
-                    existingUpdatePriceDate = updatePriceDate;
+                    log.debug("[MarketTickerStreamService] Calculated price change for {}: {} ({:.2f}%)", 
+                            symbol, priceChange, priceChangePercent);
                     
-                    log.debug("[MarketTickerStreamService] Existing data for {}: open_price={}, update_price_date={}", 
-                            symbol, existingOpenPrice, existingUpdatePriceDate);
-                }
-                
-                // 计算price_change等字段（参考Python版本的逻辑）
-                if (existingOpenPrice != null && existingOpenPrice != 0.0 && currentLastPrice != 0.0) {
-                    try {
-                        double priceChange = currentLastPrice - existingOpenPrice;
-                        double priceChangePercent = (priceChange / existingOpenPrice) * 100.0;
-                        String side = priceChangePercent >= 0 ? "gainer" : "loser";
-                        String changePercentText = String.format("%.2f%%", priceChangePercent);
-                        
-                        log.debug("[MarketTickerStreamService] Calculated price change for {}: {} ({:.2f}%)", 
-                                symbol, priceChange, priceChangePercent);
-                        
-                        ticker.setPriceChange(priceChange);
-                        ticker.setPriceChangePercent(priceChangePercent);
-                        ticker.setSide(side);
-                        ticker.setChangePercentText(changePercentText);
-                        ticker.setOpenPrice(existingOpenPrice);
-                        ticker.setUpdatePriceDate(existingUpdatePriceDate);
-                    } catch (Exception e) {
-                        log.warn("[MarketTickerStreamService] Failed to calculate price change for symbol {}: {}", symbol, e.getMessage());
-                        ticker.setPriceChange(0.0);
-                        ticker.setPriceChangePercent(0.0);
-                        ticker.setSide("");
-                        ticker.setChangePercentText("");
-                        ticker.setOpenPrice(existingOpenPrice != null ? existingOpenPrice : 0.0);
-                        ticker.setUpdatePriceDate(existingUpdatePriceDate);
-                    }
-                } else {
-                    log.debug("[MarketTickerStreamService] Not calculating price change for {}", symbol);
+                    ticker.setPriceChange(priceChange);
+                    ticker.setPriceChangePercent(priceChangePercent);
+                    ticker.setSide(side);
+                    ticker.setChangePercentText(changePercentText);
+                    ticker.setOpenPrice(existingOpenPrice);
+                    ticker.setUpdatePriceDate(existingUpdatePriceDate);
+                } catch (Exception e) {
+                    log.warn("[MarketTickerStreamService] Failed to calculate price change for symbol {}: {}", symbol, e.getMessage());
                     ticker.setPriceChange(0.0);
                     ticker.setPriceChangePercent(0.0);
                     ticker.setSide("");
                     ticker.setChangePercentText("");
-                    // 参考Python版本的逻辑：
-                    // 如果不存在existing_symbol_data，则open_price设为0.0，update_price_date设为null
-                    // 如果存在existing_symbol_data，则使用existing_open_price和existing_update_price_date
-                    if (existingData == null) {
-                        ticker.setOpenPrice(0.0);
-                        ticker.setUpdatePriceDate(null);
-                        log.debug("[MarketTickerStreamService] 设置{}的open_price为0.0（新插入）", symbol);
-                    } else {
-                        ticker.setOpenPrice(existingOpenPrice != null ? existingOpenPrice : 0.0);
-                        ticker.setUpdatePriceDate(existingUpdatePriceDate);
-                    }
+                    ticker.setOpenPrice(existingOpenPrice != null ? existingOpenPrice : 0.0);
+                    ticker.setUpdatePriceDate(existingUpdatePriceDate);
                 }
-                
-                // 参考Python版本的逻辑：在INSERT时，如果不存在existing_symbol_data，则open_price=0.0，update_price_date=NULL
+            } else {
+                log.debug("[MarketTickerStreamService] Not calculating price change for {}", symbol);
+                ticker.setPriceChange(0.0);
+                ticker.setPriceChangePercent(0.0);
+                ticker.setSide("");
+                ticker.setChangePercentText("");
+                // 参考Python版本的逻辑：
+                // 如果不存在existing_symbol_data，则open_price设为0.0，update_price_date设为null
                 // 如果存在existing_symbol_data，则使用existing_open_price和existing_update_price_date
-                // 参考Python版本：insert_open_price和insert_update_price_date的处理
                 if (existingData == null) {
-                    // 新插入：open_price=0.0，update_price_date=NULL（参考Python版本：if not existing_symbol_data）
                     ticker.setOpenPrice(0.0);
                     ticker.setUpdatePriceDate(null);
+                    log.debug("[MarketTickerStreamService] 设置{}的open_price为0.0（新插入）", symbol);
+                } else {
+                    ticker.setOpenPrice(existingOpenPrice != null ? existingOpenPrice : 0.0);
+                    ticker.setUpdatePriceDate(existingUpdatePriceDate);
                 }
-                // 如果存在existing_symbol_data，则使用上面已设置的值（existing_open_price和existing_update_price_date）
-                
-                // 设置默认值（参考Python版本的逻辑）
-                if (ticker.getPriceChange() == null) ticker.setPriceChange(0.0);
-                if (ticker.getPriceChangePercent() == null) ticker.setPriceChangePercent(0.0);
-                if (ticker.getSide() == null) ticker.setSide("");
-                if (ticker.getChangePercentText() == null) ticker.setChangePercentText("");
-                if (ticker.getAveragePrice() == null) ticker.setAveragePrice(0.0);
-                if (ticker.getLastPrice() == null) ticker.setLastPrice(0.0);
-                if (ticker.getLastTradeVolume() == null) ticker.setLastTradeVolume(0.0);
-                if (ticker.getOpenPrice() == null) ticker.setOpenPrice(0.0);
-                if (ticker.getHighPrice() == null) ticker.setHighPrice(0.0);
-                if (ticker.getLowPrice() == null) ticker.setLowPrice(0.0);
-                if (ticker.getBaseVolume() == null) ticker.setBaseVolume(0.0);
-                if (ticker.getQuoteVolume() == null) ticker.setQuoteVolume(0.0);
-                if (ticker.getFirstTradeId() == null) ticker.setFirstTradeId(0L);
-                if (ticker.getLastTradeId() == null) ticker.setLastTradeId(0L);
-                if (ticker.getTradeCount() == null) ticker.setTradeCount(0L);
-                
-                // 转换时区为北京时区（UTC+8）（参考Python版本的_to_beijing_datetime）
-                if (ticker.getEventTime() != null) {
-                    ticker.setEventTime(toBeijingDateTime(ticker.getEventTime()));
-                }
-                if (ticker.getStatsOpenTime() != null) {
-                    ticker.setStatsOpenTime(toBeijingDateTime(ticker.getStatsOpenTime()));
-                }
-                if (ticker.getStatsCloseTime() != null) {
-                    ticker.setStatsCloseTime(toBeijingDateTime(ticker.getStatsCloseTime()));
-                }
-                
-                // ingestion_time使用当前北京时区时间
-                ticker.setIngestionTime(LocalDateTime.now(ZoneOffset.ofHours(8)));
-                
-                finalTickers.add(ticker);
             }
             
-            int finalCount = finalTickers.size();
-            log.debug("[MarketTickerStreamService] Normalized {} tickers for database upsert", finalCount);
-            log.debug("[MarketTickerStreamService] 标准化了{}个ticker数据，准备批量同步到数据库", finalCount);
-            
-            // 记录部分关键数据用于调试（前3个作为样本）
-            if (finalTickers.size() > 0) {
-                int sampleSize = Math.min(3, finalTickers.size());
-                List<MarketTickerDO> sample = finalTickers.subList(0, sampleSize);
-                log.debug("[MarketTickerStreamService] Normalized data sample (first {}): {}", sampleSize, 
-                        sample.stream()
-                                .map(t -> String.format("symbol=%s, lastPrice=%s, openPrice=%s, priceChangePercent=%s", 
-                                        t.getSymbol(), t.getLastPrice(), t.getOpenPrice(), t.getPriceChangePercent()))
-                                .reduce((a, b) -> a + "; " + b)
-                                .orElse(""));
+            // 参考Python版本的逻辑：在INSERT时，如果不存在existing_symbol_data，则open_price=0.0，update_price_date=NULL
+            // 如果存在existing_symbol_data，则使用existing_open_price和existing_update_price_date
+            // 参考Python版本：insert_open_price和insert_update_price_date的处理
+            if (existingData == null) {
+                // 新插入：open_price=0.0，update_price_date=NULL（参考Python版本：if not existing_symbol_data）
+                ticker.setOpenPrice(0.0);
+                ticker.setUpdatePriceDate(null);
             }
+            // 如果存在existing_symbol_data，则使用上面已设置的值（existing_open_price和existing_update_price_date）
             
-            // 步骤5: 批量插入/更新到数据库
-            try {
-                log.debug("[MarketTickerStreamService] Calling batchUpsertTickers for {} symbols", finalCount);
-                long startTime = System.currentTimeMillis();
-                marketTickerMapper.batchUpsertTickers(finalTickers);
-                long duration = System.currentTimeMillis() - startTime;
-                log.debug("[MarketTickerStreamService] Successfully completed batchUpsertTickers in {} ms", duration);
-                log.info("[MarketTickerStreamService] 成功同步{}个ticker数据到数据库（耗时{}ms）", finalCount, duration);
-
-                // 记录同步时间到监控服务
-                if (tickerSyncMonitorService != null) {
-                    tickerSyncMonitorService.recordTickerSyncLog();
-                }
-            } catch (Exception e) {
-                log.error("[MarketTickerStreamService] Error during batchUpsertTickers: {}", e.getMessage(), e);
-                log.error("[MarketTickerStreamService] 批量同步ticker数据到数据库失败", e);
+            // 设置默认值（参考Python版本的逻辑）
+            if (ticker.getPriceChange() == null) ticker.setPriceChange(0.0);
+            if (ticker.getPriceChangePercent() == null) ticker.setPriceChangePercent(0.0);
+            if (ticker.getSide() == null) ticker.setSide("");
+            if (ticker.getChangePercentText() == null) ticker.setChangePercentText("");
+            if (ticker.getAveragePrice() == null) ticker.setAveragePrice(0.0);
+            if (ticker.getLastPrice() == null) ticker.setLastPrice(0.0);
+            if (ticker.getLastTradeVolume() == null) ticker.setLastTradeVolume(0.0);
+            if (ticker.getOpenPrice() == null) ticker.setOpenPrice(0.0);
+            if (ticker.getHighPrice() == null) ticker.setHighPrice(0.0);
+            if (ticker.getLowPrice() == null) ticker.setLowPrice(0.0);
+            if (ticker.getBaseVolume() == null) ticker.setBaseVolume(0.0);
+            if (ticker.getQuoteVolume() == null) ticker.setQuoteVolume(0.0);
+            if (ticker.getFirstTradeId() == null) ticker.setFirstTradeId(0L);
+            if (ticker.getLastTradeId() == null) ticker.setLastTradeId(0L);
+            if (ticker.getTradeCount() == null) ticker.setTradeCount(0L);
+            
+            // 转换时区为北京时区（UTC+8）（参考Python版本的_to_beijing_datetime）
+            if (ticker.getEventTime() != null) {
+                ticker.setEventTime(toBeijingDateTime(ticker.getEventTime()));
+            }
+            if (ticker.getStatsOpenTime() != null) {
+                ticker.setStatsOpenTime(toBeijingDateTime(ticker.getStatsOpenTime()));
+            }
+            if (ticker.getStatsCloseTime() != null) {
+                ticker.setStatsCloseTime(toBeijingDateTime(ticker.getStatsCloseTime()));
             }
             
-            log.debug("[MarketTickerStreamService] Finished handling message");
+            // ingestion_time使用当前北京时区时间
+            ticker.setIngestionTime(LocalDateTime.now(ZoneOffset.ofHours(8)));
             
-        } catch (Exception e) {
-            log.error("[MarketTickerStreamService] Unexpected error in message handling: {}", e.getMessage(), e);
-            log.error("[MarketTickerStreamService] 处理ticker消息时出错", e);
+            finalTickers.add(ticker);
+        }
+        
+        int finalCount = finalTickers.size();
+        log.debug("[MarketTickerStreamService] Normalized {} tickers for database upsert", finalCount);
+        log.debug("[MarketTickerStreamService] 标准化了{}个ticker数据，准备批量同步到数据库", finalCount);
+        
+        // 记录部分关键数据用于调试（前3个作为样本）
+        if (finalTickers.size() > 0) {
+            int sampleSize = Math.min(3, finalTickers.size());
+            List<MarketTickerDO> sample = finalTickers.subList(0, sampleSize);
+            log.debug("[MarketTickerStreamService] Normalized data sample (first {}): {}", sampleSize, 
+                    sample.stream()
+                            .map(t -> String.format("symbol=%s, lastPrice=%s, openPrice=%s, priceChangePercent=%s", 
+                                    t.getSymbol(), t.getLastPrice(), t.getOpenPrice(), t.getPriceChangePercent()))
+                            .reduce((a, b) -> a + "; " + b)
+                            .orElse(""));
+        }
+        
+        return finalTickers;
+    }
+    
+    /**
+     * 获取ticker对应symbol的现有状态
+     * 
+     * 优先使用内存状态表；状态表尚未预热成功时（如启动时数据库不可用）回退为
+     * getExistingSymbolData查询，并将查询结果载入状态表。被淘汰后重新出现的symbol先从数据库重新载入。
+     * 
+     * @param usdtTickers 本次消息中的USDT交易对
+     * @return symbol -> 现有状态（不存在的symbol不在Map中，表示新插入）
+     */
+    private Map<String, SymbolPriceState> resolveExistingStates(List<MarketTickerDO> usdtTickers) {
+        Map<String, SymbolPriceState> existingDataMap = new HashMap<>(usdtTickers.size() * 2);
+        if (symbolStateService.ensureWarmedUp()) {
+            symbolStateService.reloadEvicted(usdtTickers.stream()
+                    .map(MarketTickerDO::getSymbol)
+                    .collect(Collectors.toList()));
+            for (MarketTickerDO ticker : usdtTickers) {
+                SymbolPriceState state = symbolStateService.get(ticker.getSymbol());
+                if (state != null) {
+                    existingDataMap.put(ticker.getSymbol(), state);
+                }
+            }
+            return existingDataMap;
+        }
+        
+        List<String> symbols = usdtTickers.stream()
+                .map(MarketTickerDO::getSymbol)
+                .collect(Collectors.toList());
+        log.debug("[MarketTickerStreamService] Querying existing data for {} symbols", symbols.size());
+        List<ExistingSymbolData> existingDataList = marketTickerMapper.getExistingSymbolData(symbols);
+        long now = System.currentTimeMillis();
+        for (ExistingSymbolData data : existingDataList) {
+            existingDataMap.put(data.getSymbol(), MarketSymbolStateServiceImpl.toState(data, now));
         }
+        symbolStateService.loadAll(existingDataMap.values());
+        return existingDataMap;
     }
     
     /**
@@ -830,8 +1342,9 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
      * 
      * @param inner SDK返回的AllMarketTickersStreamsResponseInner对象
      * @return 标准化后的MarketTickerDO对象，如果数据无效则返回null
+     * 包级可见：供JMH基准测试（src/jmh）直接调用
      */
-    private MarketTickerDO normalizeTicker(AllMarketTickersStreamsResponseInner inner) {
+    MarketTickerDO normalizeTicker(AllMarketTickersStreamsResponseInner inner) {
         if (inner == null) {
             return null;
         }
@@ -1001,7 +1514,12 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
         if (t != null) {
             t.interrupt();
         }
-        closeCurrentConnectionNoThrow();
+        closeAllConnections();
+        
+        shutdownStageExecutor(transformExecutor, "转换");
+        shutdownStageExecutor(persistExecutor, "持久化");
+        shutdownStageExecutor(connectionExecutor, "连接");
+        shutdownStageExecutor(statsExecutor, "统计");
         
         if (streamExecutor != null && !streamExecutor.isShutdown()) {
             streamExecutor.shutdown();
@@ -1022,6 +1540,42 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
         log.info("[MarketTickerStreamService] ticker流已停止");
     }
     
+    /**
+     * 关闭转换/持久化/连接线程（阶段循环在running=false后1秒内退出）
+     */
+    private void shutdownStageExecutor(ExecutorService executor, String stageName) {
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("[MarketTickerStreamService] {}阶段线程未在10秒内完全关闭，强制关闭", stageName);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static ExecutorService newStageExecutor(String threadName) {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    private static BoundedRingBuffer.OverflowPolicy parsePolicy(String policy) {
+        try {
+            return BoundedRingBuffer.OverflowPolicy.valueOf(policy.trim().toUpperCase());
+        } catch (Exception e) {
+            log.warn("[MarketTickerStreamService] 未知的队列背压策略: {}，使用DROP_OLDEST", policy);
+            return BoundedRingBuffer.OverflowPolicy.DROP_OLDEST;
+        }
+    }
+    
     /**
      * 检查服务状态
      */
@@ -1029,5 +1583,44 @@ public class MarketTickerStreamServiceImpl implements MarketTickerStreamService
     public boolean isRunning() {
         return running.get();
     }
+    
+    /**
+     * 获取流水线统计信息
+     */
+    @Override
+    public TickerPipelineStats getPipelineStats() {
+        TickerPipelineStats stats = new TickerPipelineStats();
+        stats.setRunning(running.get());
+        stats.setIngestionMode(ingestionMode);
+        BoundedRingBuffer<ReceivedPayload> transform = transformQueue;
+        ConflatingTickerBuffer persist = persistQueue;
+        stats.setTransformQueue(transform != null ? transform.getStats() : null);
+        stats.setPersistQueue(persist != null ? persist.getStats() : null);
+        stats.setTransformFailures(transformFailures.get());
+        stats.setDuplicatesDropped(duplicatesDropped.get());
+        MarketTickerStreamConnection active = activeConnection;
+        stats.setActiveConnectionId(active != null ? active.getId() : null);
+        stats.setReconnectCount(reconnectCount.get());
+        stats.setPersistFailures(persistFailures.get());
+        stats.setLastReceivedAtMs(lastReceivedAtMs.get());
+        stats.setLastPersistedAtMs(lastPersistedAtMs.get());
+        stats.setReceivedChars(receivedChars.get());
+        stats.setStatsSnapshotCount(statsSnapshotCount.get());
+        stats.setLastStatsSnapshotAtMs(lastStatsSnapshotAtMs.get());
+        return stats;
+    }
+    
+    /**
+     * 接收阶段放入转换队列的消息：原始报文及接收时间（用于计算交易所到接收的延迟）
+     */
+    private static final class ReceivedPayload {
+        
+        private final String payload;
+        private final long receivedAtMs;
+        
+        private ReceivedPayload(String payload, long receivedAtMs) {
+            this.payload = payload;
+            this.receivedAtMs = receivedAtMs;
+        }
+    }
 }
-
@@ -0,0 +1,363 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.dao.MarketTickerBatchWriter;
+import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.aifuturetrade.asyncservice.market.TickerIngestionStage;
+import com.aifuturetrade.asyncservice.service.MarketSymbolStateService;
+import com.aifuturetrade.asyncservice.service.MarketTickerWriteBehindService;
+import com.aifuturetrade.asyncservice.service.TickerIngestionMetricsService;
+import com.aifuturetrade.asyncservice.service.TickerSyncMonitorService;
+import com.aifuturetrade.asyncservice.service.TickerWriteBehindStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 市场Ticker写后缓冲服务实现
+ *
+ * 工作方式：
+ * 1. ticker流线程调用submit()，按symbol覆盖写入待写Map后立即返回
+ * 2. 单独的刷新线程按flush-interval-ms周期刷新；待写数量达到max-pending时提前触发刷新
+ * 3. 刷新时与每个symbol上次落库的快照比较，业务字段完全相同的行跳过；
+ *    但超过max-unchanged-seconds未落库的symbol会强制重写，刷新ingestion_time，
+ *    避免被MarketSymbolOfflineService当作已下线数据删除
+ * 4. 刷新失败的行放回待写Map（若期间没有更新的快照），下次刷新重试
+ *
+ * 关闭写后缓冲（enabled=false）时，submit()同步写库，行为与原实现一致。
+ *
+ * 写库方式（upsert-mode）：
+ * - foreach：MarketTickerMapper.batchUpsertTickers，一条多VALUES语句（SQL文本随行数变化）
+ * - jdbc-batch：MarketTickerBatchWriter，固定的单行预编译语句在BATCH执行器中按batch-chunk-size分段执行
+ */
+@Slf4j
+@Service
+public class MarketTickerWriteBehindServiceImpl implements MarketTickerWriteBehindService {
+
+    private final MarketTickerMapper marketTickerMapper;
+    private final MarketTickerBatchWriter batchWriter;
+    private final MarketSymbolStateService symbolStateService;
+    private final TickerSyncMonitorService tickerSyncMonitorService;
+    private final TickerIngestionMetricsService ingestionMetrics;
+
+    @Value("${async.market-ticker.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${async.market-ticker.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${async.market-ticker.write-behind.max-pending:1000}")
+    private int maxPending;
+
+    @Value("${async.market-ticker.write-behind.max-unchanged-seconds:300}")
+    private int maxUnchangedSeconds;
+
+    @Value("${async.market-ticker.write-behind.upsert-mode:foreach}")
+    private String upsertMode;
+
+    @Value("${async.market-ticker.write-behind.batch-chunk-size:200}")
+    private int batchChunkSize;
+
+    /**
+     * 待写快照：symbol -> 最新快照（受pendingLock保护）
+     */
+    private Map<String, PendingTicker> pending = new LinkedHashMap<>();
+    private final Object pendingLock = new Object();
+
+    /**
+     * 上次落库的快照：symbol -> 快照（仅刷新线程访问）
+     */
+    private final Map<String, FlushedTicker> lastFlushed = new HashMap<>();
+
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean(false);
+    private ScheduledExecutorService flushExecutor;
+
+    private final AtomicLong rowsSubmitted = new AtomicLong(0);
+    private final AtomicLong rowsConflated = new AtomicLong(0);
+    private final AtomicLong rowsSkipped = new AtomicLong(0);
+    private final AtomicLong rowsWritten = new AtomicLong(0);
+    private final AtomicLong flushCount = new AtomicLong(0);
+    private final AtomicLong flushFailures = new AtomicLong(0);
+    private final AtomicLong lastFlushLagMs = new AtomicLong(0);
+    private final AtomicLong maxFlushLagMs = new AtomicLong(0);
+    private final AtomicLong lastFlushDurationMs = new AtomicLong(0);
+    private final AtomicLong lastFlushAtMs = new AtomicLong(0);
+
+    public MarketTickerWriteBehindServiceImpl(MarketTickerMapper marketTickerMapper,
+                                              MarketTickerBatchWriter batchWriter,
+                                              MarketSymbolStateService symbolStateService,
+                                              @Autowired(required = false) TickerSyncMonitorService tickerSyncMonitorService,
+                                              @Autowired(required = false) TickerIngestionMetricsService ingestionMetrics) {
+        this.marketTickerMapper = marketTickerMapper;
+        this.batchWriter = batchWriter;
+        this.symbolStateService = symbolStateService;
+        this.tickerSyncMonitorService = tickerSyncMonitorService;
+        this.ingestionMetrics = ingestionMetrics;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("[MarketTickerWriteBehind] 写后缓冲已禁用，ticker将同步写库");
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "MarketTickerWriteBehind-Thread");
+            t.setDaemon(true);
+            return t;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushNoThrow, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("[MarketTickerWriteBehind] 写后缓冲已启用: flushInterval={}ms, maxPending={}, maxUnchanged={}s, upsertMode={}",
+                flushIntervalMs, maxPending, maxUnchangedSeconds, upsertMode);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 关闭前落库剩余数据
+        flushNoThrow();
+    }
+
+    @Override
+    public void submit(List<MarketTickerDO> tickers) {
+        if (tickers == null || tickers.isEmpty()) {
+            return;
+        }
+        rowsSubmitted.addAndGet(tickers.size());
+
+        if (!enabled) {
+            writeRows(tickers, System.currentTimeMillis());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int pendingSize;
+        synchronized (pendingLock) {
+            for (MarketTickerDO ticker : tickers) {
+                PendingTicker previous = pending.get(ticker.getSymbol());
+                if (previous != null) {
+                    // 覆盖未落库的旧快照，保留最早的提交时间用于计算刷新延迟
+                    rowsConflated.incrementAndGet();
+                    pending.put(ticker.getSymbol(), new PendingTicker(ticker, previous.submittedAtMs));
+                } else {
+                    pending.put(ticker.getSymbol(), new PendingTicker(ticker, now));
+                }
+            }
+            pendingSize = pending.size();
+        }
+
+        if (pendingSize >= maxPending && flushExecutor != null
+                && earlyFlushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                earlyFlushScheduled.set(false);
+                flushNoThrow();
+            });
+        }
+    }
+
+    @Override
+    public synchronized int flush() {
+        Map<String, PendingTicker> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        long now = System.currentTimeMillis();
+        long oldestSubmittedAtMs = now;
+        long forceRewriteBeforeMs = now - maxUnchangedSeconds * 1000L;
+        List<MarketTickerDO> changed = new ArrayList<>(batch.size());
+        List<MarketTickerDO> unchanged = new ArrayList<>();
+        for (PendingTicker entry : batch.values()) {
+            oldestSubmittedAtMs = Math.min(oldestSubmittedAtMs, entry.submittedAtMs);
+            FlushedTicker flushed = lastFlushed.get(entry.ticker.getSymbol());
+            if (flushed != null && flushed.flushedAtMs >= forceRewriteBeforeMs
+                    && isUnchanged(flushed.ticker, entry.ticker)) {
+                unchanged.add(entry.ticker);
+            } else {
+                changed.add(entry.ticker);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            try {
+                writeRows(changed, oldestSubmittedAtMs);
+            } catch (Exception e) {
+                requeue(batch);
+                throw e;
+            }
+        } else {
+            recordFlush(0, oldestSubmittedAtMs, 0);
+            if (tickerSyncMonitorService != null) {
+                tickerSyncMonitorService.recordTickerSyncLog();
+            }
+        }
+
+        long flushedAtMs = System.currentTimeMillis();
+        for (MarketTickerDO ticker : changed) {
+            lastFlushed.put(ticker.getSymbol(), new FlushedTicker(ticker, flushedAtMs));
+        }
+        for (MarketTickerDO ticker : unchanged) {
+            symbolStateService.recordLastPrice(ticker.getSymbol(), ticker.getLastPrice());
+        }
+        rowsSkipped.addAndGet(unchanged.size());
+
+        log.debug("[MarketTickerWriteBehind] 刷新完成: 写入{}行, 跳过{}行", changed.size(), unchanged.size());
+        return changed.size();
+    }
+
+    @Override
+    public TickerWriteBehindStats getStats() {
+        TickerWriteBehindStats stats = new TickerWriteBehindStats();
+        stats.setEnabled(enabled);
+        synchronized (pendingLock) {
+            stats.setPendingSymbols(pending.size());
+        }
+        stats.setRowsSubmitted(rowsSubmitted.get());
+        stats.setRowsConflated(rowsConflated.get());
+        stats.setRowsSkipped(rowsSkipped.get());
+        stats.setRowsWritten(rowsWritten.get());
+        stats.setFlushCount(flushCount.get());
+        stats.setFlushFailures(flushFailures.get());
+        stats.setLastFlushLagMs(lastFlushLagMs.get());
+        stats.setMaxFlushLagMs(maxFlushLagMs.get());
+        stats.setLastFlushDurationMs(lastFlushDurationMs.get());
+        stats.setLastFlushAtMs(lastFlushAtMs.get());
+        stats.setUpsertMode(upsertMode);
+        return stats;
+    }
+
+    private boolean isJdbcBatchMode() {
+        return "jdbc-batch".equalsIgnoreCase(upsertMode);
+    }
+
+    /**
+     * 刷新线程入口：异常只记录日志，避免终止周期任务
+     */
+    private void flushNoThrow() {
+        try {
+            flush();
+        } catch (Exception e) {
+            flushFailures.incrementAndGet();
+            log.error("[MarketTickerWriteBehind] 批量同步ticker数据到数据库失败，将在下次刷新时重试", e);
+        }
+    }
+
+    /**
+     * 执行批量upsert，并在成功后更新内存状态表和同步监控
+     */
+    private void writeRows(List<MarketTickerDO> rows, long oldestSubmittedAtMs) {
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        if (isJdbcBatchMode()) {
+            batchWriter.upsert(rows, batchChunkSize);
+        } else {
+            marketTickerMapper.batchUpsertTickers(rows);
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        if (ingestionMetrics != null) {
+            ingestionMetrics.recordStage(TickerIngestionStage.UPSERT, (System.nanoTime() - startNanos) / 1_000);
+        }
+
+        // 写库成功后同步内存状态表的last_price（新symbol按open_price=0.0插入）
+        for (MarketTickerDO ticker : rows) {
+            symbolStateService.recordLastPrice(ticker.getSymbol(), ticker.getLastPrice());
+        }
+        recordFlush(rows.size(), oldestSubmittedAtMs, duration);
+        log.info("[MarketTickerWriteBehind] 成功同步{}个ticker数据到数据库（耗时{}ms）", rows.size(), duration);
+
+        // 记录同步时间到监控服务
+        if (tickerSyncMonitorService != null) {
+            tickerSyncMonitorService.recordTickerSyncLog();
+        }
+    }
+
+    private void recordFlush(int written, long oldestSubmittedAtMs, long durationMs) {
+        long now = System.currentTimeMillis();
+        long lag = Math.max(0, now - oldestSubmittedAtMs);
+        rowsWritten.addAndGet(written);
+        flushCount.incrementAndGet();
+        lastFlushLagMs.set(lag);
+        maxFlushLagMs.accumulateAndGet(lag, Math::max);
+        lastFlushDurationMs.set(durationMs);
+        lastFlushAtMs.set(now);
+    }
+
+    /**
+     * 刷新失败时把数据放回待写Map；期间已有更新快照的symbol不覆盖
+     */
+    private void requeue(Map<String, PendingTicker> batch) {
+        synchronized (pendingLock) {
+            for (Map.Entry<String, PendingTicker> entry : batch.entrySet()) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 比较两个快照的业务字段（忽略event_time和ingestion_time）
+     */
+    static boolean isUnchanged(MarketTickerDO previous, MarketTickerDO current) {
+        return Objects.equals(previous.getLastPrice(), current.getLastPrice())
+                && Objects.equals(previous.getOpenPrice(), current.getOpenPrice())
+                && Objects.equals(previous.getPriceChange(), current.getPriceChange())
+                && Objects.equals(previous.getHighPrice(), current.getHighPrice())
+                && Objects.equals(previous.getLowPrice(), current.getLowPrice())
+                && Objects.equals(previous.getAveragePrice(), current.getAveragePrice())
+                && Objects.equals(previous.getLastTradeVolume(), current.getLastTradeVolume())
+                && Objects.equals(previous.getBaseVolume(), current.getBaseVolume())
+                && Objects.equals(previous.getQuoteVolume(), current.getQuoteVolume())
+                && Objects.equals(previous.getLastTradeId(), current.getLastTradeId())
+                && Objects.equals(previous.getTradeCount(), current.getTradeCount())
+                && Objects.equals(previous.getUpdatePriceDate(), current.getUpdatePriceDate());
+    }
+
+    private static final class PendingTicker {
+        private final MarketTickerDO ticker;
+        private final long submittedAtMs;
+
+        private PendingTicker(MarketTickerDO ticker, long submittedAtMs) {
+            this.ticker = ticker;
+            this.submittedAtMs = submittedAtMs;
+        }
+    }
+
+    private static final class FlushedTicker {
+        private final MarketTickerDO ticker;
+        private final long flushedAtMs;
+
+        private FlushedTicker(MarketTickerDO ticker, long flushedAtMs) {
+            this.ticker = ticker;
+            this.flushedAtMs = flushedAtMs;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.aifuturetrade.asyncservice.service.impl;
 
 import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import com.aifuturetrade.asyncservice.service.MarketSymbolStateService;
 import com.aifuturetrade.asyncservice.service.PriceRefreshService;
 import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesClient;
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.KlineCandlestickDataResponseItem;
@@ -33,6 +35,8 @@ import java.util.stream.Collectors;
 public class PriceRefreshServiceImpl implements PriceRefreshService {
     
     private final MarketTickerMapper marketTickerMapper;
+    private final MarketSymbolStateService symbolStateService;
+    private final BinanceClientRegistry binanceClientRegistry;
     private BinanceFuturesClient binanceClient;
     
     @Value("${async.price-refresh.cron:*/5 * * * *}")
@@ -41,25 +45,20 @@ public class PriceRefreshServiceImpl implements PriceRefreshService {
     @Value("${async.price-refresh.max-per-minute:1000}")
     private int maxPerMinute;
     
-    @Value("${binance.api-key}")
-    private String apiKey;
-    
-    @Value("${binance.secret-key}")
-    private String secretKey;
-    
-    @Value("${binance.quote-asset:USDT}")
-    private String quoteAsset;
-    
     private final AtomicBoolean schedulerRunning = new AtomicBoolean(false);
     private ExecutorService executorService;
     
-    public PriceRefreshServiceImpl(MarketTickerMapper marketTickerMapper) {
+    public PriceRefreshServiceImpl(MarketTickerMapper marketTickerMapper,
+                                   MarketSymbolStateService symbolStateService,
+                                   BinanceClientRegistry binanceClientRegistry) {
         this.marketTickerMapper = marketTickerMapper;
+        this.symbolStateService = symbolStateService;
+        this.binanceClientRegistry = binanceClientRegistry;
     }
     
     @PostConstruct
     public void initBinanceClient() {
-        this.binanceClient = new BinanceFuturesClient(apiKey, secretKey, quoteAsset, null, false);
+        this.binanceClient = binanceClientRegistry.getDefaultFuturesClient();
     }
     
     @PostConstruct
@@ -182,6 +181,8 @@ public class PriceRefreshServiceImpl implements PriceRefreshService {
             int updated = marketTickerMapper.updateOpenPrice(symbol, openPrice, updateDate);
             
             if (updated > 0) {
+                // 同步更新ticker流使用的内存状态表，使price_change立即基于新的开盘价计算
+                symbolStateService.updateOpenPrice(symbol, openPrice, updateDate);
                 log.info("[PriceRefresh] ✅ Symbol {}: 成功更新数据库 ({} = {}), 影响行数: {}", 
                         symbol, priceSource, openPrice, updated);
                 return true;
@@ -0,0 +1,198 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.aifuturetrade.asyncservice.market.TickerHistoryReader;
+import com.aifuturetrade.asyncservice.market.TickerHistoryRecord;
+import com.aifuturetrade.asyncservice.market.TickerHistoryStore;
+import com.aifuturetrade.asyncservice.market.TickerHistoryVisitor;
+import com.aifuturetrade.asyncservice.service.TickerHistoryService;
+import com.aifuturetrade.asyncservice.service.TickerHistoryStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * ticker历史存储服务实现
+ *
+ * 写入：转换线程在合并现有状态之前调用record()，每条快照只是对映射内存的几次赋值，
+ * 不涉及数据库和系统调用，满足全市场ticker流的速率。
+ * 查询：每次查询重新映射分区，可与写入并发进行。
+ * 保留：每天清理超过retention-days的日分区。
+ */
+@Slf4j
+@Service
+public class TickerHistoryServiceImpl implements TickerHistoryService {
+
+    @Value("${async.market-ticker.history.enabled:false}")
+    private boolean enabled;
+
+    @Value("${async.market-ticker.history.dir:./data/ticker-history}")
+    private String dir;
+
+    @Value("${async.market-ticker.history.retention-days:7}")
+    private int retentionDays;
+
+    private TickerHistoryStore store;
+    private TickerHistoryReader reader;
+    private final AtomicLong appendFailures = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("[TickerHistoryService] ticker历史存储未启用");
+            return;
+        }
+        Path root = Paths.get(dir).toAbsolutePath();
+        try {
+            store = new TickerHistoryStore(root);
+            reader = new TickerHistoryReader(root);
+            log.info("[TickerHistoryService] ticker历史存储已启用: 目录={}, 保留{}天, 已知symbol {}个",
+                    root, retentionDays, store.getSymbolCount());
+        } catch (IOException e) {
+            enabled = false;
+            log.error("[TickerHistoryService] 打开ticker历史存储失败，已禁用: {}", root, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+            log.info("[TickerHistoryService] ticker历史存储已关闭，本次共追加{}行", store.getRowsAppended());
+        } catch (IOException e) {
+            log.warn("[TickerHistoryService] 关闭ticker历史存储失败", e);
+        }
+        store = null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled && store != null;
+    }
+
+    @Override
+    public synchronized void record(List<MarketTickerDO> tickers) {
+        if (store == null || tickers == null) {
+            return;
+        }
+        for (MarketTickerDO ticker : tickers) {
+            if (ticker.getSymbol() == null || ticker.getEventTime() == null) {
+                continue;
+            }
+            try {
+                store.append(ticker.getSymbol(),
+                        ticker.getEventTime().toInstant(ZoneOffset.UTC).toEpochMilli(),
+                        valueOf(ticker.getLastPrice()),
+                        valueOf(ticker.getHighPrice()),
+                        valueOf(ticker.getLowPrice()),
+                        valueOf(ticker.getBaseVolume()),
+                        valueOf(ticker.getQuoteVolume()),
+                        ticker.getTradeCount() != null ? ticker.getTradeCount() : 0L);
+            } catch (IOException e) {
+                // 只在首次和每1000次失败时打印，避免磁盘故障时刷屏
+                long failures = appendFailures.incrementAndGet();
+                if (failures == 1 || failures % 1000 == 0) {
+                    log.error("[TickerHistoryService] 追加ticker历史失败（累计{}次）: {}", failures, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long scan(String symbol, long fromMs, long toMs, TickerHistoryVisitor visitor) {
+        if (reader == null) {
+            return 0L;
+        }
+        try {
+            return reader.scan(symbol, fromMs, toMs, visitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to scan ticker history", e);
+        }
+    }
+
+    @Override
+    public List<TickerHistoryRecord> query(String symbol, long fromMs, long toMs, int limit) {
+        List<TickerHistoryRecord> records = new ArrayList<>();
+        if (limit <= 0) {
+            return records;
+        }
+        scan(symbol, fromMs, toMs, (s, eventTime, last, high, low, baseVolume, quoteVolume, tradeCount) -> {
+            records.add(new TickerHistoryRecord(s, eventTime, last, high, low, baseVolume, quoteVolume, tradeCount));
+            return records.size() < limit;
+        });
+        return records;
+    }
+
+    /**
+     * 每天清理超过保留天数的日分区
+     */
+    @Scheduled(cron = "${async.market-ticker.history.cleanup-cron:0 10 0 * * *}")
+    public void cleanupExpiredPartitions() {
+        if (reader == null || retentionDays <= 0) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        try {
+            for (String partition : reader.listPartitions()) {
+                if (LocalDate.parse(partition).isBefore(cutoff)) {
+                    deleteRecursively(Paths.get(dir).toAbsolutePath().resolve(partition));
+                    log.info("[TickerHistoryService] 已删除过期ticker历史分区: {}", partition);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[TickerHistoryService] 清理过期ticker历史分区失败", e);
+        }
+    }
+
+    @Override
+    public TickerHistoryStats getStats() {
+        TickerHistoryStats stats = new TickerHistoryStats();
+        stats.setEnabled(isEnabled());
+        stats.setDir(dir);
+        stats.setAppendFailures(appendFailures.get());
+        synchronized (this) {
+            if (store != null) {
+                stats.setRowsAppended(store.getRowsAppended());
+                stats.setCurrentPartitionRows(store.getCurrentPartitionRows());
+                stats.setSymbolCount(store.getSymbolCount());
+            }
+        }
+        try {
+            stats.setPartitions(reader != null ? reader.listPartitions() : List.of());
+        } catch (IOException e) {
+            stats.setPartitions(List.of());
+        }
+        return stats;
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
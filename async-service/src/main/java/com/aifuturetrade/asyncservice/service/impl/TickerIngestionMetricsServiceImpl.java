@@ -0,0 +1,178 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.market.HistogramSnapshot;
+import com.aifuturetrade.asyncservice.market.LongHistogram;
+import com.aifuturetrade.asyncservice.market.TickerIngestionStage;
+import com.aifuturetrade.asyncservice.service.TickerIngestionMetrics;
+import com.aifuturetrade.asyncservice.service.TickerIngestionMetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ticker摄入链路指标服务实现
+ *
+ * 每个阶段维护两份直方图：当前窗口和启动以来累计。窗口每window-seconds秒滚动一次，
+ * 对外只暴露最近一个完整窗口，避免刚开始的窗口样本过少导致百分位抖动。
+ */
+@Slf4j
+@Service
+public class TickerIngestionMetricsServiceImpl implements TickerIngestionMetricsService {
+
+    private static final TickerIngestionStage[] STAGES = TickerIngestionStage.values();
+
+    @Value("${async.market-ticker.metrics.window-seconds:60}")
+    private int windowSeconds = 60;
+
+    private final Map<TickerIngestionStage, LongHistogram> windowHistograms = new EnumMap<>(TickerIngestionStage.class);
+    private final Map<TickerIngestionStage, LongHistogram> cumulativeHistograms = new EnumMap<>(TickerIngestionStage.class);
+    private final LongHistogram windowSymbolsPerMessage = new LongHistogram();
+
+    private final AtomicLong windowMessages = new AtomicLong(0);
+    private final AtomicLong windowSymbols = new AtomicLong(0);
+    private final AtomicLong windowReconnects = new AtomicLong(0);
+    private final AtomicLong totalMessages = new AtomicLong(0);
+    private final AtomicLong totalSymbols = new AtomicLong(0);
+    private final AtomicLong totalReconnects = new AtomicLong(0);
+    private final AtomicLong lastMessageAtMs = new AtomicLong(0);
+
+    private volatile long windowStartedAtMs = System.currentTimeMillis();
+    private volatile CompletedWindow lastWindow = CompletedWindow.EMPTY;
+    private ScheduledExecutorService rotateExecutor;
+
+    public TickerIngestionMetricsServiceImpl() {
+        for (TickerIngestionStage stage : STAGES) {
+            windowHistograms.put(stage, new LongHistogram());
+            cumulativeHistograms.put(stage, new LongHistogram());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        windowStartedAtMs = System.currentTimeMillis();
+        rotateExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "TickerIngestionMetrics-Thread");
+            t.setDaemon(true);
+            return t;
+        });
+        rotateExecutor.scheduleAtFixedRate(this::rotateWindow, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+        log.info("[TickerIngestionMetrics] 摄入链路指标已启用: 窗口={}秒", windowSeconds);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (rotateExecutor != null) {
+            rotateExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void recordStage(TickerIngestionStage stage, long value) {
+        windowHistograms.get(stage).record(value);
+        cumulativeHistograms.get(stage).record(value);
+    }
+
+    @Override
+    public void recordMessage(int symbolCount) {
+        windowMessages.incrementAndGet();
+        windowSymbols.addAndGet(symbolCount);
+        totalMessages.incrementAndGet();
+        totalSymbols.addAndGet(symbolCount);
+        windowSymbolsPerMessage.record(symbolCount);
+        lastMessageAtMs.set(System.currentTimeMillis());
+    }
+
+    @Override
+    public void recordReconnect() {
+        windowReconnects.incrementAndGet();
+        totalReconnects.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void rotateWindow() {
+        try {
+            long now = System.currentTimeMillis();
+            long startedAt = windowStartedAtMs;
+            Map<String, HistogramSnapshot> stages = new LinkedHashMap<>();
+            for (TickerIngestionStage stage : STAGES) {
+                LongHistogram histogram = windowHistograms.get(stage);
+                stages.put(stage.name(), histogram.snapshot(stage.getUnit()));
+                histogram.reset();
+            }
+            HistogramSnapshot symbolsPerMessage = windowSymbolsPerMessage.snapshot("symbols");
+            windowSymbolsPerMessage.reset();
+
+            lastWindow = new CompletedWindow(startedAt, now, windowMessages.getAndSet(0),
+                    windowSymbols.getAndSet(0), windowReconnects.getAndSet(0),
+                    symbolsPerMessage, Collections.unmodifiableMap(stages));
+            windowStartedAtMs = now;
+        } catch (Exception e) {
+            log.warn("[TickerIngestionMetrics] 滚动指标窗口失败", e);
+        }
+    }
+
+    @Override
+    public TickerIngestionMetrics getMetrics() {
+        CompletedWindow window = lastWindow;
+        TickerIngestionMetrics metrics = new TickerIngestionMetrics();
+        metrics.setWindowSeconds(windowSeconds);
+        metrics.setWindowStartAtMs(window.startAtMs);
+        metrics.setWindowEndAtMs(window.endAtMs);
+        double seconds = Math.max(1L, window.endAtMs - window.startAtMs) / 1000.0;
+        metrics.setMessagesPerSecond(window.endAtMs > 0 ? window.messages / seconds : 0.0);
+        metrics.setSymbolsPerSecond(window.endAtMs > 0 ? window.symbols / seconds : 0.0);
+        metrics.setWindowReconnects(window.reconnects);
+        metrics.setSymbolsPerMessage(window.symbolsPerMessage);
+        metrics.setStages(window.stages);
+
+        Map<String, HistogramSnapshot> cumulative = new LinkedHashMap<>();
+        for (TickerIngestionStage stage : STAGES) {
+            cumulative.put(stage.name(), cumulativeHistograms.get(stage).snapshot(stage.getUnit()));
+        }
+        metrics.setCumulativeStages(cumulative);
+        metrics.setTotalMessages(totalMessages.get());
+        metrics.setTotalSymbols(totalSymbols.get());
+        metrics.setTotalReconnects(totalReconnects.get());
+        metrics.setLastMessageAtMs(lastMessageAtMs.get());
+        return metrics;
+    }
+
+    /**
+     * 已结束窗口的不可变快照
+     */
+    private static final class CompletedWindow {
+
+        static final CompletedWindow EMPTY = new CompletedWindow(0L, 0L, 0L, 0L, 0L,
+                new HistogramSnapshot(), Collections.emptyMap());
+
+        final long startAtMs;
+        final long endAtMs;
+        final long messages;
+        final long symbols;
+        final long reconnects;
+        final HistogramSnapshot symbolsPerMessage;
+        final Map<String, HistogramSnapshot> stages;
+
+        CompletedWindow(long startAtMs, long endAtMs, long messages, long symbols, long reconnects,
+                        HistogramSnapshot symbolsPerMessage, Map<String, HistogramSnapshot> stages) {
+            this.startAtMs = startAtMs;
+            this.endAtMs = endAtMs;
+            this.messages = messages;
+            this.symbols = symbols;
+            this.reconnects = reconnects;
+            this.symbolsPerMessage = symbolsPerMessage;
+            this.stages = stages;
+        }
+    }
+}
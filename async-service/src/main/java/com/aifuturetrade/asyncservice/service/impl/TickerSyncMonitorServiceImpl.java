@@ -1,5 +1,9 @@
 package com.aifuturetrade.asyncservice.service.impl;
 
+import com.aifuturetrade.asyncservice.market.HistogramSnapshot;
+import com.aifuturetrade.asyncservice.market.TickerIngestionStage;
+import com.aifuturetrade.asyncservice.service.TickerIngestionMetrics;
+import com.aifuturetrade.asyncservice.service.TickerIngestionMetricsService;
 import com.aifuturetrade.asyncservice.service.TickerSyncMonitorService;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -23,6 +27,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Ticker同步监控服务实现类
+ *
+ * 两类告警：
+ * - TICKER_SYNC_TIMEOUT：超过ticker-sync-timeout-minutes未写库（trade-monitor会重启容器）
+ * - TICKER_SYNC_LAG：连续多个指标窗口的交易所到接收延迟p99超过阈值（只告警，不重启）
  */
 @Slf4j
 @Service
@@ -40,19 +48,29 @@ public class TickerSyncMonitorServiceImpl implements TickerSyncMonitorService {
     @Value("${async.service.container-name:aifuturetrade-async-service}")
     private String containerName;
 
+    @Value("${async.monitor.ticker-lag-threshold-ms:10000}")
+    private long tickerLagThresholdMs = 10000;
+
+    @Value("${async.monitor.ticker-lag-consecutive-windows:3}")
+    private int tickerLagConsecutiveWindows = 3;
+
     private final RestTemplate restTemplate;
+    private final TickerIngestionMetricsService ingestionMetrics;
+    private long lastEvaluatedWindowEndAtMs = 0L;
+    private int laggingWindows = 0;
     private final AtomicReference<LocalDateTime> lastTickerSyncTime = new AtomicReference<>();
     private final AtomicBoolean isMonitoring = new AtomicBoolean(false);
     private ScheduledExecutorService scheduler;
 
-    public TickerSyncMonitorServiceImpl(RestTemplate restTemplate) {
+    public TickerSyncMonitorServiceImpl(RestTemplate restTemplate, TickerIngestionMetricsService ingestionMetrics) {
         this.restTemplate = restTemplate;
+        this.ingestionMetrics = ingestionMetrics;
     }
 
     @PostConstruct
     public void init() {
-        log.info("Ticker同步监控服务初始化: timeout={}分钟, checkInterval={}秒",
-                tickerSyncTimeoutMinutes, checkIntervalSeconds);
+        log.info("Ticker同步监控服务初始化: timeout={}分钟, checkInterval={}秒, 延迟阈值={}ms（连续{}个窗口）",
+                tickerSyncTimeoutMinutes, checkIntervalSeconds, tickerLagThresholdMs, tickerLagConsecutiveWindows);
     }
 
     @Override
@@ -137,18 +155,87 @@ public class TickerSyncMonitorServiceImpl implements TickerSyncMonitorService {
             } else {
                 log.debug("Ticker同步正常: 距离上次同步{}分钟", minutesSinceLastSync);
             }
+
+            checkTickerLag();
         } catch (Exception e) {
             log.error("检查ticker同步状态失败", e);
         }
     }
 
+    /**
+     * 检查最近一个完整指标窗口的交易所到接收延迟，每个窗口只评估一次
+     */
+    void checkTickerLag() {
+        TickerIngestionMetrics metrics = ingestionMetrics.getMetrics();
+        if (metrics.getWindowEndAtMs() <= lastEvaluatedWindowEndAtMs) {
+            return;
+        }
+        lastEvaluatedWindowEndAtMs = metrics.getWindowEndAtMs();
+
+        HistogramSnapshot lag = metrics.getStages().get(TickerIngestionStage.EXCHANGE_TO_RECEIVE.name());
+        if (lag == null || lag.getCount() == 0) {
+            // 窗口内没有消息：由同步超时告警覆盖
+            return;
+        }
+        if (lag.getP99() < tickerLagThresholdMs) {
+            if (laggingWindows > 0) {
+                log.info("Ticker延迟已恢复: p99={}ms", lag.getP99());
+            }
+            laggingWindows = 0;
+            return;
+        }
+
+        laggingWindows++;
+        log.warn("Ticker延迟超过阈值: p99={}ms, 阈值={}ms（连续{}个窗口）",
+                lag.getP99(), tickerLagThresholdMs, laggingWindows);
+        if (laggingWindows >= tickerLagConsecutiveWindows) {
+            sendLagAlertToTradeMonitor(metrics, lag);
+            // 重置计数，避免每个窗口重复告警
+            laggingWindows = 0;
+        }
+    }
+
+    /**
+     * 发送延迟告警到trade-monitor
+     */
+    private void sendLagAlertToTradeMonitor(TickerIngestionMetrics metrics, HistogramSnapshot lag) {
+        HistogramSnapshot upsert = metrics.getStages().get(TickerIngestionStage.UPSERT.name());
+        long upsertP99Ms = upsert != null ? upsert.getP99() / 1000 : 0L;
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("eventType", "TICKER_SYNC_LAG");
+        request.put("serviceName", containerName);
+        request.put("severity", "WARNING");
+        request.put("title", "Ticker同步延迟告警");
+        request.put("message", String.format(
+                "**服务**: %s\n\n" +
+                "**问题**: 交易所事件到本地接收的延迟p99为%dms，连续%d个窗口超过阈值%dms\n\n" +
+                "**吞吐**: %.2f条消息/秒，%.1f个ticker/秒\n\n" +
+                "**写库耗时p99**: %dms\n\n" +
+                "**窗口内重连**: %d次",
+                containerName, lag.getP99(), tickerLagConsecutiveWindows, tickerLagThresholdMs,
+                metrics.getMessagesPerSecond(), metrics.getSymbolsPerSecond(), upsertP99Ms,
+                metrics.getWindowReconnects()
+        ));
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("lagP50Ms", lag.getP50());
+        metadata.put("lagP99Ms", lag.getP99());
+        metadata.put("lagMaxMs", lag.getMax());
+        metadata.put("lagThresholdMs", tickerLagThresholdMs);
+        metadata.put("messagesPerSecond", metrics.getMessagesPerSecond());
+        metadata.put("upsertP99Ms", upsertP99Ms);
+        metadata.put("windowReconnects", metrics.getWindowReconnects());
+        request.put("metadata", metadata);
+
+        postEvent(request);
+    }
+
     /**
      * 发送告警到trade-monitor
      */
     private void sendAlertToTradeMonitor(long minutesSinceLastSync) {
         try {
-            String url = tradeMonitorBaseUrl + "/api/events/notify";
-
             Map<String, Object> request = new HashMap<>();
             request.put("eventType", "TICKER_SYNC_TIMEOUT");
             request.put("serviceName", containerName);
@@ -168,6 +255,16 @@ public class TickerSyncMonitorServiceImpl implements TickerSyncMonitorService {
             metadata.put("timeoutThreshold", tickerSyncTimeoutMinutes);
             request.put("metadata", metadata);
 
+            postEvent(request);
+        } catch (Exception e) {
+            log.error("发送告警到trade-monitor异常", e);
+        }
+    }
+
+    private void postEvent(Map<String, Object> request) {
+        try {
+            String url = tradeMonitorBaseUrl + "/api/events/notify";
+
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
 
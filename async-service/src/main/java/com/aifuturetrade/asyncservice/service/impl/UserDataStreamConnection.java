@@ -0,0 +1,108 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.binance.connector.client.common.websocket.configuration.WebSocketClientConfiguration;
+import com.binance.connector.client.common.websocket.service.StreamBlockingQueue;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.DerivativesTradingUsdsFuturesWebSocketStreamsUtil;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.api.DerivativesTradingUsdsFuturesWebSocketStreams;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.util.function.Consumer;
+
+/**
+ * 一个币安账户的用户数据流WebSocket连接
+ *
+ * 每条连接持有独立的 Jetty WebSocketClient 和原始报文队列，按listenKey订阅；
+ * 报文在UserDataStream-Thread上按事件类型（e字段）反序列化。
+ */
+@Slf4j
+public class UserDataStreamConnection {
+
+    private final String fingerprint;
+    private final String listenKey;
+    private final WebSocketClient webSocketClient;
+    private final StreamBlockingQueue<String> queue;
+    private final long openedAtMs;
+    private volatile long lastMessageAtMs = 0;
+    private volatile boolean failed = false;
+    private volatile boolean closed = false;
+
+    private UserDataStreamConnection(String fingerprint, String listenKey, WebSocketClient webSocketClient,
+                                     StreamBlockingQueue<String> queue) {
+        this.fingerprint = fingerprint;
+        this.listenKey = listenKey;
+        this.webSocketClient = webSocketClient;
+        this.queue = queue;
+        this.openedAtMs = System.currentTimeMillis();
+    }
+
+    /**
+     * 建立连接并订阅listenKey对应的用户数据流（阻塞直到订阅完成）
+     *
+     * @param fingerprint 账户凭证指纹（用于日志）
+     * @param listenKey 用户数据流listenKey
+     * @param maxMessageSize 最大消息大小（字节）
+     * @param onError SDK onWebSocketError 回调
+     * @return 已订阅的连接
+     */
+    public static UserDataStreamConnection open(String fingerprint, String listenKey, long maxMessageSize,
+                                                Consumer<Throwable> onError) {
+        WebSocketClientConfiguration clientConfiguration =
+                DerivativesTradingUsdsFuturesWebSocketStreamsUtil.getClientConfiguration();
+        clientConfiguration.setMessageMaxSize(maxMessageSize);
+        WebSocketClient webSocketClient = new WebSocketClient();
+        MarketTickerStreamConnectionWrapper connectionWrapper =
+                new MarketTickerStreamConnectionWrapper(clientConfiguration, webSocketClient, onError);
+        try {
+            DerivativesTradingUsdsFuturesWebSocketStreams api =
+                    new DerivativesTradingUsdsFuturesWebSocketStreams(connectionWrapper);
+            StreamBlockingQueue<String> queue = api.userData(listenKey).getInnerQueue();
+            return new UserDataStreamConnection(fingerprint, listenKey, webSocketClient, queue);
+        } catch (RuntimeException e) {
+            stopClientNoThrow(fingerprint, webSocketClient);
+            throw e;
+        }
+    }
+
+    /**
+     * 非阻塞读取一条原始报文
+     */
+    public String poll() {
+        String payload = queue.poll();
+        if (payload != null) {
+            lastMessageAtMs = System.currentTimeMillis();
+        }
+        return payload;
+    }
+
+    /**
+     * 关闭连接（停止本连接的 WebSocketClient），不抛出异常
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stopClientNoThrow(fingerprint, webSocketClient);
+    }
+
+    private static void stopClientNoThrow(String fingerprint, WebSocketClient webSocketClient) {
+        try {
+            webSocketClient.stop();
+            log.info("[UserDataStreamConnection] 已关闭账户{}的用户数据流连接", fingerprint);
+        } catch (Exception e) {
+            log.warn("[UserDataStreamConnection] 关闭账户{}的用户数据流连接失败（忽略）", fingerprint, e);
+        }
+    }
+
+    public void markFailed() {
+        this.failed = true;
+    }
+
+    public String getFingerprint() { return fingerprint; }
+    public String getListenKey() { return listenKey; }
+    public long getOpenedAtMs() { return openedAtMs; }
+    public long getLastMessageAtMs() { return lastMessageAtMs; }
+    public boolean isFailed() { return failed; }
+    public boolean isClosed() { return closed; }
+}
@@ -0,0 +1,525 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesOrderClient;
+import com.aifuturetrade.asyncservice.dao.ActiveAlgoOrderSet;
+import com.aifuturetrade.asyncservice.dao.mapper.ModelMapper;
+import com.aifuturetrade.asyncservice.entity.ModelDO;
+import com.aifuturetrade.asyncservice.service.AlgoOrderService;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import com.aifuturetrade.asyncservice.service.UserDataStreamService;
+import com.aifuturetrade.asyncservice.service.UserDataStreamStats;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AlgoUpdate;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AlgoUpdateO;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.Listenkeyexpired;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.OrderTradeUpdate;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.OrderTradeUpdateO;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.TradeLite;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.UserDataStreamEventsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 用户数据流服务实现
+ *
+ * - UserDataStream-Maintenance线程：按sync-interval-seconds从内存中的ActiveAlgoOrderSet发现有new状态条件单的real模型，
+ *   模型只在首次出现时查询一次，凭证变化由isTracking收到的最新模型更新，按凭证指纹分组，
+ *   为每个账户创建listenKey并建立连接；连接建立（含重连）后REST对账一次，之后该账户的模型标记为已跟踪；
+ *   每keepalive-minutes延长一次listenKey；连接断开、listenKey过期或延期失败时按退避重连
+ * - UserDataStream-Thread线程：轮询各连接的原始报文并按事件类型处理
+ *   - ALGO_UPDATE：条件单进入终态时更新algo_order（成交时构建trades并更新strategy_decisions）；
+ *     已触发但普通订单尚未成交时记录普通订单ID，等待其ORDER_TRADE_UPDATE
+ *   - ORDER_TRADE_UPDATE：上述普通订单FILLED时按成交均价和累计成交量完成条件单
+ *   - listenKeyExpired：标记连接失败，由维护线程重建
+ * 断线期间isTracking返回false，条件单回到AlgoOrderServiceImpl的定时REST轮询。
+ * 关闭时只断开连接，不删除listenKey（同一API Key的listenKey可能被其他进程使用）。
+ */
+@Slf4j
+@Service
+public class UserDataStreamServiceImpl implements UserDataStreamService {
+
+    private static final long DISPATCH_IDLE_SLEEP_MS = 50;
+
+    /**
+     * 单个连接每轮最多处理的报文数，避免一个繁忙账户饿死其他账户
+     */
+    private static final int MAX_MESSAGES_PER_PASS = 200;
+
+    @Autowired
+    private ActiveAlgoOrderSet activeAlgoOrderSet;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private BinanceClientRegistry binanceClientRegistry;
+
+    // AlgoOrderServiceImpl依赖本服务判断是否跳过轮询，这里延迟注入避免循环依赖
+    @Lazy
+    @Autowired
+    private AlgoOrderService algoOrderService;
+
+    @Value("${async.user-data-stream.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 发现账户、检查连接的周期（秒）
+     */
+    @Value("${async.user-data-stream.sync-interval-seconds:10}")
+    private long syncIntervalSeconds;
+
+    /**
+     * listenKey延期周期（分钟），币安listenKey有效期60分钟
+     */
+    @Value("${async.user-data-stream.keepalive-minutes:30}")
+    private long keepaliveMinutes;
+
+    /**
+     * 建连失败后的重试间隔（秒）
+     */
+    @Value("${async.user-data-stream.reconnect-backoff-seconds:30}")
+    private long reconnectBackoffSeconds;
+
+    @Value("${async.user-data-stream.max-message-size:65536}")
+    private long maxMessageSize;
+
+    private ScheduledExecutorService maintenanceExecutor;
+    private ExecutorService dispatchExecutor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // 会话由维护线程增删，分发线程只读遍历
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // 已完成对账、由推送事件跟踪的模型ID -> 凭证指纹
+    private final ConcurrentHashMap<String, String> trackedModels = new ConcurrentHashMap<>();
+    // 有new状态条件单的模型ID -> 最近一次读到的模型，避免每个周期逐个查询model表
+    private final ConcurrentHashMap<String, ModelDO> knownModels = new ConcurrentHashMap<>();
+
+    private final AtomicLong eventsReceived = new AtomicLong(0);
+    private final AtomicLong algoUpdates = new AtomicLong(0);
+    private final AtomicLong orderTradeUpdates = new AtomicLong(0);
+    private final AtomicLong tradeLites = new AtomicLong(0);
+    private final AtomicLong appliedUpdates = new AtomicLong(0);
+    private final AtomicLong parseFailures = new AtomicLong(0);
+    private final AtomicLong connects = new AtomicLong(0);
+    private final AtomicLong reconciliations = new AtomicLong(0);
+    private final AtomicLong keepaliveFailures = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("[UserDataStream] 用户数据流已禁用，real模型条件单使用REST轮询");
+            return;
+        }
+        running.set(true);
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "UserDataStream-Maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "UserDataStream-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenanceExecutor.scheduleWithFixedDelay(this::maintain, syncIntervalSeconds, syncIntervalSeconds,
+                TimeUnit.SECONDS);
+        dispatchExecutor.submit(this::dispatchLoop);
+        log.info("[UserDataStream] 初始化完成: syncIntervalSeconds={}, keepaliveMinutes={}",
+                syncIntervalSeconds, keepaliveMinutes);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running.set(false);
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdownNow();
+        }
+        for (Session session : sessions.values()) {
+            session.closeConnection();
+        }
+        sessions.clear();
+        trackedModels.clear();
+        knownModels.clear();
+    }
+
+    @Override
+    public boolean isTracking(ModelDO model) {
+        if (!enabled || model == null || model.getId() == null) {
+            return false;
+        }
+        // 调用方每个周期从数据库读取模型，顺带刷新缓存，凭证变更后下一次发现即按新指纹分组
+        knownModels.replace(model.getId(), model);
+        String fingerprint = trackedModels.get(model.getId());
+        if (fingerprint == null) {
+            return false;
+        }
+        Session session = sessions.get(fingerprint);
+        // 模型凭证已变更时新账户的流尚未对账，回到轮询
+        return session != null && session.isConnected()
+                && fingerprint.equals(binanceClientRegistry.getCredentialFingerprint(model));
+    }
+
+    @Override
+    public UserDataStreamStats getStats() {
+        UserDataStreamStats stats = new UserDataStreamStats();
+        stats.setEnabled(enabled);
+        stats.setSessionCount(sessions.size());
+        stats.setConnectedCount((int) sessions.values().stream().filter(Session::isConnected).count());
+        stats.setTrackedModelCount(trackedModels.size());
+        stats.setEventsReceived(eventsReceived.get());
+        stats.setAlgoUpdates(algoUpdates.get());
+        stats.setOrderTradeUpdates(orderTradeUpdates.get());
+        stats.setTradeLites(tradeLites.get());
+        stats.setAppliedUpdates(appliedUpdates.get());
+        stats.setParseFailures(parseFailures.get());
+        stats.setConnects(connects.get());
+        stats.setReconciliations(reconciliations.get());
+        stats.setKeepaliveFailures(keepaliveFailures.get());
+        return stats;
+    }
+
+    /**
+     * 同步账户会话：建连/重连、对账新加入的模型、延期listenKey、关闭不再需要的连接（UserDataStream-Maintenance）
+     */
+    private void maintain() {
+        try {
+            Map<String, List<ModelDO>> modelsByFingerprint = discoverAccounts();
+
+            sessions.entrySet().removeIf(entry -> {
+                if (modelsByFingerprint.containsKey(entry.getKey())) {
+                    return false;
+                }
+                entry.getValue().closeConnection();
+                trackedModels.values().removeIf(entry.getKey()::equals);
+                log.info("[UserDataStream] 账户{}已没有new状态条件单，关闭用户数据流", entry.getKey());
+                return true;
+            });
+            Set<String> activeModelIds = new HashSet<>();
+            modelsByFingerprint.values().forEach(models -> models.forEach(model -> activeModelIds.add(model.getId())));
+            trackedModels.keySet().retainAll(activeModelIds);
+
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, List<ModelDO>> entry : modelsByFingerprint.entrySet()) {
+                Session session = sessions.computeIfAbsent(entry.getKey(), Session::new);
+                List<ModelDO> models = entry.getValue();
+                if (!session.isConnected()) {
+                    if (now >= session.nextConnectAtMs) {
+                        connect(session, models);
+                    }
+                    continue;
+                }
+                reconcileNewModels(session, models);
+                keepalive(session, models.get(0), now);
+            }
+        } catch (Exception e) {
+            log.error("[UserDataStream] 维护用户数据流失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从内存中的new状态条件单集合发现real模型，按凭证指纹分组
+     * 只有新出现的模型查询model表；不再有new状态条件单的模型从缓存移除
+     */
+    Map<String, List<ModelDO>> discoverAccounts() {
+        Set<String> modelIds = activeAlgoOrderSet.modelIds();
+        knownModels.keySet().retainAll(modelIds);
+        for (String modelId : modelIds) {
+            if (!knownModels.containsKey(modelId)) {
+                ModelDO model = modelMapper.selectById(modelId);
+                if (model != null) {
+                    knownModels.put(modelId, model);
+                }
+            }
+        }
+
+        Map<String, List<ModelDO>> result = new HashMap<>();
+        for (ModelDO model : knownModels.values()) {
+            if (Boolean.TRUE.equals(model.getIsVirtual())) {
+                continue;
+            }
+            result.computeIfAbsent(binanceClientRegistry.getCredentialFingerprint(model), k -> new ArrayList<>())
+                    .add(model);
+        }
+        return result;
+    }
+
+    /**
+     * 建立（或重建）账户连接，成功后对账该账户下的所有模型
+     */
+    private void connect(Session session, List<ModelDO> models) {
+        String fingerprint = session.fingerprint;
+        session.closeConnection();
+        trackedModels.values().removeIf(fingerprint::equals);
+        try {
+            BinanceFuturesOrderClient orderClient = binanceClientRegistry.getOrderClient(models.get(0));
+            String listenKey = orderClient != null ? orderClient.startUserDataStream() : null;
+            if (listenKey == null) {
+                throw new IllegalStateException("创建listenKey失败");
+            }
+            AtomicReference<UserDataStreamConnection> holder = new AtomicReference<>();
+            UserDataStreamConnection connection = UserDataStreamConnection.open(fingerprint, listenKey,
+                    maxMessageSize, cause -> {
+                        UserDataStreamConnection failed = holder.get();
+                        if (failed != null) {
+                            failed.markFailed();
+                        }
+                        log.warn("[UserDataStream] 账户{}的用户数据流异常: {}", fingerprint,
+                                cause != null ? cause.getMessage() : null);
+                    });
+            holder.set(connection);
+            session.connection = connection;
+            session.lastKeepaliveAtMs = System.currentTimeMillis();
+            connects.incrementAndGet();
+            log.info("[UserDataStream] 账户{}的用户数据流已连接，开始对账{}个模型", fingerprint, models.size());
+
+            // 先连接后对账：对账期间到达的事件已在队列中，不会遗漏
+            reconcileNewModels(session, models);
+        } catch (Exception e) {
+            session.closeConnection();
+            session.nextConnectAtMs = System.currentTimeMillis() + reconnectBackoffSeconds * 1000L;
+            log.warn("[UserDataStream] 账户{}的用户数据流连接失败，{}秒后重试: {}", fingerprint,
+                    reconnectBackoffSeconds, e.getMessage());
+        }
+    }
+
+    /**
+     * REST对账尚未被跟踪的模型，完成后标记为已跟踪
+     */
+    private void reconcileNewModels(Session session, List<ModelDO> models) {
+        List<String> modelIds = new ArrayList<>();
+        for (ModelDO model : models) {
+            if (!session.fingerprint.equals(trackedModels.get(model.getId()))) {
+                modelIds.add(model.getId());
+            }
+        }
+        if (modelIds.isEmpty()) {
+            return;
+        }
+        algoOrderService.reconcileRealModelAlgoOrders(modelIds);
+        reconciliations.incrementAndGet();
+        for (String modelId : modelIds) {
+            trackedModels.put(modelId, session.fingerprint);
+        }
+    }
+
+    private void keepalive(Session session, ModelDO model, long now) {
+        if (now - session.lastKeepaliveAtMs < keepaliveMinutes * 60_000L) {
+            return;
+        }
+        BinanceFuturesOrderClient orderClient = binanceClientRegistry.getOrderClient(model);
+        if (orderClient != null && orderClient.keepaliveUserDataStream()) {
+            session.lastKeepaliveAtMs = now;
+            return;
+        }
+        keepaliveFailures.incrementAndGet();
+        log.warn("[UserDataStream] 账户{}的listenKey延期失败，重建连接", session.fingerprint);
+        session.markFailed();
+    }
+
+    /**
+     * 轮询所有连接的报文（UserDataStream-Thread）
+     */
+    private void dispatchLoop() {
+        while (running.get()) {
+            boolean received = false;
+            for (Session session : sessions.values()) {
+                UserDataStreamConnection connection = session.connection;
+                if (connection == null || connection.isClosed()) {
+                    continue;
+                }
+                for (int i = 0; i < MAX_MESSAGES_PER_PASS; i++) {
+                    String payload = connection.poll();
+                    if (payload == null) {
+                        break;
+                    }
+                    received = true;
+                    handleEvent(session, payload);
+                }
+            }
+            if (!received) {
+                try {
+                    Thread.sleep(DISPATCH_IDLE_SLEEP_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理一条用户数据流报文
+     */
+    void handleEvent(Session session, String payload) {
+        eventsReceived.incrementAndGet();
+        Object event;
+        try {
+            event = UserDataStreamEventsResponse.fromJson(payload).getActualInstance();
+        } catch (Exception e) {
+            parseFailures.incrementAndGet();
+            log.debug("[UserDataStream] 无法解析的报文: {}", payload);
+            return;
+        }
+        try {
+            if (event instanceof AlgoUpdate algoUpdate) {
+                algoUpdates.incrementAndGet();
+                onAlgoUpdate(session, algoUpdate.getoLowerCase());
+            } else if (event instanceof OrderTradeUpdate orderTradeUpdate) {
+                orderTradeUpdates.incrementAndGet();
+                onOrderTradeUpdate(session, orderTradeUpdate.getoLowerCase());
+            } else if (event instanceof TradeLite) {
+                tradeLites.incrementAndGet();
+            } else if (event instanceof Listenkeyexpired) {
+                log.warn("[UserDataStream] 账户{}的listenKey已过期，重建连接", session.fingerprint);
+                session.markFailed();
+            }
+        } catch (Exception e) {
+            log.error("[UserDataStream] 处理用户数据流事件失败: account={}, error={}", session.fingerprint,
+                    e.getMessage(), e);
+        }
+    }
+
+    private void onAlgoUpdate(Session session, AlgoUpdateO update) {
+        if (update == null || update.getAid() == null) {
+            return;
+        }
+        String status = update.getX();
+        if (status == null || "NEW".equalsIgnoreCase(status)) {
+            return;
+        }
+        Long actualOrderId = parseLong(update.getAi());
+        String actualPrice = positiveOrNull(update.getAp());
+        boolean triggering = "TRIGGERING".equalsIgnoreCase(status) || "TRIGGERED".equalsIgnoreCase(status);
+        if (triggering && actualPrice == null) {
+            // 已触发但普通订单尚未成交，成交结果由该订单的ORDER_TRADE_UPDATE或后续FINISHED事件给出
+            if (actualOrderId != null) {
+                session.pendingFills.put(actualOrderId, update.getAid());
+            }
+            return;
+        }
+        if (actualOrderId != null) {
+            session.pendingFills.remove(actualOrderId);
+        }
+        // FINISHED且ap/aq为0表示普通订单被撤销或过期，价格和数量都按未提供传递，由AlgoOrderService记为CANCELLED
+        apply(update.getAid(), status, actualPrice, positiveOrNull(update.getAq()), actualOrderId);
+    }
+
+    private void onOrderTradeUpdate(Session session, OrderTradeUpdateO update) {
+        if (update == null || update.getiLowerCase() == null) {
+            return;
+        }
+        Long orderId = update.getiLowerCase();
+        Long algoId = session.pendingFills.get(orderId);
+        if (algoId == null) {
+            return;
+        }
+        String orderStatus = update.getX();
+        if ("FILLED".equalsIgnoreCase(orderStatus)) {
+            session.pendingFills.remove(orderId);
+            apply(algoId, "FINISHED", positiveOrNull(update.getAp()), positiveOrNull(update.getzLowerCase()), orderId);
+        } else if ("CANCELED".equalsIgnoreCase(orderStatus) || "EXPIRED".equalsIgnoreCase(orderStatus)
+                || "REJECTED".equalsIgnoreCase(orderStatus)) {
+            // 普通订单未成交，条件单的最终状态由ALGO_UPDATE给出
+            session.pendingFills.remove(orderId);
+        }
+    }
+
+    private void apply(Long algoId, String status, String actualPrice, String executedQuantity, Long actualOrderId) {
+        if (algoOrderService.applyRealAlgoOrderUpdate(algoId, status, actualPrice, executedQuantity, actualOrderId)) {
+            appliedUpdates.incrementAndGet();
+        }
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 币安对未成交的价格/数量推送"0"，按未提供处理
+     */
+    private static String positiveOrNull(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value) > 0 ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一个币安账户（API凭证）的用户数据流会话
+     */
+    static final class Session {
+
+        private static final int MAX_PENDING_FILLS = 1000;
+
+        private final String fingerprint;
+        private volatile UserDataStreamConnection connection;
+        // 以下字段仅由维护线程访问
+        private long lastKeepaliveAtMs = 0;
+        private long nextConnectAtMs = 0;
+        // 以下字段仅由分发线程访问：已触发条件单的普通订单ID -> algoId
+        private final Map<Long, Long> pendingFills = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > MAX_PENDING_FILLS;
+            }
+        };
+
+        Session(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isConnected() {
+            UserDataStreamConnection current = connection;
+            return current != null && !current.isFailed() && !current.isClosed();
+        }
+
+        private void markFailed() {
+            UserDataStreamConnection current = connection;
+            if (current != null) {
+                current.markFailed();
+            }
+        }
+
+        private void closeConnection() {
+            UserDataStreamConnection current = connection;
+            connection = null;
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
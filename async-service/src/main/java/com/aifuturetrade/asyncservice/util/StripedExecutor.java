@@ -0,0 +1,124 @@
+package com.aifuturetrade.asyncservice.util;
+
+import com.aifuturetrade.asyncservice.market.HistogramSnapshot;
+import com.aifuturetrade.asyncservice.market.LongHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按key分条带的执行器
+ *
+ * 固定数量的单线程条带，同一个key（如modelId）的任务总是落在同一条带上并按提交顺序执行，
+ * 不同key的任务分散到不同条带并行执行；条带数即最大并发数。
+ * 一个账户的REST调用变慢只阻塞它所在的条带，一个周期的耗时取决于最慢的条带而不是所有账户之和。
+ *
+ * 每个任务从开始执行到结束的耗时（毫秒）记录到直方图，调用方按周期取快照。
+ */
+@Slf4j
+public class StripedExecutor {
+
+    private final String name;
+    private final ExecutorService[] stripes;
+    private final LongHistogram taskLatencyMs = new LongHistogram();
+
+    /**
+     * @param name 名称（线程名前缀及日志）
+     * @param stripeCount 条带数（最大并发数），小于1时按1处理
+     */
+    public StripedExecutor(String name, int stripeCount) {
+        this.name = name;
+        this.stripes = new ExecutorService[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            String threadName = name + "-" + i;
+            stripes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * 在key所属条带上执行任务
+     *
+     * @param key 条带key，相同key的任务串行执行
+     * @param task 任务
+     * @return 任务结果
+     */
+    public <T> CompletableFuture<T> submit(Object key, Supplier<T> task) {
+        ExecutorService stripe = stripes[Math.floorMod(Objects.hashCode(key), stripes.length)];
+        return CompletableFuture.supplyAsync(() -> {
+            long startNs = System.nanoTime();
+            try {
+                return task.get();
+            } finally {
+                taskLatencyMs.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+            }
+        }, stripe);
+    }
+
+    /**
+     * 按key把一批元素分发到各条带执行并等待全部完成
+     *
+     * @param items 待处理元素，同一key的元素按列表顺序执行
+     * @param keyFn 元素 -> 条带key
+     * @param action 处理函数
+     * @return 与items一一对应的处理结果，抛出异常的元素对应null
+     */
+    public <T, R> List<R> invokeAll(List<T> items, Function<T, ?> keyFn, Function<T, R> action) {
+        List<CompletableFuture<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(submit(keyFn.apply(item), () -> action.apply(item)));
+        }
+        List<R> results = new ArrayList<>(items.size());
+        for (CompletableFuture<R> future : futures) {
+            results.add(future.handle((result, error) -> {
+                if (error != null) {
+                    log.error("[StripedExecutor] {} 任务执行异常: {}", name, error.getMessage(), error);
+                    return null;
+                }
+                return result;
+            }).join());
+        }
+        return results;
+    }
+
+    /**
+     * 取任务耗时快照并清空（用于按周期统计）
+     */
+    public HistogramSnapshot drainLatencySnapshot() {
+        HistogramSnapshot snapshot = taskLatencyMs.snapshot("ms");
+        taskLatencyMs.reset();
+        return snapshot;
+    }
+
+    /**
+     * 停止所有条带，等待正在执行的任务结束
+     */
+    public void shutdown(long timeoutMs) {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        try {
+            for (ExecutorService stripe : stripes) {
+                stripe.awaitTermination(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
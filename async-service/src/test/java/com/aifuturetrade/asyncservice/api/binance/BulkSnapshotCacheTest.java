@@ -0,0 +1,118 @@
+package com.aifuturetrade.asyncservice.api.binance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 全市场行情快照缓存测试
+ */
+class BulkSnapshotCacheTest {
+
+    @Test
+    void testReusesSnapshotWithinTtl() {
+        BulkSnapshotCache<Double> cache = new BulkSnapshotCache<>(60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertFalse(cache.isFresh());
+        cache.get(() -> Map.of("BTCUSDT", 1.0 + loads.incrementAndGet()));
+        Map<String, Double> second = cache.get(() -> Map.of("BTCUSDT", 1.0 + loads.incrementAndGet()));
+
+        assertTrue(cache.isFresh());
+        assertEquals(1, loads.get());
+        assertEquals(2.0, second.get("BTCUSDT"));
+    }
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        BulkSnapshotCache<Double> cache = new BulkSnapshotCache<>(60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Map<String, Double>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(() -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                await(release);
+                return Map.of("ETHUSDT", 2000.0);
+            })));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get(() -> {
+                    loads.incrementAndGet();
+                    return Map.of();
+                })));
+            }
+            // 等待其余调用方进入等待状态后再放行上游请求
+            TimeUnit.MILLISECONDS.sleep(100);
+            release.countDown();
+
+            for (Future<Map<String, Double>> result : results) {
+                assertEquals(2000.0, result.get(5, TimeUnit.SECONDS).get("ETHUSDT"));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        BulkSnapshotCache<Double> cache = new BulkSnapshotCache<>(60_000);
+
+        assertThrows(IllegalStateException.class, () -> cache.get(() -> {
+            throw new IllegalStateException("upstream");
+        }));
+        assertFalse(cache.isFresh());
+        assertEquals(1.0, cache.get(() -> Map.of("BTCUSDT", 1.0)).get("BTCUSDT"));
+    }
+
+    @Test
+    void testErrorInLoaderReleasesWaiters() throws Exception {
+        BulkSnapshotCache<Double> cache = new BulkSnapshotCache<>(60_000);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, Double>> owner = executor.submit(() -> cache.get(() -> {
+                loaderStarted.countDown();
+                await(release);
+                throw new StackOverflowError("loader");
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<Map<String, Double>> waiter = executor.submit(() -> cache.get(Map::of));
+            TimeUnit.MILLISECONDS.sleep(100);
+            release.countDown();
+
+            // 等待方不能因为loader抛出Error而永远阻塞
+            ExecutionException ownerFailure = assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS));
+            ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, ownerFailure.getCause());
+            assertInstanceOf(StackOverflowError.class, waiterFailure.getCause());
+            assertEquals(1.0, cache.get(() -> Map.of("BTCUSDT", 1.0)).get("BTCUSDT"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
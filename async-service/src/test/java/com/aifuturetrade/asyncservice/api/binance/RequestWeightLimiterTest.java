@@ -0,0 +1,153 @@
+package com.aifuturetrade.asyncservice.api.binance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 币安REST请求权重限流器测试
+ */
+class RequestWeightLimiterTest {
+
+    @Test
+    void testAcquireWithinBudgetDoesNotBlock() {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 5, 20, 3_600_000, 3_600_000);
+
+        limiter.acquire(40, RequestWeightLimiter.Priority.MARKET, null);
+        limiter.acquire(40, RequestWeightLimiter.Priority.MARKET, null);
+
+        assertEquals(80, limiter.getUsedWeight());
+    }
+
+    @Test
+    void testMarketRequestQueuesUntilNextWindow() throws Exception {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 5, 20, 300, 300);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            awaitWindowStart(300);
+            limiter.acquire(80, RequestWeightLimiter.Priority.MARKET, null);
+            // 行情请求不能使用订单预留的20权重，应排队到下一个窗口而不是失败
+            Future<?> queued = executor.submit(() -> limiter.acquire(10, RequestWeightLimiter.Priority.MARKET, null));
+            assertThrows(TimeoutException.class, () -> queued.get(100, TimeUnit.MILLISECONDS));
+            queued.get(1, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOrderRequestUsesReservedWeight() throws Exception {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 5, 20, 3_600_000, 3_600_000);
+        limiter.acquire(80, RequestWeightLimiter.Priority.MARKET, null);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> limiter.acquire(15, RequestWeightLimiter.Priority.ORDER, null))
+                    .get(1, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(95, limiter.getUsedWeight());
+    }
+
+    @Test
+    void testServerUsedWeightTightensBudget() throws Exception {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 5, 0, 3_600_000, 3_600_000);
+        limiter.observeHeaders(Map.of("X-MBX-USED-WEIGHT-1M", List.of("95")), null);
+        assertEquals(95, limiter.getUsedWeight());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> queued = executor.submit(() -> limiter.acquire(10, RequestWeightLimiter.Priority.ORDER, null));
+            assertThrows(TimeoutException.class, () -> queued.get(100, TimeUnit.MILLISECONDS));
+            queued.cancel(true);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOrderCountLimit() throws Exception {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 2, 0, 3_600_000, 3_600_000);
+        limiter.acquire(0, RequestWeightLimiter.Priority.ORDER, "account-a");
+        limiter.acquire(0, RequestWeightLimiter.Priority.ORDER, "account-a");
+        assertEquals(2, limiter.getOrderCount("account-a"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> order = executor.submit(() -> limiter.acquire(0, RequestWeightLimiter.Priority.ORDER, "account-a"));
+            assertThrows(TimeoutException.class, () -> order.get(100, TimeUnit.MILLISECONDS));
+            // 订单因下单次数排队时，行情请求不需要让行
+            executor.submit(() -> limiter.acquire(1, RequestWeightLimiter.Priority.MARKET, null))
+                    .get(1, TimeUnit.SECONDS);
+            order.cancel(true);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOrderCountIsPerAccount() throws Exception {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 2, 0, 3_600_000, 3_600_000);
+        limiter.acquire(0, RequestWeightLimiter.Priority.ORDER, "account-a");
+        limiter.acquire(0, RequestWeightLimiter.Priority.ORDER, "account-a");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 账户A的下单次数已用完，不影响账户B下单
+            executor.submit(() -> limiter.acquire(0, RequestWeightLimiter.Priority.ORDER, "account-b"))
+                    .get(1, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, limiter.getOrderCount("account-a"));
+        assertEquals(1, limiter.getOrderCount("account-b"));
+    }
+
+    @Test
+    void testServerOrderCountAppliesToRequestingAccount() {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 5, 0, 3_600_000, 3_600_000);
+        limiter.observeHeaders(Map.of("X-MBX-ORDER-COUNT-1M", List.of("7")), "account-a");
+
+        assertEquals(7, limiter.getOrderCount("account-a"));
+        assertEquals(0, limiter.getOrderCount("account-b"));
+    }
+
+    @Test
+    void testRateLimitedPausesAllRequests() throws Exception {
+        RequestWeightLimiter limiter = new RequestWeightLimiter(100, 10, 5, 0);
+        long pauseMs = limiter.onRateLimited(Map.of("Retry-After", List.of("1")));
+        assertEquals(1000, pauseMs);
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            long start = System.currentTimeMillis();
+            executor.submit(() -> {
+                limiter.acquire(1, RequestWeightLimiter.Priority.ORDER, null);
+                acquired.countDown();
+            });
+            assertTrue(acquired.await(3, TimeUnit.SECONDS));
+            assertTrue(System.currentTimeMillis() - start >= 900);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 等到窗口开始附近，避免测试跨越窗口边界
+     */
+    private static void awaitWindowStart(long windowMs) throws InterruptedException {
+        long now = System.currentTimeMillis();
+        Thread.sleep(windowMs - now % windowMs + 5);
+    }
+}
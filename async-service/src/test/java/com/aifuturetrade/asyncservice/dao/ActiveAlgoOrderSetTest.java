@@ -0,0 +1,116 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.dao.mapper.AlgoOrderMapper;
+import com.aifuturetrade.asyncservice.entity.AlgoOrderDO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * new状态条件订单内存集合测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ActiveAlgoOrderSetTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 12, 0, 0);
+
+    @Mock
+    private AlgoOrderMapper algoOrderMapper;
+
+    private ActiveAlgoOrderSet activeSet;
+
+    @BeforeEach
+    void setUp() {
+        activeSet = new ActiveAlgoOrderSet(algoOrderMapper);
+        ReflectionTestUtils.setField(activeSet, "enabled", true);
+        ReflectionTestUtils.setField(activeSet, "overlapSeconds", 10L);
+        ReflectionTestUtils.setField(activeSet, "pageSize", 2);
+        ReflectionTestUtils.setField(activeSet, "resyncMinutes", 10L);
+    }
+
+    @Test
+    void testSeedThenApplyIncrementalChanges() {
+        when(algoOrderMapper.selectMaxUpdatedAt()).thenReturn(T0);
+        when(algoOrderMapper.selectNewAlgoOrders()).thenReturn(List.of(
+                order("o1", "NEW", T0.minusMinutes(2)), order("o2", "NEW", T0.minusMinutes(1))));
+
+        assertEquals(List.of("o1", "o2"), ids(activeSet.snapshot()));
+
+        when(algoOrderMapper.selectAlgoOrdersUpdatedAfter(T0.minusSeconds(10), "", 2)).thenReturn(List.of(
+                order("o1", "TRIGGERED", T0.plusSeconds(1)), order("o3", "NEW", T0.plusSeconds(2))));
+        when(algoOrderMapper.selectAlgoOrdersUpdatedAfter(T0.plusSeconds(2), "o3", 2)).thenReturn(List.of());
+
+        assertEquals(List.of("o2", "o3"), ids(activeSet.snapshot()));
+        verify(algoOrderMapper, times(1)).selectNewAlgoOrders();
+
+        // 游标前进到最新updated_at，下一次从其回退overlap开始
+        when(algoOrderMapper.selectAlgoOrdersUpdatedAfter(T0.plusSeconds(2).minusSeconds(10), "", 2))
+                .thenReturn(List.of());
+        assertEquals(List.of("o2", "o3"), ids(activeSet.snapshot()));
+    }
+
+    @Test
+    void testRefreshPagesByKeyset() {
+        when(algoOrderMapper.selectMaxUpdatedAt()).thenReturn(T0);
+        when(algoOrderMapper.selectNewAlgoOrders()).thenReturn(List.of());
+        activeSet.snapshot();
+
+        when(algoOrderMapper.selectAlgoOrdersUpdatedAfter(T0.minusSeconds(10), "", 2)).thenReturn(List.of(
+                order("a", "NEW", T0.plusSeconds(1)), order("b", "NEW", T0.plusSeconds(1))));
+        when(algoOrderMapper.selectAlgoOrdersUpdatedAfter(T0.plusSeconds(1), "b", 2)).thenReturn(List.of(
+                order("c", "NEW", T0.plusSeconds(1))));
+
+        assertEquals(3, activeSet.snapshot().size());
+        verify(algoOrderMapper, times(2)).selectAlgoOrdersUpdatedAfter(any(), anyString(), anyInt());
+    }
+
+    @Test
+    void testLocalRemoveTakesEffectBeforeRefresh() {
+        when(algoOrderMapper.selectMaxUpdatedAt()).thenReturn(T0);
+        when(algoOrderMapper.selectNewAlgoOrders()).thenReturn(List.of(order("o1", "NEW", T0)));
+        activeSet.snapshot();
+        when(algoOrderMapper.selectAlgoOrdersUpdatedAfter(any(), anyString(), anyInt())).thenReturn(List.of());
+
+        activeSet.remove("o1");
+
+        assertEquals(0, activeSet.snapshot().size());
+    }
+
+    @Test
+    void testDisabledQueriesEveryTime() {
+        ReflectionTestUtils.setField(activeSet, "enabled", false);
+        when(algoOrderMapper.selectNewAlgoOrders()).thenReturn(List.of(order("o1", "NEW", T0)));
+
+        activeSet.snapshot();
+        activeSet.snapshot();
+
+        verify(algoOrderMapper, times(2)).selectNewAlgoOrders();
+        verify(algoOrderMapper, never()).selectMaxUpdatedAt();
+        verify(algoOrderMapper, never()).selectAlgoOrdersUpdatedAfter(any(), anyString(), anyInt());
+    }
+
+    private static AlgoOrderDO order(String id, String status, LocalDateTime updatedAt) {
+        AlgoOrderDO order = new AlgoOrderDO();
+        order.setId(id);
+        order.setAlgoStatus(status);
+        order.setUpdatedAt(updatedAt);
+        order.setCreatedAt(updatedAt);
+        return order;
+    }
+
+    private static List<String> ids(List<AlgoOrderDO> orders) {
+        return orders.stream().map(AlgoOrderDO::getId).toList();
+    }
+}
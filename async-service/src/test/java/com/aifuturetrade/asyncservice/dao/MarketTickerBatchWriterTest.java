@@ -0,0 +1,110 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 市场Ticker JDBC批量写入器测试
+ *
+ * 使用H2（MySQL模式）和生产相同的mapper XML，验证分段执行的upsert在一个事务中提交或回滚。
+ */
+class MarketTickerBatchWriterTest {
+
+    private JdbcTemplate jdbc;
+    private MarketTickerBatchWriter batchWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE `24_market_tickers` (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "event_time TIMESTAMP, symbol VARCHAR(32) NOT NULL UNIQUE, price_change DOUBLE, "
+                + "price_change_percent DOUBLE, side VARCHAR(16), change_percent_text VARCHAR(32), "
+                + "average_price DOUBLE, last_price DOUBLE, last_trade_volume DOUBLE, open_price DOUBLE, "
+                + "high_price DOUBLE, low_price DOUBLE, base_volume DOUBLE, quote_volume DOUBLE, "
+                + "stats_open_time TIMESTAMP, stats_close_time TIMESTAMP, first_trade_id BIGINT, "
+                + "last_trade_id BIGINT, trade_count BIGINT, update_price_date TIMESTAMP, ingestion_time TIMESTAMP)");
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        String resource = "mapper/MarketTickerMapper.xml";
+        try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+            new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+
+        batchWriter = new MarketTickerBatchWriter(sqlSessionFactory, new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void testUpsertsAcrossChunksAndKeepsOpenPrice() {
+        assertEquals(5, batchWriter.upsert(tickers(5, 100.0), 2));
+        assertEquals(5, count());
+
+        // 再次写入：更新价格，open_price保留首次写入的值
+        List<MarketTickerDO> updates = tickers(5, 200.0);
+        updates.forEach(ticker -> ticker.setOpenPrice(999.0));
+        assertEquals(5, batchWriter.upsert(updates, 2));
+
+        assertEquals(5, count());
+        assertEquals(200.0, jdbc.queryForObject(
+                "SELECT last_price FROM `24_market_tickers` WHERE symbol = 'S0USDT'", Double.class));
+        assertEquals(100.0, jdbc.queryForObject(
+                "SELECT open_price FROM `24_market_tickers` WHERE symbol = 'S0USDT'", Double.class));
+    }
+
+    @Test
+    void testFailedChunkRollsBackWholeBatch() {
+        List<MarketTickerDO> rows = tickers(5, 100.0);
+        // 最后一段违反NOT NULL约束，前面已flush的段也不能提交
+        rows.get(4).setSymbol(null);
+
+        assertThrows(RuntimeException.class, () -> batchWriter.upsert(rows, 2));
+
+        assertEquals(0, count());
+    }
+
+    @Test
+    void testSkipsEmptyInput() {
+        assertEquals(0, batchWriter.upsert(new ArrayList<>(), 100));
+        assertEquals(0, count());
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM `24_market_tickers`", Integer.class);
+    }
+
+    private static List<MarketTickerDO> tickers(int count, double price) {
+        List<MarketTickerDO> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MarketTickerDO ticker = new MarketTickerDO();
+            ticker.setSymbol("S" + i + "USDT");
+            ticker.setLastPrice(price);
+            ticker.setOpenPrice(price);
+            rows.add(ticker);
+        }
+        return rows;
+    }
+}
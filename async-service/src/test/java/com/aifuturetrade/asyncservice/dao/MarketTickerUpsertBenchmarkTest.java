@@ -0,0 +1,155 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 24_market_tickers 两种upsert写库方式的基准测试（foreach多VALUES vs JDBC批量预编译）
+ *
+ * 需要一个已建好24_market_tickers表的测试库，默认跳过。运行方式：
+ * mvn test -Dtest=MarketTickerUpsertBenchmarkTest \
+ *   -Dticker.upsert.benchmark.url='jdbc:mysql://localhost:3306/aifuturetrade_test?useSSL=false&serverTimezone=Asia/Shanghai&rewriteBatchedStatements=true' \
+ *   -Dticker.upsert.benchmark.username=root -Dticker.upsert.benchmark.password=xxx
+ *
+ * 基准数据使用BENCH前缀的symbol，结束后删除。
+ */
+@EnabledIfSystemProperty(named = "ticker.upsert.benchmark.url", matches = ".+")
+class MarketTickerUpsertBenchmarkTest {
+
+    private static final int[] SYMBOL_COUNTS = {300, 1000};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 20;
+    private static final int CHUNK_SIZE = Integer.getInteger("ticker.upsert.benchmark.chunk-size", 200);
+
+    private static PooledDataSource dataSource;
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        dataSource = new PooledDataSource("com.mysql.cj.jdbc.Driver",
+                System.getProperty("ticker.upsert.benchmark.url"),
+                System.getProperty("ticker.upsert.benchmark.username", "root"),
+                System.getProperty("ticker.upsert.benchmark.password", ""));
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        String resource = "mapper/MarketTickerMapper.xml";
+        try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+            new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        sqlSessionFactory = factoryBean.getObject();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (dataSource == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM `24_market_tickers` WHERE `symbol` LIKE 'BENCH%'")) {
+            statement.executeUpdate();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+        dataSource.forceCloseAll();
+    }
+
+    @Test
+    void compareUpsertPaths() {
+        MarketTickerBatchWriter batchWriter = new MarketTickerBatchWriter(sqlSessionFactory,
+                new DataSourceTransactionManager(dataSource));
+        for (int symbolCount : SYMBOL_COUNTS) {
+            long[] foreachNanos = measure(symbolCount, rows -> {
+                try (SqlSession session = sqlSessionFactory.openSession(true)) {
+                    session.getMapper(MarketTickerMapper.class).batchUpsertTickers(rows);
+                }
+            });
+            long[] batchNanos = measure(symbolCount, rows -> assertEquals(rows.size(),
+                    batchWriter.upsert(rows, CHUNK_SIZE)));
+
+            System.out.printf("[MarketTickerUpsertBenchmark] symbols=%d foreach: p50=%.2fms p99=%.2fms | "
+                            + "jdbc-batch(chunk=%d): p50=%.2fms p99=%.2fms%n",
+                    symbolCount, percentileMs(foreachNanos, 50), percentileMs(foreachNanos, 99),
+                    CHUNK_SIZE, percentileMs(batchNanos, 50), percentileMs(batchNanos, 99));
+        }
+    }
+
+    private long[] measure(int symbolCount, java.util.function.Consumer<List<MarketTickerDO>> writer) {
+        long[] samples = new long[MEASURE_ROUNDS];
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            List<MarketTickerDO> rows = tickers(symbolCount, round);
+            long start = System.nanoTime();
+            writer.accept(rows);
+            long elapsed = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                samples[round - WARMUP_ROUNDS] = elapsed;
+            }
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static double percentileMs(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static List<MarketTickerDO> tickers(int count, int round) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.ofHours(8));
+        List<MarketTickerDO> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double price = 100.0 + i + round * 0.01;
+            MarketTickerDO ticker = new MarketTickerDO();
+            ticker.setSymbol(String.format("BENCH%04dUSDT", i));
+            ticker.setEventTime(now);
+            ticker.setPriceChange(0.0);
+            ticker.setPriceChangePercent(0.0);
+            ticker.setSide("");
+            ticker.setChangePercentText("");
+            ticker.setAveragePrice(price);
+            ticker.setLastPrice(price);
+            ticker.setLastTradeVolume(1.0);
+            ticker.setOpenPrice(0.0);
+            ticker.setHighPrice(price + 1);
+            ticker.setLowPrice(price - 1);
+            ticker.setBaseVolume(1000.0 + round);
+            ticker.setQuoteVolume(100000.0 + round);
+            ticker.setStatsOpenTime(now.minusDays(1));
+            ticker.setStatsCloseTime(now);
+            ticker.setFirstTradeId(1L);
+            ticker.setLastTradeId(1000L + round);
+            ticker.setTradeCount(1000L + round);
+            ticker.setIngestionTime(now);
+            rows.add(ticker);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,178 @@
+package com.aifuturetrade.asyncservice.dao;
+
+import com.aifuturetrade.asyncservice.dao.mapper.AccountValueHistoryMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.AccountValueMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.AlgoOrderMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.PortfolioMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.StrategyDecisionMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.TradeMapper;
+import com.aifuturetrade.asyncservice.entity.AccountValueDO;
+import com.aifuturetrade.asyncservice.entity.AccountValueHistoryDO;
+import com.aifuturetrade.asyncservice.entity.TradeDO;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 成交结算批量写入器测试
+ *
+ * 使用H2（MySQL模式）真实数据源和与生产相同的SpringManagedTransactionFactory，
+ * 验证一次结算的全部语句在同一个事务中提交或回滚。
+ */
+class TradeSettlementWriterTest {
+
+    private JdbcTemplate jdbc;
+    private TradeSettlementWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE trades (id VARCHAR(64) PRIMARY KEY, model_id VARCHAR(64), future VARCHAR(32), "
+                + "quantity DOUBLE, price DOUBLE, side VARCHAR(16))");
+        jdbc.execute("CREATE TABLE portfolios (model_id VARCHAR(64), symbol VARCHAR(32), position_side VARCHAR(16), "
+                + "position_amt DOUBLE, updated_at TIMESTAMP)");
+        jdbc.execute("CREATE TABLE account_values (id VARCHAR(64) PRIMARY KEY, model_id VARCHAR(64), "
+                + "account_alias VARCHAR(64), balance DOUBLE, available_balance DOUBLE, cross_wallet_balance DOUBLE, "
+                + "cross_pnl DOUBLE, cross_un_pnl DOUBLE, `timestamp` TIMESTAMP)");
+        jdbc.execute("CREATE TABLE account_value_historys (id VARCHAR(64) PRIMARY KEY, model_id VARCHAR(64), "
+                + "balance DOUBLE, trade_id VARCHAR(64))");
+        jdbc.execute("CREATE TABLE algo_order (id VARCHAR(64) PRIMARY KEY, trade_id VARCHAR(64), "
+                + "algoStatus VARCHAR(32), updated_at TIMESTAMP)");
+        jdbc.execute("CREATE TABLE strategy_decisions (id VARCHAR(64) PRIMARY KEY, status VARCHAR(32), "
+                + "trade_id VARCHAR(64), error_reason VARCHAR(255), updated_at TIMESTAMP)");
+        jdbc.update("INSERT INTO portfolios (model_id, symbol, position_side, position_amt) VALUES "
+                + "('m1', 'BTCUSDT', 'LONG', 1.0), ('m2', 'ETHUSDT', 'SHORT', 2.0)");
+        jdbc.update("INSERT INTO account_values (id, model_id, balance) VALUES ('av1', 'm1', 100.0)");
+        jdbc.update("INSERT INTO algo_order (id, algoStatus) VALUES ('o1', 'NEW')");
+        jdbc.update("INSERT INTO strategy_decisions (id, status) VALUES ('d1', 'PENDING')");
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(TradeMapper.class);
+        configuration.addMapper(PortfolioMapper.class);
+        configuration.addMapper(AccountValueMapper.class);
+        configuration.addMapper(AccountValueHistoryMapper.class);
+        configuration.addMapper(AlgoOrderMapper.class);
+        configuration.addMapper(StrategyDecisionMapper.class);
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+
+        writer = new TradeSettlementWriter(sqlSessionFactory, new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void testWritesAllRecordsInOneTransaction() {
+        AccountValueDO accountValue = new AccountValueDO();
+        accountValue.setId("av1");
+        accountValue.setBalance(120.0);
+        AccountValueHistoryDO history = new AccountValueHistoryDO();
+        history.setModelId("m1");
+        history.setBalance(120.0);
+        history.setTradeId("t1");
+        TradeSettlement settlement = new TradeSettlement(trade("t1", "m1"))
+                .reducePosition("m1", "BTCUSDT", "LONG", 0.5)
+                .accountValue(accountValue, true)
+                .accountValueHistory(history)
+                .algoOrder("o1", "EXECUTED")
+                .strategyDecision("d1", "EXECUTED");
+
+        writer.settle(settlement);
+
+        assertEquals(1, count("trades"));
+        assertEquals(0.5, jdbc.queryForObject(
+                "SELECT position_amt FROM portfolios WHERE model_id = 'm1'", Double.class));
+        assertEquals(120.0, jdbc.queryForObject("SELECT balance FROM account_values WHERE id = 'av1'", Double.class));
+        assertEquals(1, count("account_value_historys"));
+        assertEquals("EXECUTED", jdbc.queryForObject("SELECT algoStatus FROM algo_order WHERE id = 'o1'", String.class));
+        assertEquals("t1", jdbc.queryForObject("SELECT trade_id FROM algo_order WHERE id = 'o1'", String.class));
+        assertEquals("t1", jdbc.queryForObject("SELECT trade_id FROM strategy_decisions WHERE id = 'd1'", String.class));
+    }
+
+    @Test
+    void testSettleAllWritesEverySettlement() {
+        writer.settleAll(List.of(
+                new TradeSettlement(trade("t1", "m1")).deletePosition("m1", "BTCUSDT", "LONG"),
+                new TradeSettlement(trade("t2", "m2")).reducePosition("m2", "ETHUSDT", "SHORT", 0.0)));
+
+        assertEquals(2, count("trades"));
+        assertEquals(0, count("portfolios"));
+        assertEquals("NEW", jdbc.queryForObject("SELECT algoStatus FROM algo_order WHERE id = 'o1'", String.class));
+    }
+
+    @Test
+    void testFailureRollsBackEveryStatement() {
+        // 语句在执行（而非预编译）阶段失败，此时前面的批量语句已经发送到数据库
+        jdbc.execute("ALTER TABLE strategy_decisions ADD CONSTRAINT ck_no_executed CHECK (status <> 'EXECUTED')");
+        TradeSettlement settlement = new TradeSettlement(trade("t1", "m1"))
+                .deletePosition("m1", "BTCUSDT", "LONG")
+                .algoOrder("o1", "EXECUTED")
+                .strategyDecision("d1", "EXECUTED");
+
+        assertThrows(RuntimeException.class, () -> writer.settle(settlement));
+
+        // 最后一条语句失败时，之前已执行的trades插入、持仓删除、条件单更新全部回滚
+        assertEquals(0, count("trades"));
+        assertEquals(2, count("portfolios"));
+        assertEquals("NEW", jdbc.queryForObject("SELECT algoStatus FROM algo_order WHERE id = 'o1'", String.class));
+    }
+
+    @Test
+    void testClaimCommitsStatusTransitionWithTrade() {
+        writer.settle(new TradeSettlement(trade("t1", "m1"))
+                .deletePosition("m1", "BTCUSDT", "LONG")
+                .claimAlgoOrder("o1", "NEW", "EXECUTED"));
+
+        assertEquals("EXECUTED", jdbc.queryForObject("SELECT algoStatus FROM algo_order WHERE id = 'o1'", String.class));
+        assertEquals("t1", jdbc.queryForObject("SELECT trade_id FROM algo_order WHERE id = 'o1'", String.class));
+        assertEquals(1, count("trades"));
+    }
+
+    @Test
+    void testClaimOfChangedOrderRollsBackSettlement() {
+        jdbc.update("UPDATE algo_order SET algoStatus = 'CANCELLED' WHERE id = 'o1'");
+        TradeSettlement settlement = new TradeSettlement(trade("t1", "m1"))
+                .deletePosition("m1", "BTCUSDT", "LONG")
+                .claimAlgoOrder("o1", "NEW", "EXECUTED")
+                .strategyDecision("d1", "EXECUTED");
+
+        TradeSettlementWriter.AlgoOrderStatusChangedException e = assertThrows(
+                TradeSettlementWriter.AlgoOrderStatusChangedException.class, () -> writer.settle(settlement));
+
+        assertEquals("o1", e.getAlgoOrderId());
+        assertEquals(0, count("trades"));
+        assertEquals(2, count("portfolios"));
+        assertEquals("CANCELLED", jdbc.queryForObject("SELECT algoStatus FROM algo_order WHERE id = 'o1'", String.class));
+        assertEquals("PENDING", jdbc.queryForObject("SELECT status FROM strategy_decisions WHERE id = 'd1'", String.class));
+    }
+
+    private int count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static TradeDO trade(String id, String modelId) {
+        TradeDO trade = new TradeDO();
+        trade.setId(id);
+        trade.setModelId(modelId);
+        trade.setFuture("BTCUSDT");
+        trade.setQuantity(0.5);
+        trade.setPrice(100.0);
+        trade.setSide("sell");
+        return trade;
+    }
+}
@@ -0,0 +1,78 @@
+package com.aifuturetrade.asyncservice.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 条件单触发价索引测试
+ */
+class AlgoTriggerIndexTest {
+
+    @Test
+    void testFallingTriggersOnlyCrossedOrders() {
+        AlgoTriggerIndex index = new AlgoTriggerIndex();
+        index.put("a", "BTCUSDT", AlgoTriggerIndex.Direction.FALLING, 100.0);
+        index.put("b", "BTCUSDT", AlgoTriggerIndex.Direction.FALLING, 90.0);
+        index.put("c", "BTCUSDT", AlgoTriggerIndex.Direction.FALLING, 80.0);
+
+        assertTrue(index.collectCrossed("BTCUSDT", 101.0).isEmpty());
+
+        List<AlgoTriggerIndex.Trigger> crossed = index.collectCrossed("BTCUSDT", 90.0);
+        assertEquals(List.of("a", "b"), crossed.stream().map(AlgoTriggerIndex.Trigger::orderId).toList());
+        assertEquals(1, index.size());
+        assertTrue(index.contains("c"));
+    }
+
+    @Test
+    void testRisingTriggersOnlyCrossedOrders() {
+        AlgoTriggerIndex index = new AlgoTriggerIndex();
+        index.put("a", "ETHUSDT", AlgoTriggerIndex.Direction.RISING, 3000.0);
+        index.put("b", "ETHUSDT", AlgoTriggerIndex.Direction.RISING, 3100.0);
+        index.put("c", "ETHUSDT", AlgoTriggerIndex.Direction.FALLING, 2900.0);
+
+        List<AlgoTriggerIndex.Trigger> crossed = index.collectCrossed("ETHUSDT", 3050.0);
+        assertEquals(List.of("a"), crossed.stream().map(AlgoTriggerIndex.Trigger::orderId).toList());
+
+        // 其他symbol的价格不影响
+        assertTrue(index.collectCrossed("BTCUSDT", 1.0).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testPutReplacesChangedTriggerPrice() {
+        AlgoTriggerIndex index = new AlgoTriggerIndex();
+        index.put("a", "BTCUSDT", AlgoTriggerIndex.Direction.FALLING, 100.0);
+        index.put("a", "BTCUSDT", AlgoTriggerIndex.Direction.FALLING, 50.0);
+
+        assertEquals(1, index.size());
+        assertTrue(index.collectCrossed("BTCUSDT", 90.0).isEmpty());
+        assertEquals(1, index.collectCrossed("BTCUSDT", 50.0).size());
+        assertEquals(0, index.size());
+        assertTrue(index.symbols().isEmpty());
+    }
+
+    @Test
+    void testRetainAllRemovesMissingOrders() {
+        AlgoTriggerIndex index = new AlgoTriggerIndex();
+        index.put("a", "BTCUSDT", AlgoTriggerIndex.Direction.FALLING, 100.0);
+        index.put("b", "ETHUSDT", AlgoTriggerIndex.Direction.RISING, 3000.0);
+
+        assertEquals(1, index.retainAll(Set.of("b")));
+        assertEquals(Set.of("ETHUSDT"), index.symbols());
+        assertTrue(index.collectCrossed("BTCUSDT", 1.0).isEmpty());
+    }
+
+    @Test
+    void testRejectsInvalidOrders() {
+        AlgoTriggerIndex index = new AlgoTriggerIndex();
+        assertNull(AlgoTriggerIndex.directionOf("BOTH"));
+        assertEquals(AlgoTriggerIndex.Direction.FALLING, AlgoTriggerIndex.directionOf("long"));
+        assertFalse(index.put("a", "BTCUSDT", null, 100.0));
+        assertFalse(index.put("b", "BTCUSDT", AlgoTriggerIndex.Direction.RISING, 0.0));
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.aifuturetrade.asyncservice.market;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 有界环形缓冲区测试
+ */
+class BoundedRingBufferTest {
+
+    @Test
+    void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(8, new BoundedRingBuffer<String>("q", 5, BoundedRingBuffer.OverflowPolicy.DROP_OLDEST).getCapacity());
+        assertEquals(1, new BoundedRingBuffer<String>("q", 1, BoundedRingBuffer.OverflowPolicy.DROP_OLDEST).getCapacity());
+    }
+
+    @Test
+    void testDropOldestKeepsNewestSnapshots() throws Exception {
+        BoundedRingBuffer<Integer> queue = new BoundedRingBuffer<>("q", 2, BoundedRingBuffer.OverflowPolicy.DROP_OLDEST);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+
+        assertEquals(2, queue.poll());
+        assertEquals(3, queue.poll());
+        assertNull(queue.poll());
+
+        RingBufferStats stats = queue.getStats();
+        assertEquals(3, stats.getOffered());
+        assertEquals(1, stats.getDropped());
+        assertEquals(2, stats.getConsumed());
+        assertEquals(0, stats.getDepth());
+    }
+
+    @Test
+    void testPollReleasesConsumedSlot() throws Exception {
+        BoundedRingBuffer<Object> queue = new BoundedRingBuffer<>("q", 4, BoundedRingBuffer.OverflowPolicy.DROP_OLDEST);
+        Object element = new Object();
+        queue.offer(element);
+
+        assertSame(element, queue.poll());
+
+        AtomicReferenceArray<?> slots = (AtomicReferenceArray<?>) ReflectionTestUtils.getField(queue, "buffer");
+        assertNull(slots.get(0));
+    }
+
+    @Test
+    void testDropNewestRejectsWhenFull() throws Exception {
+        BoundedRingBuffer<Integer> queue = new BoundedRingBuffer<>("q", 1, BoundedRingBuffer.OverflowPolicy.DROP_NEWEST);
+        assertTrue(queue.offer(1));
+        assertFalse(queue.offer(2));
+        assertEquals(1, queue.poll());
+        assertEquals(1, queue.getStats().getDropped());
+    }
+
+    @Test
+    void testTimedPollWakesOnOffer() throws Exception {
+        BoundedRingBuffer<Integer> queue = new BoundedRingBuffer<>("q", 4, BoundedRingBuffer.OverflowPolicy.BLOCK);
+        Thread producer = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+                queue.offer(42);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        assertEquals(42, queue.poll(5, TimeUnit.SECONDS));
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        producer.join();
+    }
+
+    @Test
+    void testConcurrentProducerConsumerPreservesOrder() throws Exception {
+        BoundedRingBuffer<Integer> queue = new BoundedRingBuffer<>("q", 8, BoundedRingBuffer.OverflowPolicy.DROP_OLDEST);
+        int total = 100_000;
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < total; i++) {
+                    queue.offer(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        int last = -1;
+        long received = 0;
+        while (true) {
+            Integer value = queue.poll(200, TimeUnit.MILLISECONDS);
+            if (value == null) {
+                if (!producer.isAlive()) {
+                    break;
+                }
+                continue;
+            }
+            assertTrue(value > last, "out of order: " + value + " after " + last);
+            last = value;
+            received++;
+        }
+        producer.join();
+
+        RingBufferStats stats = queue.getStats();
+        assertEquals(total - 1, last);
+        assertEquals(total, received + stats.getDropped());
+    }
+}
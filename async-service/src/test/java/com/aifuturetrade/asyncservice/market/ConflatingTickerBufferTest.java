@@ -0,0 +1,65 @@
+package com.aifuturetrade.asyncservice.market;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按symbol合并的ticker缓冲区测试
+ */
+class ConflatingTickerBufferTest {
+
+    @Test
+    void testBacklogKeepsLatestTickerPerSymbol() throws Exception {
+        ConflatingTickerBuffer buffer = new ConflatingTickerBuffer("persist");
+        buffer.offer(List.of(ticker("BTCUSDT", 37000.0), ticker("ETHUSDT", 2000.0)));
+        buffer.offer(List.of(ticker("BTCUSDT", 37010.0)));
+
+        List<MarketTickerDO> drained = buffer.drain(1, TimeUnit.SECONDS);
+
+        // 第二批只包含BTC，ETH的更新不会因此丢失
+        assertEquals(2, drained.size());
+        assertEquals("BTCUSDT", drained.get(0).getSymbol());
+        assertEquals(37010.0, drained.get(0).getLastPrice());
+        assertEquals(2000.0, drained.get(1).getLastPrice());
+        assertEquals(0, buffer.size());
+
+        RingBufferStats stats = buffer.getStats();
+        assertEquals("CONFLATE", stats.getPolicy());
+        assertEquals(3, stats.getOffered());
+        assertEquals(1, stats.getDropped());
+        assertEquals(2, stats.getConsumed());
+    }
+
+    @Test
+    void testDrainWaitsForOffer() throws Exception {
+        ConflatingTickerBuffer buffer = new ConflatingTickerBuffer("persist");
+        assertNull(buffer.drain(10, TimeUnit.MILLISECONDS));
+
+        Thread producer = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            buffer.offer(List.of(ticker("BTCUSDT", 37000.0)));
+        });
+        producer.start();
+
+        List<MarketTickerDO> drained = buffer.drain(5, TimeUnit.SECONDS);
+        assertNotNull(drained);
+        assertEquals(1, drained.size());
+        producer.join();
+    }
+
+    private static MarketTickerDO ticker(String symbol, double lastPrice) {
+        MarketTickerDO ticker = new MarketTickerDO();
+        ticker.setSymbol(symbol);
+        ticker.setLastPrice(lastPrice);
+        return ticker;
+    }
+}
@@ -0,0 +1,57 @@
+package com.aifuturetrade.asyncservice.market;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 对数分桶直方图测试
+ */
+class LongHistogramTest {
+
+    @Test
+    void testBucketBoundsCoverValues() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 100, 1_000, 123_456, 1L << 40}) {
+            int index = LongHistogram.bucketIndex(value);
+            assertTrue(LongHistogram.bucketUpperBound(index) >= value, "upper bound below value " + value);
+            if (index > 0) {
+                assertTrue(LongHistogram.bucketUpperBound(index - 1) < value, "previous bucket covers value " + value);
+            }
+        }
+    }
+
+    @Test
+    void testPercentilesWithinRelativeError() {
+        LongHistogram histogram = new LongHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot("us");
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000, snapshot.getMax());
+        assertEquals(5000.5, snapshot.getMean(), 0.001);
+        assertWithin(5_000, snapshot.getP50());
+        assertWithin(9_000, snapshot.getP90());
+        assertWithin(9_900, snapshot.getP99());
+        assertTrue(snapshot.getP999() <= snapshot.getMax());
+    }
+
+    @Test
+    void testNegativeValuesAndReset() {
+        LongHistogram histogram = new LongHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.snapshot("ms").getMax());
+
+        histogram.reset();
+        HistogramSnapshot snapshot = histogram.snapshot("ms");
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16 + 1,
+                "expected ~" + expected + " but was " + actual);
+    }
+}
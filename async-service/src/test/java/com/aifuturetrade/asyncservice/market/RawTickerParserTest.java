@@ -0,0 +1,173 @@
+package com.aifuturetrade.asyncservice.market;
+
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 全市场ticker原始报文解析器测试
+ */
+class RawTickerParserTest {
+
+    private static final String PAYLOAD = "[{\"e\":\"24hrTicker\",\"E\":1700000000123,\"s\":\"BTCUSDT\","
+            + "\"p\":\"-12.30\",\"P\":\"-0.030\",\"w\":\"37012.45\",\"c\":\"37000.10\",\"Q\":\"0.005\","
+            + "\"o\":\"37012.40\",\"h\":\"37500.00\",\"l\":\"36500.5\",\"v\":\"123456.789\","
+            + "\"q\":\"4567890123.12345678\",\"O\":1699913600000,\"C\":1700000000000,"
+            + "\"F\":100,\"L\":200,\"n\":101},"
+            + "{\"e\":\"24hrTicker\",\"E\":1700000000124,\"s\":\"ETHBTC\",\"c\":\"0.05412\",\"n\":7}]";
+
+    @Test
+    void testParsesTickersIntoSlots() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+
+        assertEquals(2, parser.parse(PAYLOAD, table));
+        assertEquals(2, table.getUpdatedCount());
+
+        int btc = table.find("BTCUSDT");
+        assertTrue(table.isUsdt(btc));
+        assertEquals(1700000000123L, table.eventTime(btc));
+        assertEquals(37000.10, table.lastPrice(btc));
+        assertEquals(36500.5, table.lowPrice(btc));
+        assertEquals(Double.parseDouble("4567890123.12345678"), table.quoteVolume(btc));
+        assertEquals(200L, table.lastTradeId(btc));
+        assertEquals(101L, table.tradeCount(btc));
+
+        int eth = table.find("ETHBTC");
+        assertFalse(table.isUsdt(eth));
+        assertEquals(0.05412, table.lastPrice(eth));
+    }
+
+    @Test
+    void testReusesSlotAcrossMessages() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+
+        parser.parse(PAYLOAD, table);
+        parser.parse("{\"stream\":\"!ticker@arr\",\"data\":[{\"s\":\"BTCUSDT\",\"c\":\"37001\"}]}", table);
+
+        assertEquals(2, table.size());
+        assertEquals(1, table.getUpdatedCount());
+        assertEquals(37001.0, table.lastPrice(table.find("BTCUSDT")));
+    }
+
+    @Test
+    void testAppendConflatesBacklogPerSymbol() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+
+        // 积压的三条增量报文：BTC变化两次，ETH只在第一条中出现
+        table.beginMessage();
+        parser.append(PAYLOAD, table);
+        parser.append("[{\"E\":1700000001000,\"s\":\"BTCUSDT\",\"c\":\"37010\"}]", table);
+        parser.append("[{\"E\":1700000002000,\"s\":\"BTCUSDT\",\"c\":\"37020\"}]", table);
+
+        // 每个symbol只出现一次，不会因为后续报文不包含ETH而丢失它的更新
+        assertEquals(2, table.getUpdatedCount());
+        assertEquals(4, table.getWrittenCount());
+        assertEquals(37020.0, table.lastPrice(table.find("BTCUSDT")));
+        assertEquals(0.05412, table.lastPrice(table.find("ETHBTC")));
+    }
+
+    @Test
+    void testSkipsDuplicateEventTime() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+
+        parser.parse(PAYLOAD, table);
+        // 并行连接上的同一条消息：事件时间相同，不计入更新
+        assertEquals(2, parser.parse(PAYLOAD, table));
+        assertEquals(0, table.getUpdatedCount());
+
+        parser.parse("[{\"E\":1700000000200,\"s\":\"BTCUSDT\",\"c\":\"37002\"}]", table);
+        assertEquals(1, table.getUpdatedCount());
+        assertEquals(37002.0, table.lastPrice(table.find("BTCUSDT")));
+    }
+
+    @Test
+    void testMiniTickerKeepsStatsFromLastFullTicker() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+
+        parser.parse(PAYLOAD, table);
+        parser.parse("[{\"e\":\"24hrMiniTicker\",\"E\":1700000001000,\"s\":\"BTCUSDT\",\"c\":\"37010\","
+                + "\"o\":\"37012.40\",\"h\":\"37600\",\"l\":\"36500.5\",\"v\":\"123460\",\"q\":\"4567900000\"}]", table);
+
+        int btc = table.find("BTCUSDT");
+        assertEquals(1, table.getUpdatedCount());
+        assertEquals(37010.0, table.lastPrice(btc));
+        assertEquals(37600.0, table.highPrice(btc));
+        assertEquals(37012.45, table.averagePrice(btc));
+        assertEquals(200L, table.lastTradeId(btc));
+        assertEquals(101L, table.tradeCount(btc));
+    }
+
+    @Test
+    void testFullSnapshotRefreshesStatsWithoutDuplicatePrices() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+
+        parser.parse("[{\"E\":1700000000123,\"s\":\"BTCUSDT\",\"c\":\"37000.10\"}]", table);
+        assertEquals(0L, table.tradeCount(table.find("BTCUSDT")));
+
+        // 统计快照与已处理的精简ticker事件时间相同：只补充统计字段，价格不计入更新
+        parser.parse(PAYLOAD, table);
+        int btc = table.find("BTCUSDT");
+        assertEquals(1, table.getUpdatedCount());
+        assertEquals(101L, table.tradeCount(btc));
+        assertEquals(37012.45, table.averagePrice(btc));
+        assertEquals(37000.10, table.lastPrice(btc));
+    }
+
+    @Test
+    void testRestStatsFillStatsWithoutTouchingPrices() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+        parser.parse("[{\"E\":1700000000123,\"s\":\"BTCUSDT\",\"c\":\"37000.10\"}]", table);
+        table.beginMessage();
+
+        assertTrue(table.writeStats("BTCUSDT", 1700000000000L, 37012.45, 0.005, 1699913600000L,
+                1700000000000L, 100L, 200L, 101L));
+        assertFalse(table.writeStats("BTCUSDT", 1700000000000L, 1.0, 1.0, 1L, 1L, 1L, 1L, 1L));
+        // 尚未出现在ticker流中的symbol同样分配槽位，之后的精简ticker保留这些统计字段
+        assertTrue(table.writeStats("ETHUSDT", 1700000000000L, 2000.0, 0.1, 1L, 1700000000000L, 1L, 5L, 5L));
+
+        int btc = table.find("BTCUSDT");
+        assertEquals(0, table.getUpdatedCount());
+        assertEquals(37000.10, table.lastPrice(btc));
+        assertEquals(37012.45, table.averagePrice(btc));
+        assertEquals(101L, table.tradeCount(btc));
+        assertEquals(5L, table.tradeCount(table.find("ETHUSDT")));
+    }
+
+    @Test
+    void testDecimalMatchesDoubleParse() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+        String[] values = {"0.00001234", "1234567.891", "99999.99999999", "1e-7", "-3.5", "0"};
+        for (String value : values) {
+            parser.parse("[{\"s\":\"XUSDT\",\"c\":\"" + value + "\"}]", table);
+            assertEquals(Double.parseDouble(value), table.lastPrice(table.find("XUSDT")), value);
+        }
+    }
+
+    @Test
+    void testConvertsSlotToTickerDO() {
+        RawTickerParser parser = new RawTickerParser();
+        TickerSlotTable table = new TickerSlotTable();
+        parser.parse(PAYLOAD, table);
+
+        MarketTickerDO tickerDO = table.toTickerDO(table.find("BTCUSDT"));
+        assertEquals("BTCUSDT", tickerDO.getSymbol());
+        assertEquals(37012.45, tickerDO.getAveragePrice());
+        assertEquals(2023, tickerDO.getEventTime().getYear());
+    }
+
+    @Test
+    void testRejectsMalformedPayload() {
+        RawTickerParser parser = new RawTickerParser();
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parse("[{\"s\":\"BTCUSDT\",\"c\":", new TickerSlotTable()));
+    }
+}
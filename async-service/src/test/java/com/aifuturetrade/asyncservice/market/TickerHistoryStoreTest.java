@@ -0,0 +1,118 @@
+package com.aifuturetrade.asyncservice.market;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ticker历史列式存储测试
+ */
+class TickerHistoryStoreTest {
+
+    private static final long DAY_MS = 86_400_000L;
+    private static final long DAY_START = 20_000L * DAY_MS;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testReopenForWriteAcrossSegmentBoundary() throws Exception {
+        Path dir = root.resolve("partition");
+        int rows = TickerHistoryPartition.SEGMENT_ROWS + 3;
+        try (TickerHistoryPartition partition = TickerHistoryPartition.openForWrite(dir)) {
+            for (int i = 0; i < rows; i++) {
+                partition.append(i & 7, i, i, i, i, i, i, i);
+            }
+        }
+
+        // 重新打开时行数已在第二段：追加必须写到第二段而不是抛出IndexOutOfBoundsException
+        try (TickerHistoryPartition partition = TickerHistoryPartition.openForWrite(dir)) {
+            assertEquals(rows, partition.getRowCount());
+            assertEquals(TickerHistoryPartition.SEGMENT_ROWS - 1, partition.tradeCount(TickerHistoryPartition.SEGMENT_ROWS - 1));
+            partition.append(1, rows, 1.5, 2.0, 1.0, 3.0, 4.0, 99L);
+        }
+
+        try (TickerHistoryPartition partition = TickerHistoryPartition.openForRead(dir)) {
+            assertEquals(rows + 1, partition.getRowCount());
+            assertEquals(rows - 1, partition.tradeCount(rows - 1));
+            assertEquals(99L, partition.tradeCount(rows));
+            assertEquals(1.5, partition.getDouble(TickerHistoryColumn.LAST_PRICE, rows));
+            assertEquals(TickerHistoryPartition.SEGMENT_ROWS, partition.eventTime(TickerHistoryPartition.SEGMENT_ROWS));
+        }
+    }
+
+    @Test
+    void testRangeScanAcrossDaysAndReopen() throws Exception {
+        try (TickerHistoryStore store = new TickerHistoryStore(root)) {
+            store.append("BTCUSDT", DAY_START + 1_000, 100.0, 101.0, 99.0, 10.0, 1000.0, 5L);
+            store.append("ETHUSDT", DAY_START + 1_000, 10.0, 11.0, 9.0, 20.0, 200.0, 7L);
+            store.append("BTCUSDT", DAY_START + 2_000, 100.5, 101.0, 99.0, 11.0, 1100.0, 6L);
+            // 跨日写入新分区
+            store.append("BTCUSDT", DAY_START + DAY_MS + 1_000, 102.0, 103.0, 99.0, 12.0, 1200.0, 8L);
+            assertEquals(4, store.getRowsAppended());
+            assertEquals(2, store.getSymbolCount());
+        }
+
+        // 重新打开后继续追加：symbol id与行数从磁盘恢复
+        try (TickerHistoryStore store = new TickerHistoryStore(root)) {
+            assertEquals(2, store.getSymbolCount());
+            store.append("BTCUSDT", DAY_START + DAY_MS + 2_000, 103.0, 104.0, 99.0, 13.0, 1300.0, 9L);
+            assertEquals(2, store.getCurrentPartitionRows());
+        }
+
+        TickerHistoryReader reader = new TickerHistoryReader(root);
+        assertEquals(List.of("2024-10-04", "2024-10-05"), reader.listPartitions());
+
+        List<Double> btcPrices = new ArrayList<>();
+        long visited = reader.scan("BTCUSDT", DAY_START, DAY_START + 2 * DAY_MS,
+                (symbol, eventTime, last, high, low, baseVolume, quoteVolume, tradeCount) -> {
+                    assertEquals("BTCUSDT", symbol);
+                    btcPrices.add(last);
+                    return true;
+                });
+        assertEquals(4, visited);
+        assertEquals(List.of(100.0, 100.5, 102.0, 103.0), btcPrices);
+
+        // 时间范围过滤 + 全部symbol
+        List<String> firstSecond = new ArrayList<>();
+        reader.scan(null, DAY_START + 1_000, DAY_START + 1_000,
+                (symbol, eventTime, last, high, low, baseVolume, quoteVolume, tradeCount) -> {
+                    firstSecond.add(symbol + ":" + tradeCount);
+                    return true;
+                });
+        assertEquals(List.of("BTCUSDT:5", "ETHUSDT:7"), firstSecond);
+
+        // 回调返回false时停止
+        long limited = reader.scan(null, DAY_START, DAY_START + 2 * DAY_MS,
+                (symbol, eventTime, last, high, low, baseVolume, quoteVolume, tradeCount) -> false);
+        assertEquals(1, limited);
+
+        assertEquals(0, reader.scan("SOLUSDT", DAY_START, DAY_START + DAY_MS, (s, e, c, h, l, v, q, n) -> true));
+    }
+
+    @Test
+    void testGrowsBeyondOneSegment() throws Exception {
+        int rows = TickerHistoryPartition.SEGMENT_ROWS + 10;
+        try (TickerHistoryStore store = new TickerHistoryStore(root)) {
+            for (int i = 0; i < rows; i++) {
+                store.append(i % 2 == 0 ? "BTCUSDT" : "ETHUSDT", DAY_START + i, i, i, i, i, i, i);
+            }
+        }
+        long[] lastTradeCount = {-1};
+        long visited = new TickerHistoryReader(root).scan("ETHUSDT", DAY_START, DAY_START + rows,
+                (symbol, eventTime, last, high, low, baseVolume, quoteVolume, tradeCount) -> {
+                    assertEquals(eventTime - DAY_START, tradeCount);
+                    assertTrue(tradeCount > lastTradeCount[0]);
+                    lastTradeCount[0] = tradeCount;
+                    return true;
+                });
+        assertEquals(rows / 2, visited);
+        assertEquals(rows - 1, lastTradeCount[0]);
+    }
+}
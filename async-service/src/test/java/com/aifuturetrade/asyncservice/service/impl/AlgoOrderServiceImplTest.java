@@ -0,0 +1,98 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.dao.ActiveAlgoOrderSet;
+import com.aifuturetrade.asyncservice.dao.TradeSettlementWriter;
+import com.aifuturetrade.asyncservice.dao.mapper.AlgoOrderMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.ModelMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.PortfolioMapper;
+import com.aifuturetrade.asyncservice.dao.mapper.StrategyDecisionMapper;
+import com.aifuturetrade.asyncservice.entity.AlgoOrderDO;
+import com.aifuturetrade.asyncservice.entity.ModelDO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * real模型条件单状态同步测试（不连接币安）
+ */
+@ExtendWith(MockitoExtension.class)
+class AlgoOrderServiceImplTest {
+
+    @Mock
+    private AlgoOrderMapper algoOrderMapper;
+
+    @Mock
+    private ModelMapper modelMapper;
+
+    @Mock
+    private PortfolioMapper portfolioMapper;
+
+    @Mock
+    private StrategyDecisionMapper strategyDecisionMapper;
+
+    @Mock
+    private TradeSettlementWriter tradeSettlementWriter;
+
+    @Mock
+    private ActiveAlgoOrderSet activeAlgoOrderSet;
+
+    private AlgoOrderServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AlgoOrderServiceImpl();
+        ReflectionTestUtils.setField(service, "algoOrderMapper", algoOrderMapper);
+        ReflectionTestUtils.setField(service, "modelMapper", modelMapper);
+        ReflectionTestUtils.setField(service, "portfolioMapper", portfolioMapper);
+        ReflectionTestUtils.setField(service, "strategyDecisionMapper", strategyDecisionMapper);
+        ReflectionTestUtils.setField(service, "tradeSettlementWriter", tradeSettlementWriter);
+        ReflectionTestUtils.setField(service, "activeAlgoOrderSet", activeAlgoOrderSet);
+    }
+
+    @Test
+    void testMapSdkStatus() {
+        assertEquals("EXECUTED", AlgoOrderServiceImpl.mapSdkStatusToDbStatus("FINISHED", "600.5", "0.01"));
+        assertEquals("EXECUTED", AlgoOrderServiceImpl.mapSdkStatusToDbStatus("FINISHED", null, "0.01"));
+        assertEquals("CANCELLED", AlgoOrderServiceImpl.mapSdkStatusToDbStatus("FINISHED", "0", "0"));
+        assertEquals("CANCELLED", AlgoOrderServiceImpl.mapSdkStatusToDbStatus("FINISHED", null, null));
+        assertEquals("TRIGGERED", AlgoOrderServiceImpl.mapSdkStatusToDbStatus("TRIGGERED", null, null));
+        assertEquals("CANCELLED", AlgoOrderServiceImpl.mapSdkStatusToDbStatus("EXPIRED", null, null));
+        assertEquals("FAILED", AlgoOrderServiceImpl.mapSdkStatusToDbStatus("REJECTED", null, null));
+        assertEquals("NEW", AlgoOrderServiceImpl.mapSdkStatusToDbStatus(null, null, null));
+    }
+
+    @Test
+    void testFinishedWithoutFillIsCancelledAndDecisionRejected() {
+        AlgoOrderDO order = new AlgoOrderDO();
+        order.setId("o1");
+        order.setModelId("m1");
+        order.setSymbol("BNBUSDT");
+        order.setPositionSide("LONG");
+        order.setQuantity(0.01);
+        order.setStrategyDecisionId("d1");
+        ModelDO model = new ModelDO();
+        model.setId("m1");
+        model.setIsVirtual(false);
+        when(algoOrderMapper.selectNewAlgoOrderByAlgoId(2148719L)).thenReturn(order);
+        when(modelMapper.selectById("m1")).thenReturn(model);
+
+        // 用户数据流对 aq=0/ap=0 的FINISHED传入null价格和数量
+        assertTrue(service.applyRealAlgoOrderUpdate(2148719L, "FINISHED", null, null, 8886774L));
+
+        verify(algoOrderMapper).updateAlgoStatusWithError(eq("o1"), eq("CANCELLED"), anyString());
+        verify(strategyDecisionMapper).updateStrategyDecisionStatus(eq("d1"), eq("REJECTED"), isNull(), anyString());
+        verify(activeAlgoOrderSet).remove("o1");
+        verify(algoOrderMapper, never()).updateAlgoStatus(anyString(), eq("EXECUTED"));
+        verifyNoInteractions(tradeSettlementWriter, portfolioMapper);
+    }
+}
@@ -0,0 +1,88 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesOrderClient;
+import com.aifuturetrade.asyncservice.entity.ModelDO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 币安客户端注册表测试（只创建客户端，不发起请求）
+ */
+class BinanceClientRegistryImplTest {
+
+    private BinanceClientRegistryImpl registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new BinanceClientRegistryImpl();
+        ReflectionTestUtils.setField(registry, "defaultApiKey", "default-key");
+        ReflectionTestUtils.setField(registry, "defaultSecretKey", "default-secret");
+        ReflectionTestUtils.setField(registry, "quoteAsset", "USDT");
+        ReflectionTestUtils.setField(registry, "maxCredentials", 2);
+        ReflectionTestUtils.setField(registry, "idleTimeoutSeconds", 1800L);
+        ReflectionTestUtils.setField(registry, "maxIdleConnections", 5);
+        ReflectionTestUtils.setField(registry, "keepAliveSeconds", 60L);
+        registry.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    void testModelsWithSameCredentialShareClient() {
+        BinanceFuturesOrderClient first = registry.getOrderClient(model("m1", "key-a", "secret-a"));
+        BinanceFuturesOrderClient second = registry.getOrderClient(model("m2", "key-a", "secret-a"));
+
+        assertSame(first, second);
+        assertEquals(1, registry.getStats().getCredentialCount());
+        assertEquals(2, registry.getStats().getModelCount());
+        assertEquals(1, registry.getStats().getMisses());
+        assertEquals(1, registry.getStats().getHits());
+    }
+
+    @Test
+    void testModelsWithoutCredentialUseDefaultKey() {
+        assertSame(registry.getOrderClient(model("m1", null, null)),
+                registry.getOrderClient(model("m2", "", "")));
+        assertSame(registry.getDefaultFuturesClient(), registry.getFuturesClient(model("m3", null, null)));
+    }
+
+    @Test
+    void testCredentialChangeReplacesClient() {
+        BinanceFuturesOrderClient before = registry.getOrderClient(model("m1", "key-a", "secret-a"));
+        BinanceFuturesOrderClient after = registry.getOrderClient(model("m1", "key-a", "secret-rotated"));
+
+        assertNotSame(before, after);
+        assertEquals(1, registry.getStats().getCredentialChanges());
+        // 旧凭证没有其他模型使用，已被移除
+        assertEquals(1, registry.getStats().getCredentialCount());
+    }
+
+    @Test
+    void testLeastRecentlyUsedCredentialEvicted() {
+        BinanceFuturesOrderClient a = registry.getOrderClient(model("m1", "key-a", "secret-a"));
+        registry.getOrderClient(model("m2", "key-b", "secret-b"));
+        registry.getOrderClient(model("m1", "key-a", "secret-a"));
+        registry.getOrderClient(model("m3", "key-c", "secret-c"));
+
+        assertEquals(2, registry.getStats().getCredentialCount());
+        assertEquals(1, registry.getStats().getEvictions());
+        // key-a最近被使用过，保留；key-b被移除
+        assertSame(a, registry.getOrderClient(model("m1", "key-a", "secret-a")));
+        assertEquals(2, registry.getStats().getModelCount());
+    }
+
+    private static ModelDO model(String id, String apiKey, String apiSecret) {
+        ModelDO model = new ModelDO();
+        model.setId(id);
+        model.setApiKey(apiKey);
+        model.setApiSecret(apiSecret);
+        return model;
+    }
+}
@@ -0,0 +1,120 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.asyncservice.api.binance.BinanceFuturesOrderClient;
+import com.aifuturetrade.asyncservice.config.WebSocketConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 价格缓存服务测试（不启动价格流，直接喂入报文）
+ */
+class MarketPriceCacheServiceImplTest {
+
+    private static final String MARK_PRICES = "[{\"e\":\"markPriceUpdate\",\"E\":1700000000000,\"s\":\"BTCUSDT\","
+            + "\"p\":\"37000.50\",\"i\":\"37001.00\",\"P\":\"37010.00\",\"r\":\"0.0001\",\"T\":1700006400000},"
+            + "{\"e\":\"markPriceUpdate\",\"E\":1700000000000,\"s\":\"ETHUSDT\",\"p\":\"2000.25\"}]";
+
+    private MarketPriceCacheServiceImpl cache;
+    private final List<List<String>> restCalls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cache = new MarketPriceCacheServiceImpl(new WebSocketConfig());
+        ReflectionTestUtils.setField(cache, "maxAgeMs", 5000L);
+    }
+
+    @Test
+    void testFreshStreamPriceSkipsRest() {
+        cache.onMessage(MARK_PRICES, System.currentTimeMillis());
+
+        assertEquals(37000.50, cache.getPrice("btcusdt", this::rest));
+        Map<String, Double> prices = cache.getPrices(List.of("BTCUSDT", "ETHUSDT"), this::rest);
+        assertEquals(2000.25, prices.get("ETHUSDT"));
+        assertTrue(restCalls.isEmpty());
+        assertEquals(3, cache.getStats().getHits());
+    }
+
+    @Test
+    void testStaleAndMissingSymbolsFallBackInOneRestCall() {
+        cache.onMessage("{\"stream\":\"!markPrice@arr@1s\",\"data\":" + MARK_PRICES + "}",
+                System.currentTimeMillis() - 10_000);
+
+        Map<String, Double> prices = cache.getPrices(List.of("BTCUSDT", "SOLUSDT"), this::rest);
+
+        assertEquals(List.of(List.of("BTCUSDT", "SOLUSDT")), restCalls);
+        assertEquals(1.0, prices.get("BTCUSDT"));
+        assertEquals(1.0, prices.get("SOLUSDT"));
+        // REST结果写回缓存，过期前不再回退
+        assertEquals(1.0, cache.getPrice("SOLUSDT", this::rest));
+        assertEquals(1, restCalls.size());
+        assertEquals(2, cache.getStats().getRestFallbacks());
+    }
+
+    @Test
+    void testListenersReceiveEachMessageAndFailuresAreIsolated() {
+        List<Map<String, Double>> received = new ArrayList<>();
+        cache.addPriceListener(prices -> {
+            throw new IllegalStateException("boom");
+        });
+        cache.addPriceListener(received::add);
+
+        cache.onMessage(MARK_PRICES, System.currentTimeMillis());
+
+        assertEquals(List.of(Map.of("BTCUSDT", 37000.50, "ETHUSDT", 2000.25)), received);
+    }
+
+    @Test
+    void testRestMarkPriceLoaderQueriesMarkPriceOnlyForStaleSymbols() {
+        cache.onMessage(MARK_PRICES, System.currentTimeMillis());
+        BinanceFuturesClient client = mock(BinanceFuturesClient.class);
+        when(client.getMarkPrices(List.of("SOLUSDT"))).thenReturn(Map.of("SOLUSDT", 150.5));
+        AtomicInteger clientLookups = new AtomicInteger();
+
+        Map<String, Double> prices = cache.getPrices(List.of("BTCUSDT", "SOLUSDT"),
+                cache.restMarkPriceLoader(() -> {
+                    clientLookups.incrementAndGet();
+                    return client;
+                }));
+
+        assertEquals(37000.50, prices.get("BTCUSDT"));
+        assertEquals(150.5, prices.get("SOLUSDT"));
+        verify(client).getMarkPrices(List.of("SOLUSDT"));
+        verify(client, never()).getSymbolPrices(anyList());
+
+        // 缓存命中时不获取客户端
+        cache.getPrice("SOLUSDT", cache.restMarkPriceLoader(() -> {
+            clientLookups.incrementAndGet();
+            return client;
+        }));
+        assertEquals(1, clientLookups.get());
+    }
+
+    @Test
+    void testRestMarkPriceLoaderFailuresReturnNoPrice() {
+        assertNull(cache.getPrice("SOLUSDT", cache.restMarkPriceLoader(() -> {
+            throw new IllegalStateException("no client");
+        })));
+        assertNull(cache.getPrice("SOLUSDT", cache.restMarkPriceLoader(() -> mock(BinanceFuturesOrderClient.class))));
+        assertEquals(0, cache.getStats().getSymbolCount());
+    }
+
+    private Map<String, Double> rest(List<String> symbols) {
+        restCalls.add(List.copyOf(symbols));
+        Map<String, Double> result = new HashMap<>();
+        for (String symbol : symbols) {
+            result.put(symbol, 1.0);
+        }
+        return result;
+    }
+}
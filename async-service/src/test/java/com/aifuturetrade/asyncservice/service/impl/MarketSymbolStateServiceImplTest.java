@@ -0,0 +1,135 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.entity.ExistingSymbolData;
+import com.aifuturetrade.asyncservice.entity.SymbolPriceState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 市场Symbol状态服务测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MarketSymbolStateServiceImplTest {
+
+    @Mock
+    private MarketTickerMapper marketTickerMapper;
+
+    @InjectMocks
+    private MarketSymbolStateServiceImpl symbolStateService;
+
+    @Test
+    void testWarmUpLoadsOnce() {
+        ExistingSymbolData btc = new ExistingSymbolData();
+        btc.setSymbol("BTCUSDT");
+        btc.setOpenPrice(60000.0);
+        btc.setLastPrice(61000.0);
+        btc.setUpdatePriceDate(LocalDateTime.now());
+        when(marketTickerMapper.selectAllSymbolData()).thenReturn(List.of(btc));
+
+        assertTrue(symbolStateService.ensureWarmedUp());
+        assertTrue(symbolStateService.ensureWarmedUp());
+
+        assertEquals(60000.0, symbolStateService.get("BTCUSDT").getEffectiveOpenPrice());
+        verify(marketTickerMapper, times(1)).selectAllSymbolData();
+    }
+
+    @Test
+    void testWarmUpFailureFallsBack() {
+        when(marketTickerMapper.selectAllSymbolData()).thenThrow(new RuntimeException("Database error"));
+
+        assertFalse(symbolStateService.ensureWarmedUp());
+        assertFalse(symbolStateService.isWarmedUp());
+    }
+
+    @Test
+    void testNewSymbolHasNoEffectiveOpenPrice() {
+        symbolStateService.recordLastPrice("ETHUSDT", 3000.0);
+
+        SymbolPriceState state = symbolStateService.get("ETHUSDT");
+        assertEquals(3000.0, state.getLastPrice());
+        assertEquals(0.0, state.getOpenPrice());
+        assertNull(state.getEffectiveOpenPrice());
+    }
+
+    @Test
+    void testUpdateOpenPriceKeepsLastPrice() {
+        symbolStateService.recordLastPrice("ETHUSDT", 3000.0);
+        LocalDateTime updateDate = LocalDateTime.now();
+
+        symbolStateService.updateOpenPrice("ETHUSDT", 2900.0, updateDate);
+        symbolStateService.updateOpenPrice("SOLUSDT", 150.0, updateDate);
+
+        SymbolPriceState state = symbolStateService.get("ETHUSDT");
+        assertEquals(2900.0, state.getEffectiveOpenPrice());
+        assertEquals(3000.0, state.getLastPrice());
+        assertEquals(updateDate, state.getUpdatePriceDate());
+        assertNull(symbolStateService.get("SOLUSDT"));
+    }
+
+    @Test
+    void testOpenPriceUpdateBeforeWarmUpIsMerged() {
+        LocalDateTime dbDate = LocalDateTime.of(2026, 1, 1, 8, 0);
+        LocalDateTime refreshDate = dbDate.plusDays(1);
+        when(marketTickerMapper.selectAllSymbolData()).thenReturn(List.of(
+                row("BTCUSDT", 60000.0, 61000.0, dbDate), row("ETHUSDT", 2800.0, 2900.0, dbDate)));
+
+        // 预热前：BTC的开盘价已刷新（内存中尚无该symbol），ETH已由ticker流写入
+        symbolStateService.updateOpenPrice("BTCUSDT", 62000.0, refreshDate);
+        symbolStateService.recordLastPrice("ETHUSDT", 3000.0);
+        assertTrue(symbolStateService.ensureWarmedUp());
+
+        SymbolPriceState btc = symbolStateService.get("BTCUSDT");
+        assertEquals(62000.0, btc.getEffectiveOpenPrice());
+        assertEquals(refreshDate, btc.getUpdatePriceDate());
+        assertEquals(61000.0, btc.getLastPrice());
+        SymbolPriceState eth = symbolStateService.get("ETHUSDT");
+        assertEquals(2800.0, eth.getEffectiveOpenPrice());
+        assertEquals(3000.0, eth.getLastPrice());
+    }
+
+    @Test
+    void testEvictedSymbolIsReloadedFromDatabase() {
+        LocalDateTime updateDate = LocalDateTime.now();
+        symbolStateService.recordLastPrice("ETHUSDT", 3000.0);
+        symbolStateService.updateOpenPrice("ETHUSDT", 2900.0, updateDate);
+        symbolStateService.evictNotSeenSince(Long.MAX_VALUE);
+        when(marketTickerMapper.getExistingSymbolData(List.of("ETHUSDT")))
+                .thenReturn(List.of(row("ETHUSDT", 2900.0, 3000.0, updateDate)));
+
+        symbolStateService.reloadEvicted(List.of("ETHUSDT", "BTCUSDT"));
+        symbolStateService.reloadEvicted(List.of("ETHUSDT"));
+
+        assertEquals(2900.0, symbolStateService.get("ETHUSDT").getEffectiveOpenPrice());
+        assertNull(symbolStateService.get("BTCUSDT"));
+        verify(marketTickerMapper, times(1)).getExistingSymbolData(anyList());
+    }
+
+    @Test
+    void testEvictNotSeenSince() {
+        symbolStateService.recordLastPrice("ETHUSDT", 3000.0);
+
+        assertTrue(symbolStateService.evictNotSeenSince(0L).isEmpty());
+        assertEquals(List.of("ETHUSDT"), symbolStateService.evictNotSeenSince(Long.MAX_VALUE));
+        assertEquals(0, symbolStateService.size());
+    }
+
+    private static ExistingSymbolData row(String symbol, Double openPrice, Double lastPrice,
+                                          LocalDateTime updatePriceDate) {
+        ExistingSymbolData data = new ExistingSymbolData();
+        data.setSymbol(symbol);
+        data.setOpenPrice(openPrice);
+        data.setLastPrice(lastPrice);
+        data.setUpdatePriceDate(updatePriceDate);
+        return data;
+    }
+}
@@ -0,0 +1,86 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.asyncservice.entity.MarketTickerDO;
+import com.aifuturetrade.asyncservice.service.MarketSymbolStateService;
+import com.aifuturetrade.asyncservice.service.TickerWriteBehindStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 市场Ticker写后缓冲服务测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MarketTickerWriteBehindServiceImplTest {
+
+    @Mock
+    private MarketTickerMapper marketTickerMapper;
+
+    @Mock
+    private MarketSymbolStateService symbolStateService;
+
+    private MarketTickerWriteBehindServiceImpl writeBehindService;
+
+    @BeforeEach
+    void setUp() {
+        writeBehindService = new MarketTickerWriteBehindServiceImpl(marketTickerMapper, null, symbolStateService, null, null);
+        ReflectionTestUtils.setField(writeBehindService, "enabled", true);
+        ReflectionTestUtils.setField(writeBehindService, "maxPending", 1000);
+        ReflectionTestUtils.setField(writeBehindService, "maxUnchangedSeconds", 300);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConflatesToLatestSnapshot() {
+        writeBehindService.submit(List.of(ticker("BTCUSDT", 100.0)));
+        writeBehindService.submit(List.of(ticker("BTCUSDT", 101.0), ticker("ETHUSDT", 10.0)));
+
+        assertEquals(2, writeBehindService.flush());
+
+        ArgumentCaptor<List<MarketTickerDO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(marketTickerMapper, times(1)).batchUpsertTickers(captor.capture());
+        assertEquals(101.0, captor.getValue().get(0).getLastPrice());
+
+        TickerWriteBehindStats stats = writeBehindService.getStats();
+        assertEquals(3, stats.getRowsSubmitted());
+        assertEquals(1, stats.getRowsConflated());
+        assertEquals(2, stats.getRowsWritten());
+    }
+
+    @Test
+    void testSkipsUnchangedRows() {
+        writeBehindService.submit(List.of(ticker("BTCUSDT", 100.0)));
+        writeBehindService.flush();
+
+        writeBehindService.submit(List.of(ticker("BTCUSDT", 100.0)));
+        assertEquals(0, writeBehindService.flush());
+
+        verify(marketTickerMapper, times(1)).batchUpsertTickers(anyList());
+        assertEquals(1, writeBehindService.getStats().getRowsSkipped());
+    }
+
+    @Test
+    void testRequeuesOnFailure() {
+        doThrow(new RuntimeException("Database error")).when(marketTickerMapper).batchUpsertTickers(anyList());
+        writeBehindService.submit(List.of(ticker("BTCUSDT", 100.0)));
+
+        assertThrows(RuntimeException.class, () -> writeBehindService.flush());
+
+        assertEquals(1, writeBehindService.getStats().getPendingSymbols());
+    }
+
+    private MarketTickerDO ticker(String symbol, double lastPrice) {
+        return new MarketTickerDO().setSymbol(symbol).setLastPrice(lastPrice);
+    }
+}
@@ -0,0 +1,74 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.market.TickerIngestionStage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Ticker同步监控延迟告警测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TickerSyncMonitorServiceImplTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private TickerIngestionMetricsServiceImpl metrics;
+    private TickerSyncMonitorServiceImpl monitor;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new TickerIngestionMetricsServiceImpl();
+        monitor = new TickerSyncMonitorServiceImpl(restTemplate, metrics);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAlertsAfterConsecutiveLaggingWindows() throws Exception {
+        for (int window = 0; window < 3; window++) {
+            closeWindowWithLag(20_000);
+            monitor.checkTickerLag();
+        }
+
+        ArgumentCaptor<HttpEntity<Map<String, Object>>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(1)).postForObject(anyString(), captor.capture(), eq(Map.class));
+        assertEquals("TICKER_SYNC_LAG", captor.getValue().getBody().get("eventType"));
+    }
+
+    @Test
+    void testRecoveredWindowResetsCounterAndSameWindowIsEvaluatedOnce() throws Exception {
+        closeWindowWithLag(20_000);
+        monitor.checkTickerLag();
+        monitor.checkTickerLag();
+        closeWindowWithLag(20_000);
+        monitor.checkTickerLag();
+        closeWindowWithLag(100);
+        monitor.checkTickerLag();
+        closeWindowWithLag(20_000);
+        monitor.checkTickerLag();
+
+        verify(restTemplate, never()).postForObject(anyString(), any(), eq(Map.class));
+    }
+
+    private void closeWindowWithLag(long lagMs) throws InterruptedException {
+        metrics.recordMessage(500);
+        metrics.recordStage(TickerIngestionStage.EXCHANGE_TO_RECEIVE, lagMs);
+        // 保证窗口结束时间严格递增
+        Thread.sleep(2);
+        metrics.rotateWindow();
+    }
+}
@@ -0,0 +1,187 @@
+package com.aifuturetrade.asyncservice.service.impl;
+
+import com.aifuturetrade.asyncservice.dao.ActiveAlgoOrderSet;
+import com.aifuturetrade.asyncservice.dao.mapper.ModelMapper;
+import com.aifuturetrade.asyncservice.entity.ModelDO;
+import com.aifuturetrade.asyncservice.service.AlgoOrderService;
+import com.aifuturetrade.asyncservice.service.BinanceClientRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户数据流事件处理测试（不建立连接）
+ */
+@ExtendWith(MockitoExtension.class)
+class UserDataStreamServiceImplTest {
+
+    @Mock
+    private AlgoOrderService algoOrderService;
+
+    @Mock
+    private ActiveAlgoOrderSet activeAlgoOrderSet;
+
+    @Mock
+    private ModelMapper modelMapper;
+
+    @Mock
+    private BinanceClientRegistry binanceClientRegistry;
+
+    private UserDataStreamServiceImpl service;
+    private UserDataStreamServiceImpl.Session session;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserDataStreamServiceImpl();
+        ReflectionTestUtils.setField(service, "algoOrderService", algoOrderService);
+        ReflectionTestUtils.setField(service, "activeAlgoOrderSet", activeAlgoOrderSet);
+        ReflectionTestUtils.setField(service, "modelMapper", modelMapper);
+        ReflectionTestUtils.setField(service, "binanceClientRegistry", binanceClientRegistry);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        session = new UserDataStreamServiceImpl.Session("account");
+    }
+
+    @Test
+    void testFinishedAlgoUpdateAppliedWithFillPrice() {
+        when(algoOrderService.applyRealAlgoOrderUpdate(anyLong(), anyString(), any(), any(), any())).thenReturn(true);
+
+        service.handleEvent(session, algoUpdate("FINISHED", "8886774", "600.5", "0.01"));
+
+        verify(algoOrderService).applyRealAlgoOrderUpdate(2148719L, "FINISHED", "600.5", "0.01", 8886774L);
+        assertEquals(1, service.getStats().getAppliedUpdates());
+    }
+
+    @Test
+    void testTriggeredAlgoWaitsForOrderFill() {
+        service.handleEvent(session, algoUpdate("TRIGGERED", "8886774", "0.00000", "0.00000"));
+        verifyNoInteractions(algoOrderService);
+
+        // 其他订单的成交与该条件单无关
+        service.handleEvent(session, orderTradeUpdate(1L, "FILLED", "601.0", "0.01"));
+        verifyNoInteractions(algoOrderService);
+
+        service.handleEvent(session, orderTradeUpdate(8886774L, "FILLED", "600.5", "0.01"));
+        verify(algoOrderService).applyRealAlgoOrderUpdate(2148719L, "FINISHED", "600.5", "0.01", 8886774L);
+
+        // 已处理的普通订单不会被重复应用
+        service.handleEvent(session, orderTradeUpdate(8886774L, "FILLED", "600.5", "0.01"));
+        verifyNoMoreInteractions(algoOrderService);
+    }
+
+    @Test
+    void testFinishedAlgoUpdateWithoutFillPassesNoPriceOrQuantity() {
+        service.handleEvent(session, algoUpdate("TRIGGERED", "8886774", "0", "0"));
+        // 普通订单在撮合引擎中过期，等待条件单的最终状态
+        service.handleEvent(session, orderTradeUpdate(8886774L, "EXPIRED", "0", "0"));
+        verifyNoInteractions(algoOrderService);
+
+        service.handleEvent(session, algoUpdate("FINISHED", "8886774", "0", "0"));
+
+        verify(algoOrderService).applyRealAlgoOrderUpdate(eq(2148719L), eq("FINISHED"), isNull(), isNull(), eq(8886774L));
+    }
+
+    @Test
+    void testCanceledAlgoUpdateAppliedWithoutFill() {
+        service.handleEvent(session, algoUpdate("CANCELED", "", "0", "0"));
+
+        verify(algoOrderService).applyRealAlgoOrderUpdate(eq(2148719L), eq("CANCELED"), isNull(), isNull(), isNull());
+    }
+
+    @Test
+    void testUnknownPayloadCountedAsParseFailure() {
+        service.handleEvent(session, "{\"result\":null,\"id\":1}");
+
+        verifyNoInteractions(algoOrderService);
+        assertEquals(1, service.getStats().getParseFailures());
+    }
+
+    @Test
+    void testDiscoverAccountsQueriesEachModelOnce() {
+        when(activeAlgoOrderSet.modelIds()).thenReturn(Set.of("m1", "m2", "v1"));
+        when(modelMapper.selectById("m1")).thenReturn(model("m1", "key-a", false));
+        when(modelMapper.selectById("m2")).thenReturn(model("m2", "key-a", false));
+        when(modelMapper.selectById("v1")).thenReturn(model("v1", null, true));
+        when(binanceClientRegistry.getCredentialFingerprint(any())).thenAnswer(inv -> ((ModelDO) inv.getArgument(0)).getApiKey());
+
+        Map<String, List<ModelDO>> first = service.discoverAccounts();
+        Map<String, List<ModelDO>> second = service.discoverAccounts();
+
+        // 同一账户的两个real模型合并为一个连接，虚拟模型被跳过
+        assertEquals(Set.of("key-a"), first.keySet());
+        assertEquals(2, first.get("key-a").size());
+        assertEquals(first.keySet(), second.keySet());
+        verify(modelMapper, times(1)).selectById("m1");
+        verify(modelMapper, times(1)).selectById("m2");
+        verify(modelMapper, times(1)).selectById("v1");
+    }
+
+    @Test
+    void testCredentialChangeSeenByIsTrackingRegroupsWithoutQuery() {
+        when(activeAlgoOrderSet.modelIds()).thenReturn(Set.of("m1"));
+        when(modelMapper.selectById("m1")).thenReturn(model("m1", "key-a", false));
+        when(binanceClientRegistry.getCredentialFingerprint(any())).thenAnswer(inv -> ((ModelDO) inv.getArgument(0)).getApiKey());
+        assertEquals(Set.of("key-a"), service.discoverAccounts().keySet());
+
+        service.isTracking(model("m1", "key-b", false));
+
+        assertEquals(Set.of("key-b"), service.discoverAccounts().keySet());
+        verify(modelMapper, times(1)).selectById("m1");
+    }
+
+    @Test
+    void testModelWithoutNewOrdersLeavesCache() {
+        when(activeAlgoOrderSet.modelIds()).thenReturn(Set.of("m1"), Set.of(), Set.of("m1"));
+        when(modelMapper.selectById("m1")).thenReturn(model("m1", "key-a", false));
+        when(binanceClientRegistry.getCredentialFingerprint(any())).thenAnswer(inv -> ((ModelDO) inv.getArgument(0)).getApiKey());
+
+        service.discoverAccounts();
+        assertTrue(service.discoverAccounts().isEmpty());
+        service.discoverAccounts();
+
+        // 再次出现时重新读取模型
+        verify(modelMapper, times(2)).selectById("m1");
+    }
+
+    private static ModelDO model(String id, String apiKey, boolean isVirtual) {
+        ModelDO model = new ModelDO();
+        model.setId(id);
+        model.setApiKey(apiKey);
+        model.setIsVirtual(isVirtual);
+        return model;
+    }
+
+    private static String algoUpdate(String status, String actualOrderId, String actualPrice, String actualQuantity) {
+        return "{\"e\":\"ALGO_UPDATE\",\"T\":1750515742297,\"E\":1750515742303,\"o\":{"
+                + "\"caid\":\"Q5xaq5EGKgXXa0fD7fs0Ip\",\"aid\":2148719,\"at\":\"CONDITIONAL\",\"o\":\"TAKE_PROFIT\","
+                + "\"s\":\"BNBUSDT\",\"S\":\"SELL\",\"ps\":\"LONG\",\"f\":\"GTC\",\"q\":\"0.01\","
+                + "\"X\":\"" + status + "\",\"ai\":\"" + actualOrderId + "\",\"ap\":\"" + actualPrice + "\","
+                + "\"aq\":\"" + actualQuantity + "\",\"act\":\"0\",\"tp\":\"750\",\"p\":\"0\",\"V\":\"NONE\","
+                + "\"wt\":\"CONTRACT_PRICE\",\"pm\":\"NONE\",\"cp\":true,\"pP\":false,\"R\":false,\"tt\":0,\"gtd\":0}}";
+    }
+
+    private static String orderTradeUpdate(long orderId, String status, String averagePrice, String filledQuantity) {
+        return "{\"e\":\"ORDER_TRADE_UPDATE\",\"E\":1568879465651,\"T\":1568879465650,\"o\":{"
+                + "\"s\":\"BNBUSDT\",\"c\":\"TEST\",\"S\":\"SELL\",\"o\":\"MARKET\",\"f\":\"GTC\",\"q\":\"0.01\","
+                + "\"p\":\"0\",\"ap\":\"" + averagePrice + "\",\"sp\":\"0\",\"x\":\"TRADE\",\"X\":\"" + status + "\","
+                + "\"i\":" + orderId + ",\"l\":\"0.01\",\"z\":\"" + filledQuantity + "\",\"L\":\"" + averagePrice + "\","
+                + "\"N\":\"USDT\",\"n\":\"0.01\",\"T\":1568879465650,\"t\":1,\"b\":\"0\",\"a\":\"0\",\"m\":false,"
+                + "\"R\":false,\"wt\":\"CONTRACT_PRICE\",\"ot\":\"MARKET\",\"ps\":\"LONG\",\"cp\":true,\"rp\":\"0\","
+                + "\"pP\":false,\"si\":0,\"ss\":0,\"V\":\"NONE\",\"pm\":\"NONE\",\"gtd\":0}}";
+    }
+}
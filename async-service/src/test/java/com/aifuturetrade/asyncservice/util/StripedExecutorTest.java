@@ -0,0 +1,81 @@
+package com.aifuturetrade.asyncservice.util;
+
+import com.aifuturetrade.asyncservice.market.HistogramSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分条带执行器测试
+ */
+class StripedExecutorTest {
+
+    private final StripedExecutor executor = new StripedExecutor("test", 4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown(1000);
+    }
+
+    @Test
+    void testSameKeyRunsInSubmissionOrder() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+
+        List<Integer> results = executor.invokeAll(items, item -> "model-1", item -> {
+            seen.add(item);
+            return item * 2;
+        });
+
+        assertEquals(items, seen);
+        assertEquals(100, results.size());
+        assertEquals(198, results.get(99));
+    }
+
+    @Test
+    void testSlowKeyDoesNotBlockOtherKeys() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // 找一个与slow不在同一条带的key
+        String other = "other";
+        for (int i = 0; Math.floorMod(other.hashCode(), 4) == Math.floorMod("slow".hashCode(), 4); i++) {
+            other = "other-" + i;
+        }
+        executor.submit("slow", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+
+        assertEquals("done", executor.submit(other, () -> "done").get(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void testFailedTaskReturnsNullAndLatencyIsRecorded() {
+        List<String> results = executor.invokeAll(List.of("a", "b"), item -> item, item -> {
+            if ("a".equals(item)) {
+                throw new IllegalStateException("boom");
+            }
+            return item;
+        });
+
+        assertNull(results.get(0));
+        assertEquals("b", results.get(1));
+        HistogramSnapshot latency = executor.drainLatencySnapshot();
+        assertEquals(2, latency.getCount());
+        assertEquals(0, executor.drainLatencySnapshot().getCount());
+    }
+}
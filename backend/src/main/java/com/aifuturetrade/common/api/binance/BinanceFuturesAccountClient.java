@@ -61,7 +61,8 @@ public class BinanceFuturesAccountClient extends BinanceFuturesBase {
         try {
             log.info("[BinanceFuturesAccountClient] 开始获取账户信息");
             // 调用SDK API获取账户信息 - 使用null作为recvWindow参数（可选）
-            ApiResponse<AccountInformationV3Response> response = restApi.accountInformationV3((Long) null);
+            ApiResponse<AccountInformationV3Response> response = callRest(5, RequestWeightLimiter.Priority.ORDER, false,
+                    () -> restApi.accountInformationV3((Long) null));
             
             // 直接使用SDK的getData()方法获取响应数据
             AccountInformationV3Response accountData = response.getData();
@@ -105,7 +106,8 @@ public class BinanceFuturesAccountClient extends BinanceFuturesBase {
         try {
             log.info("[BinanceFuturesAccountClient] 开始获取账户信息（V2）");
             // 调用SDK API获取账户信息V2 - 使用null作为recvWindow参数（可选）
-            ApiResponse<AccountInformationV2Response> response = restApi.accountInformationV2((Long) null);
+            ApiResponse<AccountInformationV2Response> response = callRest(5, RequestWeightLimiter.Priority.ORDER, false,
+                    () -> restApi.accountInformationV2((Long) null));
             
             // 直接使用SDK的getData()方法获取响应数据
             AccountInformationV2Response accountData = response.getData();
@@ -156,7 +158,8 @@ public class BinanceFuturesAccountClient extends BinanceFuturesBase {
         try {
             log.info("[BinanceFuturesAccountClient] 开始获取账户余额");
             // 调用SDK API获取账户余额 - 使用null作为recvWindow参数（可选）
-            ApiResponse<FuturesAccountBalanceV2Response> response = restApi.futuresAccountBalanceV2((Long) null);
+            ApiResponse<FuturesAccountBalanceV2Response> response = callRest(5, RequestWeightLimiter.Priority.ORDER, false,
+                    () -> restApi.futuresAccountBalanceV2((Long) null));
             
             // 直接使用SDK的getData()方法获取响应数据
             // FuturesAccountBalanceV2Response继承自ArrayList<FuturesAccountBalanceV2ResponseInner>
@@ -83,7 +83,10 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
             }
             
             // 调用REST API接口
-            ApiResponse<SymbolOrderBookTickerResponse> response = restApi.symbolOrderBookTicker(formattedSymbol);
+            // 单个交易对权重2，全部交易对权重5
+            String requestSymbol = formattedSymbol;
+            ApiResponse<SymbolOrderBookTickerResponse> response = callRest(requestSymbol != null ? 2 : 5, RequestWeightLimiter.Priority.MARKET, false,
+                    () -> restApi.symbolOrderBookTicker(requestSymbol));
             
             // 直接使用SDK的getData()方法获取响应数据
             SymbolOrderBookTickerResponse responseData = response.getData();
@@ -165,7 +168,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
             ChangeInitialLeverageRequest request = new ChangeInitialLeverageRequest();
             request.setSymbol(formattedSymbol);
             request.setLeverage(leverage.longValue()); // 转换为Long类型
-            ApiResponse<ChangeInitialLeverageResponse> response = restApi.changeInitialLeverage(request);
+            ApiResponse<ChangeInitialLeverageResponse> response = callRest(1, RequestWeightLimiter.Priority.ORDER, false,
+                    () -> restApi.changeInitialLeverage(request));
             
             // 直接使用SDK的getData()方法获取响应数据
             ChangeInitialLeverageResponse responseData = response.getData();
@@ -324,7 +328,7 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
                     String positionSideStr = (String) testParams.get("positionSide");
                     testRequest.setPositionSide(PositionSide.fromValue(positionSideStr.toUpperCase()));
                 }
-                response = restApi.testOrder(testRequest);
+                response = callRest(1, RequestWeightLimiter.Priority.ORDER, false, () -> restApi.testOrder(testRequest));
                 
                 log.info("[Binance Futures] 测试接口调用成功（未真实下单）");
             } else {
@@ -360,7 +364,7 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
                     String timeInForceStr = String.valueOf(orderParams.get("timeInForce"));
                     newOrderRequest.setTimeInForce(TimeInForce.fromValue(timeInForceStr.toUpperCase()));
                 }
-                response = restApi.newOrder(newOrderRequest);
+                response = callRest(0, RequestWeightLimiter.Priority.ORDER, true, () -> restApi.newOrder(newOrderRequest));
             }
             
             // 处理响应
@@ -639,7 +643,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
             // 调用REST API接口
             com.binance.connector.client.common.ApiResponse<
                 com.binance.connector.client.derivatives_trading_usds_futures.rest.model.QueryAllAlgoOrdersResponse> response = 
-                restApi.queryAllAlgoOrders(formattedSymbol, algoId, startTime, endTime, page, limit, recvWindow);
+                callRest(5, RequestWeightLimiter.Priority.ORDER, false,
+                        () -> restApi.queryAllAlgoOrders(formattedSymbol, algoId, startTime, endTime, page, limit, recvWindow));
             
             // 处理响应
             com.binance.connector.client.derivatives_trading_usds_futures.rest.model.QueryAllAlgoOrdersResponse responseData = response.getData();
@@ -694,7 +699,8 @@ public class BinanceFuturesOrderClient extends BinanceFuturesBase {
             // 调用REST API接口
             com.binance.connector.client.common.ApiResponse<
                 com.binance.connector.client.derivatives_trading_usds_futures.rest.model.CancelAllAlgoOpenOrdersResponse> response = 
-                restApi.cancelAllAlgoOpenOrders(formattedSymbol, recvWindow);
+                callRest(1, RequestWeightLimiter.Priority.ORDER, false,
+                        () -> restApi.cancelAllAlgoOpenOrders(formattedSymbol, recvWindow));
             
             // 处理响应
             com.binance.connector.client.derivatives_trading_usds_futures.rest.model.CancelAllAlgoOpenOrdersResponse responseData = response.getData();
@@ -14,7 +14,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * 异步服务：涨跌幅榜同步
  * 
- * 定期同步涨跌幅榜数据，从数据库的24_market_tickers表查询数据。
+ * 定期同步涨跌幅榜数据，优先读取内存涨跌幅榜快照（LeaderboardCacheService），
+ * 快照不可用时从数据库的24_market_tickers表查询数据。
  * 前端通过轮询方式获取数据，不再使用WebSocket推送。
  * 
  * 功能：
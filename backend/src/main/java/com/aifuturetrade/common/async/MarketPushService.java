@@ -0,0 +1,321 @@
+package com.aifuturetrade.common.async;
+
+import com.aifuturetrade.common.cache.LeaderboardSnapshot;
+import com.aifuturetrade.service.LeaderboardCacheService;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIOServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步服务：涨跌幅榜和价格的Socket.IO增量推送
+ *
+ * 数据来自内存涨跌幅榜快照（LeaderboardCacheService），推送线程（MarketPush-Thread）按max-frame-rate
+ * 定时比较最新快照与上一次推送的内容，只发送变化的行；两帧之间的多次快照更新合并为一帧。
+ * 后端的推送开销与打开的页面数量无关（快照只计算一次，每个客户端只多一次发送）。
+ *
+ * 事件协议：
+ * - leaderboard:subscribe / leaderboard:unsubscribe：订阅/取消订阅涨跌幅榜
+ * - leaderboard:snapshot：订阅或请求重同步后发送全量 {version, gainers: [...], losers: [...]}
+ * - leaderboard:delta：{version, baseVersion, gainers: {size, rows}, losers: {size, rows}}，
+ *   rows只包含变化的行（按position定位），客户端的版本号不等于baseVersion时应发送leaderboard:subscribe重同步
+ * - prices:subscribe：参数为symbol列表，替换该客户端的价格订阅，随后发送prices:snapshot
+ * - prices:delta：{version, prices: {symbol: {price, change_percent, quote_volume, ...}}}，只包含该客户端订阅且变化的symbol
+ * - market-push:unavailable：快照不可用（缓存未启用、尚未预热或ticker流超时）时广播一次，客户端应恢复轮询；
+ *   快照恢复后的第一帧包含全部行，客户端收到版本不连续的增量后重新订阅
+ *
+ * 订阅处理和推送都在推送线程上执行，保证全量快照与后续增量的版本号连续。
+ */
+@Slf4j
+@Service
+public class MarketPushService {
+
+    public static final String LEADERBOARD_SUBSCRIBE = "leaderboard:subscribe";
+    public static final String LEADERBOARD_UNSUBSCRIBE = "leaderboard:unsubscribe";
+    public static final String LEADERBOARD_SNAPSHOT = "leaderboard:snapshot";
+    public static final String LEADERBOARD_DELTA = "leaderboard:delta";
+    public static final String PRICES_SUBSCRIBE = "prices:subscribe";
+    public static final String PRICES_SNAPSHOT = "prices:snapshot";
+    public static final String PRICES_DELTA = "prices:delta";
+    public static final String PUSH_UNAVAILABLE = "market-push:unavailable";
+
+    private static final String LEADERBOARD_ROOM = "leaderboard";
+
+    @Autowired
+    private SocketIOServer socketIOServer;
+
+    @Autowired
+    private LeaderboardCacheService leaderboardCacheService;
+
+    @Value("${socketio.push.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 每秒最多推送的帧数（同一帧内的多次快照更新合并）
+     */
+    @Value("${socketio.push.max-frame-rate:2}")
+    private int maxFrameRate;
+
+    /**
+     * 推送的涨跌幅榜条数
+     */
+    @Value("${socketio.push.leaderboard-size:10}")
+    private int leaderboardSize;
+
+    /**
+     * 每个客户端最多订阅的symbol数量
+     */
+    @Value("${socketio.push.max-symbols-per-client:200}")
+    private int maxSymbolsPerClient;
+
+    private final Map<UUID, Set<String>> priceSubscriptions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService pushExecutor;
+
+    // 以下字段仅由推送线程访问
+    private long lastSnapshotAtMs = 0;
+    private boolean unavailable = false;
+    private long leaderboardVersion = 0;
+    private List<Map<String, Object>> lastGainers = new ArrayList<>();
+    private List<Map<String, Object>> lastLosers = new ArrayList<>();
+    private long priceVersion = 0;
+    private final Map<String, Map<String, Object>> lastPrices = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("[MarketPushService] Socket.IO行情推送未启用");
+            return;
+        }
+        pushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "MarketPush-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        socketIOServer.addEventListener(LEADERBOARD_SUBSCRIBE, Object.class,
+                (client, data, ackRequest) -> pushExecutor.execute(() -> subscribeLeaderboard(client)));
+        socketIOServer.addEventListener(LEADERBOARD_UNSUBSCRIBE, Object.class,
+                (client, data, ackRequest) -> client.leaveRoom(LEADERBOARD_ROOM));
+        socketIOServer.addEventListener(PRICES_SUBSCRIBE, List.class,
+                (client, data, ackRequest) -> pushExecutor.execute(() -> subscribePrices(client, data)));
+        socketIOServer.addDisconnectListener(client -> priceSubscriptions.remove(client.getSessionId()));
+
+        long frameIntervalMs = Math.max(1, 1000 / Math.max(1, maxFrameRate));
+        pushExecutor.scheduleAtFixedRate(this::pushFrame, frameIntervalMs, frameIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("[MarketPushService] Socket.IO行情推送已启动，最大帧率: {}/秒", maxFrameRate);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (pushExecutor != null) {
+            pushExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 加入涨跌幅榜房间并发送当前版本的全量数据（推送线程）
+     */
+    private void subscribeLeaderboard(SocketIOClient client) {
+        client.joinRoom(LEADERBOARD_ROOM);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("version", leaderboardVersion);
+        payload.put("gainers", lastGainers);
+        payload.put("losers", lastLosers);
+        client.sendEvent(LEADERBOARD_SNAPSHOT, payload);
+    }
+
+    /**
+     * 替换客户端的价格订阅并发送订阅symbol的当前价格（推送线程）
+     */
+    private void subscribePrices(SocketIOClient client, List<?> symbols) {
+        Set<String> subscription = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (Object symbol : symbols) {
+                if (symbol != null && subscription.size() < maxSymbolsPerClient) {
+                    subscription.add(symbol.toString().toUpperCase());
+                }
+            }
+        }
+        priceSubscriptions.put(client.getSessionId(), subscription);
+
+        LeaderboardSnapshot snapshot = leaderboardCacheService.getSnapshot();
+        Map<String, Object> prices = new HashMap<>();
+        if (snapshot != null) {
+            for (String symbol : subscription) {
+                Map<String, Object> ticker = snapshot.getTicker(symbol);
+                if (ticker != null) {
+                    prices.put(symbol, ticker);
+                    lastPrices.putIfAbsent(symbol, ticker);
+                }
+            }
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("version", priceVersion);
+        payload.put("prices", prices);
+        client.sendEvent(PRICES_SNAPSHOT, payload);
+    }
+
+    /**
+     * 推送一帧：快照没有更新时什么都不做（推送线程）
+     */
+    private void pushFrame() {
+        try {
+            LeaderboardSnapshot snapshot = leaderboardCacheService.getSnapshot();
+            if (snapshot == null) {
+                markUnavailable();
+                return;
+            }
+            unavailable = false;
+            if (snapshot.getUpdatedAtMs() == lastSnapshotAtMs) {
+                return;
+            }
+            lastSnapshotAtMs = snapshot.getUpdatedAtMs();
+            pushLeaderboard(snapshot);
+            pushPrices(snapshot);
+        } catch (Exception e) {
+            log.warn("[MarketPushService] 推送行情失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 快照不可用时通知客户端恢复轮询，并清空上一次推送的内容：
+     * 之后的订阅收到空快照（继续轮询），恢复后第一帧把全部行作为增量发送
+     */
+    private void markUnavailable() {
+        if (unavailable) {
+            return;
+        }
+        unavailable = true;
+        lastSnapshotAtMs = 0;
+        if (!lastGainers.isEmpty() || !lastLosers.isEmpty()) {
+            leaderboardVersion++;
+        }
+        lastGainers = new ArrayList<>();
+        lastLosers = new ArrayList<>();
+        lastPrices.clear();
+        socketIOServer.getBroadcastOperations().sendEvent(PUSH_UNAVAILABLE, Map.of("version", leaderboardVersion));
+        log.warn("[MarketPushService] 涨跌幅榜快照不可用，已通知客户端恢复轮询");
+    }
+
+    private void pushLeaderboard(LeaderboardSnapshot snapshot) {
+        List<Map<String, Object>> gainers = toRows(snapshot.getGainers(leaderboardSize));
+        List<Map<String, Object>> losers = toRows(snapshot.getLosers(leaderboardSize));
+        List<Map<String, Object>> changedGainers = diffRows(lastGainers, gainers);
+        List<Map<String, Object>> changedLosers = diffRows(lastLosers, losers);
+        if (changedGainers.isEmpty() && changedLosers.isEmpty()
+                && gainers.size() == lastGainers.size() && losers.size() == lastLosers.size()) {
+            return;
+        }
+
+        long baseVersion = leaderboardVersion;
+        leaderboardVersion++;
+        lastGainers = gainers;
+        lastLosers = losers;
+        if (socketIOServer.getRoomOperations(LEADERBOARD_ROOM).getClients().isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("version", leaderboardVersion);
+        payload.put("baseVersion", baseVersion);
+        payload.put("gainers", Map.of("size", gainers.size(), "rows", changedGainers));
+        payload.put("losers", Map.of("size", losers.size(), "rows", changedLosers));
+        socketIOServer.getRoomOperations(LEADERBOARD_ROOM).sendEvent(LEADERBOARD_DELTA, payload);
+    }
+
+    private void pushPrices(LeaderboardSnapshot snapshot) {
+        if (priceSubscriptions.isEmpty()) {
+            lastPrices.clear();
+            return;
+        }
+        Set<String> subscribed = new HashSet<>();
+        for (Set<String> symbols : priceSubscriptions.values()) {
+            subscribed.addAll(symbols);
+        }
+        lastPrices.keySet().retainAll(subscribed);
+
+        Map<String, Map<String, Object>> changed = new HashMap<>();
+        for (String symbol : subscribed) {
+            Map<String, Object> ticker = snapshot.getTicker(symbol);
+            if (ticker != null && !ticker.equals(lastPrices.get(symbol))) {
+                changed.put(symbol, ticker);
+                lastPrices.put(symbol, ticker);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        priceVersion++;
+        for (Map.Entry<UUID, Set<String>> subscription : priceSubscriptions.entrySet()) {
+            Map<String, Object> prices = new HashMap<>();
+            for (String symbol : subscription.getValue()) {
+                Map<String, Object> ticker = changed.get(symbol);
+                if (ticker != null) {
+                    prices.put(symbol, ticker);
+                }
+            }
+            if (prices.isEmpty()) {
+                continue;
+            }
+            SocketIOClient client = socketIOServer.getClient(subscription.getKey());
+            if (client == null) {
+                priceSubscriptions.remove(subscription.getKey());
+                continue;
+            }
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("version", priceVersion);
+            payload.put("prices", prices);
+            client.sendEvent(PRICES_DELTA, payload);
+        }
+    }
+
+    /**
+     * 榜单条目转为推送行（event_time转为字符串，与REST接口的JSON格式一致）
+     */
+    private static List<Map<String, Object>> toRows(List<Map<String, Object>> items) {
+        List<Map<String, Object>> rows = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            Map<String, Object> row = new HashMap<>(item);
+            Object eventTime = row.get("event_time");
+            if (eventTime instanceof TemporalAccessor) {
+                row.put("event_time", eventTime.toString());
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 与上一次推送逐行比较，返回新增或内容变化的行
+     */
+    private static List<Map<String, Object>> diffRows(List<Map<String, Object>> previous,
+                                                      List<Map<String, Object>> current) {
+        List<Map<String, Object>> changed = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            if (i >= previous.size() || !Objects.equals(previous.get(i), current.get(i))) {
+                changed.add(current.get(i));
+            }
+        }
+        return changed;
+    }
+}
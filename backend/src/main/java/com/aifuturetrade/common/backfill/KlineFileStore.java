@@ -0,0 +1,249 @@
+package com.aifuturetrade.common.backfill;
+
+import com.aifuturetrade.common.cache.KlineRingBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * 历史K线本地二进制存储
+ *
+ * 每个(symbol, interval)一个文件：{baseDir}/{SYMBOL}/{interval}.bin，由定长记录按开盘时间严格递增顺序追加组成。
+ * 记录格式（56字节，大端）：openTime(long) open high low close volume quoteVolume(double)。
+ *
+ * 文件末尾记录的开盘时间即为回补断点：打开时截掉写了一半的记录，追加时忽略不晚于末尾的K线，
+ * 因此中断后重复执行同一回补任务是幂等的。读取时按开盘时间二分查找起点。
+ */
+public class KlineFileStore {
+
+    /**
+     * 每条记录的字节数
+     */
+    public static final int RECORD_SIZE = KlineRingBuffer.BYTES_PER_CANDLE;
+
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("^[A-Z0-9]+$");
+    private static final Pattern INTERVAL_PATTERN = Pattern.compile("^[0-9]+[mhdwM]$");
+
+    private final Path baseDir;
+    private final Path normalizedBaseDir;
+
+    public KlineFileStore(Path baseDir) {
+        this.baseDir = baseDir;
+        this.normalizedBaseDir = baseDir.toAbsolutePath().normalize();
+    }
+
+    public Path getBaseDir() {
+        return baseDir;
+    }
+
+    /**
+     * 打开序列文件用于追加（不存在时创建）
+     */
+    public SeriesWriter openWriter(String symbol, String interval) throws IOException {
+        Path file = file(symbol, interval);
+        Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return new SeriesWriter(channel);
+    }
+
+    /**
+     * 序列文件中最后一根K线的开盘时间（断点），文件不存在或为空时返回0
+     */
+    public long lastOpenTime(String symbol, String interval) throws IOException {
+        Path file = file(symbol, interval);
+        if (!Files.exists(file)) {
+            return 0L;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long records = channel.size() / RECORD_SIZE;
+            return records > 0 ? readOpenTime(channel, records - 1) : 0L;
+        }
+    }
+
+    /**
+     * 序列文件中的K线数量
+     */
+    public long count(String symbol, String interval) throws IOException {
+        Path file = file(symbol, interval);
+        return Files.exists(file) ? Files.size(file) / RECORD_SIZE : 0L;
+    }
+
+    /**
+     * 按开盘时间升序读取[fromOpenTime, toOpenTime]内的K线，最多limit根
+     *
+     * @return 读取的K线数量
+     */
+    public int read(String symbol, String interval, long fromOpenTime, long toOpenTime, int limit,
+                    KlineRingBuffer.CandleConsumer consumer) throws IOException {
+        Path file = file(symbol, interval);
+        if (!Files.exists(file) || limit <= 0) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long records = channel.size() / RECORD_SIZE;
+            // 二分查找第一根开盘时间 >= fromOpenTime 的记录
+            long left = 0;
+            long right = records;
+            while (left < right) {
+                long mid = (left + right) >>> 1;
+                if (readOpenTime(channel, mid) < fromOpenTime) {
+                    left = mid + 1;
+                } else {
+                    right = mid;
+                }
+            }
+
+            int count = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            long index = left;
+            while (index < records && count < limit) {
+                buffer.clear();
+                long batch = Math.min(records - index, 1024);
+                buffer.limit((int) batch * RECORD_SIZE);
+                readFully(channel, buffer, index * RECORD_SIZE);
+                buffer.flip();
+                for (long i = 0; i < batch && count < limit; i++) {
+                    long openTime = buffer.getLong();
+                    double open = buffer.getDouble();
+                    double high = buffer.getDouble();
+                    double low = buffer.getDouble();
+                    double close = buffer.getDouble();
+                    double volume = buffer.getDouble();
+                    double quoteVolume = buffer.getDouble();
+                    if (openTime > toOpenTime) {
+                        return count;
+                    }
+                    consumer.accept(openTime, open, high, low, close, volume, quoteVolume);
+                    count++;
+                }
+                index += batch;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 序列文件路径；symbol/interval只允许字母数字，解析后的路径必须位于baseDir内
+     *
+     * @throws IllegalArgumentException symbol或interval不合法
+     */
+    private Path file(String symbol, String interval) {
+        String upperSymbol = symbol != null ? symbol.toUpperCase() : null;
+        if (upperSymbol == null || !SYMBOL_PATTERN.matcher(upperSymbol).matches()) {
+            throw new IllegalArgumentException("不合法的symbol: " + symbol);
+        }
+        if (interval == null || !INTERVAL_PATTERN.matcher(interval).matches()) {
+            throw new IllegalArgumentException("不合法的interval: " + interval);
+        }
+        Path file = normalizedBaseDir.resolve(upperSymbol).resolve(interval + ".bin").normalize();
+        if (!file.startsWith(normalizedBaseDir)) {
+            throw new IllegalArgumentException("K线文件路径越界: " + symbol + "/" + interval);
+        }
+        return file;
+    }
+
+    private static long readOpenTime(FileChannel channel, long index) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        readFully(channel, buffer, index * RECORD_SIZE);
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("K线文件意外结束, position=" + offset);
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * 单个序列文件的追加写入器（非线程安全，同一序列同时只能有一个写入器）
+     */
+    public static final class SeriesWriter implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1000);
+        private long lastOpenTime;
+        private int pending;
+
+        private SeriesWriter(FileChannel channel) throws IOException {
+            this.channel = channel;
+            // 截掉上次中断时写了一半的记录
+            long size = channel.size();
+            long complete = size - size % RECORD_SIZE;
+            if (complete != size) {
+                channel.truncate(complete);
+            }
+            this.lastOpenTime = complete > 0 ? readOpenTime(channel, complete / RECORD_SIZE - 1) : 0L;
+            channel.position(complete);
+        }
+
+        /**
+         * 末尾K线的开盘时间（含尚未flush的K线）
+         */
+        public long getLastOpenTime() {
+            return lastOpenTime;
+        }
+
+        /**
+         * 追加一根K线，开盘时间不晚于末尾K线时忽略
+         *
+         * @return true如果已追加
+         */
+        public boolean append(long openTime, double open, double high, double low, double close,
+                              double volume, double quoteVolume) throws IOException {
+            if (openTime <= lastOpenTime) {
+                return false;
+            }
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(openTime);
+            buffer.putDouble(open);
+            buffer.putDouble(high);
+            buffer.putDouble(low);
+            buffer.putDouble(close);
+            buffer.putDouble(volume);
+            buffer.putDouble(quoteVolume);
+            lastOpenTime = openTime;
+            pending++;
+            return true;
+        }
+
+        /**
+         * 写出缓冲区并落盘，之后的断点即为最后一根已追加的K线
+         */
+        public void flush() throws IOException {
+            if (pending == 0) {
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            channel.force(false);
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.aifuturetrade.common.backfill;
+
+/**
+ * 全局请求权重预算（按自然分钟的固定窗口，与币安REQUEST_WEIGHT 1分钟限制的统计方式一致）
+ *
+ * 请求前acquire预扣权重，超出本分钟预算时阻塞到下一分钟；
+ * 响应头中服务端统计的已用权重（同一IP的所有请求）大于本地统计时以服务端为准；
+ * 收到429/418时pauseUntil暂停所有请求。
+ */
+public class RequestWeightBudget {
+
+    private static final long WINDOW_MS = 60_000L;
+
+    private final int weightPerMinute;
+    private long windowStartMs;
+    private int usedWeight;
+    private long pausedUntilMs;
+
+    public RequestWeightBudget(int weightPerMinute) {
+        this.weightPerMinute = weightPerMinute;
+    }
+
+    /**
+     * 预扣weight，预算不足或处于暂停期时阻塞等待
+     */
+    public synchronized void acquire(int weight) throws InterruptedException {
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (now < pausedUntilMs) {
+                wait(pausedUntilMs - now);
+                continue;
+            }
+            rollWindow(now);
+            if (usedWeight + weight <= weightPerMinute || usedWeight == 0) {
+                usedWeight += weight;
+                return;
+            }
+            wait(Math.max(1, windowStartMs + WINDOW_MS - now));
+        }
+    }
+
+    /**
+     * 记录服务端返回的本分钟已用权重
+     */
+    public synchronized void observeUsedWeight(int serverUsedWeight) {
+        rollWindow(System.currentTimeMillis());
+        usedWeight = Math.max(usedWeight, serverUsedWeight);
+    }
+
+    /**
+     * 暂停所有请求直到untilMs（被限流时调用）
+     */
+    public synchronized void pauseUntil(long untilMs) {
+        if (untilMs > pausedUntilMs) {
+            pausedUntilMs = untilMs;
+        }
+    }
+
+    /**
+     * 本分钟已用权重
+     */
+    public synchronized int getUsedWeight() {
+        rollWindow(System.currentTimeMillis());
+        return usedWeight;
+    }
+
+    public int getWeightPerMinute() {
+        return weightPerMinute;
+    }
+
+    private void rollWindow(long now) {
+        long window = now - now % WINDOW_MS;
+        if (window != windowStartMs) {
+            windowStartMs = window;
+            usedWeight = 0;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.aifuturetrade.common.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个(symbol, interval)的K线环形缓冲区
+ *
+ * 按开盘时间升序保存最近capacity根K线，每个字段一个基本类型数组，写满后覆盖最旧的K线。
+ * 开盘时间等于末尾K线时覆盖末尾（未收盘K线的实时更新），更早的开盘时间在缓冲区内查找并覆盖。
+ *
+ * 非线程安全：调用方负责同步。
+ */
+public class KlineRingBuffer {
+
+    /**
+     * 每根K线占用的字节数（开盘时间 + 6个价格/成交量字段）
+     */
+    public static final int BYTES_PER_CANDLE = 7 * 8;
+
+    private final int capacity;
+    private final long[] openTime;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+    private final double[] turnover;
+    private int head;
+    private int size;
+
+    public KlineRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.openTime = new long[capacity];
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.close = new double[capacity];
+        this.volume = new double[capacity];
+        this.turnover = new double[capacity];
+    }
+
+    /**
+     * 写入一根K线：新K线追加到末尾，已有开盘时间的K线原地覆盖，早于缓冲区起点的K线忽略
+     */
+    public void upsert(long t, double o, double h, double l, double c, double v, double q) {
+        int index;
+        if (size == 0 || t > openTime[physical(size - 1)]) {
+            if (size == capacity) {
+                head = (head + 1) % capacity;
+                size--;
+            }
+            index = physical(size);
+            size++;
+        } else {
+            index = find(t);
+            if (index < 0) {
+                return;
+            }
+        }
+        openTime[index] = t;
+        open[index] = o;
+        high[index] = h;
+        low[index] = l;
+        close[index] = c;
+        volume[index] = v;
+        turnover[index] = q;
+    }
+
+    private int find(long t) {
+        for (int i = size - 1; i >= 0; i--) {
+            int index = physical(i);
+            if (openTime[index] == t) {
+                return index;
+            }
+            if (openTime[index] < t) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int physical(int logical) {
+        return (head + logical) % capacity;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 末尾（最新）K线的开盘时间，缓冲区为空时返回0
+     */
+    public long lastOpenTime() {
+        return size > 0 ? openTime[physical(size - 1)] : 0L;
+    }
+
+    /**
+     * 按开盘时间升序遍历开盘时间不早于fromOpenTime的K线
+     *
+     * 从末尾向前定位起点，耗时只与返回的K线数量有关，与缓冲区长度无关。
+     */
+    public void forEachSince(long fromOpenTime, CandleConsumer consumer) {
+        int start = size;
+        while (start > 0 && openTime[physical(start - 1)] >= fromOpenTime) {
+            start--;
+        }
+        for (int i = start; i < size; i++) {
+            int index = physical(i);
+            consumer.accept(openTime[index], open[index], high[index], low[index], close[index],
+                    volume[index], turnover[index]);
+        }
+    }
+
+    /**
+     * 取最近limit根K线（按开盘时间升序），格式与前端K线接口一致
+     */
+    public List<Map<String, Object>> toMaps(int limit) {
+        int count = Math.min(limit, size);
+        List<Map<String, Object>> result = new ArrayList<>(count);
+        for (int i = size - count; i < size; i++) {
+            int index = physical(i);
+            Map<String, Object> kline = new HashMap<>(10);
+            kline.put("timestamp", openTime[index]);
+            kline.put("open", open[index]);
+            kline.put("high", high[index]);
+            kline.put("low", low[index]);
+            kline.put("close", close[index]);
+            kline.put("volume", volume[index]);
+            kline.put("turnover", turnover[index]);
+            result.add(kline);
+        }
+        return result;
+    }
+
+    /**
+     * K线回调（基本类型参数，避免逐根创建对象）
+     */
+    @FunctionalInterface
+    public interface CandleConsumer {
+
+        void accept(long openTime, double open, double high, double low, double close, double volume, double turnover);
+    }
+}
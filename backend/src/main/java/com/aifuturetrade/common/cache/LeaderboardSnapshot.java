@@ -0,0 +1,66 @@
+package com.aifuturetrade.common.cache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 涨跌幅榜不可变快照
+ *
+ * 由排行榜缓存线程整体替换发布，读取方无需加锁；列表和列表中的条目均不可修改，
+ * 榜单条目字段与formatLeaderboardData的输出一致（position从1开始）；
+ * tickers保存全部symbol的最新价格/涨跌幅/成交额，供价格推送使用。
+ */
+public final class LeaderboardSnapshot {
+
+    private final List<Map<String, Object>> gainers;
+    private final List<Map<String, Object>> losers;
+    private final List<Map<String, Object>> volume;
+    private final Map<String, Map<String, Object>> tickers;
+    private final long updatedAtMs;
+
+    public LeaderboardSnapshot(List<Map<String, Object>> gainers, List<Map<String, Object>> losers,
+                               List<Map<String, Object>> volume, Map<String, Map<String, Object>> tickers,
+                               long updatedAtMs) {
+        this.gainers = List.copyOf(gainers);
+        this.losers = List.copyOf(losers);
+        this.volume = List.copyOf(volume);
+        this.tickers = Map.copyOf(tickers);
+        this.updatedAtMs = updatedAtMs;
+    }
+
+    /**
+     * 涨幅榜前limit名（price_change_percent > 0，降序）
+     */
+    public List<Map<String, Object>> getGainers(int limit) {
+        return head(gainers, limit);
+    }
+
+    /**
+     * 跌幅榜前limit名（price_change_percent < 0，按跌幅绝对值降序）
+     */
+    public List<Map<String, Object>> getLosers(int limit) {
+        return head(losers, limit);
+    }
+
+    /**
+     * 成交额榜前limit名（quote_volume降序）
+     */
+    public List<Map<String, Object>> getVolume(int limit) {
+        return head(volume, limit);
+    }
+
+    /**
+     * 单个symbol的最新行情（symbol/price/change_percent/quote_volume/base_volume），不存在时返回null
+     */
+    public Map<String, Object> getTicker(String symbol) {
+        return tickers.get(symbol);
+    }
+
+    public long getUpdatedAtMs() {
+        return updatedAtMs;
+    }
+
+    private static List<Map<String, Object>> head(List<Map<String, Object>> list, int limit) {
+        return list.subList(0, Math.max(0, Math.min(limit, list.size())));
+    }
+}
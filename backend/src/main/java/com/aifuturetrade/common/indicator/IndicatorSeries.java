@@ -0,0 +1,469 @@
+package com.aifuturetrade.common.indicator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个(symbol, interval)的增量技术指标
+ *
+ * 按开盘时间升序逐根喂入K线，每个指标只保存递推状态（均线用固定长度的基本类型环形窗口），
+ * 每根K线的更新和查询都是O(1)，与已处理的K线数量（回看长度）无关。
+ * 最新一根K线视为未收盘K线：只在查询时基于已收盘状态预览计算，出现更新的K线时才提交。
+ *
+ * 计算口径与trade/market/market_data.py及前端KLineChart一致：
+ * - MA: 简单移动平均线 (5, 20, 60, 99)
+ * - EMA: 指数移动平均线 (5, 20, 30, 60, 99)，前N根使用累计均值初始化
+ * - RSI: 相对强弱指数 (6, 9, 14)，Wilder's Smoothing，与_calculate_rsi_tradingview一致从第period根K线起输出
+ * - MACD: (12, 26, 9)，柱值 = (DIF - DEA) * 2
+ * - BOLL: 布林带 (20, 2)，总体标准差
+ * - ATR: 平均真实波幅 (7, 14, 21)，Wilder's Smoothing
+ *
+ * 非线程安全：调用方负责同步。
+ */
+public class IndicatorSeries {
+
+    private static final int[] MA_PERIODS = {5, 20, 60, 99};
+    private static final int[] EMA_PERIODS = {5, 20, 30, 60, 99};
+    private static final int[] RSI_PERIODS = {6, 9, 14};
+    private static final int[] ATR_PERIODS = {7, 14, 21};
+    private static final int BOLL_PERIOD = 20;
+    private static final double BOLL_MULTIPLIER = 2.0;
+
+    private final Sma[] ma = new Sma[MA_PERIODS.length];
+    private final Ema[] ema = new Ema[EMA_PERIODS.length];
+    private final Rsi[] rsi = new Rsi[RSI_PERIODS.length];
+    private final Atr[] atr = new Atr[ATR_PERIODS.length];
+    private Macd macd;
+    private Bollinger boll;
+
+    private long committedCount;
+    private long pendingOpenTime;
+    private double pendingHigh;
+    private double pendingLow;
+    private double pendingClose;
+
+    public IndicatorSeries() {
+        reset();
+    }
+
+    /**
+     * 清空所有状态（K线序列不连续时从头重算）
+     */
+    public void reset() {
+        for (int i = 0; i < MA_PERIODS.length; i++) {
+            ma[i] = new Sma(MA_PERIODS[i]);
+        }
+        for (int i = 0; i < EMA_PERIODS.length; i++) {
+            ema[i] = new Ema(EMA_PERIODS[i]);
+        }
+        for (int i = 0; i < RSI_PERIODS.length; i++) {
+            rsi[i] = new Rsi(RSI_PERIODS[i]);
+        }
+        for (int i = 0; i < ATR_PERIODS.length; i++) {
+            atr[i] = new Atr(ATR_PERIODS[i]);
+        }
+        macd = new Macd(12, 26, 9);
+        boll = new Bollinger(BOLL_PERIOD, BOLL_MULTIPLIER);
+        committedCount = 0;
+        pendingOpenTime = 0;
+    }
+
+    /**
+     * 喂入一根K线：开盘时间更新时先提交上一根（已收盘），相同开盘时间覆盖未收盘K线，更早的K线忽略
+     */
+    public void onCandle(long openTime, double high, double low, double close) {
+        if (pendingOpenTime > 0 && openTime < pendingOpenTime) {
+            return;
+        }
+        if (pendingOpenTime > 0 && openTime > pendingOpenTime) {
+            commit(pendingHigh, pendingLow, pendingClose);
+        }
+        pendingOpenTime = openTime;
+        pendingHigh = high;
+        pendingLow = low;
+        pendingClose = close;
+    }
+
+    /**
+     * 未收盘（最新）K线的开盘时间，尚未喂入K线时返回0
+     */
+    public long getPendingOpenTime() {
+        return pendingOpenTime;
+    }
+
+    /**
+     * 已处理的K线数量（含未收盘K线）
+     */
+    public long getCandleCount() {
+        return pendingOpenTime > 0 ? committedCount + 1 : committedCount;
+    }
+
+    private void commit(double high, double low, double close) {
+        for (Sma calculator : ma) {
+            calculator.next(close, true);
+        }
+        for (Ema calculator : ema) {
+            calculator.next(close, true);
+        }
+        for (Rsi calculator : rsi) {
+            calculator.next(close, true);
+        }
+        for (Atr calculator : atr) {
+            calculator.next(high, low, close, true);
+        }
+        macd.next(close, true);
+        boll.next(close, true);
+        committedCount++;
+    }
+
+    /**
+     * 最新K线的指标值（未收盘K线为预览值，不影响已收盘状态），数据不足的指标为null
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("candles", getCandleCount());
+        if (pendingOpenTime <= 0) {
+            return result;
+        }
+        result.put("timestamp", pendingOpenTime);
+        result.put("close", pendingClose);
+
+        Map<String, Object> maValues = new HashMap<>();
+        for (int i = 0; i < MA_PERIODS.length; i++) {
+            maValues.put("ma" + MA_PERIODS[i], valueOrNull(ma[i].next(pendingClose, false)));
+        }
+        result.put("ma", maValues);
+
+        Map<String, Object> emaValues = new HashMap<>();
+        for (int i = 0; i < EMA_PERIODS.length; i++) {
+            emaValues.put("ema" + EMA_PERIODS[i], valueOrNull(ema[i].next(pendingClose, false)));
+        }
+        result.put("ema", emaValues);
+
+        Map<String, Object> rsiValues = new HashMap<>();
+        for (int i = 0; i < RSI_PERIODS.length; i++) {
+            rsiValues.put("rsi" + RSI_PERIODS[i], valueOrNull(rsi[i].next(pendingClose, false)));
+        }
+        result.put("rsi", rsiValues);
+
+        macd.next(pendingClose, false);
+        Map<String, Object> macdValues = new HashMap<>();
+        macdValues.put("dif", valueOrNull(macd.dif));
+        macdValues.put("dea", valueOrNull(macd.dea));
+        macdValues.put("bar", valueOrNull(macd.bar));
+        result.put("macd", macdValues);
+
+        boll.next(pendingClose, false);
+        Map<String, Object> bollValues = new HashMap<>();
+        bollValues.put("upper", valueOrNull(boll.upper));
+        bollValues.put("middle", valueOrNull(boll.middle));
+        bollValues.put("lower", valueOrNull(boll.lower));
+        result.put("boll", bollValues);
+
+        Map<String, Object> atrValues = new HashMap<>();
+        for (int i = 0; i < ATR_PERIODS.length; i++) {
+            atrValues.put("atr" + ATR_PERIODS[i], valueOrNull(atr[i].next(pendingHigh, pendingLow, pendingClose, false)));
+        }
+        result.put("atr", atrValues);
+        return result;
+    }
+
+    private static Double valueOrNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    /**
+     * 固定长度的滑动窗口，维护窗口内的和与平方和
+     *
+     * 每写满一轮从窗口重新求和一次，消除长时间增减累积的浮点误差（均摊O(1)）。
+     */
+    private static final class RollingWindow {
+
+        private final double[] values;
+        private int next;
+        private int count;
+        private int pushesSinceRecompute;
+        private double sum;
+        private double sumSquares;
+
+        private RollingWindow(int length) {
+            this.values = new double[length];
+        }
+
+        private boolean isFullWith() {
+            return count + 1 >= values.length;
+        }
+
+        private double evicted() {
+            return count == values.length ? values[next] : 0.0;
+        }
+
+        private double sumWith(double x) {
+            return sum - evicted() + x;
+        }
+
+        private double sumSquaresWith(double x) {
+            double old = evicted();
+            return sumSquares - old * old + x * x;
+        }
+
+        private void push(double x) {
+            double old = evicted();
+            if (count < values.length) {
+                count++;
+            }
+            sum = sum - old + x;
+            sumSquares = sumSquares - old * old + x * x;
+            values[next] = x;
+            next = (next + 1) % values.length;
+            if (++pushesSinceRecompute >= values.length) {
+                pushesSinceRecompute = 0;
+                sum = 0.0;
+                sumSquares = 0.0;
+                for (int i = 0; i < count; i++) {
+                    sum += values[i];
+                    sumSquares += values[i] * values[i];
+                }
+            }
+        }
+    }
+
+    private static final class Sma {
+
+        private final int period;
+        private final RollingWindow window;
+
+        private Sma(int period) {
+            this.period = period;
+            this.window = new RollingWindow(period);
+        }
+
+        private double next(double close, boolean commit) {
+            double value = window.isFullWith() ? window.sumWith(close) / period : Double.NaN;
+            if (commit) {
+                window.push(close);
+            }
+            return value;
+        }
+    }
+
+    private static final class Ema {
+
+        private final int period;
+        private final double alpha;
+        private long count;
+        private double closeSum;
+        private double ema;
+
+        private Ema(int period) {
+            this.period = period;
+            this.alpha = 2.0 / (period + 1.0);
+        }
+
+        private double next(double close, boolean commit) {
+            long i = count;
+            double value;
+            if (i < period) {
+                // 前N根使用累计均值初始化，第N根即为N日SMA
+                value = (closeSum + close) / (i + 1);
+            } else {
+                value = close * alpha + ema * (1 - alpha);
+            }
+            if (commit) {
+                if (i < period) {
+                    closeSum += close;
+                }
+                ema = value;
+                count++;
+            }
+            return i >= period - 1 ? value : Double.NaN;
+        }
+    }
+
+    private static final class Rsi {
+
+        private final int period;
+        private long count;
+        private double prevClose;
+        private double avgGain;
+        private double avgLoss;
+
+        private Rsi(int period) {
+            this.period = period;
+        }
+
+        private double next(double close, boolean commit) {
+            long i = count;
+            double change = i > 0 ? close - prevClose : 0.0;
+            double gain = change > 0 ? change : 0.0;
+            double loss = change < 0 ? -change : 0.0;
+            double nextGain;
+            double nextLoss;
+            if (i == 0) {
+                nextGain = gain;
+                nextLoss = loss;
+            } else if (i < period) {
+                nextGain = avgGain + gain;
+                nextLoss = avgLoss + loss;
+                if (i == period - 1) {
+                    nextGain /= period;
+                    nextLoss /= period;
+                }
+            } else {
+                nextGain = (avgGain * (period - 1) + gain) / period;
+                nextLoss = (avgLoss * (period - 1) + loss) / period;
+            }
+            if (commit) {
+                avgGain = nextGain;
+                avgLoss = nextLoss;
+                prevClose = close;
+                count++;
+            }
+            if (i < period - 1) {
+                return Double.NaN;
+            }
+            if (nextLoss != 0) {
+                return 100 - (100 / (1 + nextGain / nextLoss));
+            }
+            return nextGain > 0 ? 100.0 : 50.0;
+        }
+    }
+
+    private static final class Atr {
+
+        private final int period;
+        private long count;
+        private double prevClose;
+        private double trSum;
+        private double atr;
+
+        private Atr(int period) {
+            this.period = period;
+        }
+
+        private double next(double high, double low, double close, boolean commit) {
+            long i = count;
+            double reference = i > 0 ? prevClose : close;
+            double tr = Math.max(high - low, Math.max(Math.abs(high - reference), Math.abs(low - reference)));
+            double nextTrSum = trSum;
+            double value = Double.NaN;
+            if (i < period - 1) {
+                nextTrSum += tr;
+            } else if (i == period - 1) {
+                value = (trSum + tr) / period;
+            } else {
+                value = (atr * (period - 1) + tr) / period;
+            }
+            if (commit) {
+                trSum = nextTrSum;
+                atr = value;
+                prevClose = close;
+                count++;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * MACD，next调用后通过dif/dea/bar读取结果
+     */
+    private static final class Macd {
+
+        private final int fast;
+        private final int slow;
+        private final int signal;
+        private final int maxPeriod;
+        private long count;
+        private double closeSum;
+        private double emaShort;
+        private double emaLong;
+        private double difSum;
+        private double deaState;
+        private double dif;
+        private double dea;
+        private double bar;
+
+        private Macd(int fast, int slow, int signal) {
+            this.fast = fast;
+            this.slow = slow;
+            this.signal = signal;
+            this.maxPeriod = Math.max(fast, slow);
+        }
+
+        private void next(double close, boolean commit) {
+            long i = count;
+            double nextCloseSum = i < maxPeriod ? closeSum + close : closeSum;
+            double nextShort = emaShort;
+            double nextLong = emaLong;
+            double nextDifSum = difSum;
+            double nextDea = deaState;
+            if (i >= fast - 1) {
+                nextShort = i > fast - 1 ? (2 * close + (fast - 1) * emaShort) / (fast + 1) : nextCloseSum / fast;
+            }
+            if (i >= slow - 1) {
+                nextLong = i > slow - 1 ? (2 * close + (slow - 1) * emaLong) / (slow + 1) : nextCloseSum / slow;
+            }
+            dif = Double.NaN;
+            dea = Double.NaN;
+            bar = Double.NaN;
+            if (i >= maxPeriod - 1) {
+                dif = nextShort - nextLong;
+                if (i < maxPeriod + signal - 1) {
+                    nextDifSum += dif;
+                }
+                if (i >= maxPeriod + signal - 2) {
+                    nextDea = i > maxPeriod + signal - 2
+                            ? (dif * 2 + deaState * (signal - 1)) / (signal + 1)
+                            : nextDifSum / signal;
+                    dea = nextDea;
+                    bar = (dif - dea) * 2;
+                }
+            }
+            if (commit) {
+                closeSum = nextCloseSum;
+                emaShort = nextShort;
+                emaLong = nextLong;
+                difSum = nextDifSum;
+                deaState = nextDea;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * 布林带，next调用后通过upper/middle/lower读取结果
+     */
+    private static final class Bollinger {
+
+        private final int period;
+        private final double multiplier;
+        private final RollingWindow window;
+        private double upper;
+        private double middle;
+        private double lower;
+
+        private Bollinger(int period, double multiplier) {
+            this.period = period;
+            this.multiplier = multiplier;
+            this.window = new RollingWindow(period);
+        }
+
+        private void next(double close, boolean commit) {
+            if (window.isFullWith()) {
+                double mean = window.sumWith(close) / period;
+                double variance = Math.max(0.0, window.sumSquaresWith(close) / period - mean * mean);
+                double deviation = Math.sqrt(variance) * multiplier;
+                middle = mean;
+                upper = mean + deviation;
+                lower = mean - deviation;
+            } else {
+                middle = Double.NaN;
+                upper = Double.NaN;
+                lower = Double.NaN;
+            }
+            if (commit) {
+                window.push(close);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.aifuturetrade.controller;
+
+import com.aifuturetrade.service.KlineBackfillService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 控制器：历史K线回补
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/market/backfill")
+@Tag(name = "历史K线回补", description = "历史K线回补及本地K线查询接口")
+public class KlineBackfillController {
+
+    @Autowired
+    private KlineBackfillService klineBackfillService;
+
+    /**
+     * 提交回补任务
+     * 请求体：{symbols: [...], intervals: [...], start_time: 毫秒, end_time: 毫秒（可选）}
+     */
+    @PostMapping
+    @Operation(summary = "提交历史K线回补任务")
+    public ResponseEntity<Map<String, Object>> startJob(@RequestBody Map<String, Object> requestBody) {
+        Object startTimeObj = requestBody.get("start_time");
+        Object endTimeObj = requestBody.get("end_time");
+        if (!(startTimeObj instanceof Number) || (endTimeObj != null && !(endTimeObj instanceof Number))) {
+            return errorResponse("start_time is required and must be a number");
+        }
+        try {
+            Map<String, Object> job = klineBackfillService.startJob(
+                    toStringList(requestBody.get("symbols")),
+                    toStringList(requestBody.get("intervals")),
+                    ((Number) startTimeObj).longValue(),
+                    endTimeObj != null ? ((Number) endTimeObj).longValue() : null);
+            return new ResponseEntity<>(job, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取所有回补任务
+     */
+    @GetMapping
+    @Operation(summary = "获取历史K线回补任务列表")
+    public ResponseEntity<List<Map<String, Object>>> listJobs() {
+        return new ResponseEntity<>(klineBackfillService.listJobs(), HttpStatus.OK);
+    }
+
+    /**
+     * 获取回补任务状态
+     */
+    @GetMapping("/{jobId}")
+    @Operation(summary = "获取历史K线回补任务状态")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable(value = "jobId") String jobId) {
+        Map<String, Object> job = klineBackfillService.getJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    /**
+     * 取消回补任务
+     */
+    @DeleteMapping("/{jobId}")
+    @Operation(summary = "取消历史K线回补任务")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable(value = "jobId") String jobId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", klineBackfillService.cancelJob(jobId));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * 读取本地存储的历史K线
+     */
+    @GetMapping("/klines")
+    @Operation(summary = "读取本地历史K线")
+    public ResponseEntity<?> getKlines(
+            @RequestParam(value = "symbol") String symbol,
+            @RequestParam(value = "interval") String interval,
+            @RequestParam(value = "start_time", required = false) Long startTime,
+            @RequestParam(value = "end_time", required = false) Long endTime,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (limit == null) {
+            limit = 1000;
+        }
+        try {
+            List<Map<String, Object>> klines = klineBackfillService.readKlines(symbol, interval, startTime, endTime,
+                    Math.max(1, Math.min(limit, 10000)));
+            return new ResponseEntity<>(klines, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(e.getMessage());
+        }
+    }
+
+    private static List<String> toStringList(Object value) {
+        List<String> result = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item != null) {
+                    result.add(item.toString());
+                }
+            }
+        } else if (value instanceof String) {
+            for (String item : ((String) value).split(",")) {
+                result.add(item.trim());
+            }
+        }
+        return result;
+    }
+
+    private static ResponseEntity<Map<String, Object>> errorResponse(String message) {
+        Map<String, Object> errorResult = new HashMap<>();
+        errorResult.put("success", false);
+        errorResult.put("message", message);
+        return new ResponseEntity<>(errorResult, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -70,6 +70,20 @@ public class MarketController {
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    /**
+     * 获取成交额榜
+     */
+    @GetMapping("/leaderboard/volume")
+    @Operation(summary = "获取成交额榜")
+    public ResponseEntity<Map<String, Object>> getMarketLeaderboardVolume(
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (limit == null) {
+            limit = 10;
+        }
+        Map<String, Object> result = marketService.getMarketLeaderboardVolume(limit);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     /**
      * 获取涨跌幅榜（已废弃，保留以兼容旧代码）
      */
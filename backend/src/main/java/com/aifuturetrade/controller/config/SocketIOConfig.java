@@ -4,18 +4,19 @@ import com.corundumstudio.socketio.SocketIOServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
 /**
  * Socket.IO 服务器配置
- * 提供 WebSocket 连接支持，避免前端连接错误
+ * 提供 WebSocket 连接支持
  * 
- * 注意：当前实现为占位服务，不提供实际功能
- * 涨跌幅榜和K线数据已改为轮询方式，不再使用 WebSocket 推送
+ * 涨跌幅榜和价格通过 MarketPushService 增量推送（leaderboard:* / prices:* 事件），
+ * 推送不可用时前端回退为轮询；K线数据仍使用轮询方式
  * 
  * Socket.IO Java 服务器需要独立的端口，不能与 Spring Boot Undertow HTTP 服务器共用同一端口
  * 因此使用独立的端口（默认 5003），前端需要通过代理或直接连接此端口
@@ -89,7 +90,12 @@ public class SocketIOConfig {
         return server;
     }
 
-    @PostConstruct
+    /**
+     * 应用启动完成后启动服务器
+     * 
+     * 不能使用 @PostConstruct：配置类初始化时 socketIOServer() 尚未被调用，this.server 仍为 null
+     */
+    @EventListener(ApplicationReadyEvent.class)
     public void startServer() {
         try {
             // 直接使用在 socketIOServer() 方法中创建并赋值给 this.server 的实例
@@ -120,7 +126,7 @@ public class SocketIOConfig {
         } catch (Exception e) {
             logger.error("Failed to start Socket.IO server", e);
             // 如果启动失败，记录错误但不阻止应用启动
-            // 因为 WebSocket 功能当前不是必需的（涨跌幅榜和K线数据已改为轮询方式）
+            // 推送不可用时前端会回退为轮询方式
         }
     }
 
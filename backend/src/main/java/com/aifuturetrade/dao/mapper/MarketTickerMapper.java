@@ -46,6 +46,38 @@ public interface MarketTickerMapper extends BaseMapper<MarketTickerDO> {
             "LIMIT #{limit}")
     List<Map<String, Object>> selectLosersFromTickers(@Param("limit") Integer limit);
 
+    /**
+     * 从 24_market_tickers 表获取成交额榜数据
+     * @param limit 返回的记录数限制
+     * @return 成交额榜数据列表，按 quote_volume 降序排列
+     */
+    @Select("SELECT " +
+            "`symbol`, `price_change_percent`, `last_price`, `quote_volume`, `base_volume`, " +
+            "`event_time`, `side` " +
+            "FROM `24_market_tickers` " +
+            "WHERE `quote_volume` IS NOT NULL " +
+            "ORDER BY `quote_volume` DESC " +
+            "LIMIT #{limit}")
+    List<Map<String, Object>> selectTopVolumeFromTickers(@Param("limit") Integer limit);
+
+    /**
+     * 从 24_market_tickers 表获取全部ticker（不排序），用于内存涨跌幅榜的初始加载
+     * @return ticker数据列表
+     */
+    @Select("SELECT " +
+            "`symbol`, `price_change_percent`, `last_price`, `quote_volume`, `base_volume`, `event_time`, " +
+            "`open_price` " +
+            "FROM `24_market_tickers` " +
+            "WHERE `price_change_percent` IS NOT NULL")
+    List<Map<String, Object>> selectLeaderboardTickers();
+
+    /**
+     * 从 24_market_tickers 表获取全部symbol的开盘价，用于内存涨跌幅榜按与数据库相同的口径计算涨跌幅
+     * @return 开盘价数据列表，包含 symbol、open_price
+     */
+    @Select("SELECT `symbol`, `open_price` FROM `24_market_tickers`")
+    List<Map<String, Object>> selectOpenPrices();
+
     /**
      * 从 24_market_tickers 表根据symbol列表获取ticker数据
      * 每个symbol只返回最新的一条记录（按event_time降序）
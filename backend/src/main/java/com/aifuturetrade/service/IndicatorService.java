@@ -0,0 +1,19 @@
+package com.aifuturetrade.service;
+
+import java.util.Map;
+
+/**
+ * 技术指标服务接口
+ *
+ * 基于K线缓存增量计算各时间周期的技术指标，指标延迟与回看长度无关。
+ */
+public interface IndicatorService {
+
+    /**
+     * 获取一个交易对所有时间周期（1m, 5m, 15m, 30m, 1h, 4h, 1d, 1w）的最新技术指标
+     *
+     * @param symbol 交易对符号，如 'BTCUSDT'
+     * @return symbol、timeframes（interval -> 指标）和timestamp
+     */
+    Map<String, Object> getIndicators(String symbol);
+}
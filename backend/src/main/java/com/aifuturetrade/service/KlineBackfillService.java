@@ -0,0 +1,54 @@
+package com.aifuturetrade.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 历史K线回补服务接口
+ *
+ * 按startTime/endTime分页拉取多个(symbol, interval)的历史K线，写入本地二进制存储；
+ * 中断后以同样参数重新提交会从各序列的断点继续。
+ */
+public interface KlineBackfillService {
+
+    /**
+     * 提交回补任务
+     *
+     * @param symbols 交易对列表，如 ['BTCUSDT', 'ETHUSDT']
+     * @param intervals K线间隔列表，如 ['1m', '1h']
+     * @param startTime 起始开盘时间（毫秒）
+     * @param endTime 结束时间（毫秒），为null时回补到当前已收盘的K线
+     * @return 任务状态
+     */
+    Map<String, Object> startJob(List<String> symbols, List<String> intervals, long startTime, Long endTime);
+
+    /**
+     * 获取任务状态，不存在时返回null
+     */
+    Map<String, Object> getJob(String jobId);
+
+    /**
+     * 获取所有任务状态（按提交时间倒序）
+     */
+    List<Map<String, Object>> listJobs();
+
+    /**
+     * 取消任务，已写入的K线保留，可重新提交继续
+     *
+     * @return true如果任务存在且仍在运行
+     */
+    boolean cancelJob(String jobId);
+
+    /**
+     * 读取本地存储的K线（按开盘时间升序）
+     *
+     * @param symbol 交易对符号
+     * @param interval K线间隔
+     * @param startTime 起始开盘时间（毫秒，含），为null时从最早开始
+     * @param endTime 结束开盘时间（毫秒，含），为null时到最新
+     * @param limit 最多返回数量
+     * @return K线列表，每个元素包含timestamp/open/high/low/close/volume/turnover
+     * @throws IllegalArgumentException symbol或interval不合法
+     */
+    List<Map<String, Object>> readKlines(String symbol, String interval, Long startTime, Long endTime, int limit);
+}
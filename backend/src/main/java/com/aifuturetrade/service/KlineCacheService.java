@@ -0,0 +1,38 @@
+package com.aifuturetrade.service;
+
+import com.aifuturetrade.common.cache.KlineRingBuffer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * K线缓存服务接口
+ *
+ * 按(symbol, interval)缓存最近的K线，重复加载图表时不再请求币安。
+ */
+public interface KlineCacheService {
+
+    /**
+     * 获取最近limit根K线（按开盘时间升序）
+     *
+     * @param symbol 交易对符号，如 'BTCUSDT'
+     * @param interval K线间隔，如 '1m', '5m', '1h', '1d' 等
+     * @param limit K线数量（1-1000）
+     * @return K线列表，每个元素包含timestamp/open/high/low/close/volume/turnover
+     */
+    List<Map<String, Object>> getKlines(String symbol, String interval, int limit);
+
+    /**
+     * 按开盘时间升序遍历缓存中开盘时间不早于fromOpenTime的K线（缓存不足limit根时先加载）
+     *
+     * 供增量计算使用：只回调新增和未收盘的K线，不创建K线Map。
+     *
+     * @param symbol 交易对符号，如 'BTCUSDT'
+     * @param interval K线间隔
+     * @param limit 缓存至少保留的K线数量（1-1000）
+     * @param fromOpenTime 起始开盘时间（毫秒，含），0表示全部
+     * @param consumer K线回调，在缓存锁内执行，不应阻塞
+     */
+    void forEachKline(String symbol, String interval, int limit, long fromOpenTime,
+                      KlineRingBuffer.CandleConsumer consumer);
+}
@@ -0,0 +1,19 @@
+package com.aifuturetrade.service;
+
+import com.aifuturetrade.common.cache.LeaderboardSnapshot;
+
+/**
+ * 内存涨跌幅榜服务
+ *
+ * 由全市场ticker流（!ticker@arr）逐条更新内存中的排序结构，并发布不可变快照，
+ * 涨跌幅榜和成交额榜查询不再访问24_market_tickers表。
+ */
+public interface LeaderboardCacheService {
+
+    /**
+     * 获取最新快照
+     *
+     * @return 快照；未启用、尚未收到数据或ticker流超时无数据时返回null（调用方回退数据库查询）
+     */
+    LeaderboardSnapshot getSnapshot();
+}
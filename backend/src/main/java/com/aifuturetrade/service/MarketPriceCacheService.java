@@ -0,0 +1,45 @@
+package com.aifuturetrade.service;
+
+import com.aifuturetrade.common.api.binance.BinanceFuturesBase;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 进程内价格缓存服务
+ *
+ * 由全市场标记价格流（!markPrice@arr@1s）持续更新，每个symbol记录最近一次更新时间；
+ * 只有缓存中没有或已过期的symbol才回退到REST接口查询，避免每次查询持仓都请求REST。
+ */
+public interface MarketPriceCacheService {
+
+    /**
+     * 获取单个symbol的价格，缓存过期时通过restLoader查询并写回缓存
+     *
+     * @param symbol 合约symbol（如BTCUSDT，大小写不敏感）
+     * @param restLoader REST回退查询：入参为需要查询的symbol列表（大写），返回symbol -> 标记价格（见restMarkPriceLoader）
+     * @return 价格，缓存和REST都取不到时返回null
+     */
+    Double getPrice(String symbol, Function<List<String>, Map<String, Double>> restLoader);
+
+    /**
+     * 批量获取价格，只对缓存中没有或已过期的symbol调用一次restLoader
+     *
+     * @param symbols 合约symbol列表（大小写不敏感）
+     * @param restLoader REST回退查询，为null时只返回缓存中未过期的价格
+     * @return 大写symbol -> 价格（取不到的symbol不包含在结果中）
+     */
+    Map<String, Double> getPrices(Collection<String> symbols, Function<List<String>, Map<String, Double>> restLoader);
+
+    /**
+     * 创建标记价格REST回退查询（Mark Price接口），与标记价格流同一口径，缓存中不会混入最新成交价
+     *
+     * 行情客户端只在确实需要回退时获取；查询失败时返回空结果，调用方按取不到价格处理
+     *
+     * @param clientSupplier 行情客户端（非BinanceFuturesClient时不查询）
+     * @return 可传给getPrice/getPrices的restLoader
+     */
+    Function<List<String>, Map<String, Double>> restMarkPriceLoader(Supplier<? extends BinanceFuturesBase> clientSupplier);
+}
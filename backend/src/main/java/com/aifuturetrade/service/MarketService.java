@@ -28,6 +28,11 @@ public interface MarketService {
      */
     Map<String, Object> getMarketLeaderboardLosers(Integer limit);
 
+    /**
+     * 获取成交额榜（按24小时成交额降序）
+     */
+    Map<String, Object> getMarketLeaderboardVolume(Integer limit);
+
     /**
      * 获取涨跌幅榜（已废弃，保留以兼容旧代码）
      */
@@ -0,0 +1,130 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.cache.KlineRingBuffer;
+import com.aifuturetrade.common.indicator.IndicatorSeries;
+import com.aifuturetrade.service.IndicatorService;
+import com.aifuturetrade.service.KlineCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 技术指标服务实现
+ *
+ * 每个(symbol, interval)一个IndicatorSeries，首次查询时用warmup-candles根K线预热，
+ * 之后每次查询只从K线缓存取未收盘K线及其后新增的K线增量更新。
+ * 增量部分的第一根K线不是序列当前的未收盘K线，或相邻K线的开盘时间间隔不等于一个interval时
+ * （K线缓存重新加载或流中断导致序列不连续），从头重算该序列。
+ */
+@Slf4j
+@Service
+public class IndicatorServiceImpl implements IndicatorService {
+
+    private static final String[] TIMEFRAMES = {"1m", "5m", "15m", "30m", "1h", "4h", "1d", "1w"};
+
+    @Autowired
+    private KlineCacheService klineCacheService;
+
+    /**
+     * 首次计算时加载的K线数量（EMA99等长周期指标需要足够的预热数据）
+     */
+    @Value("${app.indicator.warmup-candles:300}")
+    private int warmupCandles;
+
+    /**
+     * 最多保留的指标序列数量，超出按LRU淘汰
+     */
+    @Value("${app.indicator.max-series:400}")
+    private int maxSeries;
+
+    // 访问顺序的LinkedHashMap实现LRU，由自身加锁
+    private final Map<String, IndicatorSeries> seriesMap = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IndicatorSeries> eldest) {
+            return size() > maxSeries;
+        }
+    };
+
+    @Override
+    public Map<String, Object> getIndicators(String symbol) {
+        String upperSymbol = symbol.toUpperCase();
+        Map<String, Object> timeframes = new HashMap<>();
+        for (String interval : TIMEFRAMES) {
+            try {
+                timeframes.put(interval, update(upperSymbol, interval));
+            } catch (Exception e) {
+                log.warn("[IndicatorService] 计算 {} {} 技术指标失败: {}", upperSymbol, interval, e.getMessage());
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("symbol", upperSymbol);
+        result.put("timeframes", timeframes);
+        result.put("timestamp", System.currentTimeMillis());
+        return result;
+    }
+
+    private Map<String, Object> update(String symbol, String interval) {
+        IndicatorSeries series;
+        synchronized (seriesMap) {
+            series = seriesMap.computeIfAbsent(symbol + "|" + interval, k -> new IndicatorSeries());
+        }
+        synchronized (series) {
+            SeriesFeeder feeder = new SeriesFeeder(series, series.getPendingOpenTime(),
+                    KlineCacheServiceImpl.intervalMillis(interval));
+            klineCacheService.forEachKline(symbol, interval, warmupCandles, feeder.expectedFirstOpenTime, feeder);
+            if (feeder.gap) {
+                log.debug("[IndicatorService] {} {} K线不连续，重新计算技术指标", symbol, interval);
+                series.reset();
+                // 全量重算时按缓存中的K线原样计算（与market_data.py一致），不再检查间隔，避免缓存本身缺口导致反复重算
+                klineCacheService.forEachKline(symbol, interval, warmupCandles, 0L, new SeriesFeeder(series, 0L, 0L));
+            }
+            return series.toMap();
+        }
+    }
+
+    /**
+     * 把K线喂给指标序列；第一根K线不是序列当前的未收盘K线，或与上一根K线的开盘时间相差不是intervalMs时标记为不连续
+     */
+    private static final class SeriesFeeder implements KlineRingBuffer.CandleConsumer {
+
+        private final IndicatorSeries series;
+        private final long expectedFirstOpenTime;
+        private final long intervalMs;
+        private long lastOpenTime;
+        private boolean gap;
+
+        /**
+         * @param intervalMs K线间隔（毫秒），0表示不检查相邻K线的间隔
+         */
+        private SeriesFeeder(IndicatorSeries series, long expectedFirstOpenTime, long intervalMs) {
+            this.series = series;
+            this.expectedFirstOpenTime = expectedFirstOpenTime;
+            this.intervalMs = intervalMs;
+        }
+
+        @Override
+        public void accept(long openTime, double open, double high, double low, double close,
+                           double volume, double turnover) {
+            if (gap) {
+                return;
+            }
+            if (lastOpenTime == 0) {
+                if (expectedFirstOpenTime > 0 && openTime != expectedFirstOpenTime) {
+                    gap = true;
+                    return;
+                }
+            } else if (intervalMs > 0 && openTime != lastOpenTime + intervalMs) {
+                gap = true;
+                return;
+            }
+            lastOpenTime = openTime;
+            series.onCandle(openTime, high, low, close);
+        }
+    }
+}
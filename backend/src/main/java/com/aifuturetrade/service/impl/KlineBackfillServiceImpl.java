@@ -0,0 +1,498 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.api.binance.BinanceConfig;
+import com.aifuturetrade.common.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.common.backfill.KlineFileStore;
+import com.aifuturetrade.common.backfill.RequestWeightBudget;
+import com.aifuturetrade.service.KlineBackfillService;
+import com.binance.connector.client.common.ApiException;
+import com.binance.connector.client.common.ApiResponse;
+import com.binance.connector.client.common.dtos.RateLimit;
+import com.binance.connector.client.common.dtos.RateLimitType;
+import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.KlineCandlestickDataResponse;
+import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.KlineCandlestickDataResponseItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * 历史K线回补服务实现
+ *
+ * 每个任务按(symbol, interval)拆分成子任务，由parallelism个KlineBackfill-Thread并行执行：
+ * - 从本地文件末尾K线（断点）之后开始，按startTime/endTime每页page-size根向后翻页
+ * - 每次请求前从全局RequestWeightBudget预扣权重，所有任务共享同一预算，并以响应中服务端统计的已用权重校正
+ * - 只写入已收盘的K线，每页写完后落盘，中断后重新提交会从断点继续
+ * - 429/418时按Retry-After暂停所有请求；其他错误重试MAX_ATTEMPTS次后该序列记为失败
+ * 同一序列同时只允许一个子任务写入（多个任务包含同一序列时后执行的从前一个的断点继续）。
+ */
+@Slf4j
+@Service
+public class KlineBackfillServiceImpl implements KlineBackfillService {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 1000L;
+    private static final long DEFAULT_RETRY_AFTER_MS = 60_000L;
+    private static final int MAX_FINISHED_JOBS = 50;
+    private static final int MAX_PAGE_SIZE = 1500;
+    private static final String USED_WEIGHT_HEADER = "x-mbx-used-weight-1m";
+    private static final Set<String> SUPPORTED_INTERVALS = Set.of(
+            "1m", "3m", "5m", "15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "3d", "1w", "1M");
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("^[A-Z0-9]+$");
+
+    @Autowired
+    private BinanceConfig binanceConfig;
+
+    /**
+     * 本地K线存储目录
+     */
+    @Value("${app.kline-backfill.data-dir:./data/klines}")
+    private String dataDir;
+
+    /**
+     * 并行回补的序列数量
+     */
+    @Value("${app.kline-backfill.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * 回补每分钟可使用的请求权重（需低于币安REQUEST_WEIGHT限制，给其他请求留余量）
+     */
+    @Value("${app.kline-backfill.weight-per-minute:1200}")
+    private int weightPerMinute;
+
+    /**
+     * 每页请求的K线数量
+     */
+    @Value("${app.kline-backfill.page-size:1000}")
+    private int pageSize;
+
+    private KlineFileStore store;
+    private RequestWeightBudget budget;
+    private ExecutorService executor;
+    private BinanceFuturesClient futuresClient;
+    private final Map<String, ReentrantLock> seriesLocks = new ConcurrentHashMap<>();
+    // 按提交顺序保存的任务，由自身加锁
+    private final LinkedHashMap<String, BackfillJob> jobs = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        pageSize = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        store = new KlineFileStore(Paths.get(dataDir));
+        budget = new RequestWeightBudget(weightPerMinute);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "KlineBackfill-Thread-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        synchronized (jobs) {
+            for (BackfillJob job : jobs.values()) {
+                job.cancelled = true;
+            }
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized BinanceFuturesClient getFuturesClient() {
+        if (futuresClient == null) {
+            futuresClient = new BinanceFuturesClient(
+                    binanceConfig.getApiKey(),
+                    binanceConfig.getSecretKey(),
+                    binanceConfig.getQuoteAsset(),
+                    binanceConfig.getBaseUrl(),
+                    binanceConfig.getTestnet(),
+                    binanceConfig.getConnectTimeout(),
+                    binanceConfig.getReadTimeout()
+            );
+        }
+        return futuresClient;
+    }
+
+    @Override
+    public Map<String, Object> startJob(List<String> symbols, List<String> intervals, long startTime, Long endTime) {
+        Set<String> symbolSet = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                if (symbol != null && !symbol.isBlank()) {
+                    symbolSet.add(symbol.trim().toUpperCase());
+                }
+            }
+        }
+        Set<String> intervalSet = new LinkedHashSet<>();
+        if (intervals != null) {
+            for (String interval : intervals) {
+                if (interval != null && !interval.isBlank()) {
+                    intervalSet.add(interval.trim());
+                }
+            }
+        }
+        if (symbolSet.isEmpty() || intervalSet.isEmpty()) {
+            throw new IllegalArgumentException("symbols和intervals不能为空");
+        }
+        for (String symbol : symbolSet) {
+            validateSymbol(symbol);
+        }
+        for (String interval : intervalSet) {
+            validateInterval(interval);
+        }
+        if (startTime < 0 || (endTime != null && endTime < startTime)) {
+            throw new IllegalArgumentException("时间范围无效: startTime=" + startTime + ", endTime=" + endTime);
+        }
+
+        BackfillJob job = new BackfillJob(UUID.randomUUID().toString(), new ArrayList<>(symbolSet),
+                new ArrayList<>(intervalSet), startTime, endTime);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            trimFinishedJobs();
+        }
+        for (String symbol : job.symbols) {
+            for (String interval : job.intervals) {
+                executor.execute(() -> runTask(job, symbol, interval));
+            }
+        }
+        log.info("[KlineBackfill] 提交回补任务: jobId={}, symbols={}, intervals={}, startTime={}, endTime={}",
+                job.id, job.symbols.size(), job.intervals, startTime, endTime);
+        return job.toMap();
+    }
+
+    @Override
+    public Map<String, Object> getJob(String jobId) {
+        synchronized (jobs) {
+            BackfillJob job = jobs.get(jobId);
+            return job != null ? job.toMap() : null;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> listJobs() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (jobs) {
+            for (BackfillJob job : jobs.values()) {
+                result.add(0, job.toMap());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean cancelJob(String jobId) {
+        BackfillJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null || job.finishedAt != null) {
+            return false;
+        }
+        // 正在执行的子任务在当前页写完后退出，排队中的子任务开始时直接结束
+        job.cancelled = true;
+        log.info("[KlineBackfill] 取消回补任务: jobId={}", jobId);
+        return true;
+    }
+
+    @Override
+    public List<Map<String, Object>> readKlines(String symbol, String interval, Long startTime, Long endTime,
+                                                int limit) {
+        symbol = symbol != null ? symbol.trim().toUpperCase() : null;
+        validateSymbol(symbol);
+        validateInterval(interval);
+        List<Map<String, Object>> klines = new ArrayList<>();
+        try {
+            store.read(symbol, interval, startTime != null ? startTime : 0L,
+                    endTime != null ? endTime : Long.MAX_VALUE, limit,
+                    (openTime, open, high, low, close, volume, turnover) -> {
+                        Map<String, Object> kline = new LinkedHashMap<>();
+                        kline.put("timestamp", openTime);
+                        kline.put("open", open);
+                        kline.put("high", high);
+                        kline.put("low", low);
+                        kline.put("close", close);
+                        kline.put("volume", volume);
+                        kline.put("turnover", turnover);
+                        klines.add(kline);
+                    });
+        } catch (IOException e) {
+            log.error("[KlineBackfill] 读取本地K线失败: symbol={}, interval={}, error={}", symbol, interval, e.getMessage());
+        }
+        return klines;
+    }
+
+    /**
+     * symbol只允许大写字母和数字（同时作为本地目录名）
+     */
+    private static void validateSymbol(String symbol) {
+        if (symbol == null || !SYMBOL_PATTERN.matcher(symbol).matches()) {
+            throw new IllegalArgumentException("不合法的symbol: " + symbol);
+        }
+    }
+
+    private static void validateInterval(String interval) {
+        if (interval == null || !SUPPORTED_INTERVALS.contains(interval)) {
+            throw new IllegalArgumentException("不支持的interval: " + interval);
+        }
+    }
+
+    /**
+     * 回补单个序列（KlineBackfill-Thread）
+     */
+    private void runTask(BackfillJob job, String symbol, String interval) {
+        boolean failed = false;
+        ReentrantLock lock = seriesLocks.computeIfAbsent(symbol + "_" + interval, key -> new ReentrantLock());
+        lock.lock();
+        try (KlineFileStore.SeriesWriter writer = store.openWriter(symbol, interval)) {
+            long end = job.endTime != null ? job.endTime : System.currentTimeMillis();
+            long from = Math.max(job.startTime, writer.getLastOpenTime() + 1);
+            int attempts = 0;
+            while (from <= end && !job.cancelled) {
+                budget.acquire(requestWeight(pageSize));
+                ApiResponse<KlineCandlestickDataResponse> response;
+                try {
+                    job.requests.incrementAndGet();
+                    response = getFuturesClient().getKlinesPage(symbol, interval, from, end, pageSize);
+                } catch (ApiException e) {
+                    job.errors.incrementAndGet();
+                    if (e.getCode() == 429 || e.getCode() == 418) {
+                        long retryAfterMs = retryAfterMs(e.getResponseHeaders());
+                        budget.pauseUntil(System.currentTimeMillis() + retryAfterMs);
+                        log.warn("[KlineBackfill] 请求被限流(HTTP {}), 暂停{}ms: symbol={}, interval={}",
+                                e.getCode(), retryAfterMs, symbol, interval);
+                        continue;
+                    }
+                    if (++attempts >= MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                    Thread.sleep(RETRY_DELAY_MS * attempts);
+                    continue;
+                }
+                attempts = 0;
+                observeUsedWeight(response);
+
+                KlineCandlestickDataResponse items = response.getData();
+                if (items == null || items.isEmpty()) {
+                    break;
+                }
+                long now = System.currentTimeMillis();
+                long lastOpenTime = -1;
+                boolean reachedOpenCandle = false;
+                int written = 0;
+                for (KlineCandlestickDataResponseItem item : items) {
+                    if (item == null || item.size() < 8) {
+                        continue;
+                    }
+                    if (Long.parseLong(item.get(6)) >= now) {
+                        reachedOpenCandle = true;
+                        break;
+                    }
+                    long openTime = Long.parseLong(item.get(0));
+                    if (writer.append(openTime, Double.parseDouble(item.get(1)), Double.parseDouble(item.get(2)),
+                            Double.parseDouble(item.get(3)), Double.parseDouble(item.get(4)),
+                            Double.parseDouble(item.get(5)), Double.parseDouble(item.get(7)))) {
+                        written++;
+                    }
+                    lastOpenTime = openTime;
+                }
+                writer.flush();
+                job.candlesWritten.addAndGet(written);
+                if (reachedOpenCandle || lastOpenTime < 0 || items.size() < pageSize) {
+                    break;
+                }
+                from = lastOpenTime + 1;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.cancelled = true;
+        } catch (Exception e) {
+            failed = true;
+            job.lastError = symbol + " " + interval + ": " + e.getMessage();
+            log.error("[KlineBackfill] 序列回补失败: jobId={}, symbol={}, interval={}, error={}",
+                    job.id, symbol, interval, e.getMessage());
+        } finally {
+            lock.unlock();
+            job.taskFinished(failed);
+        }
+    }
+
+    /**
+     * 用服务端统计的已用权重校正本地预算（优先使用SDK解析的REQUEST_WEIGHT，其次响应头）
+     */
+    private void observeUsedWeight(ApiResponse<?> response) {
+        Map<RateLimitType, RateLimit> rateLimits = response.getRateLimits();
+        if (rateLimits != null) {
+            RateLimit weight = rateLimits.get(RateLimitType.REQUEST_WEIGHT);
+            if (weight != null && weight.getCount() != null) {
+                budget.observeUsedWeight(weight.getCount());
+                return;
+            }
+        }
+        String usedWeight = header(response.getHeaders(), USED_WEIGHT_HEADER);
+        if (usedWeight != null) {
+            try {
+                budget.observeUsedWeight(Integer.parseInt(usedWeight.trim()));
+            } catch (NumberFormatException ignored) {
+                // 忽略无法解析的响应头
+            }
+        }
+    }
+
+    private static long retryAfterMs(Map<String, List<String>> headers) {
+        String retryAfter = header(headers, "retry-after");
+        if (retryAfter != null) {
+            try {
+                return Math.max(1, Long.parseLong(retryAfter.trim())) * 1000L;
+            } catch (NumberFormatException ignored) {
+                // 使用默认暂停时长
+            }
+        }
+        return DEFAULT_RETRY_AFTER_MS;
+    }
+
+    private static String header(Map<String, List<String>> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 币安K线接口的请求权重（按limit分档）
+     */
+    private static int requestWeight(int limit) {
+        if (limit < 100) {
+            return 1;
+        }
+        if (limit < 500) {
+            return 2;
+        }
+        if (limit <= 1000) {
+            return 5;
+        }
+        return 10;
+    }
+
+    /**
+     * 只保留最近MAX_FINISHED_JOBS个已结束的任务（调用方持有jobs锁）
+     */
+    private void trimFinishedJobs() {
+        int finished = 0;
+        for (BackfillJob job : jobs.values()) {
+            if (job.finishedAt != null) {
+                finished++;
+            }
+        }
+        Iterator<BackfillJob> iterator = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && iterator.hasNext()) {
+            if (iterator.next().finishedAt != null) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    /**
+     * 回补任务及其进度
+     */
+    private static final class BackfillJob {
+
+        private final String id;
+        private final List<String> symbols;
+        private final List<String> intervals;
+        private final long startTime;
+        private final Long endTime;
+        private final long createdAt = System.currentTimeMillis();
+        private final int totalTasks;
+        private final AtomicInteger finishedTasks = new AtomicInteger();
+        private final AtomicInteger failedTasks = new AtomicInteger();
+        private final AtomicLong candlesWritten = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile String lastError;
+        private volatile Long finishedAt;
+
+        private BackfillJob(String id, List<String> symbols, List<String> intervals, long startTime, Long endTime) {
+            this.id = id;
+            this.symbols = symbols;
+            this.intervals = intervals;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.totalTasks = symbols.size() * intervals.size();
+        }
+
+        private void taskFinished(boolean failed) {
+            if (failed) {
+                failedTasks.incrementAndGet();
+            }
+            if (finishedTasks.incrementAndGet() == totalTasks) {
+                finishedAt = System.currentTimeMillis();
+                log.info("[KlineBackfill] 回补任务结束: jobId={}, status={}, candlesWritten={}, requests={}, errors={}",
+                        id, status(), candlesWritten.get(), requests.get(), errors.get());
+            }
+        }
+
+        private String status() {
+            if (finishedAt == null) {
+                return cancelled ? "CANCELLING" : "RUNNING";
+            }
+            if (cancelled) {
+                return "CANCELLED";
+            }
+            return failedTasks.get() > 0 ? "FAILED" : "COMPLETED";
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("job_id", id);
+            result.put("status", status());
+            result.put("symbols", symbols);
+            result.put("intervals", intervals);
+            result.put("start_time", startTime);
+            result.put("end_time", endTime);
+            result.put("total_tasks", totalTasks);
+            result.put("finished_tasks", finishedTasks.get());
+            result.put("failed_tasks", failedTasks.get());
+            result.put("candles_written", candlesWritten.get());
+            result.put("requests", requests.get());
+            result.put("errors", errors.get());
+            result.put("last_error", lastError);
+            result.put("created_at", Instant.ofEpochMilli(createdAt).toString());
+            result.put("finished_at", finishedAt != null ? Instant.ofEpochMilli(finishedAt).toString() : null);
+            return result;
+        }
+    }
+}
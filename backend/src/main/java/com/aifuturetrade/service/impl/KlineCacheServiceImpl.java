@@ -0,0 +1,496 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.api.binance.BinanceConfig;
+import com.aifuturetrade.common.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.common.cache.KlineRingBuffer;
+import com.aifuturetrade.service.KlineCacheService;
+import com.binance.connector.client.common.websocket.adapter.stream.StreamConnectionWrapper;
+import com.binance.connector.client.common.websocket.configuration.WebSocketClientConfiguration;
+import com.binance.connector.client.common.websocket.service.StreamBlockingQueue;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.DerivativesTradingUsdsFuturesWebSocketStreamsUtil;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.api.WebsocketMarketStreamsApi;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.KlineCandlestickStreamsRequest;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * K线缓存服务实现
+ *
+ * 每个(symbol, interval)一个KlineRingBuffer：
+ * - 首次加载或请求的数量超过已缓存数量时，从币安全量加载limit根
+ * - 之后只请求末尾K线（含）之后的新K线，末尾未收盘K线由请求结果覆盖
+ * - 被查询过的序列订阅klineCandlestickStreams，实时更新未收盘K线；流有数据时重复加载图表不请求币安
+ * - 每次（重新）订阅成功后、或流推送的开盘时间跳过了K线时，下一次读取先做一次增量REST补齐，
+ *   覆盖全量加载到首条推送之间、以及断流重连期间收盘的K线
+ * 序列按LRU淘汰，总K线容量受max-candles（内存预算）和max-series限制，淘汰时取消流订阅。
+ *
+ * 流连接的建立、订阅、取消订阅和报文处理都在KlineCache-Thread上执行。
+ */
+@Slf4j
+@Service
+public class KlineCacheServiceImpl implements KlineCacheService {
+
+    private static final int MAX_LIMIT = 1000;
+    private static final long DRAIN_INTERVAL_MS = 250;
+
+    @Autowired
+    private BinanceConfig binanceConfig;
+
+    @Value("${app.kline-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最多缓存的序列数量
+     */
+    @Value("${app.kline-cache.max-series:200}")
+    private int maxSeries;
+
+    /**
+     * 所有序列的K线总容量上限（每根约56字节）
+     */
+    @Value("${app.kline-cache.max-candles:200000}")
+    private long maxCandles;
+
+    /**
+     * 流无数据时，两次增量REST查询的最小间隔（毫秒）
+     */
+    @Value("${app.kline-cache.rest-refresh-ms:2000}")
+    private long restRefreshMs;
+
+    @Value("${app.kline-cache.stream-enabled:true}")
+    private boolean streamEnabled;
+
+    /**
+     * 订阅的序列超过该时长无数据视为流不可用（毫秒）
+     */
+    @Value("${app.kline-cache.stream-silence-ms:10000}")
+    private long streamSilenceMs;
+
+    // 访问顺序的LinkedHashMap实现LRU，由自身加锁
+    private final LinkedHashMap<String, KlineSeries> seriesMap = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalCapacity = 0;
+    private BinanceFuturesClient futuresClient;
+    private ScheduledExecutorService streamExecutor;
+
+    // 以下字段仅由KlineCache-Thread访问
+    private WebSocketClient webSocketClient;
+    private WebsocketMarketStreamsApi marketStreamsApi;
+    private StreamConnectionWrapper connectionWrapper;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled || !streamEnabled) {
+            return;
+        }
+        streamExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "KlineCache-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        streamExecutor.scheduleWithFixedDelay(this::drainStreams, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (streamExecutor != null) {
+            streamExecutor.shutdownNow();
+            try {
+                streamExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeConnection();
+    }
+
+    private synchronized BinanceFuturesClient getFuturesClient() {
+        if (futuresClient == null) {
+            futuresClient = new BinanceFuturesClient(
+                    binanceConfig.getApiKey(),
+                    binanceConfig.getSecretKey(),
+                    binanceConfig.getQuoteAsset(),
+                    binanceConfig.getBaseUrl(),
+                    binanceConfig.getTestnet(),
+                    binanceConfig.getConnectTimeout(),
+                    binanceConfig.getReadTimeout()
+            );
+        }
+        return futuresClient;
+    }
+
+    @Override
+    public List<Map<String, Object>> getKlines(String symbol, String interval, int limit) {
+        int requestLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return read(symbol, interval, requestLimit, buffer -> buffer.toMaps(requestLimit));
+    }
+
+    @Override
+    public void forEachKline(String symbol, String interval, int limit, long fromOpenTime,
+                             KlineRingBuffer.CandleConsumer consumer) {
+        int requestLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        read(symbol, interval, requestLimit, buffer -> {
+            buffer.forEachSince(fromOpenTime, consumer);
+            return null;
+        });
+    }
+
+    /**
+     * 按需全量/增量加载序列后，在序列锁内读取缓冲区
+     */
+    private <T> T read(String symbol, String interval, int requestLimit, Function<KlineRingBuffer, T> reader) {
+        String upperSymbol = symbol.toUpperCase();
+        if (!enabled) {
+            KlineRingBuffer buffer = new KlineRingBuffer(requestLimit);
+            load(buffer, getFuturesClient().getKlines(upperSymbol, interval, requestLimit));
+            return reader.apply(buffer);
+        }
+
+        KlineSeries series = acquire(upperSymbol, interval);
+        T result;
+        synchronized (series) {
+            long now = System.currentTimeMillis();
+            if (series.buffer == null || (series.buffer.size() < requestLimit && series.loadedLimit < requestLimit)) {
+                fullLoad(series, requestLimit, now);
+            } else if (series.catchUpRequired
+                    || (!series.isStreamLive(now, streamSilenceMs) && now - series.lastRestSyncMs >= restRefreshMs)) {
+                incrementalLoad(series, now);
+            } else {
+                log.debug("[KlineCacheService] {} {} 命中缓存", upperSymbol, interval);
+            }
+            result = reader.apply(series.buffer);
+        }
+        ensureCapacityBudget();
+        if (streamExecutor != null && !series.subscribeRequested) {
+            series.subscribeRequested = true;
+            streamExecutor.execute(() -> subscribe(series));
+        }
+        return result;
+    }
+
+    private KlineSeries acquire(String symbol, String interval) {
+        String key = symbol + "|" + interval;
+        synchronized (seriesMap) {
+            return seriesMap.computeIfAbsent(key, k -> new KlineSeries(symbol, interval));
+        }
+    }
+
+    /**
+     * 全量加载limit根K线（首次加载或请求数量超过已缓存数量）
+     */
+    private void fullLoad(KlineSeries series, int limit, long now) {
+        int capacity = Math.max(limit, series.buffer != null ? series.buffer.capacity() : 0);
+        KlineRingBuffer buffer = new KlineRingBuffer(capacity);
+        series.catchUpRequired = false;
+        load(buffer, getFuturesClient().getKlines(series.symbol, series.interval, limit));
+        int previousCapacity = series.buffer != null ? series.buffer.capacity() : 0;
+        series.buffer = buffer;
+        series.loadedLimit = Math.max(series.loadedLimit, limit);
+        series.lastRestSyncMs = now;
+        synchronized (seriesMap) {
+            totalCapacity += capacity - previousCapacity;
+        }
+        log.info("[KlineCacheService] {} {} 全量加载 {} 根K线", series.symbol, series.interval, buffer.size());
+    }
+
+    /**
+     * 增量加载：只请求末尾K线（含，覆盖未收盘K线）之后的K线，间隔过久时回退全量加载
+     */
+    private void incrementalLoad(KlineSeries series, long now) {
+        long intervalMs = intervalMillis(series.interval);
+        long tail = series.buffer.lastOpenTime();
+        if (tail <= 0 || intervalMs <= 0 || (now - tail) / intervalMs >= MAX_LIMIT) {
+            fullLoad(series, series.loadedLimit, now);
+            return;
+        }
+        // 先清除标记：请求期间流再检测到缺口会重新置位
+        series.catchUpRequired = false;
+        List<Map<String, Object>> klines = getFuturesClient().getKlines(series.symbol, series.interval, MAX_LIMIT,
+                tail, now + intervalMs);
+        load(series.buffer, klines);
+        series.lastRestSyncMs = now;
+        log.debug("[KlineCacheService] {} {} 增量加载 {} 根K线", series.symbol, series.interval, klines.size());
+    }
+
+    private void load(KlineRingBuffer buffer, List<Map<String, Object>> klines) {
+        if (klines == null || klines.isEmpty()) {
+            return;
+        }
+        // SDK返回顺序不保证，按开盘时间升序写入
+        List<Map<String, Object>> sorted = new ArrayList<>(klines);
+        sorted.sort(Comparator.comparingLong(k -> toLong(k.get("open_time"))));
+        for (Map<String, Object> kline : sorted) {
+            long openTime = toLong(kline.get("open_time"));
+            if (openTime <= 0) {
+                continue;
+            }
+            buffer.upsert(openTime,
+                    roundTo6Decimals(toDouble(kline.get("open"))),
+                    roundTo6Decimals(toDouble(kline.get("high"))),
+                    roundTo6Decimals(toDouble(kline.get("low"))),
+                    roundTo6Decimals(toDouble(kline.get("close"))),
+                    toDouble(kline.get("volume")),
+                    toDouble(kline.get("quote_asset_volume")));
+        }
+    }
+
+    /**
+     * 按LRU淘汰序列，直到序列数量和K线总容量都在预算内（最近访问的序列不淘汰）
+     */
+    private void ensureCapacityBudget() {
+        List<KlineSeries> evicted = new ArrayList<>();
+        synchronized (seriesMap) {
+            Iterator<KlineSeries> iterator = seriesMap.values().iterator();
+            while ((seriesMap.size() > maxSeries || totalCapacity > maxCandles) && seriesMap.size() > 1
+                    && iterator.hasNext()) {
+                KlineSeries series = iterator.next();
+                iterator.remove();
+                totalCapacity -= series.buffer != null ? series.buffer.capacity() : 0;
+                evicted.add(series);
+            }
+        }
+        for (KlineSeries series : evicted) {
+            log.debug("[KlineCacheService] 淘汰K线序列 {} {}", series.symbol, series.interval);
+            if (streamExecutor != null) {
+                streamExecutor.execute(() -> unsubscribe(series));
+            }
+        }
+    }
+
+    /**
+     * 订阅序列的K线流（KlineCache-Thread）
+     */
+    private void subscribe(KlineSeries series) {
+        if (series.queue != null) {
+            return;
+        }
+        synchronized (seriesMap) {
+            if (seriesMap.get(series.symbol + "|" + series.interval) != series) {
+                return;
+            }
+        }
+        try {
+            if (marketStreamsApi == null) {
+                openConnection();
+            }
+            series.queue = marketStreamsApi.klineCandlestickStreamsRaw(new KlineCandlestickStreamsRequest()
+                    .symbol(series.symbol.toLowerCase()).interval(series.interval));
+            series.subscribedAtMs = System.currentTimeMillis();
+            // 全量加载（或断流）到订阅生效之间收盘的K线不会由流推送，下一次读取时REST补齐
+            series.catchUpRequired = true;
+            log.debug("[KlineCacheService] 已订阅K线流 {} {}", series.symbol, series.interval);
+        } catch (Exception e) {
+            log.warn("[KlineCacheService] 订阅K线流 {} {} 失败，将使用REST增量加载: {}",
+                    series.symbol, series.interval, e.getMessage());
+            series.subscribeRequested = false;
+            closeConnection();
+        }
+    }
+
+    private void unsubscribe(KlineSeries series) {
+        StreamBlockingQueue<String> queue = series.queue;
+        series.queue = null;
+        if (queue == null || connectionWrapper == null) {
+            return;
+        }
+        try {
+            connectionWrapper.unsubscribe(queue);
+        } catch (Exception e) {
+            log.debug("[KlineCacheService] 取消订阅K线流 {} {} 失败（忽略）: {}",
+                    series.symbol, series.interval, e.getMessage());
+        }
+    }
+
+    private void openConnection() {
+        WebSocketClientConfiguration clientConfiguration =
+                DerivativesTradingUsdsFuturesWebSocketStreamsUtil.getClientConfiguration();
+        WebSocketClient client = new WebSocketClient();
+        connectionWrapper = new StreamConnectionWrapper(clientConfiguration, client);
+        marketStreamsApi = new WebsocketMarketStreamsApi(connectionWrapper);
+        webSocketClient = client;
+        log.info("[KlineCacheService] K线流连接已建立");
+    }
+
+    private void closeConnection() {
+        WebSocketClient client = webSocketClient;
+        webSocketClient = null;
+        marketStreamsApi = null;
+        connectionWrapper = null;
+        if (client != null) {
+            try {
+                client.stop();
+            } catch (Exception e) {
+                log.warn("[KlineCacheService] 关闭K线流连接失败（忽略）", e);
+            }
+        }
+    }
+
+    /**
+     * 处理所有已订阅序列的流报文；全部订阅都超时无数据时重建连接（KlineCache-Thread）
+     */
+    private void drainStreams() {
+        try {
+            List<KlineSeries> subscribed = new ArrayList<>();
+            synchronized (seriesMap) {
+                for (KlineSeries series : seriesMap.values()) {
+                    if (series.queue != null) {
+                        subscribed.add(series);
+                    }
+                }
+            }
+            long now = System.currentTimeMillis();
+            int silent = 0;
+            for (KlineSeries series : subscribed) {
+                String payload;
+                while ((payload = series.queue.poll()) != null) {
+                    applyStreamMessage(series, payload, now);
+                }
+                if (now - Math.max(series.subscribedAtMs, series.lastStreamAtMs) >= streamSilenceMs) {
+                    silent++;
+                }
+            }
+            if (silent > 0 && silent == subscribed.size()) {
+                log.warn("[KlineCacheService] {}个K线流均{}ms无数据，重建连接", silent, streamSilenceMs);
+                for (KlineSeries series : subscribed) {
+                    series.queue = null;
+                    series.subscribeRequested = false;
+                }
+                closeConnection();
+            }
+        } catch (Exception e) {
+            log.warn("[KlineCacheService] 处理K线流报文失败: {}", e.getMessage());
+        }
+    }
+
+    private void applyStreamMessage(KlineSeries series, String payload, long now) {
+        JsonElement root = JsonParser.parseString(payload);
+        if (!root.isJsonObject()) {
+            return;
+        }
+        JsonObject event = root.getAsJsonObject();
+        if (event.has("data")) {
+            event = event.getAsJsonObject("data");
+        }
+        JsonObject k = event.getAsJsonObject("k");
+        if (k == null) {
+            return;
+        }
+        long openTime = k.get("t").getAsLong();
+        synchronized (series) {
+            if (series.buffer != null) {
+                long tail = series.buffer.lastOpenTime();
+                if (tail > 0 && series.intervalMs > 0 && openTime > tail + series.intervalMs) {
+                    // 流跳过了K线（首条推送前或重连期间收盘），缺失的K线和上一根的最终OHLC由REST补齐
+                    series.catchUpRequired = true;
+                }
+                series.buffer.upsert(openTime,
+                        roundTo6Decimals(k.get("o").getAsDouble()),
+                        roundTo6Decimals(k.get("h").getAsDouble()),
+                        roundTo6Decimals(k.get("l").getAsDouble()),
+                        roundTo6Decimals(k.get("c").getAsDouble()),
+                        k.get("v").getAsDouble(),
+                        k.get("q").getAsDouble());
+            }
+            series.lastStreamAtMs = now;
+        }
+    }
+
+    /**
+     * K线间隔的毫秒数（1M按31天计），无法解析时返回0
+     */
+    static long intervalMillis(String interval) {
+        if (interval == null || interval.length() < 2) {
+            return 0L;
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(interval.substring(0, interval.length() - 1));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+        switch (interval.charAt(interval.length() - 1)) {
+            case 'm': return amount * 60_000L;
+            case 'h': return amount * 3_600_000L;
+            case 'd': return amount * 86_400_000L;
+            case 'w': return amount * 7 * 86_400_000L;
+            case 'M': return amount * 31 * 86_400_000L;
+            default: return 0L;
+        }
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return value != null ? Double.parseDouble(value.toString()) : 0.0;
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    private static double roundTo6Decimals(double value) {
+        return Math.round(value * 1000000.0) / 1000000.0;
+    }
+
+    /**
+     * 单个(symbol, interval)的缓存状态，buffer相关字段由对象自身加锁
+     */
+    private static final class KlineSeries {
+
+        private final String symbol;
+        private final String interval;
+        private final long intervalMs;
+        private KlineRingBuffer buffer;
+        private int loadedLimit;
+        private long lastRestSyncMs;
+        private volatile long lastStreamAtMs;
+        private volatile StreamBlockingQueue<String> queue;
+        private volatile long subscribedAtMs;
+        private volatile boolean subscribeRequested;
+        private volatile boolean catchUpRequired;
+
+        private KlineSeries(String symbol, String interval) {
+            this.symbol = symbol;
+            this.interval = interval;
+            this.intervalMs = intervalMillis(interval);
+        }
+
+        /**
+         * 流是否在持续推送（订阅后silenceMs内收到过数据）
+         */
+        private boolean isStreamLive(long now, long silenceMs) {
+            return queue != null && lastStreamAtMs > 0 && now - lastStreamAtMs < silenceMs;
+        }
+    }
+}
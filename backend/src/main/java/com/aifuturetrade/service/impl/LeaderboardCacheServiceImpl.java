@@ -0,0 +1,533 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.api.binance.BinanceConfig;
+import com.aifuturetrade.common.cache.LeaderboardSnapshot;
+import com.aifuturetrade.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.service.LeaderboardCacheService;
+import com.binance.connector.client.common.websocket.adapter.stream.StreamConnectionWrapper;
+import com.binance.connector.client.common.websocket.configuration.WebSocketClientConfiguration;
+import com.binance.connector.client.common.websocket.service.StreamBlockingQueue;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.DerivativesTradingUsdsFuturesWebSocketStreamsUtil;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.api.WebsocketMarketStreamsApi;
+import com.binance.connector.client.derivatives_trading_usds_futures.websocket.stream.model.AllMarketTickersStreamsRequest;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存涨跌幅榜服务实现
+ *
+ * 后台线程（LeaderboardCache-Thread）启动时从24_market_tickers表全量加载一次作为初始状态，
+ * 之后订阅全市场ticker流（!ticker@arr），每条报文中的symbol在两棵有序树（按涨跌幅、按成交额）中
+ * 先删后插（O(log n)），处理完一条报文后取各榜前snapshot-size名及全部symbol的最新行情发布不可变快照；
+ * 超过max-entry-age-ms未更新的symbol（下架、暂停交易）在发布快照前移除。
+ *
+ * 涨跌幅与数据库查询口径一致：按最新价c相对于表中open_price（由价格刷新服务维护）计算，
+ * 而不是币安滚动24小时的P；开盘价每open-price-refresh-ms从数据库重新加载一次。
+ * 数据库中的时间（event_time）为北京时间（UTC+8），与async-service写入时一致。
+ * ticker流超过silence-timeout-ms无数据时按指数退避（带随机抖动）重建连接，期间getSnapshot返回null，
+ * 由调用方回退数据库查询。
+ */
+@Slf4j
+@Service
+public class LeaderboardCacheServiceImpl implements LeaderboardCacheService {
+
+    private static final long POLL_MS = 1000;
+
+    /**
+     * 24_market_tickers表中时间字段的时区（async-service按北京时间写入）
+     */
+    private static final ZoneOffset DB_ZONE = ZoneOffset.ofHours(8);
+
+    private static final Comparator<TickerEntry> BY_CHANGE = Comparator
+            .comparingDouble((TickerEntry e) -> e.changePercent).thenComparing(e -> e.symbol);
+    private static final Comparator<TickerEntry> BY_VOLUME = Comparator
+            .comparingDouble((TickerEntry e) -> e.quoteVolume).thenComparing(e -> e.symbol);
+
+    @Autowired
+    private MarketTickerMapper marketTickerMapper;
+
+    @Autowired
+    private BinanceConfig binanceConfig;
+
+    /**
+     * 是否启用内存涨跌幅榜（false时涨跌幅榜查询直接访问数据库）
+     */
+    @Value("${app.leaderboard-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 快照中每个榜单保留的条数（查询limit超过该值时只返回该条数）
+     */
+    @Value("${app.leaderboard-cache.snapshot-size:100}")
+    private int snapshotSize;
+
+    @Value("${app.leaderboard-cache.silence-timeout-ms:10000}")
+    private long silenceTimeoutMs;
+
+    @Value("${app.leaderboard-cache.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${app.leaderboard-cache.max-message-size:4194304}")
+    private long maxMessageSize;
+
+    /**
+     * 条目最大存活时长：事件时间早于该时长的symbol（下架、暂停交易或启动时加载的过期数据）在发布快照时移除
+     */
+    @Value("${app.leaderboard-cache.max-entry-age-ms:1800000}")
+    private long maxEntryAgeMs;
+
+    /**
+     * 从数据库重新加载开盘价的间隔（价格刷新服务每5分钟更新一次open_price）
+     */
+    @Value("${app.leaderboard-cache.open-price-refresh-ms:60000}")
+    private long openPriceRefreshMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastMessageAtMs = new AtomicLong(0);
+    private volatile LeaderboardSnapshot snapshot;
+    private ExecutorService streamExecutor;
+
+    // 以下字段仅由排行榜缓存线程访问
+    private final Map<String, TickerEntry> entries = new HashMap<>();
+    private final TreeSet<TickerEntry> byChange = new TreeSet<>(BY_CHANGE);
+    private final TreeSet<TickerEntry> byVolume = new TreeSet<>(BY_VOLUME);
+    private final Map<String, Double> openPrices = new HashMap<>();
+    private long openPricesLoadedAtMs = 0;
+    private WebSocketClient webSocketClient;
+    private StreamBlockingQueue<String> queue;
+    private long connectedAtMs = 0;
+    private int reconnectAttempts = 0;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("[LeaderboardCacheService] 内存涨跌幅榜未启用，涨跌幅榜查询将访问数据库");
+            return;
+        }
+        running.set(true);
+        streamExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "LeaderboardCache-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        streamExecutor.submit(this::runStream);
+        log.info("[LeaderboardCacheService] 内存涨跌幅榜已启动，快照条数: {}", snapshotSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running.set(false);
+        if (streamExecutor != null) {
+            streamExecutor.shutdownNow();
+            try {
+                streamExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("[LeaderboardCacheService] 内存涨跌幅榜已停止");
+    }
+
+    @Override
+    public LeaderboardSnapshot getSnapshot() {
+        LeaderboardSnapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - lastMessageAtMs.get() > silenceTimeoutMs) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * 排行榜缓存线程：加载初始状态，维护ticker流连接并逐条更新排序结构
+     */
+    private void runStream() {
+        seedFromDatabase();
+        long nextConnectAtMs = 0;
+        while (running.get()) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now - openPricesLoadedAtMs >= openPriceRefreshMs) {
+                    refreshOpenPrices(now);
+                }
+                if (queue == null || now - Math.max(connectedAtMs, lastMessageAtMs.get()) >= silenceTimeoutMs) {
+                    if (now < nextConnectAtMs) {
+                        TimeUnit.MILLISECONDS.sleep(Math.min(POLL_MS, nextConnectAtMs - now));
+                        continue;
+                    }
+                    if (!reconnect()) {
+                        nextConnectAtMs = System.currentTimeMillis() + nextBackoffMs();
+                        continue;
+                    }
+                }
+                String payload = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (payload != null) {
+                    long receivedAt = System.currentTimeMillis();
+                    onMessage(payload);
+                    publish(receivedAt);
+                    lastMessageAtMs.set(receivedAt);
+                    if (reconnectAttempts > 0 && receivedAt - connectedAtMs >= silenceTimeoutMs) {
+                        reconnectAttempts = 0;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("[LeaderboardCacheService] 处理ticker报文失败: {}", e.getMessage());
+            }
+        }
+        closeConnection();
+    }
+
+    /**
+     * 从24_market_tickers表加载一次全部ticker，覆盖ticker流启动后短时间内未推送的symbol
+     */
+    private void seedFromDatabase() {
+        try {
+            List<Map<String, Object>> rows = marketTickerMapper.selectLeaderboardTickers();
+            long loadedAtMs = System.currentTimeMillis();
+            for (Map<String, Object> row : rows) {
+                Object symbol = row.get("symbol");
+                if (symbol == null) {
+                    continue;
+                }
+                String key = symbol.toString().toUpperCase();
+                putOpenPrice(key, row);
+                upsert(new TickerEntry(key,
+                        toDouble(row.get("price_change_percent")),
+                        toDouble(row.get("last_price")),
+                        toDouble(row.get("quote_volume")),
+                        toDouble(row.get("base_volume")),
+                        eventTimeOrDefault(toEpochMillis(row.get("event_time")), loadedAtMs),
+                        true));
+            }
+            openPricesLoadedAtMs = loadedAtMs;
+            publish(loadedAtMs);
+            log.info("[LeaderboardCacheService] 已从数据库加载{}个ticker", entries.size());
+        } catch (Exception e) {
+            log.warn("[LeaderboardCacheService] 从数据库加载ticker失败，仅使用ticker流数据: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库重新加载开盘价；开盘价变化的symbol按新开盘价重新计算涨跌幅并重新排序
+     */
+    private void refreshOpenPrices(long now) {
+        openPricesLoadedAtMs = now;
+        try {
+            List<Map<String, Object>> rows = marketTickerMapper.selectOpenPrices();
+            openPrices.clear();
+            for (Map<String, Object> row : rows) {
+                Object symbol = row.get("symbol");
+                if (symbol != null) {
+                    putOpenPrice(symbol.toString().toUpperCase(), row);
+                }
+            }
+            for (TickerEntry entry : new ArrayList<>(entries.values())) {
+                if (!entry.seeded) {
+                    upsert(entry.withChangePercent(changePercent(entry.symbol, entry.lastPrice)));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[LeaderboardCacheService] 从数据库加载开盘价失败，继续使用上次加载的开盘价: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录开盘价（open_price为0.0时视为不存在，与async-service一致不计算涨跌幅）
+     */
+    private void putOpenPrice(String symbol, Map<String, Object> row) {
+        double openPrice = toDouble(row.get("open_price"));
+        if (openPrice != 0.0) {
+            openPrices.put(symbol, openPrice);
+        } else {
+            openPrices.remove(symbol);
+        }
+    }
+
+    /**
+     * 按数据库口径计算涨跌幅：(最新价 - open_price) / open_price * 100，开盘价未知时为0.0
+     */
+    private double changePercent(String symbol, double lastPrice) {
+        Double openPrice = openPrices.get(symbol);
+        if (openPrice == null || lastPrice == 0.0) {
+            return 0.0;
+        }
+        return (lastPrice - openPrice) / openPrice * 100.0;
+    }
+
+    /**
+     * 关闭旧连接并建立新连接
+     *
+     * @return true如果连接已建立
+     */
+    private boolean reconnect() {
+        if (queue != null) {
+            log.warn("[LeaderboardCacheService] ticker流{}ms未收到数据，重建连接", silenceTimeoutMs);
+        }
+        closeConnection();
+        reconnectAttempts++;
+        WebSocketClient client = new WebSocketClient();
+        try {
+            WebSocketClientConfiguration clientConfiguration =
+                    DerivativesTradingUsdsFuturesWebSocketStreamsUtil.getClientConfiguration();
+            clientConfiguration.setMessageMaxSize(maxMessageSize);
+            StreamConnectionWrapper connectionWrapper = new StreamConnectionWrapper(clientConfiguration, client);
+            WebsocketMarketStreamsApi marketStreamsApi = new WebsocketMarketStreamsApi(connectionWrapper);
+            queue = marketStreamsApi.allMarketTickersStreamsRaw(new AllMarketTickersStreamsRequest());
+            webSocketClient = client;
+            connectedAtMs = System.currentTimeMillis();
+            log.info("[LeaderboardCacheService] ticker流连接已建立");
+            return true;
+        } catch (Exception e) {
+            log.error("[LeaderboardCacheService] 建立ticker流连接失败: {}", e.getMessage());
+            stopClientNoThrow(client);
+            return false;
+        }
+    }
+
+    private long nextBackoffMs() {
+        long base = 1000L << Math.min(Math.max(reconnectAttempts - 1, 0), 20);
+        base = Math.max(1, Math.min(base, maxBackoffMs));
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private void closeConnection() {
+        queue = null;
+        WebSocketClient client = webSocketClient;
+        webSocketClient = null;
+        if (client != null) {
+            stopClientNoThrow(client);
+        }
+    }
+
+    private static void stopClientNoThrow(WebSocketClient client) {
+        try {
+            client.stop();
+        } catch (Exception e) {
+            log.warn("[LeaderboardCacheService] 关闭ticker流连接失败（忽略）", e);
+        }
+    }
+
+    /**
+     * 解析一条ticker报文（数组或组合流包装对象），只保留计价资产匹配的symbol
+     */
+    private void onMessage(String payload) {
+        JsonElement root = JsonParser.parseString(payload);
+        if (root.isJsonObject() && root.getAsJsonObject().has("data")) {
+            root = root.getAsJsonObject().get("data");
+        }
+        if (!root.isJsonArray()) {
+            return;
+        }
+        String quoteAsset = binanceConfig.getQuoteAsset() != null ? binanceConfig.getQuoteAsset() : "USDT";
+        for (JsonElement element : root.getAsJsonArray()) {
+            if (!element.isJsonObject()) {
+                continue;
+            }
+            JsonObject ticker = element.getAsJsonObject();
+            JsonElement symbol = ticker.get("s");
+            if (symbol == null || !symbol.getAsString().endsWith(quoteAsset) || !ticker.has("c")) {
+                continue;
+            }
+            double lastPrice = ticker.get("c").getAsDouble();
+            upsert(new TickerEntry(symbol.getAsString(),
+                    changePercent(symbol.getAsString(), lastPrice),
+                    lastPrice,
+                    ticker.has("q") ? ticker.get("q").getAsDouble() : 0.0,
+                    ticker.has("v") ? ticker.get("v").getAsDouble() : 0.0,
+                    ticker.has("E") ? ticker.get("E").getAsLong() : System.currentTimeMillis(),
+                    false));
+        }
+    }
+
+    /**
+     * 更新一个symbol：从两棵有序树中删除旧条目后插入新条目；
+     * 事件时间更早的ticker流数据忽略，数据库加载的条目总是被ticker流数据替换
+     */
+    private void upsert(TickerEntry entry) {
+        TickerEntry old = entries.get(entry.symbol);
+        if (old != null) {
+            if (!old.seeded && old.eventTimeMs > entry.eventTimeMs) {
+                return;
+            }
+            byChange.remove(old);
+            byVolume.remove(old);
+        }
+        entries.put(entry.symbol, entry);
+        byChange.add(entry);
+        byVolume.add(entry);
+    }
+
+    /**
+     * 移除超过maxEntryAgeMs未更新的symbol后，取各榜前snapshotSize名发布新快照
+     */
+    private void publish(long now) {
+        evictStale(now);
+
+        List<Map<String, Object>> gainers = new ArrayList<>();
+        Iterator<TickerEntry> descending = byChange.descendingIterator();
+        while (gainers.size() < snapshotSize && descending.hasNext()) {
+            TickerEntry entry = descending.next();
+            if (entry.changePercent <= 0) {
+                break;
+            }
+            gainers.add(format(entry, "gainer", gainers.size() + 1));
+        }
+
+        List<Map<String, Object>> losers = new ArrayList<>();
+        for (TickerEntry entry : byChange) {
+            if (losers.size() >= snapshotSize || entry.changePercent >= 0) {
+                break;
+            }
+            losers.add(format(entry, "loser", losers.size() + 1));
+        }
+
+        List<Map<String, Object>> volume = new ArrayList<>();
+        Iterator<TickerEntry> byVolumeDescending = byVolume.descendingIterator();
+        while (volume.size() < snapshotSize && byVolumeDescending.hasNext()) {
+            volume.add(format(byVolumeDescending.next(), "volume", volume.size() + 1));
+        }
+
+        Map<String, Map<String, Object>> tickers = new HashMap<>(entries.size() * 2);
+        for (TickerEntry entry : entries.values()) {
+            Map<String, Object> ticker = new HashMap<>(8);
+            ticker.put("symbol", entry.symbol);
+            ticker.put("price", entry.lastPrice);
+            ticker.put("change_percent", entry.changePercent);
+            ticker.put("quote_volume", entry.quoteVolume);
+            ticker.put("base_volume", entry.baseVolume);
+            tickers.put(entry.symbol, Collections.unmodifiableMap(ticker));
+        }
+
+        snapshot = new LeaderboardSnapshot(gainers, losers, volume, tickers, now);
+    }
+
+    /**
+     * 从entries和两棵有序树中移除事件时间早于now - maxEntryAgeMs的条目
+     */
+    private void evictStale(long now) {
+        if (maxEntryAgeMs <= 0) {
+            return;
+        }
+        long cutoff = now - maxEntryAgeMs;
+        Iterator<TickerEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            TickerEntry entry = iterator.next();
+            if (entry.eventTimeMs < cutoff) {
+                iterator.remove();
+                byChange.remove(entry);
+                byVolume.remove(entry);
+                log.debug("[LeaderboardCacheService] 移除超过{}ms未更新的symbol: {}", maxEntryAgeMs, entry.symbol);
+            }
+        }
+    }
+
+    private static Map<String, Object> format(TickerEntry entry, String side, int position) {
+        String name = entry.symbol.endsWith("USDT") ? entry.symbol.replace("USDT", "") : entry.symbol;
+        Map<String, Object> item = new HashMap<>();
+        item.put("symbol", entry.symbol);
+        item.put("contract_symbol", entry.symbol);
+        item.put("name", name);
+        item.put("exchange", "BINANCE_FUTURES");
+        item.put("side", side);
+        item.put("position", position);
+        item.put("price", entry.lastPrice);
+        item.put("change_percent", entry.changePercent);
+        item.put("quote_volume", entry.quoteVolume);
+        item.put("base_volume", entry.baseVolume);
+        item.put("timeframes", "");
+        item.put("event_time", entry.eventTimeMs > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.eventTimeMs), DB_ZONE) : null);
+        return Collections.unmodifiableMap(item);
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return value != null ? Double.parseDouble(value.toString()) : 0.0;
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    /**
+     * 数据库中缺少event_time的行按加载时间计算存活时长，避免首次发布快照时即被移除
+     */
+    private static long eventTimeOrDefault(long eventTimeMs, long defaultMs) {
+        return eventTimeMs > 0 ? eventTimeMs : defaultMs;
+    }
+
+    /**
+     * 数据库event_time按北京时间（UTC+8）存储
+     */
+    private static long toEpochMillis(Object value) {
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(DB_ZONE).toEpochMilli();
+        }
+        if (value instanceof java.util.Date) {
+            return ((java.util.Date) value).getTime();
+        }
+        return 0L;
+    }
+
+    /**
+     * 单个symbol的ticker（不可变，更新时整体替换，保证有序树中的排序键不变）
+     */
+    private static final class TickerEntry {
+
+        private final String symbol;
+        private final double changePercent;
+        private final double lastPrice;
+        private final double quoteVolume;
+        private final double baseVolume;
+        private final long eventTimeMs;
+        /**
+         * 是否为启动时从数据库加载的条目（尚未收到ticker流数据）
+         */
+        private final boolean seeded;
+
+        private TickerEntry(String symbol, double changePercent, double lastPrice, double quoteVolume,
+                            double baseVolume, long eventTimeMs, boolean seeded) {
+            this.symbol = symbol;
+            this.changePercent = changePercent;
+            this.lastPrice = lastPrice;
+            this.quoteVolume = quoteVolume;
+            this.baseVolume = baseVolume;
+            this.eventTimeMs = eventTimeMs;
+            this.seeded = seeded;
+        }
+
+        private TickerEntry withChangePercent(double newChangePercent) {
+            return new TickerEntry(symbol, newChangePercent, lastPrice, quoteVolume, baseVolume, eventTimeMs, seeded);
+        }
+    }
+}
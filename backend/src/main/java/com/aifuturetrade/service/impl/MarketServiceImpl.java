@@ -2,8 +2,12 @@ package com.aifuturetrade.service.impl;
 
 import com.aifuturetrade.common.api.binance.BinanceConfig;
 import com.aifuturetrade.common.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.common.cache.LeaderboardSnapshot;
 import com.aifuturetrade.dao.mapper.FutureMapper;
 import com.aifuturetrade.dao.mapper.MarketTickerMapper;
+import com.aifuturetrade.service.IndicatorService;
+import com.aifuturetrade.service.KlineCacheService;
+import com.aifuturetrade.service.LeaderboardCacheService;
 import com.aifuturetrade.service.MarketService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +35,15 @@ public class MarketServiceImpl implements MarketService {
     @Autowired
     private BinanceConfig binanceConfig;
 
+    @Autowired
+    private KlineCacheService klineCacheService;
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private LeaderboardCacheService leaderboardCacheService;
+
     private BinanceFuturesClient futuresClient;
 
     @Value("${app.kline-data-source:sdk}")
@@ -154,13 +167,16 @@ public class MarketServiceImpl implements MarketService {
     @Override
     public Map<String, Object> getMarketIndicators(String symbol) {
         log.info("[MarketService] 获取技术指标, symbol={}", symbol);
-        // TODO: 实现技术指标计算逻辑
-        // 需要从 Binance API 获取 K 线数据，然后计算 MA、MACD、RSI 等指标
-        Map<String, Object> result = new HashMap<>();
-        result.put("symbol", symbol);
-        result.put("timeframes", new HashMap<>());
-        result.put("error", "技术指标计算功能待实现");
-        return result;
+        try {
+            return indicatorService.getIndicators(symbol);
+        } catch (Exception e) {
+            log.error("[MarketService] 获取技术指标失败: {}", e.getMessage(), e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("symbol", symbol);
+            result.put("timeframes", new HashMap<>());
+            result.put("error", e.getMessage());
+            return result;
+        }
     }
 
     @Override
@@ -171,8 +187,10 @@ public class MarketServiceImpl implements MarketService {
                 limit = 10;
             }
             
-            List<Map<String, Object>> rawGainers = marketTickerMapper.selectGainersFromTickers(limit);
-            List<Map<String, Object>> gainers = formatLeaderboardData(rawGainers, "gainer");
+            LeaderboardSnapshot snapshot = leaderboardCacheService.getSnapshot();
+            List<Map<String, Object>> gainers = snapshot != null
+                    ? snapshot.getGainers(limit)
+                    : formatLeaderboardData(marketTickerMapper.selectGainersFromTickers(limit), "gainer");
             
             Map<String, Object> result = new HashMap<>();
             result.put("gainers", gainers);
@@ -195,8 +213,10 @@ public class MarketServiceImpl implements MarketService {
                 limit = 10;
             }
             
-            List<Map<String, Object>> rawLosers = marketTickerMapper.selectLosersFromTickers(limit);
-            List<Map<String, Object>> losers = formatLeaderboardData(rawLosers, "loser");
+            LeaderboardSnapshot snapshot = leaderboardCacheService.getSnapshot();
+            List<Map<String, Object>> losers = snapshot != null
+                    ? snapshot.getLosers(limit)
+                    : formatLeaderboardData(marketTickerMapper.selectLosersFromTickers(limit), "loser");
             
             Map<String, Object> result = new HashMap<>();
             result.put("losers", losers);
@@ -211,6 +231,32 @@ public class MarketServiceImpl implements MarketService {
         }
     }
 
+    @Override
+    public Map<String, Object> getMarketLeaderboardVolume(Integer limit) {
+        log.debug("[MarketService] 获取成交额榜, limit={}", limit);
+        try {
+            if (limit == null) {
+                limit = 10;
+            }
+            
+            LeaderboardSnapshot snapshot = leaderboardCacheService.getSnapshot();
+            List<Map<String, Object>> volume = snapshot != null
+                    ? snapshot.getVolume(limit)
+                    : formatLeaderboardData(marketTickerMapper.selectTopVolumeFromTickers(limit), "volume");
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("volume", volume);
+            result.put("timestamp", System.currentTimeMillis());
+            return result;
+        } catch (Exception e) {
+            log.error("[MarketService] 获取成交额榜失败: {}", e.getMessage(), e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("volume", new ArrayList<>());
+            result.put("timestamp", System.currentTimeMillis());
+            return result;
+        }
+    }
+
     @Override
     public Map<String, Object> getMarketLeaderboard(Integer limit, Boolean force) {
         log.debug("[MarketService] 获取涨跌幅榜, limit={}, force={}", limit, force);
@@ -219,12 +265,17 @@ public class MarketServiceImpl implements MarketService {
                 limit = 10;
             }
             
-            // 一次查询获取涨幅榜和跌幅榜数据
-            List<Map<String, Object>> rawGainers = marketTickerMapper.selectGainersFromTickers(limit);
-            List<Map<String, Object>> rawLosers = marketTickerMapper.selectLosersFromTickers(limit);
-            
-            List<Map<String, Object>> gainers = formatLeaderboardData(rawGainers, "gainer");
-            List<Map<String, Object>> losers = formatLeaderboardData(rawLosers, "loser");
+            // 优先使用内存快照，快照不可用时查询数据库
+            LeaderboardSnapshot snapshot = leaderboardCacheService.getSnapshot();
+            List<Map<String, Object>> gainers;
+            List<Map<String, Object>> losers;
+            if (snapshot != null) {
+                gainers = snapshot.getGainers(limit);
+                losers = snapshot.getLosers(limit);
+            } else {
+                gainers = formatLeaderboardData(marketTickerMapper.selectGainersFromTickers(limit), "gainer");
+                losers = formatLeaderboardData(marketTickerMapper.selectLosersFromTickers(limit), "loser");
+            }
             
             Map<String, Object> result = new HashMap<>();
             result.put("gainers", gainers);
@@ -329,13 +380,6 @@ public class MarketServiceImpl implements MarketService {
         }
     }
     
-    /**
-     * 将数值保留6位小数
-     */
-    private double roundTo6Decimals(double value) {
-        return Math.round(value * 1000000.0) / 1000000.0;
-    }
-    
     /**
      * 将timestamp（毫秒）转换为datetime字符串用于验证（使用 UTC+8 时区）
      */
@@ -358,8 +402,6 @@ public class MarketServiceImpl implements MarketService {
         log.info("[MarketService] 获取K线数据, symbol={}, interval={}, limit={}", 
                 symbol, interval, limit);
         try {
-            BinanceFuturesClient client = getFuturesClient();
-
             // 根据interval类型设置默认limit
             // 1天（1d）和1周（1w）返回99根，其他interval返回499根
             if (limit == null) {
@@ -387,92 +429,9 @@ public class MarketServiceImpl implements MarketService {
                 }
             }
 
-            // 调用 Binance API 获取 K 线数据（不传入startTime和endTime）
-            List<Map<String, Object>> klinesRaw = client.getKlines(symbol, interval, limit, null, null);
-
-            // SDK返回的数据是倒序的（从新到旧），数组[0]是最新的K线，数组[-1]是最旧的K线
-            // 注意：K线页面已改为仅使用历史数据，不再订阅实时K线更新，因此保留所有数据（包括最新K线）
-            log.debug("[MarketService] SDK返回{}条K线数据（倒序：最新→最旧），保留所有数据（包括最新K线）", 
-                    klinesRaw != null ? klinesRaw.size() : 0);
-
-            // 格式化 K 线数据，价格保留6位小数
-            List<Map<String, Object>> formattedKlines = new ArrayList<>();
-            if (klinesRaw != null && !klinesRaw.isEmpty()) {
-                for (Map<String, Object> kline : klinesRaw) {
-                    // 转换为浮点数并保留6位小数
-                    double formattedOpen = roundTo6Decimals(getDoubleValue(kline, "open"));
-                    double formattedHigh = roundTo6Decimals(getDoubleValue(kline, "high"));
-                    double formattedLow = roundTo6Decimals(getDoubleValue(kline, "low"));
-                    double formattedClose = roundTo6Decimals(getDoubleValue(kline, "close"));
-                    
-                    Map<String, Object> formatted = new HashMap<>();
-                    formatted.put("timestamp", kline.get("open_time"));
-                    formatted.put("open", formattedOpen);
-                    formatted.put("high", formattedHigh);
-                    formatted.put("low", formattedLow);
-                    formatted.put("close", formattedClose);
-                    formatted.put("volume", getDoubleValue(kline, "volume"));
-                    formatted.put("turnover", getDoubleValue(kline, "quote_asset_volume"));
-                    formattedKlines.add(formatted);
-                }
-                
-                // 由于SDK返回的数据是倒序的（从新到旧），需要按timestamp升序排序（从旧到新）
-                // 确保与前端期望的数据顺序一致
-                // 前端K线图表从左到右显示，左边是最旧的数据，右边是最新的数据，所以需要从旧到新的顺序
-                formattedKlines.sort((a, b) -> {
-                    Long timestampA = getLongValue(a, "timestamp");
-                    Long timestampB = getLongValue(b, "timestamp");
-                    if (timestampA == null && timestampB == null) return 0;
-                    if (timestampA == null) return -1;
-                    if (timestampB == null) return 1;
-                    return timestampA.compareTo(timestampB);
-                });
-                
-                log.info("[MarketService] SDK查询完成，共获取 {} 条K线数据（已排序为从旧到新，包含最新K线）", 
-                        formattedKlines.size());
-                
-                // 验证数据顺序：确保第一条时间戳小于最后一条时间戳（从旧到新，timestamp升序）
-                // 前端K线图表从左到右显示，左边是最旧的数据（第一条），右边是最新的数据（最后一条）
-                // 所以数据顺序应该是：第一条（最旧）< 最后一条（最新）
-                if (formattedKlines.size() > 1) {
-                    Long firstTimestamp = getLongValue(formattedKlines.get(0), "timestamp");
-                    Long lastTimestamp = getLongValue(formattedKlines.get(formattedKlines.size() - 1), "timestamp");
-                    
-                    if (firstTimestamp != null && lastTimestamp != null) {
-                        String firstTimestampStr = formatTimestamp(firstTimestamp);
-                        String lastTimestampStr = formatTimestamp(lastTimestamp);
-                        
-                        if (firstTimestamp >= lastTimestamp) {
-                            log.warn("[MarketService] ⚠️ 数据顺序异常：第一条时间戳({}, {}) >= 最后一条({}, {})，" +
-                                    "重新排序以确保从旧到新的顺序（与前端K线图表从左到右的要求一致）",
-                                    firstTimestamp, firstTimestampStr, lastTimestamp, lastTimestampStr);
-                            
-                            // 重新排序
-                            formattedKlines.sort((a, b) -> {
-                                Long timestampA = getLongValue(a, "timestamp");
-                                Long timestampB = getLongValue(b, "timestamp");
-                                if (timestampA == null && timestampB == null) return 0;
-                                if (timestampA == null) return -1;
-                                if (timestampB == null) return 1;
-                                return timestampA.compareTo(timestampB);
-                            });
-                            
-                            // 重新验证
-                            firstTimestamp = getLongValue(formattedKlines.get(0), "timestamp");
-                            lastTimestamp = getLongValue(formattedKlines.get(formattedKlines.size() - 1), "timestamp");
-                            firstTimestampStr = formatTimestamp(firstTimestamp);
-                            lastTimestampStr = formatTimestamp(lastTimestamp);
-                            
-                            log.debug("[MarketService] ✓ 重新排序后：第一条时间戳={} ({}), 最后一条时间戳={} ({})",
-                                    firstTimestamp, firstTimestampStr, lastTimestamp, lastTimestampStr);
-                        } else {
-                            log.debug("[MarketService] ✓ 数据顺序验证通过：第一条时间戳={} ({}) < 最后一条时间戳={} ({}) " +
-                                    "（从旧到新，符合前端K线图表从左到右的显示要求）",
-                                    firstTimestamp, firstTimestampStr, lastTimestamp, lastTimestampStr);
-                        }
-                    }
-                }
-            }
+            // 从K线缓存获取（首次加载全量查询，之后只增量查询新K线，未收盘K线由K线流实时更新）
+            // 返回数据已按timestamp升序排序（从旧到新），价格保留6位小数，与前端K线图表从左到右的顺序一致
+            List<Map<String, Object>> formattedKlines = klineCacheService.getKlines(symbol, interval, limit);
 
             // 记录返回数据信息
             int klinesCount = formattedKlines.size();
@@ -4,6 +4,7 @@ import com.aifuturetrade.dao.entity.*;
 import com.aifuturetrade.dao.mapper.*;
 import com.aifuturetrade.service.ModelService;
 import com.aifuturetrade.service.MarketService;
+import com.aifuturetrade.service.MarketPriceCacheService;
 import com.aifuturetrade.service.DockerContainerService;
 import com.aifuturetrade.service.dto.ModelDTO;
 import com.aifuturetrade.common.util.PageResult;
@@ -66,6 +67,9 @@ public class ModelServiceImpl implements ModelService {
     @Autowired
     private MarketService marketService;
 
+    @Autowired
+    private MarketPriceCacheService marketPriceCacheService;
+
     @Autowired
     private ProviderMapper providerMapper;
 
@@ -143,6 +147,24 @@ public class ModelServiceImpl implements ModelService {
         return binanceFuturesClient;
     }
 
+    /**
+     * 获取实时价格：优先读取标记价格流缓存，过期或缺失的symbol合并为一次SDK标记价格查询
+     *
+     * @return 大写symbol -> {"price": 价格}，与BinanceFuturesClient.getSymbolPrices返回格式一致
+     */
+    private Map<String, Map<String, Object>> getCachedSymbolPrices(List<String> symbols) {
+        Map<String, Double> prices = marketPriceCacheService.getPrices(symbols,
+                marketPriceCacheService.restMarkPriceLoader(this::getBinanceFuturesClient));
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        for (Map.Entry<String, Double> entry : prices.entrySet()) {
+            Map<String, Object> priceData = new HashMap<>();
+            priceData.put("symbol", entry.getKey());
+            priceData.put("price", entry.getValue());
+            result.put(entry.getKey(), priceData);
+        }
+        return result;
+    }
+
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     /**
@@ -616,8 +638,7 @@ public class ModelServiceImpl implements ModelService {
                     
                     // 直接调用SDK获取实时价格
                     log.debug("[ModelService] 从SDK API获取实时价格，contractSymbols: {}", contractSymbols);
-                    com.aifuturetrade.common.api.binance.BinanceFuturesClient binanceClient = getBinanceFuturesClient();
-                    Map<String, Map<String, Object>> sdkPrices = binanceClient.getSymbolPrices(contractSymbols);
+                    Map<String, Map<String, Object>> sdkPrices = getCachedSymbolPrices(contractSymbols);
                     log.debug("[ModelService] SDK返回价格数据数量: {}", sdkPrices.size());
                     
                     // 处理SDK返回的价格数据，支持多种symbol格式匹配
@@ -901,8 +922,7 @@ public class ModelServiceImpl implements ModelService {
             Map<String, Map<String, Object>> sdkPrices = new HashMap<>();
             try {
                 // 使用BinanceFuturesClient直接获取实时价格
-                com.aifuturetrade.common.api.binance.BinanceFuturesClient binanceClient = getBinanceFuturesClient();
-                sdkPrices = binanceClient.getSymbolPrices(symbols);
+                sdkPrices = getCachedSymbolPrices(symbols);
                 log.debug("[ModelService] SDK返回价格数据数量: {}", sdkPrices.size());
                 for (Map.Entry<String, Map<String, Object>> entry : sdkPrices.entrySet()) {
                     log.debug("[ModelService] SDK价格数据: {} = {}", entry.getKey(), entry.getValue());
@@ -0,0 +1,127 @@
+package com.aifuturetrade.common.async;
+
+import com.aifuturetrade.common.cache.LeaderboardSnapshot;
+import com.aifuturetrade.service.LeaderboardCacheService;
+import com.corundumstudio.socketio.BroadcastOperations;
+import com.corundumstudio.socketio.SocketIOClient;
+import com.corundumstudio.socketio.SocketIOServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Socket.IO行情增量推送测试（直接在测试线程上调用推送线程的方法）
+ */
+class MarketPushServiceTest {
+
+    private SocketIOServer socketIOServer;
+    private LeaderboardCacheService leaderboardCacheService;
+    private BroadcastOperations room;
+    private SocketIOClient client;
+    private MarketPushService service;
+
+    @BeforeEach
+    void setUp() {
+        socketIOServer = mock(SocketIOServer.class);
+        leaderboardCacheService = mock(LeaderboardCacheService.class);
+        room = mock(BroadcastOperations.class);
+        client = mock(SocketIOClient.class);
+        UUID sessionId = UUID.randomUUID();
+        when(client.getSessionId()).thenReturn(sessionId);
+        when(socketIOServer.getClient(sessionId)).thenReturn(client);
+        when(socketIOServer.getRoomOperations("leaderboard")).thenReturn(room);
+        when(room.getClients()).thenReturn(List.of(client));
+
+        service = new MarketPushService();
+        ReflectionTestUtils.setField(service, "socketIOServer", socketIOServer);
+        ReflectionTestUtils.setField(service, "leaderboardCacheService", leaderboardCacheService);
+        ReflectionTestUtils.setField(service, "leaderboardSize", 10);
+        ReflectionTestUtils.setField(service, "maxSymbolsPerClient", 200);
+    }
+
+    @Test
+    void testSecondFrameSendsOnlyChangedRowsAndSymbols() {
+        ReflectionTestUtils.invokeMethod(service, "subscribePrices", client, List.of("btcusdt", "ETHUSDT"));
+        publish(snapshot(1000L, 37000.0, 2000.0));
+        publish(snapshot(2000L, 37100.0, 2000.0));
+
+        ArgumentCaptor<Object> deltas = ArgumentCaptor.forClass(Object.class);
+        verify(room, times(2)).sendEvent(eq(MarketPushService.LEADERBOARD_DELTA), deltas.capture());
+        Map<String, Object> second = payload(deltas.getAllValues().get(1));
+        assertEquals(2L, second.get("version"));
+        assertEquals(1L, second.get("baseVersion"));
+        List<Map<String, Object>> rows = rows(second, "gainers");
+        assertEquals(1, rows.size());
+        assertEquals("BTCUSDT", rows.get(0).get("symbol"));
+        assertEquals(2, ((Map<?, ?>) second.get("gainers")).get("size"));
+
+        ArgumentCaptor<Object> prices = ArgumentCaptor.forClass(Object.class);
+        verify(client, times(2)).sendEvent(eq(MarketPushService.PRICES_DELTA), prices.capture());
+        Map<?, ?> changed = (Map<?, ?>) payload(prices.getAllValues().get(1)).get("prices");
+        assertEquals(List.of("BTCUSDT"), List.copyOf(changed.keySet()));
+    }
+
+    @Test
+    void testUnchangedSnapshotSendsNothing() {
+        publish(snapshot(1000L, 37000.0, 2000.0));
+        publish(snapshot(1000L, 37000.0, 2000.0));
+        publish(snapshot(2000L, 37000.0, 2000.0));
+
+        verify(room, times(1)).sendEvent(eq(MarketPushService.LEADERBOARD_DELTA), any());
+    }
+
+    @Test
+    void testNewClientReceivesFullSnapshot() {
+        publish(snapshot(1000L, 37000.0, 2000.0));
+        publish(snapshot(2000L, 37100.0, 2000.0));
+
+        SocketIOClient newcomer = mock(SocketIOClient.class);
+        when(newcomer.getSessionId()).thenReturn(UUID.randomUUID());
+        ReflectionTestUtils.invokeMethod(service, "subscribeLeaderboard", newcomer);
+        ReflectionTestUtils.invokeMethod(service, "subscribePrices", newcomer, List.of("BTCUSDT", "ETHUSDT"));
+
+        verify(newcomer).joinRoom("leaderboard");
+        ArgumentCaptor<Object> leaderboard = ArgumentCaptor.forClass(Object.class);
+        verify(newcomer).sendEvent(eq(MarketPushService.LEADERBOARD_SNAPSHOT), leaderboard.capture());
+        Map<String, Object> full = payload(leaderboard.getValue());
+        assertEquals(2L, full.get("version"));
+        List<?> gainers = (List<?>) full.get("gainers");
+        assertEquals(2, gainers.size());
+        assertEquals(37100.0, ((Map<?, ?>) gainers.get(0)).get("price"));
+
+        ArgumentCaptor<Object> prices = ArgumentCaptor.forClass(Object.class);
+        verify(newcomer).sendEvent(eq(MarketPushService.PRICES_SNAPSHOT), prices.capture());
+        assertEquals(2, ((Map<?, ?>) payload(prices.getValue()).get("prices")).size());
+    }
+
+    private void publish(LeaderboardSnapshot snapshot) {
+        when(leaderboardCacheService.getSnapshot()).thenReturn(snapshot);
+        ReflectionTestUtils.invokeMethod(service, "pushFrame");
+    }
+
+    private static LeaderboardSnapshot snapshot(long updatedAtMs, double btcPrice, double ethPrice) {
+        Map<String, Object> btc = Map.of("symbol", "BTCUSDT", "price", btcPrice, "change_percent", 5.0, "position", 1);
+        Map<String, Object> eth = Map.of("symbol", "ETHUSDT", "price", ethPrice, "change_percent", 3.0, "position", 2);
+        return new LeaderboardSnapshot(List.of(btc, eth), List.of(), List.of(),
+                Map.of("BTCUSDT", btc, "ETHUSDT", eth), updatedAtMs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> payload(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Map<String, Object> payload, String board) {
+        return (List<Map<String, Object>>) ((Map<String, Object>) payload.get(board)).get("rows");
+    }
+}
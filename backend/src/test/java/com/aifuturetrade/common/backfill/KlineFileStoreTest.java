@@ -0,0 +1,96 @@
+package com.aifuturetrade.common.backfill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 历史K线本地二进制存储测试
+ */
+class KlineFileStoreTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripAndRangeRead() throws IOException {
+        KlineFileStore store = new KlineFileStore(dir);
+        try (KlineFileStore.SeriesWriter writer = store.openWriter("btcusdt", "1m")) {
+            for (int i = 1; i <= 5; i++) {
+                writer.append(i * MINUTE, i, i + 0.5, i - 0.5, i + 0.25, i * 10, i * 100);
+            }
+        }
+
+        assertEquals(5, store.count("BTCUSDT", "1m"));
+        assertEquals(5 * MINUTE, store.lastOpenTime("BTCUSDT", "1m"));
+
+        List<double[]> rows = new ArrayList<>();
+        int read = store.read("BTCUSDT", "1m", 2 * MINUTE, 4 * MINUTE, 10,
+                (openTime, open, high, low, close, volume, quoteVolume) ->
+                        rows.add(new double[]{openTime, open, high, low, close, volume, quoteVolume}));
+
+        assertEquals(3, read);
+        assertArrayEquals(new double[]{2 * MINUTE, 2, 2.5, 1.5, 2.25, 20, 200}, rows.get(0));
+        assertEquals(4 * MINUTE, (long) rows.get(2)[0]);
+    }
+
+    @Test
+    void testAppendSkipsOpenTimesNotAfterCheckpoint() throws IOException {
+        KlineFileStore store = new KlineFileStore(dir);
+        try (KlineFileStore.SeriesWriter writer = store.openWriter("BTCUSDT", "1m")) {
+            assertTrue(writer.append(MINUTE, 1, 1, 1, 1, 1, 1));
+            assertTrue(writer.append(2 * MINUTE, 2, 2, 2, 2, 2, 2));
+            assertFalse(writer.append(2 * MINUTE, 9, 9, 9, 9, 9, 9));
+        }
+
+        // 重新打开后从末尾断点继续，重复的页不会再次写入
+        try (KlineFileStore.SeriesWriter writer = store.openWriter("BTCUSDT", "1m")) {
+            assertEquals(2 * MINUTE, writer.getLastOpenTime());
+            assertFalse(writer.append(MINUTE, 1, 1, 1, 1, 1, 1));
+            assertFalse(writer.append(2 * MINUTE, 2, 2, 2, 2, 2, 2));
+            assertTrue(writer.append(3 * MINUTE, 3, 3, 3, 3, 3, 3));
+        }
+
+        List<Long> openTimes = new ArrayList<>();
+        store.read("BTCUSDT", "1m", 0, Long.MAX_VALUE, 100,
+                (openTime, open, high, low, close, volume, quoteVolume) -> openTimes.add(openTime));
+        assertEquals(List.of(MINUTE, 2 * MINUTE, 3 * MINUTE), openTimes);
+    }
+
+    @Test
+    void testPartialRecordTruncatedOnOpen() throws IOException {
+        KlineFileStore store = new KlineFileStore(dir);
+        try (KlineFileStore.SeriesWriter writer = store.openWriter("BTCUSDT", "1m")) {
+            writer.append(MINUTE, 1, 1, 1, 1, 1, 1);
+        }
+        Path file = dir.resolve("BTCUSDT").resolve("1m.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(10));
+        }
+
+        try (KlineFileStore.SeriesWriter writer = store.openWriter("BTCUSDT", "1m")) {
+            assertEquals(MINUTE, writer.getLastOpenTime());
+            writer.append(2 * MINUTE, 2, 2, 2, 2, 2, 2);
+        }
+        assertEquals(2, store.count("BTCUSDT", "1m"));
+        assertEquals(2 * MINUTE, store.lastOpenTime("BTCUSDT", "1m"));
+    }
+
+    @Test
+    void testRejectsPathOutsideBaseDir() {
+        KlineFileStore store = new KlineFileStore(dir);
+        assertThrows(IllegalArgumentException.class, () -> store.openWriter("../BTCUSDT", "1m"));
+        assertThrows(IllegalArgumentException.class, () -> store.lastOpenTime("BTCUSDT", "../1m"));
+    }
+}
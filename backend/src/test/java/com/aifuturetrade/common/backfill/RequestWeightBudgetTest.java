@@ -0,0 +1,105 @@
+package com.aifuturetrade.common.backfill;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 全局请求权重预算测试
+ */
+class RequestWeightBudgetTest {
+
+    @Test
+    void testExhaustedBudgetBlocksUntilNextWindow() throws Exception {
+        awayFromWindowEdge();
+        RequestWeightBudget budget = new RequestWeightBudget(10);
+        budget.acquire(5);
+        budget.acquire(5);
+        assertEquals(10, budget.getUsedWeight());
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = startAcquire(budget, 5, acquired);
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+        nextWindow(budget);
+
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(5, budget.getUsedWeight());
+        waiter.join();
+    }
+
+    @Test
+    void testServerUsedWeightCountsAgainstBudget() throws Exception {
+        awayFromWindowEdge();
+        RequestWeightBudget budget = new RequestWeightBudget(10);
+        budget.acquire(2);
+        // 同一IP的其他请求已用掉9
+        budget.observeUsedWeight(9);
+        assertEquals(9, budget.getUsedWeight());
+        budget.observeUsedWeight(3);
+        assertEquals(9, budget.getUsedWeight());
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = startAcquire(budget, 2, acquired);
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        nextWindow(budget);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    @Test
+    void testPauseBlocksAllRequests() throws Exception {
+        RequestWeightBudget budget = new RequestWeightBudget(1000);
+        long pausedUntil = System.currentTimeMillis() + 300;
+        budget.pauseUntil(pausedUntil);
+
+        budget.acquire(1);
+
+        assertTrue(System.currentTimeMillis() >= pausedUntil);
+    }
+
+    @Test
+    void testOversizedRequestAllowedInEmptyWindow() throws Exception {
+        RequestWeightBudget budget = new RequestWeightBudget(5);
+        budget.acquire(10);
+        assertEquals(10, budget.getUsedWeight());
+    }
+
+    private static Thread startAcquire(RequestWeightBudget budget, int weight, CountDownLatch acquired) {
+        Thread thread = new Thread(() -> {
+            try {
+                budget.acquire(weight);
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * 距离自然分钟边界不足1秒时等过边界，避免测试期间窗口自然切换
+     */
+    static void awayFromWindowEdge() throws InterruptedException {
+        long remaining = 60_000L - System.currentTimeMillis() % 60_000L;
+        if (remaining < 1000) {
+            TimeUnit.MILLISECONDS.sleep(remaining + 50);
+        }
+    }
+
+    /**
+     * 把窗口起点移到上一分钟，模拟进入下一个自然分钟
+     */
+    static void nextWindow(RequestWeightBudget budget) {
+        synchronized (budget) {
+            ReflectionTestUtils.setField(budget, "windowStartMs", 0L);
+        }
+        budget.getUsedWeight();
+    }
+}
@@ -0,0 +1,103 @@
+package com.aifuturetrade.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * K线环形缓冲区测试
+ */
+class KlineRingBufferTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void testAppendAndOverwriteTail() {
+        KlineRingBuffer buffer = new KlineRingBuffer(4);
+        buffer.upsert(MINUTE, 1, 2, 0.5, 1.5, 10, 100);
+        buffer.upsert(2 * MINUTE, 1.5, 2, 1, 1.8, 5, 50);
+        // 未收盘K线的实时更新覆盖末尾
+        buffer.upsert(2 * MINUTE, 1.5, 2.5, 1, 2.2, 8, 80);
+
+        assertEquals(2, buffer.size());
+        assertEquals(2 * MINUTE, buffer.lastOpenTime());
+        Map<String, Object> last = buffer.toMaps(10).get(1);
+        assertEquals(2.5, last.get("high"));
+        assertEquals(2.2, last.get("close"));
+        assertEquals(8.0, last.get("volume"));
+    }
+
+    @Test
+    void testWrapsAroundAndDropsOldest() {
+        KlineRingBuffer buffer = new KlineRingBuffer(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.upsert(i * MINUTE, i, i, i, i, i, i);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(List.of(3 * MINUTE, 4 * MINUTE, 5 * MINUTE), openTimes(buffer.toMaps(10)));
+        assertEquals(List.of(4 * MINUTE, 5 * MINUTE), openTimes(buffer.toMaps(2)));
+    }
+
+    @Test
+    void testOverwritesEarlierCandleInPlaceAndIgnoresUnknown() {
+        KlineRingBuffer buffer = new KlineRingBuffer(3);
+        for (int i = 1; i <= 4; i++) {
+            buffer.upsert(i * MINUTE, i, i, i, i, i, i);
+        }
+        // 缓冲区内的较早K线原地覆盖（REST补齐上一根的最终OHLC）
+        buffer.upsert(3 * MINUTE, 3, 9, 3, 7, 3, 3);
+        // 早于缓冲区起点或缓冲区内不存在的开盘时间忽略
+        buffer.upsert(MINUTE, 0, 0, 0, 0, 0, 0);
+        buffer.upsert(3 * MINUTE + 1, 0, 0, 0, 0, 0, 0);
+
+        List<Map<String, Object>> maps = buffer.toMaps(10);
+        assertEquals(List.of(2 * MINUTE, 3 * MINUTE, 4 * MINUTE), openTimes(maps));
+        assertEquals(9.0, maps.get(1).get("high"));
+        assertEquals(7.0, maps.get(1).get("close"));
+    }
+
+    @Test
+    void testForEachSince() {
+        KlineRingBuffer buffer = new KlineRingBuffer(4);
+        for (int i = 1; i <= 6; i++) {
+            buffer.upsert(i * MINUTE, i, i, i, i, i, i);
+        }
+        List<Long> seen = new ArrayList<>();
+        buffer.forEachSince(4 * MINUTE, (openTime, open, high, low, close, volume, turnover) -> seen.add(openTime));
+        assertEquals(List.of(4 * MINUTE, 5 * MINUTE, 6 * MINUTE), seen);
+
+        seen.clear();
+        buffer.forEachSince(0, (openTime, open, high, low, close, volume, turnover) -> seen.add(openTime));
+        assertEquals(4, seen.size());
+
+        seen.clear();
+        buffer.forEachSince(7 * MINUTE, (openTime, open, high, low, close, volume, turnover) -> seen.add(openTime));
+        assertEquals(0, seen.size());
+    }
+
+    @Test
+    void testEmptyAndClear() {
+        KlineRingBuffer buffer = new KlineRingBuffer(2);
+        assertEquals(0L, buffer.lastOpenTime());
+        assertEquals(0, buffer.toMaps(5).size());
+
+        buffer.upsert(MINUTE, 1, 1, 1, 1, 1, 1);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        buffer.upsert(2 * MINUTE, 2, 2, 2, 2, 2, 2);
+        assertEquals(2 * MINUTE, buffer.lastOpenTime());
+    }
+
+    private static List<Long> openTimes(List<Map<String, Object>> maps) {
+        List<Long> result = new ArrayList<>();
+        for (Map<String, Object> map : maps) {
+            result.add((Long) map.get("timestamp"));
+        }
+        return result;
+    }
+}
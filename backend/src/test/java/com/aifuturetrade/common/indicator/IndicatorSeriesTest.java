@@ -0,0 +1,132 @@
+package com.aifuturetrade.common.indicator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 增量技术指标测试
+ *
+ * 期望值由trade/market/market_data.py中的_calculate_rsi_tradingview、_ema_frontend、_macd_frontend、
+ * _calculate_atr_tradingview对同一组K线计算得到（下标为K线序号，从0开始）。
+ */
+class IndicatorSeriesTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final long MINUTE = 60_000L;
+
+    private static final double[] CLOSES = {
+            99.05, 98.68, 99.79, 98.31, 98.31, 99.79, 98.68, 99.95, 101.8, 101.06, 101.8, 99.95, 99.58, 100.69,
+            100.11, 100.11, 101.59, 100.48, 100.85, 102.7, 101.96, 103.6, 101.75, 101.38, 102.49, 101.01,
+            101.01, 102.49, 102.28, 102.65, 104.5, 103.76, 104.5, 102.65, 102.28, 104.29, 102.81, 102.81,
+            104.29, 103.18, 103.55, 105.4, 105.56, 106.3, 104.45, 104.08, 105.19, 103.71, 103.71, 106.09,
+            104.98, 105.35, 107.2, 106.46, 107.2, 105.35, 105.88, 106.99, 105.51, 105.51
+    };
+    private static final double[] HIGHS = {
+            99.55, 99.43, 100.79, 98.81, 99.06, 100.79, 99.18, 100.7, 102.8, 101.56, 102.55, 100.95, 100.08,
+            101.44, 101.11, 100.61, 102.34, 101.48, 101.35, 103.45, 102.96, 104.1, 102.5, 102.38, 102.99,
+            101.76, 102.01, 102.99, 103.03, 103.65, 105.0, 104.51, 105.5, 103.15, 103.03, 105.29, 103.31,
+            103.56, 105.29, 103.68, 104.3, 106.4, 106.06, 107.05, 105.45, 104.58, 105.94, 104.71, 104.21,
+            106.84, 105.98, 105.85, 107.95, 107.46, 107.7, 106.1, 106.88, 107.49, 106.26, 106.51
+    };
+    private static final double[] LOWS = {
+            98.65, 98.08, 98.99, 97.31, 97.91, 99.19, 97.88, 98.95, 101.4, 100.46, 101.0, 98.95, 99.18, 100.09,
+            99.31, 99.11, 101.19, 99.88, 100.05, 101.7, 101.56, 103.0, 100.95, 100.38, 102.09, 100.41, 100.21,
+            101.49, 101.88, 102.05, 103.7, 102.76, 104.1, 102.05, 101.48, 103.29, 102.41, 102.21, 103.49,
+            102.18, 103.15, 104.8, 104.76, 105.3, 104.05, 103.48, 104.39, 102.71, 103.31, 105.49, 104.18,
+            104.35, 106.8, 105.86, 106.4, 104.35, 105.48, 106.39, 104.71, 104.51
+    };
+
+    /**
+     * 逐根喂入K线后每根K线对应的指标结果（最新K线为未收盘K线预览值）
+     */
+    private final List<Map<String, Object>> results = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        IndicatorSeries series = new IndicatorSeries();
+        for (int i = 0; i < CLOSES.length; i++) {
+            series.onCandle((i + 1) * MINUTE, HIGHS[i], LOWS[i], CLOSES[i]);
+            results.add(series.toMap());
+        }
+    }
+
+    @Test
+    void testRsiMatchesPythonReference() {
+        // 与_calculate_rsi_tradingview一致，从下标period-1开始输出
+        assertNull(value(4, "rsi", "rsi6"));
+        assertGolden(58.33333333333344, 5, "rsi", "rsi6");
+        assertGolden(44.871794871794954, 6, "rsi", "rsi6");
+        assertGolden(59.61796792379637, 20, "rsi", "rsi6");
+        assertGolden(47.26943514772245, 59, "rsi", "rsi6");
+        assertNull(value(12, "rsi", "rsi14"));
+        assertGolden(56.08308605341247, 13, "rsi", "rsi14");
+        assertGolden(53.5994764397906, 14, "rsi", "rsi14");
+        assertGolden(52.42589336667352, 59, "rsi", "rsi14");
+    }
+
+    @Test
+    void testEmaMatchesPythonReference() {
+        assertNull(value(18, "ema", "ema20"));
+        assertGolden(100.16399999999999, 19, "ema", "ema20");
+        assertGolden(100.3350476190476, 20, "ema", "ema20");
+        assertGolden(105.2929808851768, 59, "ema", "ema20");
+    }
+
+    @Test
+    void testMacdMatchesPythonReference() {
+        assertNull(value(24, "macd", "dif"));
+        assertGolden(0.8712812983324909, 25, "macd", "dif");
+        assertGolden(0.7909345714949723, 59, "macd", "dif");
+        assertNull(value(32, "macd", "dea"));
+        assertGolden(0.9073941717480554, 33, "macd", "dea");
+        assertGolden(0.9058999726707437, 34, "macd", "dea");
+        assertGolden(0.9030794283169856, 59, "macd", "dea");
+        assertGolden(0.2121637388978792, 33, "macd", "bar");
+        assertGolden(-0.22428971364402672, 59, "macd", "bar");
+    }
+
+    @Test
+    void testAtrMatchesPythonReference() {
+        assertNull(value(12, "atr", "atr14"));
+        assertGolden(1.8392857142857142, 13, "atr", "atr14");
+        assertGolden(1.8364795918367345, 14, "atr", "atr14");
+        assertGolden(1.930762917138273, 59, "atr", "atr14");
+    }
+
+    @Test
+    void testPendingCandleUpdateDoesNotCommit() {
+        IndicatorSeries series = new IndicatorSeries();
+        for (int i = 0; i < 20; i++) {
+            series.onCandle((i + 1) * MINUTE, HIGHS[i], LOWS[i], CLOSES[i]);
+        }
+        // 未收盘K线多次更新后，以最终值为准
+        series.onCandle(21 * MINUTE, 200.0, 1.0, 150.0);
+        series.onCandle(21 * MINUTE, HIGHS[20], LOWS[20], CLOSES[20]);
+
+        assertEquals(21L, series.getCandleCount());
+        assertEquals(100.3350476190476, (Double) nested(series.toMap(), "ema", "ema20"), EPSILON);
+    }
+
+    private void assertGolden(double expected, int index, String group, String key) {
+        Double actual = value(index, group, key);
+        assertNotNull(actual, group + "." + key + "[" + index + "]");
+        assertEquals(expected, actual, EPSILON, group + "." + key + "[" + index + "]");
+    }
+
+    private Double value(int index, String group, String key) {
+        return (Double) nested(results.get(index), group, key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object nested(Map<String, Object> map, String group, String key) {
+        return ((Map<String, Object>) map.get(group)).get(key);
+    }
+}
@@ -0,0 +1,92 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.cache.KlineRingBuffer;
+import com.aifuturetrade.service.KlineCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 技术指标服务测试（K线缓存为内存列表）
+ */
+@ExtendWith(MockitoExtension.class)
+class IndicatorServiceImplTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Mock
+    private KlineCacheService klineCacheService;
+
+    private IndicatorServiceImpl service;
+    private final List<Long> openTimes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new IndicatorServiceImpl();
+        ReflectionTestUtils.setField(service, "klineCacheService", klineCacheService);
+        ReflectionTestUtils.setField(service, "warmupCandles", 300);
+        ReflectionTestUtils.setField(service, "maxSeries", 10);
+        doAnswer(invocation -> {
+            long fromOpenTime = invocation.getArgument(3);
+            KlineRingBuffer.CandleConsumer consumer = invocation.getArgument(4);
+            for (long openTime : openTimes) {
+                if (openTime >= fromOpenTime) {
+                    consumer.accept(openTime, 100.0, 101.0, 99.0, 100.0 + openTime / MINUTE, 1.0, 100.0);
+                }
+            }
+            return null;
+        }).when(klineCacheService).forEachKline(eq("BTCUSDT"), eq("1m"), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void testGapAfterFirstAppendedCandleTriggersFullRecompute() {
+        for (long i = 1; i <= 5; i++) {
+            openTimes.add(i * MINUTE);
+        }
+        service.getIndicators("BTCUSDT");
+
+        // 未收盘K线(5)之后缺少第7根：增量部分第一根连续，但6与8之间不连续
+        openTimes.add(6 * MINUTE);
+        openTimes.add(8 * MINUTE);
+        Map<String, Object> indicators = indicators1m(service.getIndicators("BTCUSDT"));
+
+        verify(klineCacheService, times(2)).forEachKline(eq("BTCUSDT"), eq("1m"), anyInt(), eq(0L), any());
+        assertEquals(7L, indicators.get("candles"));
+        assertEquals(8 * MINUTE, indicators.get("timestamp"));
+    }
+
+    @Test
+    void testContinuousCandlesUpdateIncrementally() {
+        for (long i = 1; i <= 5; i++) {
+            openTimes.add(i * MINUTE);
+        }
+        service.getIndicators("BTCUSDT");
+
+        openTimes.add(6 * MINUTE);
+        openTimes.add(7 * MINUTE);
+        Map<String, Object> indicators = indicators1m(service.getIndicators("BTCUSDT"));
+
+        verify(klineCacheService, times(1)).forEachKline(eq("BTCUSDT"), eq("1m"), anyInt(), eq(0L), any());
+        verify(klineCacheService).forEachKline(eq("BTCUSDT"), eq("1m"), anyInt(), eq(5 * MINUTE), any());
+        assertEquals(7L, indicators.get("candles"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> indicators1m(Map<String, Object> result) {
+        return (Map<String, Object>) ((Map<String, Object>) result.get("timeframes")).get("1m");
+    }
+}
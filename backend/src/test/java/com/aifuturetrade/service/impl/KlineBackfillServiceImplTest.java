@@ -0,0 +1,136 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.api.binance.BinanceFuturesClient;
+import com.aifuturetrade.common.backfill.RequestWeightBudget;
+import com.binance.connector.client.common.ApiResponse;
+import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.KlineCandlestickDataResponse;
+import com.binance.connector.client.derivatives_trading_usds_futures.rest.model.KlineCandlestickDataResponseItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 历史K线回补测试（模拟币安分页接口，写入临时目录）
+ */
+class KlineBackfillServiceImplTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @TempDir
+    Path dir;
+
+    private BinanceFuturesClient futuresClient;
+    private KlineBackfillServiceImpl service;
+    private long base;
+    private long end;
+
+    @BeforeEach
+    void setUp() {
+        futuresClient = mock(BinanceFuturesClient.class);
+        service = new KlineBackfillServiceImpl();
+        ReflectionTestUtils.setField(service, "dataDir", dir.toString());
+        ReflectionTestUtils.setField(service, "parallelism", 1);
+        ReflectionTestUtils.setField(service, "weightPerMinute", 1200);
+        ReflectionTestUtils.setField(service, "pageSize", 2);
+        service.init();
+        ReflectionTestUtils.setField(service, "futuresClient", futuresClient);
+        base = (System.currentTimeMillis() / MINUTE - 100) * MINUTE;
+        end = base + 10 * MINUTE;
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void testResumesFromCheckpointAfterPartialRun() throws Exception {
+        when(futuresClient.getKlinesPage("BTCUSDT", "1m", base, end, 2))
+                .thenReturn(page(base, base + MINUTE));
+        when(futuresClient.getKlinesPage("BTCUSDT", "1m", base + MINUTE + 1, end, 2))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(page(base + 2 * MINUTE, base + 3 * MINUTE));
+        when(futuresClient.getKlinesPage("BTCUSDT", "1m", base + 3 * MINUTE + 1, end, 2))
+                .thenReturn(page(base + 4 * MINUTE));
+
+        Map<String, Object> first = awaitFinished(service.startJob(List.of("btcusdt"), List.of("1m"), base, end));
+        assertEquals("FAILED", first.get("status"));
+        assertEquals(2L, first.get("candles_written"));
+
+        // 重新提交同一任务：从文件末尾断点继续，不再请求第一页
+        Map<String, Object> second = awaitFinished(service.startJob(List.of("BTCUSDT"), List.of("1m"), base, end));
+        assertEquals("COMPLETED", second.get("status"));
+        assertEquals(3L, second.get("candles_written"));
+        verify(futuresClient, times(1)).getKlinesPage("BTCUSDT", "1m", base, end, 2);
+
+        List<Map<String, Object>> klines = service.readKlines("BTCUSDT", "1m", null, null, 100);
+        assertEquals(List.of(base, base + MINUTE, base + 2 * MINUTE, base + 3 * MINUTE, base + 4 * MINUTE),
+                klines.stream().map(k -> k.get("timestamp")).toList());
+    }
+
+    @Test
+    void testExhaustedBudgetPausesBackfill() throws Exception {
+        awayFromWindowEdge();
+        RequestWeightBudget budget = new RequestWeightBudget(5);
+        budget.acquire(5);
+        ReflectionTestUtils.setField(service, "budget", budget);
+        when(futuresClient.getKlinesPage("BTCUSDT", "1m", base, end, 2)).thenReturn(page(base));
+
+        Map<String, Object> job = service.startJob(List.of("BTCUSDT"), List.of("1m"), base, end);
+
+        verify(futuresClient, after(300).never()).getKlinesPage(anyString(), anyString(), anyLong(), anyLong(), anyLong());
+        assertEquals("RUNNING", service.getJob((String) job.get("job_id")).get("status"));
+
+        // 进入下一个自然分钟后预算恢复
+        synchronized (budget) {
+            ReflectionTestUtils.setField(budget, "windowStartMs", 0L);
+        }
+        budget.getUsedWeight();
+
+        assertEquals("COMPLETED", awaitFinished(job).get("status"));
+        verify(futuresClient).getKlinesPage("BTCUSDT", "1m", base, end, 2);
+    }
+
+    private Map<String, Object> awaitFinished(Map<String, Object> job) throws InterruptedException {
+        String jobId = (String) job.get("job_id");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> current = service.getJob(jobId);
+            if (current.get("finished_at") != null) {
+                return current;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return fail("回补任务未结束: " + jobId);
+    }
+
+    private static void awayFromWindowEdge() throws InterruptedException {
+        long remaining = MINUTE - System.currentTimeMillis() % MINUTE;
+        if (remaining < 1000) {
+            TimeUnit.MILLISECONDS.sleep(remaining + 50);
+        }
+    }
+
+    private static ApiResponse<KlineCandlestickDataResponse> page(long... openTimes) {
+        KlineCandlestickDataResponse data = new KlineCandlestickDataResponse();
+        for (long openTime : openTimes) {
+            KlineCandlestickDataResponseItem item = new KlineCandlestickDataResponseItem();
+            item.addAll(List.of(String.valueOf(openTime), "1", "2", "0.5", "1.5", "10",
+                    String.valueOf(openTime + MINUTE - 1), "15"));
+            data.add(item);
+        }
+        return new ApiResponse<>(200, Map.of(), data);
+    }
+}
@@ -0,0 +1,94 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.api.binance.BinanceFuturesClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * K线缓存测试（不建立流连接，直接注入流报文）
+ */
+@ExtendWith(MockitoExtension.class)
+class KlineCacheServiceImplTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Mock
+    private BinanceFuturesClient futuresClient;
+
+    private KlineCacheServiceImpl service;
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        service = new KlineCacheServiceImpl();
+        ReflectionTestUtils.setField(service, "futuresClient", futuresClient);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxSeries", 10);
+        ReflectionTestUtils.setField(service, "maxCandles", 10_000L);
+        ReflectionTestUtils.setField(service, "restRefreshMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "streamSilenceMs", 10_000L);
+        base = (System.currentTimeMillis() / MINUTE - 5) * MINUTE;
+    }
+
+    @Test
+    void testStreamGapTriggersIncrementalCatchUp() {
+        when(futuresClient.getKlines("BTCUSDT", "1m", 3)).thenReturn(List.of(
+                kline(base), kline(base + MINUTE), kline(base + 2 * MINUTE)));
+        assertEquals(3, service.getKlines("btcusdt", "1m", 3).size());
+
+        // 相邻K线的推送不触发REST
+        stream(base + 3 * MINUTE);
+        service.getKlines("BTCUSDT", "1m", 3);
+        verify(futuresClient, never()).getKlines(anyString(), anyString(), anyInt(), anyLong(), anyLong());
+
+        // 跳过一根K线：下一次读取从末尾K线开始增量补齐
+        stream(base + 5 * MINUTE);
+        when(futuresClient.getKlines(eq("BTCUSDT"), eq("1m"), eq(1000), eq(base + 5 * MINUTE), anyLong()))
+                .thenReturn(List.of(kline(base + 5 * MINUTE)));
+        service.getKlines("BTCUSDT", "1m", 3);
+        verify(futuresClient).getKlines(eq("BTCUSDT"), eq("1m"), eq(1000), eq(base + 5 * MINUTE), anyLong());
+
+        // 补齐后不再重复请求
+        service.getKlines("BTCUSDT", "1m", 3);
+        verify(futuresClient, times(1)).getKlines(anyString(), anyString(), anyInt(), anyLong(), anyLong());
+    }
+
+    private void stream(long openTime) {
+        Object series = seriesMap().get("BTCUSDT|1m");
+        String payload = "{\"e\":\"kline\",\"s\":\"BTCUSDT\",\"k\":{\"t\":" + openTime
+                + ",\"o\":\"1\",\"h\":\"2\",\"l\":\"0.5\",\"c\":\"1.5\",\"v\":\"10\",\"q\":\"15\",\"x\":false}}";
+        ReflectionTestUtils.invokeMethod(service, "applyStreamMessage", series, payload, System.currentTimeMillis());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> seriesMap() {
+        return (Map<String, Object>) ReflectionTestUtils.getField(service, "seriesMap");
+    }
+
+    private static Map<String, Object> kline(long openTime) {
+        Map<String, Object> kline = new HashMap<>();
+        kline.put("open_time", openTime);
+        kline.put("open", 1.0);
+        kline.put("high", 2.0);
+        kline.put("low", 0.5);
+        kline.put("close", 1.5);
+        kline.put("volume", 10.0);
+        kline.put("quote_asset_volume", 15.0);
+        return kline;
+    }
+}
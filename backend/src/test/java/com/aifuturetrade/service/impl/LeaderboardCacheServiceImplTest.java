@@ -0,0 +1,150 @@
+package com.aifuturetrade.service.impl;
+
+import com.aifuturetrade.common.api.binance.BinanceConfig;
+import com.aifuturetrade.common.cache.LeaderboardSnapshot;
+import com.aifuturetrade.dao.mapper.MarketTickerMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内存涨跌幅榜测试（不建立流连接，直接注入ticker报文）
+ */
+class LeaderboardCacheServiceImplTest {
+
+    private static final long MAX_AGE_MS = 60_000L;
+
+    private LeaderboardCacheServiceImpl service;
+    private MarketTickerMapper marketTickerMapper;
+
+    @BeforeEach
+    void setUp() {
+        service = new LeaderboardCacheServiceImpl();
+        BinanceConfig binanceConfig = new BinanceConfig();
+        binanceConfig.setQuoteAsset("USDT");
+        ReflectionTestUtils.setField(service, "binanceConfig", binanceConfig);
+        ReflectionTestUtils.setField(service, "snapshotSize", 10);
+        ReflectionTestUtils.setField(service, "maxEntryAgeMs", MAX_AGE_MS);
+        marketTickerMapper = mock(MarketTickerMapper.class);
+        ReflectionTestUtils.setField(service, "marketTickerMapper", marketTickerMapper);
+        Map<String, Double> openPrices = openPrices();
+        openPrices.put("BTCUSDT", 100.0);
+        openPrices.put("ETHUSDT", 100.0);
+    }
+
+    @Test
+    void testStreamTickReplacesSeededRowWithDatabaseChangePercent() {
+        long now = System.currentTimeMillis();
+        // async-service按北京时间写入event_time；加载的行不应被视为来自未来
+        LocalDateTime beijingNow = LocalDateTime.ofEpochSecond(now / 1000, 0, ZoneOffset.ofHours(8));
+        when(marketTickerMapper.selectLeaderboardTickers()).thenReturn(List.of(
+                row("BTCUSDT", 2.0, 102.0, 100.0, beijingNow)));
+        ReflectionTestUtils.invokeMethod(service, "seedFromDatabase");
+
+        LeaderboardSnapshot snapshot = (LeaderboardSnapshot) ReflectionTestUtils.getField(service, "snapshot");
+        assertEquals(2.0, snapshot.getTicker("BTCUSDT").get("change_percent"));
+        assertEquals(beijingNow, snapshot.getGainers(10).get(0).get("event_time"));
+
+        // 早于加载行event_time的ticker流数据同样替换加载的行；涨跌幅按open_price计算而不是P
+        ReflectionTestUtils.invokeMethod(service, "onMessage",
+                "[" + ticker("BTCUSDT", 9.0, "90.0", now - 5_000) + "]");
+        ReflectionTestUtils.invokeMethod(service, "publish", now);
+        snapshot = (LeaderboardSnapshot) ReflectionTestUtils.getField(service, "snapshot");
+
+        assertEquals(90.0, snapshot.getTicker("BTCUSDT").get("price"));
+        assertEquals(-10.0, (Double) snapshot.getTicker("BTCUSDT").get("change_percent"), 1e-9);
+        assertEquals("BTCUSDT", snapshot.getLosers(10).get(0).get("symbol"));
+        assertEquals(0, snapshot.getGainers(10).size());
+    }
+
+    @Test
+    void testOpenPriceRefreshRecomputesChangePercent() {
+        long now = System.currentTimeMillis();
+        when(marketTickerMapper.selectOpenPrices()).thenReturn(List.of(Map.of("symbol", "ETHUSDT", "open_price", 100.0)));
+        ReflectionTestUtils.invokeMethod(service, "refreshOpenPrices", now);
+        ReflectionTestUtils.invokeMethod(service, "onMessage", "[" + ticker("ETHUSDT", 0.0, "110.0", now) + "]");
+
+        when(marketTickerMapper.selectOpenPrices()).thenReturn(List.of(Map.of("symbol", "ETHUSDT", "open_price", 120.0)));
+        ReflectionTestUtils.invokeMethod(service, "refreshOpenPrices", now);
+        ReflectionTestUtils.invokeMethod(service, "publish", now);
+        LeaderboardSnapshot snapshot = (LeaderboardSnapshot) ReflectionTestUtils.getField(service, "snapshot");
+
+        assertEquals(-100.0 / 12, (Double) snapshot.getTicker("ETHUSDT").get("change_percent"), 1e-9);
+    }
+
+    @Test
+    void testStaleSymbolsAreEvictedOnPublish() {
+        long now = System.currentTimeMillis();
+        ReflectionTestUtils.invokeMethod(service, "onMessage", "["
+                + ticker("BTCUSDT", 5.0, now - MAX_AGE_MS - 1) + ","
+                + ticker("ETHUSDT", 3.0, now - 1_000) + "]");
+
+        ReflectionTestUtils.invokeMethod(service, "publish", now);
+        LeaderboardSnapshot snapshot = (LeaderboardSnapshot) ReflectionTestUtils.getField(service, "snapshot");
+
+        assertNotNull(snapshot);
+        assertEquals(1, snapshot.getGainers(10).size());
+        assertEquals("ETHUSDT", snapshot.getGainers(10).get(0).get("symbol"));
+        assertEquals(1, snapshot.getVolume(10).size());
+        assertNull(snapshot.getTicker("BTCUSDT"));
+        assertEquals(1, ((Map<?, ?>) ReflectionTestUtils.getField(service, "entries")).size());
+
+        // 被移除的symbol重新推送后回到榜单
+        ReflectionTestUtils.invokeMethod(service, "onMessage", "[" + ticker("BTCUSDT", 5.0, now) + "]");
+        ReflectionTestUtils.invokeMethod(service, "publish", now);
+        snapshot = (LeaderboardSnapshot) ReflectionTestUtils.getField(service, "snapshot");
+        assertEquals("BTCUSDT", snapshot.getGainers(10).get(0).get("symbol"));
+    }
+
+    @Test
+    void testZeroMaxAgeKeepsEverything() {
+        ReflectionTestUtils.setField(service, "maxEntryAgeMs", 0L);
+        long now = System.currentTimeMillis();
+        ReflectionTestUtils.invokeMethod(service, "onMessage", "[" + ticker("BTCUSDT", -2.0, 1L) + "]");
+
+        ReflectionTestUtils.invokeMethod(service, "publish", now);
+        LeaderboardSnapshot snapshot = (LeaderboardSnapshot) ReflectionTestUtils.getField(service, "snapshot");
+
+        assertEquals(1, snapshot.getLosers(10).size());
+    }
+
+    private static String ticker(String symbol, double changePercent, long eventTimeMs) {
+        // 开盘价为100.0（见setUp），最新价按涨跌幅换算
+        return ticker(symbol, changePercent, String.valueOf(100.0 + changePercent), eventTimeMs);
+    }
+
+    private static String ticker(String symbol, double changePercent, String lastPrice, long eventTimeMs) {
+        return "{\"s\":\"" + symbol + "\",\"P\":\"" + changePercent + "\",\"c\":\"" + lastPrice + "\","
+                + "\"q\":\"1000.0\",\"v\":\"10.0\",\"E\":" + eventTimeMs + "}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Double> openPrices() {
+        return (Map<String, Double>) ReflectionTestUtils.getField(service, "openPrices");
+    }
+
+    private static Map<String, Object> row(String symbol, double changePercent, double lastPrice, double openPrice,
+                                           LocalDateTime eventTime) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("symbol", symbol);
+        row.put("price_change_percent", changePercent);
+        row.put("last_price", lastPrice);
+        row.put("open_price", openPrice);
+        row.put("quote_volume", 1000.0);
+        row.put("base_volume", 10.0);
+        row.put("event_time", eventTime);
+        return row;
+    }
+}
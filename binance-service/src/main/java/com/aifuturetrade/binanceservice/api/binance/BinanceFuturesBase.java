@@ -1,5 +1,7 @@
 package com.aifuturetrade.binanceservice.api.binance;
 
+import com.binance.connector.client.common.ApiException;
+import com.binance.connector.client.common.ApiResponse;
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.DerivativesTradingUsdsFuturesRestApiUtil;
 import com.binance.connector.client.derivatives_trading_usds_futures.rest.api.DerivativesTradingUsdsFuturesRestApi;
 import com.binance.connector.client.common.configuration.ClientConfiguration;
@@ -8,18 +10,75 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * 币安期货客户端基类 - 提供公共的工具方法
  * 
  * 所有币安期货客户端类都继承此基类，共享初始化配置等工具方法。
+ * 子类的REST调用统一经过callRest，由进程内共享的RequestWeightLimiter按请求权重排队。
  */
 @Slf4j
 public abstract class BinanceFuturesBase {
     
+    /**
+     * 币安USDⓈ-M期货默认限额：请求权重2400/分钟，下单1200/分钟、300/10秒（默认值留有余量）
+     */
+    private static final RequestWeightLimiter RATE_LIMITER = new RequestWeightLimiter(2000, 1000, 250, 200);
+    
     protected String quoteAsset;
+    /**
+     * 下单次数按账户统计，使用API Key区分账户
+     */
+    private String orderAccount;
     protected DerivativesTradingUsdsFuturesRestApi restApi;
     
+    /**
+     * 设置所有客户端共享的请求限额（启动时由配置调用）
+     * 
+     * @param weightPerMinute 每分钟请求权重
+     * @param ordersPerMinute 每分钟下单次数
+     * @param ordersPer10s 每10秒下单次数
+     * @param orderReservedWeight 每分钟为订单请求预留的权重，市场数据请求不能使用
+     */
+    public static void configureRateLimits(int weightPerMinute, int ordersPerMinute, int ordersPer10s,
+                                           int orderReservedWeight) {
+        RATE_LIMITER.configure(weightPerMinute, ordersPerMinute, ordersPer10s, orderReservedWeight);
+        log.info("[BinanceFuturesBase] 请求限额: weightPerMinute={}, ordersPerMinute={}, ordersPer10s={}, orderReservedWeight={}",
+                weightPerMinute, ordersPerMinute, ordersPer10s, orderReservedWeight);
+    }
+    
+    /**
+     * 在共享的请求权重预算内执行一次REST调用
+     * 
+     * 预算不足时排队等待；响应头中的已用权重和下单次数用于校正预算，429/418时暂停所有客户端的请求。
+     * 
+     * @param weight 接口的IP请求权重
+     * @param priority 请求优先级（订单请求优先于行情请求）
+     * @param countsOrder 是否计入本客户端账户的下单次数
+     * @param call SDK调用
+     * @return SDK响应
+     */
+    protected <T> ApiResponse<T> callRest(int weight, RequestWeightLimiter.Priority priority, boolean countsOrder,
+                                          Supplier<ApiResponse<T>> call) {
+        RATE_LIMITER.acquire(weight, priority, countsOrder ? orderAccount : null);
+        try {
+            ApiResponse<T> response = call.get();
+            if (response != null) {
+                RATE_LIMITER.observeHeaders(response.getHeaders(), orderAccount);
+            }
+            return response;
+        } catch (ApiException e) {
+            if (e.getCode() == 429 || e.getCode() == 418) {
+                long pauseMs = RATE_LIMITER.onRateLimited(e.getResponseHeaders());
+                log.warn("[BinanceFuturesBase] 请求被限流(HTTP {})，所有请求暂停 {} 毫秒", e.getCode(), pauseMs);
+            } else {
+                RATE_LIMITER.observeHeaders(e.getResponseHeaders(), orderAccount);
+            }
+            throw e;
+        }
+    }
+    
     /**
      * 格式化交易对符号，添加计价资产后缀
      * 
@@ -55,6 +114,7 @@ public abstract class BinanceFuturesBase {
             // 配置签名信息
             SignatureConfiguration signatureConfiguration = new SignatureConfiguration();
             signatureConfiguration.setApiKey(apiKey);
+            orderAccount = apiKey == null ? "" : apiKey;
             
             // 根据配置选择认证方式
             if (privateKeyPath != null && !privateKeyPath.isEmpty()) {
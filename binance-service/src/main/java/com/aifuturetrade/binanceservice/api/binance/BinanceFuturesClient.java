@@ -34,6 +34,24 @@ import java.util.Map;
 @Slf4j
 public class BinanceFuturesClient extends BinanceFuturesBase {
     
+    /**
+     * 全市场快照的有效期（毫秒），有效期内的查询直接从快照取子集
+     */
+    private static final long PRICE_SNAPSHOT_TTL_MS = 1000;
+    private static final long TICKER_24H_SNAPSHOT_TTL_MS = 2000;
+    
+    /**
+     * 交易对数量达到该值时改用一次全市场查询（价格：单个权重1、全量权重2；24小时统计：单个权重1、全量权重40）
+     */
+    private static final int PRICE_BULK_MIN_SYMBOLS = 2;
+    private static final int TICKER_24H_BULK_MIN_SYMBOLS = 40;
+    
+    // 行情快照与账户无关，进程内所有客户端实例共享，并发调用方合并为一次上游请求
+    private static final BulkSnapshotCache<Map<String, Object>> PRICE_SNAPSHOT =
+            new BulkSnapshotCache<>(PRICE_SNAPSHOT_TTL_MS);
+    private static final BulkSnapshotCache<Map<String, Object>> TICKER_24H_SNAPSHOT =
+            new BulkSnapshotCache<>(TICKER_24H_SNAPSHOT_TTL_MS);
+    
     /**
      * 构造函数，初始化币安期货客户端
      * 
@@ -70,6 +88,15 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
             return result;
         }
         
+        // 交易对较多或已有未过期的全市场快照时，从一次全市场查询中取子集
+        if (symbols.size() >= TICKER_24H_BULK_MIN_SYMBOLS || TICKER_24H_SNAPSHOT.isFresh()) {
+            try {
+                return pickSymbols(TICKER_24H_SNAPSHOT.get(this::load24hTickerSnapshot), symbols);
+            } catch (Exception e) {
+                log.warn("[Binance Futures] 全市场24小时统计查询失败，回退逐个查询: {}", e.getMessage());
+            }
+        }
+        
         try {
             int total = symbols.size();
             int success = 0;
@@ -82,7 +109,8 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
                 
                 try {
                     long callStart = System.currentTimeMillis();
-                    ApiResponse<Ticker24hrPriceChangeStatisticsResponse> response = restApi.ticker24hrPriceChangeStatistics(requestSymbol);
+                    ApiResponse<Ticker24hrPriceChangeStatisticsResponse> response = callRest(1, RequestWeightLimiter.Priority.MARKET, false,
+                            () -> restApi.ticker24hrPriceChangeStatistics(requestSymbol));
                     long callDuration = System.currentTimeMillis() - callStart;
                     
                     // 直接使用SDK的getData()方法获取响应数据
@@ -190,7 +218,8 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
      * 获取指定交易对的实时价格
      * 
      * 使用 Symbol Price Ticker V2 API，参考官方示例实现。
-     * 根据传入的symbol数量，逐个调用API获取每个交易对的价格。
+     * 交易对数量较多或全市场快照未过期时，使用不带symbol的全市场查询并取子集；
+     * 否则逐个调用API获取每个交易对的价格。
      * 
      * @param symbols 交易对符号列表，如 ['BTCUSDT', 'ETHUSDT']
      * @return 字典，key为交易对符号，value为实时价格数据
@@ -203,6 +232,15 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
             return result;
         }
         
+        // 交易对较多或已有未过期的全市场快照时，从一次全市场查询中取子集
+        if (symbols.size() >= PRICE_BULK_MIN_SYMBOLS || PRICE_SNAPSHOT.isFresh()) {
+            try {
+                return pickSymbols(PRICE_SNAPSHOT.get(this::loadPriceSnapshot), symbols);
+            } catch (Exception e) {
+                log.warn("[Binance Futures] 全市场价格查询失败，回退逐个查询: {}", e.getMessage());
+            }
+        }
+        
         try {
             int total = symbols.size();
             int success = 0;
@@ -220,7 +258,8 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
                     
                     // 使用 symbolPriceTickerV2，参考官方示例
                     // 参考官方示例：symbolPriceTickerV2(symbol)
-                    ApiResponse<SymbolPriceTickerV2Response> response = restApi.symbolPriceTickerV2(requestSymbol);
+                    ApiResponse<SymbolPriceTickerV2Response> response = callRest(1, RequestWeightLimiter.Priority.MARKET, false,
+                            () -> restApi.symbolPriceTickerV2(requestSymbol));
                     long callDuration = System.currentTimeMillis() - callStart;
                     
                     // 直接使用SDK的getData()方法获取响应数据
@@ -298,6 +337,95 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
         return result;
     }
     
+    /**
+     * 查询全市场实时价格（不带symbol，返回Response2列表）并按symbol建立索引
+     */
+    private Map<String, Map<String, Object>> loadPriceSnapshot() {
+        long fetchStart = System.currentTimeMillis();
+        ApiResponse<SymbolPriceTickerV2Response> response = callRest(2, RequestWeightLimiter.Priority.MARKET, false,
+                () -> restApi.symbolPriceTickerV2(null));
+        SymbolPriceTickerV2Response responseData = response.getData();
+        Object actualInstance = responseData != null ? responseData.getActualInstance() : null;
+        if (!(actualInstance instanceof SymbolPriceTickerV2Response2)) {
+            throw new IllegalStateException("全市场价格响应格式异常: "
+                    + (actualInstance != null ? actualInstance.getClass().getSimpleName() : "null"));
+        }
+        SymbolPriceTickerV2Response2 priceList = (SymbolPriceTickerV2Response2) actualInstance;
+        Map<String, Map<String, Object>> snapshot = new HashMap<>(priceList.size() * 2);
+        for (SymbolPriceTickerV2Response2Inner price : priceList) {
+            if (price.getSymbol() == null) {
+                continue;
+            }
+            Map<String, Object> priceData = new HashMap<>();
+            priceData.put("symbol", price.getSymbol());
+            priceData.put("price", price.getPrice());
+            priceData.put("time", price.getTime());
+            snapshot.put(price.getSymbol().toUpperCase(), priceData);
+        }
+        log.debug("[Binance Futures] 全市场价格查询完成，交易对数量: {}, 耗时 {} 毫秒",
+                snapshot.size(), System.currentTimeMillis() - fetchStart);
+        return snapshot;
+    }
+    
+    /**
+     * 查询全市场24小时统计（不带symbol，返回Response2列表）并按symbol建立索引
+     */
+    private Map<String, Map<String, Object>> load24hTickerSnapshot() {
+        long fetchStart = System.currentTimeMillis();
+        ApiResponse<Ticker24hrPriceChangeStatisticsResponse> response = callRest(40, RequestWeightLimiter.Priority.MARKET, false,
+                () -> restApi.ticker24hrPriceChangeStatistics(null));
+        Ticker24hrPriceChangeStatisticsResponse responseData = response.getData();
+        Object actualInstance = responseData != null ? responseData.getActualInstance() : null;
+        if (!(actualInstance instanceof Ticker24hrPriceChangeStatisticsResponse2)) {
+            throw new IllegalStateException("全市场24小时统计响应格式异常: "
+                    + (actualInstance != null ? actualInstance.getClass().getSimpleName() : "null"));
+        }
+        Ticker24hrPriceChangeStatisticsResponse2 tickerList = (Ticker24hrPriceChangeStatisticsResponse2) actualInstance;
+        Map<String, Map<String, Object>> snapshot = new HashMap<>(tickerList.size() * 2);
+        for (Ticker24hrPriceChangeStatisticsResponse2Inner ticker : tickerList) {
+            if (ticker.getSymbol() == null) {
+                continue;
+            }
+            Map<String, Object> tickerData = new HashMap<>();
+            tickerData.put("symbol", ticker.getSymbol());
+            tickerData.put("priceChange", ticker.getPriceChange());
+            tickerData.put("priceChangePercent", ticker.getPriceChangePercent());
+            tickerData.put("weightedAvgPrice", ticker.getWeightedAvgPrice());
+            tickerData.put("lastPrice", ticker.getLastPrice());
+            tickerData.put("lastQty", ticker.getLastQty());
+            tickerData.put("openPrice", ticker.getOpenPrice());
+            tickerData.put("highPrice", ticker.getHighPrice());
+            tickerData.put("lowPrice", ticker.getLowPrice());
+            tickerData.put("volume", ticker.getVolume());
+            tickerData.put("quoteVolume", ticker.getQuoteVolume());
+            tickerData.put("openTime", ticker.getOpenTime());
+            tickerData.put("closeTime", ticker.getCloseTime());
+            tickerData.put("firstId", ticker.getFirstId());
+            tickerData.put("lastId", ticker.getLastId());
+            tickerData.put("count", ticker.getCount());
+            snapshot.put(ticker.getSymbol().toUpperCase(), tickerData);
+        }
+        log.info("[Binance Futures] 全市场24小时统计查询完成，交易对数量: {}, 耗时 {} 毫秒",
+                snapshot.size(), System.currentTimeMillis() - fetchStart);
+        return snapshot;
+    }
+    
+    /**
+     * 从全市场快照中取出指定交易对（返回副本，调用方可修改）
+     */
+    private static Map<String, Map<String, Object>> pickSymbols(Map<String, Map<String, Object>> snapshot,
+                                                                List<String> symbols) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        for (String symbol : symbols) {
+            String key = symbol.toUpperCase();
+            Map<String, Object> data = snapshot.get(key);
+            if (data != null) {
+                result.put(key, new HashMap<>(data));
+            }
+        }
+        return result;
+    }
+    
     /**
      * 获取K线数据
      * 
@@ -395,8 +523,11 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
                 
                 // 调用SDK API获取K线数据
                 // 参考官方示例：klineCandlestickData(symbol, interval, startTime, endTime, limit)
-                ApiResponse<KlineCandlestickDataResponse> response = 
-                        restApi.klineCandlestickData(requestSymbol, intervalEnum, calculatedStartTime, calculatedEndTime, limitLong);
+                Long requestStartTime = calculatedStartTime;
+                Long requestEndTime = calculatedEndTime;
+                ApiResponse<KlineCandlestickDataResponse> response = callRest(klineWeight(limitLong),
+                        RequestWeightLimiter.Priority.MARKET, false,
+                        () -> restApi.klineCandlestickData(requestSymbol, intervalEnum, requestStartTime, requestEndTime, limitLong));
                 
                 // 直接使用SDK的getData()方法获取KlineCandlestickDataResponse
                 // KlineCandlestickDataResponse继承自ArrayList<KlineCandlestickDataResponseItem>，可以直接当作List使用
@@ -607,6 +738,19 @@ public class BinanceFuturesClient extends BinanceFuturesBase {
         return 1;
     }
     
+    /**
+     * K线接口的请求权重（按limit分档：[1,100)为1，[100,500)为2，[500,1000]为5，>1000为10）
+     */
+    private static int klineWeight(long limit) {
+        if (limit < 100) {
+            return 1;
+        }
+        if (limit < 500) {
+            return 2;
+        }
+        return limit <= 1000 ? 5 : 10;
+    }
+    
     /**
      * 将字符串interval转换为Interval枚举
      * 根据实际枚举值的toString()结果，枚举值可能是 "1m", "3m", "1h" 等格式
@@ -0,0 +1,88 @@
+package com.aifuturetrade.binanceservice.api.binance;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * 全市场行情快照缓存（短TTL + single-flight）
+ *
+ * 保存一次不带symbol的批量查询结果（symbol -> 数据），TTL内的查询直接从快照取子集；
+ * 快照过期时只有一个调用方发起上游请求，并发的其他调用方等待同一次请求的结果。
+ * 行情数据与账户无关，由同一进程内的所有客户端实例共享。
+ *
+ * @param <T> 单个symbol的数据类型
+ */
+class BulkSnapshotCache<T> {
+
+    private final long ttlMs;
+    private volatile Map<String, T> snapshot;
+    private volatile long loadedAtMs;
+    private CompletableFuture<Map<String, T>> inFlight;
+
+    BulkSnapshotCache(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * 快照是否在TTL内
+     */
+    boolean isFresh() {
+        return snapshot != null && System.currentTimeMillis() - loadedAtMs <= ttlMs;
+    }
+
+    /**
+     * 获取快照，过期时通过loader加载（同一时刻只有一个loader在执行）
+     *
+     * @param loader 批量查询，返回symbol（大写） -> 数据
+     * @return 快照（只读使用）
+     * @throws RuntimeException loader失败时抛出，等待同一次请求的调用方收到相同异常（Error同样原样抛出）
+     */
+    Map<String, T> get(Supplier<Map<String, T>> loader) {
+        Map<String, T> current = snapshot;
+        if (current != null && System.currentTimeMillis() - loadedAtMs <= ttlMs) {
+            return current;
+        }
+
+        CompletableFuture<Map<String, T>> future;
+        boolean owner = false;
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && System.currentTimeMillis() - loadedAtMs <= ttlMs) {
+                return current;
+            }
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                owner = true;
+            }
+            future = inFlight;
+        }
+
+        if (owner) {
+            try {
+                Map<String, T> loaded = loader.get();
+                snapshot = loaded;
+                loadedAtMs = System.currentTimeMillis();
+                future.complete(loaded);
+            } catch (Throwable e) {
+                // Error也要结束future，否则等待同一次请求的调用方会永远阻塞
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    inFlight = null;
+                }
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+    }
+}
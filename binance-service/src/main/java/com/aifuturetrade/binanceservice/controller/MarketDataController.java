@@ -144,5 +144,24 @@ public class MarketDataController {
             return new ResponseEntity<>(errorResponse, HttpStatus.OK);
         }
     }
-}
 
+    /**
+     * 获取请求合并统计
+     */
+    @GetMapping("/coalescing/stats")
+    @Operation(summary = "获取请求合并统计")
+    public ResponseEntity<Map<String, Object>> getCoalescingStats() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("stats", marketDataService.getCoalescingStats());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("[MarketDataController] 获取请求合并统计失败: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "获取请求合并统计失败: " + e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -53,4 +53,11 @@ public interface MarketDataService {
      * @return 跌幅榜数据
      */
     Map<String, Object> getMarketLeaderboardLosers(Integer limit);
+
+    /**
+     * 获取请求合并统计
+     *
+     * @return 各类请求的缓存命中、合并次数和上游调用次数
+     */
+    Map<String, Object> getCoalescingStats();
 }
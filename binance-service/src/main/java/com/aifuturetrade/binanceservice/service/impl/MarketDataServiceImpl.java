@@ -5,16 +5,23 @@ import com.aifuturetrade.binanceservice.api.binance.BinanceFuturesClient;
 import com.aifuturetrade.binanceservice.service.MarketDataService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 市场数据服务实现类
  * 提供币安期货市场数据查询功能
+ *
+ * 价格、24小时统计、K线请求按规范化后的参数合并：相同参数的并发请求只调用一次币安，
+ * 结果再短暂缓存（binance.coalescing.*），多个前端/服务轮询同一批交易对时不会放大上游请求
  */
 @Slf4j
 @Service
@@ -23,10 +30,51 @@ public class MarketDataServiceImpl implements MarketDataService {
     @Autowired
     private BinanceConfig binanceConfig;
 
+    /**
+     * 是否启用请求合并与短TTL缓存
+     */
+    @Value("${binance.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    /**
+     * 实时价格结果缓存时长（毫秒），0表示只合并并发请求
+     */
+    @Value("${binance.coalescing.price-ttl-ms:1000}")
+    private long priceTtlMs;
+
+    /**
+     * 24小时统计结果缓存时长（毫秒）
+     */
+    @Value("${binance.coalescing.ticker-ttl-ms:2000}")
+    private long tickerTtlMs;
+
+    /**
+     * K线结果缓存时长（毫秒）
+     */
+    @Value("${binance.coalescing.kline-ttl-ms:1000}")
+    private long klineTtlMs;
+
+    /**
+     * 每类请求最多缓存的参数组合数
+     */
+    @Value("${binance.coalescing.max-entries:2000}")
+    private int maxEntries;
+
     private BinanceFuturesClient binanceFuturesClient;
 
+    private RequestCoalescer<Map<String, Map<String, Object>>> priceCoalescer;
+    private RequestCoalescer<Map<String, Map<String, Object>>> tickerCoalescer;
+    private RequestCoalescer<List<Map<String, Object>>> klineCoalescer;
+
     @PostConstruct
     public void init() {
+        // 客户端失败时返回空结果而不是抛异常，空结果不缓存，避免一次失败在TTL内反复返回空数据
+        priceCoalescer = new RequestCoalescer<>("symbol-prices", priceTtlMs, maxEntries, result -> !result.isEmpty());
+        tickerCoalescer = new RequestCoalescer<>("24h-ticker", tickerTtlMs, maxEntries, result -> !result.isEmpty());
+        klineCoalescer = new RequestCoalescer<>("klines", klineTtlMs, maxEntries, result -> !result.isEmpty());
+        log.info("[MarketDataServiceImpl] 请求合并: enabled={}, priceTtlMs={}, tickerTtlMs={}, klineTtlMs={}",
+                coalescingEnabled, priceTtlMs, tickerTtlMs, klineTtlMs);
+
         try {
             binanceFuturesClient = new BinanceFuturesClient(
                     binanceConfig.getApiKey(),
@@ -55,7 +103,12 @@ public class MarketDataServiceImpl implements MarketDataService {
             log.error("[MarketDataServiceImpl] BinanceFuturesClient未初始化");
             return new HashMap<>();
         }
-        return binanceFuturesClient.get24hTicker(symbols);
+        if (!coalescingEnabled || symbols == null || symbols.isEmpty()) {
+            return binanceFuturesClient.get24hTicker(symbols);
+        }
+        List<String> normalized = normalizeSymbols(symbols);
+        return tickerCoalescer.get(String.join(",", normalized),
+                () -> binanceFuturesClient.get24hTicker(normalized));
     }
 
     /**
@@ -71,7 +124,12 @@ public class MarketDataServiceImpl implements MarketDataService {
             log.error("[MarketDataServiceImpl] BinanceFuturesClient未初始化");
             return new HashMap<>();
         }
-        return binanceFuturesClient.getSymbolPrices(symbols);
+        if (!coalescingEnabled || symbols == null || symbols.isEmpty()) {
+            return binanceFuturesClient.getSymbolPrices(symbols);
+        }
+        List<String> normalized = normalizeSymbols(symbols);
+        return priceCoalescer.get(String.join(",", normalized),
+                () -> binanceFuturesClient.getSymbolPrices(normalized));
     }
 
     /**
@@ -93,7 +151,13 @@ public class MarketDataServiceImpl implements MarketDataService {
             log.error("[MarketDataServiceImpl] BinanceFuturesClient未初始化");
             return List.of();
         }
-        return binanceFuturesClient.getKlines(symbol, interval, limit, startTime, endTime);
+        if (!coalescingEnabled || symbol == null) {
+            return binanceFuturesClient.getKlines(symbol, interval, limit, startTime, endTime);
+        }
+        String normalizedSymbol = symbol.trim().toUpperCase(Locale.ROOT);
+        String key = normalizedSymbol + "|" + interval + "|" + limit + "|" + startTime + "|" + endTime;
+        return klineCoalescer.get(key,
+                () -> binanceFuturesClient.getKlines(normalizedSymbol, interval, limit, startTime, endTime));
     }
 
     /**
@@ -128,5 +192,32 @@ public class MarketDataServiceImpl implements MarketDataService {
         result.put("timestamp", System.currentTimeMillis());
         return result;
     }
-}
 
+    /**
+     * 获取请求合并统计
+     *
+     * @return 各类请求的缓存命中、合并次数和上游调用次数
+     */
+    @Override
+    public Map<String, Object> getCoalescingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", coalescingEnabled);
+        stats.put("symbol_prices", priceCoalescer.getStats());
+        stats.put("ticker_24h", tickerCoalescer.getStats());
+        stats.put("klines", klineCoalescer.getStats());
+        return stats;
+    }
+
+    /**
+     * 规范化交易对列表：去空白、转大写、去重、排序，使顺序或大小写不同的相同请求落到同一个键
+     */
+    private static List<String> normalizeSymbols(List<String> symbols) {
+        return symbols.stream()
+                .filter(Objects::nonNull)
+                .map(symbol -> symbol.trim().toUpperCase(Locale.ROOT))
+                .filter(symbol -> !symbol.isEmpty())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+}
@@ -0,0 +1,135 @@
+package com.aifuturetrade.binanceservice.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求合并（single-flight）+ 短TTL结果缓存
+ *
+ * - 同一个键同时只有一个线程调用上游，其余线程等待并共享同一结果
+ * - 成功且cacheable的结果缓存ttlMs毫秒；ttlMs<=0时只合并并发请求，不缓存
+ * - 上游异常不缓存，等待中的线程收到同一个异常
+ * - 返回的结果在多个调用方之间共享，调用方只读使用
+ */
+class RequestCoalescer<V> {
+
+    private final String name;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final Predicate<V> cacheable;
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CachedValue<V>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong(0);
+    private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong coalesced = new AtomicLong(0);
+    private final AtomicLong upstreamCalls = new AtomicLong(0);
+    private final AtomicLong upstreamFailures = new AtomicLong(0);
+
+    RequestCoalescer(String name, long ttlMs, int maxEntries, Predicate<V> cacheable) {
+        this.name = name;
+        this.ttlMs = ttlMs;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * 按键获取结果：先查缓存，再加入进行中的请求，都没有时由当前线程调用loader
+     */
+    V get(String key, Supplier<V> loader) {
+        requests.incrementAndGet();
+        if (ttlMs > 0) {
+            CachedValue<V> cached = cache.get(key);
+            if (cached != null && cached.expiresAtMs > System.currentTimeMillis()) {
+                cacheHits.incrementAndGet();
+                return cached.value;
+            }
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return join(existing);
+        }
+
+        try {
+            // 查缓存和登记之间，上一个请求可能刚好完成并写入缓存
+            CachedValue<V> cached = ttlMs > 0 ? cache.get(key) : null;
+            if (cached != null && cached.expiresAtMs > System.currentTimeMillis()) {
+                cacheHits.incrementAndGet();
+                future.complete(cached.value);
+                return cached.value;
+            }
+            upstreamCalls.incrementAndGet();
+            V value = loader.get();
+            if (ttlMs > 0 && value != null && cacheable.test(value)) {
+                putCache(key, value);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            upstreamFailures.incrementAndGet();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    Map<String, Object> getStats() {
+        long total = requests.get();
+        long hits = cacheHits.get();
+        long joined = coalesced.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("ttl_ms", ttlMs);
+        stats.put("requests", total);
+        stats.put("cache_hits", hits);
+        stats.put("coalesced", joined);
+        stats.put("upstream_calls", upstreamCalls.get());
+        stats.put("upstream_failures", upstreamFailures.get());
+        stats.put("cache_hit_rate", rate(hits, total));
+        stats.put("coalesced_rate", rate(joined, total));
+        stats.put("saved_rate", rate(hits + joined, total));
+        stats.put("in_flight", inFlight.size());
+        stats.put("cached_entries", cache.size());
+        return stats;
+    }
+
+    private void putCache(String key, V value) {
+        long now = System.currentTimeMillis();
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(entry -> entry.expiresAtMs <= now);
+            if (cache.size() >= maxEntries) {
+                // 键空间异常膨胀（如大量不同的startTime），直接清空，TTL很短不影响命中率
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedValue<>(value, now + ttlMs));
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static double rate(long part, long total) {
+        return total == 0 ? 0.0 : Math.round(part * 10000.0 / total) / 10000.0;
+    }
+
+    private record CachedValue<V>(V value, long expiresAtMs) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.aifuturetrade.binanceservice.service.impl;
+
+import com.aifuturetrade.binanceservice.api.binance.BinanceFuturesClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 市场数据服务请求合并测试（不连接币安）
+ */
+class MarketDataServiceImplTest {
+
+    private BinanceFuturesClient client;
+    private MarketDataServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(BinanceFuturesClient.class);
+        service = new MarketDataServiceImpl();
+        ReflectionTestUtils.setField(service, "binanceFuturesClient", client);
+        ReflectionTestUtils.setField(service, "coalescingEnabled", true);
+        ReflectionTestUtils.setField(service, "priceCoalescer",
+                new RequestCoalescer<Map<String, Map<String, Object>>>("symbol-prices", 0, 10, result -> !result.isEmpty()));
+        ReflectionTestUtils.setField(service, "tickerCoalescer",
+                new RequestCoalescer<Map<String, Map<String, Object>>>("24h-ticker", 60_000, 10, result -> !result.isEmpty()));
+        ReflectionTestUtils.setField(service, "klineCoalescer",
+                new RequestCoalescer<List<Map<String, Object>>>("klines", 60_000, 10, result -> !result.isEmpty()));
+    }
+
+    @Test
+    void testSymbolOrderAndCaseShareOneTickerCall() {
+        when(client.get24hTicker(any())).thenReturn(Map.of("BTCUSDT", Map.of("lastPrice", 1.0)));
+
+        service.get24hTicker(List.of("ethusdt", "BTCUSDT"));
+        service.get24hTicker(List.of(" BTCUSDT", "ETHUSDT", "ETHUSDT"));
+
+        verify(client, times(1)).get24hTicker(List.of("BTCUSDT", "ETHUSDT"));
+    }
+
+    @Test
+    void testPriceCallsRepeatAfterPreviousCompleted() {
+        when(client.getSymbolPrices(any())).thenReturn(Map.of("BTCUSDT", Map.of("price", 1.0)));
+
+        service.getSymbolPrices(List.of("BTCUSDT"));
+        service.getSymbolPrices(List.of("BTCUSDT"));
+
+        // 价格TTL为0：只合并并发请求，完成后的下一次调用重新请求
+        verify(client, times(2)).getSymbolPrices(List.of("BTCUSDT"));
+    }
+
+    @Test
+    void testKlineKeyIncludesTimeRange() {
+        when(client.getKlines(any(), any(), any(), any(), any())).thenReturn(List.of(Map.of("open", 1.0)));
+
+        service.getKlines("btcusdt", "1m", 10, null, null);
+        service.getKlines("BTCUSDT", "1m", 10, null, null);
+        service.getKlines("BTCUSDT", "1m", 10, 1000L, null);
+
+        verify(client, times(1)).getKlines("BTCUSDT", "1m", 10, null, null);
+        verify(client, times(1)).getKlines("BTCUSDT", "1m", 10, 1000L, null);
+    }
+}
@@ -0,0 +1,131 @@
+package com.aifuturetrade.binanceservice.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 相同请求合并（single-flight）测试
+ */
+class RequestCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void testConcurrentCallersShareOneInFlightCall() throws Exception {
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("test", 0, 10, value -> true);
+        AtomicInteger loads = new AtomicInteger(0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> coalescer.get("BTCUSDT", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "price";
+                })));
+            }
+            waitForCoalesced(coalescer, CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("price", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        Map<String, Object> stats = coalescer.getStats();
+        assertEquals(1L, stats.get("upstream_calls"));
+        assertEquals((long) CALLERS - 1, stats.get("coalesced"));
+    }
+
+    @Test
+    void testFailureReachesAllWaiters() throws Exception {
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("test", 1000, 10, value -> true);
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> coalescer.get("BTCUSDT", () -> {
+                    await(release);
+                    throw failure;
+                })));
+            }
+            waitForCoalesced(coalescer, CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertSame(failure, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 异常不缓存，下一次调用重新请求上游
+        assertEquals("price", coalescer.get("BTCUSDT", () -> "price"));
+        assertEquals(1L, coalescer.getStats().get("upstream_failures"));
+    }
+
+    @Test
+    void testKeyReleasedAfterCompletion() {
+        RequestCoalescer<String> coalescer = new RequestCoalescer<>("test", 0, 10, value -> true);
+        AtomicInteger loads = new AtomicInteger(0);
+
+        assertEquals("1", coalescer.get("BTCUSDT", () -> String.valueOf(loads.incrementAndGet())));
+        assertEquals("2", coalescer.get("BTCUSDT", () -> String.valueOf(loads.incrementAndGet())));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, coalescer.getStats().get("in_flight"));
+    }
+
+    @Test
+    void testCachedValueServedWithinTtlButNotEmptyResult() {
+        RequestCoalescer<List<String>> coalescer = new RequestCoalescer<>("test", 60_000, 10, value -> !value.isEmpty());
+        AtomicInteger loads = new AtomicInteger(0);
+
+        coalescer.get("empty", () -> { loads.incrementAndGet(); return List.of(); });
+        coalescer.get("empty", () -> { loads.incrementAndGet(); return List.of(); });
+        coalescer.get("full", () -> { loads.incrementAndGet(); return List.of("x"); });
+        coalescer.get("full", () -> { loads.incrementAndGet(); return List.of("x"); });
+
+        assertEquals(3, loads.get());
+        assertEquals(1L, coalescer.getStats().get("cache_hits"));
+    }
+
+    private static void waitForCoalesced(RequestCoalescer<?> coalescer, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) coalescer.getStats().get("coalesced") < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("waiters did not join the in-flight call");
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -216,6 +216,8 @@ let losersRefreshInterval = null // 跌幅榜自动刷新定时器（轮询方
 let portfolioSymbolsRefreshInterval = null // 模型持仓合约列表自动刷新定时器（轮询方式，默认10秒）
 let portfolioRefreshInterval = null // 投资组合数据自动刷新定时器（轮询方式，默认5秒，包含账户总值、可用现金、已实现盈亏、未实现盈亏、每日收益率）
   let leaderboardRefreshInterval = null // 涨跌榜自动刷新定时器（已废弃，保留以兼容旧代码）
+  let leaderboardPushVersion = null // 已应用的涨跌幅榜推送版本（null表示未收到推送，使用轮询）
+  let pricePushActive = false // 是否已收到价格推送（true时停止价格轮询）
   
   // ECharts 实例
   const accountChart = ref(null)
@@ -283,16 +285,55 @@ let portfolioRefreshInterval = null // 投资组合数据自动刷新定时器
           console.warn('[WebSocket] 检查事件监听器时出错:', e)
         }
         
-        // 涨跌幅榜已改为轮询方式，不再通过WebSocket获取
-        // 连接成功后不再请求初始涨跌幅榜数据（由轮询机制处理）
-        console.log('[WebSocket] ✅ WebSocket连接成功（涨跌幅榜已改为轮询方式，不再通过WebSocket获取）')
+        // 订阅涨跌幅榜和价格推送，收到全量快照后停止对应的轮询
+        socket.value.emit('leaderboard:subscribe')
+        subscribePricePush()
       })
 
-      // 涨跌幅榜已改为轮询方式，不再监听WebSocket推送事件
-      // 以下代码已移除：
-      // - leaderboard:update 事件监听
-      // - leaderboard:error 事件监听
-      // - leaderboard:request 事件发送
+      // 涨跌幅榜全量快照（订阅或重同步后发送）
+      socket.value.on('leaderboard:snapshot', (data) => {
+        // 空快照表示后端缓存未启用或尚未预热：不记录版本，继续轮询，之后的增量会触发重新订阅
+        if ((data.gainers || []).length > 0 || (data.losers || []).length > 0) {
+          leaderboardPushVersion = data.version
+          leaderboardGainers.value = data.gainers || []
+          leaderboardLosers.value = data.losers || []
+          markLeaderboardPushed()
+          stopLeaderboardAutoRefresh()
+        }
+      })
+
+      // 涨跌幅榜增量：rows只包含变化的行，版本不连续时重新订阅获取全量
+      socket.value.on('leaderboard:delta', (data) => {
+        if (leaderboardPushVersion === null || data.baseVersion !== leaderboardPushVersion) {
+          socket.value.emit('leaderboard:subscribe')
+          return
+        }
+        leaderboardPushVersion = data.version
+        leaderboardGainers.value = applyLeaderboardDelta(leaderboardGainers.value, data.gainers)
+        leaderboardLosers.value = applyLeaderboardDelta(leaderboardLosers.value, data.losers)
+        markLeaderboardPushed()
+        stopLeaderboardAutoRefresh()
+      })
+
+      // 价格全量快照和增量（只包含本客户端订阅且变化的symbol）
+      socket.value.on('prices:snapshot', (data) => {
+        if (applyPricePush(data.prices)) {
+          pricePushActive = true
+          stopMarketPricesAutoRefresh()
+        }
+      })
+      socket.value.on('prices:delta', (data) => {
+        if (applyPricePush(data.prices) && !pricePushActive) {
+          pricePushActive = true
+          stopMarketPricesAutoRefresh()
+        }
+      })
+
+      // 后端快照不可用（ticker流中断等）时不再有推送，恢复轮询
+      socket.value.on('market-push:unavailable', () => {
+        console.warn('[WebSocket] 行情推送暂不可用，恢复轮询')
+        resumeMarketPolling()
+      })
       
       // 涨跌幅榜错误事件（已移除，改为轮询方式）
       // socket.value.on('leaderboard:error', (error) => {
@@ -314,6 +355,8 @@ let portfolioRefreshInterval = null // 投资组合数据自动刷新定时器
         console.warn('[WebSocket] ⚠️ 已断开连接:', reason)
         leaderboardStatus.value = '连接断开'
         leaderboardStatusType.value = 'error'
+        // 推送中断，恢复轮询
+        resumeMarketPolling()
       })
 
       // 重新连接事件
@@ -380,6 +423,77 @@ let portfolioRefreshInterval = null // 投资组合数据自动刷新定时器
     }
   }
 
+  /**
+   * 订阅当前行情列表中symbol的价格推送
+   */
+  const subscribePricePush = () => {
+    if (!socket.value || !socket.value.connected || marketPrices.value.length === 0) {
+      return
+    }
+    const symbols = marketPrices.value.map(item => item.contract_symbol || item.symbol)
+    socket.value.emit('prices:subscribe', symbols)
+  }
+
+  /**
+   * 将推送的价格写入行情列表
+   * @returns {boolean} 是否有symbol被更新
+   */
+  const applyPricePush = (prices) => {
+    if (!prices || Object.keys(prices).length === 0) {
+      return false
+    }
+    marketPrices.value = marketPrices.value.map(item => {
+      const ticker = prices[item.contract_symbol || item.symbol]
+      if (!ticker) {
+        return item
+      }
+      return {
+        ...item,
+        price: ticker.price,
+        change: ticker.change_percent,
+        change_24h: ticker.change_percent,
+        daily_volume: ticker.quote_volume
+      }
+    })
+    return true
+  }
+
+  /**
+   * 将涨跌幅榜增量（按position定位的变化行）应用到当前列表
+   */
+  const applyLeaderboardDelta = (current, delta) => {
+    if (!delta) {
+      return current
+    }
+    const next = current.slice(0, delta.size)
+    for (const row of delta.rows || []) {
+      next[row.position - 1] = row
+    }
+    return next
+  }
+
+  /**
+   * 记录涨跌幅榜推送的更新时间
+   */
+  const markLeaderboardPushed = () => {
+    const updateTime = new Date()
+    const dateStr = updateTime.toLocaleDateString('zh-CN', {
+      year: 'numeric',
+      month: '2-digit',
+      day: '2-digit'
+    })
+    const timeStr = updateTime.toLocaleTimeString('zh-CN', {
+      hour12: false,
+      hour: '2-digit',
+      minute: '2-digit',
+      second: '2-digit'
+    })
+    gainersStatus.value = `最后更新: ${dateStr} ${timeStr}`
+    gainersStatusType.value = 'success'
+    losersStatus.value = `最后更新: ${dateStr} ${timeStr}`
+    losersStatusType.value = 'success'
+  }
+
   /**
    * 启动市场行情价格自动刷新（轮询方式）
    * 使用配置的刷新时间（FUTURES_MARKET_PRICES_REFRESH，默认10秒）
@@ -513,6 +627,20 @@ let portfolioRefreshInterval = null // 投资组合数据自动刷新定时器
     }
   }
 
+  /**
+   * 推送中断或不可用时恢复涨跌幅榜和价格轮询
+   */
+  const resumeMarketPolling = () => {
+    if (leaderboardPushVersion !== null) {
+      leaderboardPushVersion = null
+      startLeaderboardAutoRefresh()
+    }
+    if (pricePushActive) {
+      pricePushActive = false
+      startMarketPricesAutoRefresh()
+    }
+  }
+
   /**
    * 启动涨跌榜自动刷新（已废弃，保留以兼容旧代码）
    */
@@ -2014,10 +2142,9 @@ let portfolioRefreshInterval = null // 投资组合数据自动刷新定时器
       console.log('[TradingApp] 加载系统设置...')
       await loadSettings()
       
-      // WebSocket 功能已禁用（涨跌幅榜和K线数据已改为轮询方式）
-      // 如果需要启用 WebSocket，请取消下面的注释
-      // console.log('[TradingApp] 初始化 WebSocket 连接...')
-      // initWebSocket()
+      // 初始化 WebSocket 连接（涨跌幅榜和价格推送，推送不可用时使用轮询）
+      console.log('[TradingApp] 初始化 WebSocket 连接...')
+      initWebSocket()
       
       // 等待一小段时间确保 WebSocket 连接建立
       await new Promise(resolve => setTimeout(resolve, 500))
@@ -2041,11 +2168,14 @@ let portfolioRefreshInterval = null // 投资组合数据自动刷新定时器
         loadLeaderboard()
       ])
       
-      // 启动市场行情价格自动刷新（10秒轮询）
+      // 启动市场行情价格自动刷新（10秒轮询，收到价格推送后停止）
       startMarketPricesAutoRefresh()
+      subscribePricePush()
       
-      // 启动涨跌榜自动刷新（5秒轮询）
-      startLeaderboardAutoRefresh()
+      // 启动涨跌榜自动刷新（5秒轮询，收到涨跌幅榜推送后停止）
+      if (leaderboardPushVersion === null) {
+        startLeaderboardAutoRefresh()
+      }
       
       console.log('[TradingApp] ✅ 初始数据加载完成')
       
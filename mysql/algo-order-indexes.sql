@@ -0,0 +1,15 @@
+-- ==============================================================================
+-- algo_order 索引迁移脚本（SQL版本）
+-- ==============================================================================
+-- 为已存在的 algo_order 表补充 async-service 条件单轮询使用的索引：
+--   idx_status_created (algoStatus, created_at)：全量加载 new 状态订单
+--   idx_updated_at_id  (updated_at, id)：按 updated_at 游标增量查询变化的订单
+--
+-- 注意：新建的表已由 database_init.py 的 ensure_algo_order_table 创建这些索引，
+-- 此脚本只需在已有数据库上手动执行一次（索引已存在时会报 Duplicate key name，可忽略）
+-- ==============================================================================
+
+USE aifuturetrade;
+
+ALTER TABLE `algo_order` ADD INDEX `idx_status_created` (`algoStatus`, `created_at`);
+ALTER TABLE `algo_order` ADD INDEX `idx_updated_at_id` (`updated_at`, `id`);
@@ -532,7 +532,9 @@ class DatabaseInitializer:
             INDEX `idx_algo_status` (`algoStatus`),
             INDEX `idx_order_type` (`orderType`),
             INDEX `idx_trade_id` (`trade_id`),
-            INDEX `idx_created_at` (`created_at`)
+            INDEX `idx_created_at` (`created_at`),
+            INDEX `idx_status_created` (`algoStatus`, `created_at`),
+            INDEX `idx_updated_at_id` (`updated_at`, `id`)
         ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
         """
         self.command(ddl)